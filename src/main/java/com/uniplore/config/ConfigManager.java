@@ -0,0 +1,185 @@
+package com.uniplore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 配置管理类，单例模式。
+ * <p>
+ * 启动时加载一次配置并保存为不可变的 {@link SchedulerConfig} 快照。设置系统属性
+ * {@code scheduler.config.file} 时从外部文件加载，并通过文件系统监听在文件修改后热加载，
+ * 否则从 classpath 中的 config.properties 加载。
+ */
+public class ConfigManager {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigManager.class);
+
+    public static final String CONFIG_FILE_PROPERTY = "scheduler.config.file";
+    private static final String CLASSPATH_CONFIG = "config.properties";
+
+    private static ConfigManager instance;
+
+    private volatile SchedulerConfig config;
+    private final List<Consumer<SchedulerConfig>> listeners = new CopyOnWriteArrayList<>();
+    private Path configFile;
+    private WatchService watchService;
+
+    /**
+     * 以给定配置创建独立的管理器，不影响 {@link #getInstance()} 返回的全局实例。
+     */
+    public ConfigManager(SchedulerConfig config) {
+        this.config = config;
+    }
+
+    public static synchronized ConfigManager getInstance() {
+        if (instance == null) {
+            String externalFile = System.getProperty(CONFIG_FILE_PROPERTY);
+            if (externalFile != null) {
+                Path path = Paths.get(externalFile);
+                instance = new ConfigManager(loadFile(path));
+                instance.watch(path);
+            } else {
+                instance = new ConfigManager(loadClasspath());
+            }
+        }
+        return instance;
+    }
+
+    public SchedulerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 注册配置变更监听器，配置重新加载成功后以新快照回调。
+     */
+    public void addListener(Consumer<SchedulerConfig> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<SchedulerConfig> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 直接替换当前配置并通知监听器。
+     */
+    public void update(SchedulerConfig newConfig) {
+        this.config = newConfig;
+        for (Consumer<SchedulerConfig> listener : listeners) {
+            listener.accept(newConfig);
+        }
+    }
+
+    /**
+     * 从外部文件重新加载配置，解析失败时保留旧配置。
+     */
+    public boolean reload(Path path) {
+        try {
+            update(loadFile(path));
+            logger.info("配置已重新加载 : {}", config);
+            return true;
+        } catch (RuntimeException ex) {
+            logger.warn("配置重新加载失败，继续使用旧配置 : {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 监听外部配置文件，文件修改后自动重新加载。
+     */
+    public synchronized void watch(Path path) {
+        if (watchService != null) {
+            throw new IllegalStateException("Already watching " + configFile);
+        }
+        Path file = path.toAbsolutePath();
+        Path directory = file.getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to watch configuration file " + file, ex);
+        }
+        configFile = file;
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> watchLoop(service, file), "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public synchronized void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                logger.warn("关闭配置文件监听失败 : {}", configFile, ex);
+            }
+            watchService = null;
+            configFile = null;
+        }
+    }
+
+    private void watchLoop(WatchService service, Path file) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && file.getFileName().equals(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed && Files.exists(file)) {
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // 停止监听
+        }
+    }
+
+    /**
+     * 从配置文件读取配置，未设置的项使用默认值；文件无法读取时抛出 {@link IllegalStateException}。
+     */
+    public static SchedulerConfig loadFile(Path path) {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to load configuration from " + path, ex);
+        }
+        return SchedulerConfig.fromProperties(properties);
+    }
+
+    static SchedulerConfig loadClasspath() {
+        Properties properties = new Properties();
+        try (InputStream input = ConfigManager.class.getClassLoader().getResourceAsStream(CLASSPATH_CONFIG)) {
+            if (input == null) {
+                logger.warn("Unable to find {}, using defaults", CLASSPATH_CONFIG);
+                return SchedulerConfig.defaults();
+            }
+            properties.load(input);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to load configuration from classpath " + CLASSPATH_CONFIG, ex);
+        }
+        return SchedulerConfig.fromProperties(properties);
+    }
+}
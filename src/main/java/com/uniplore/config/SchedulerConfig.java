@@ -0,0 +1,425 @@
+package com.uniplore.config;
+
+import com.uniplore.event.EventLevel;
+import com.uniplore.execution.ExecutionMode;
+import com.uniplore.job.service.impl.ShardKey;
+import com.uniplore.queue.QueuePolicy;
+import com.uniplore.resouce.management.PlacementStrategy;
+import com.uniplore.scheduler.SchedulingMode;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 调度配置类，不可变的配置快照。
+ * <p>
+ * 配置只在加载或重新加载时解析一次，之后所有组件直接读取字段，分配等热点路径上没有任何I/O。
+ */
+public final class SchedulerConfig {
+    public static final String CPU_TOTAL = "cpu.total";
+    public static final String MEMORY_TOTAL = "memory.total";
+    public static final String RESOURCE_WARNING_THRESHOLD = "resource.warning.threshold";
+    public static final String QUEUE_SIZE = "queue.size";
+    public static final String WAITING_QUEUE_SIZE = "waiting.queue.size";
+    public static final String SCHEDULING_MODE = "scheduling.mode";
+    public static final String BACKFILL_WINDOW = "backfill.window";
+    public static final String EVENT_LOG_LEVEL = "event.log.level";
+    public static final String EVENT_LOG_CAPACITY = "event.log.capacity";
+    public static final String EXECUTION_MODE = "execution.mode";
+    public static final String TIMING_WHEEL_TICK = "timing.wheel.tick";
+    public static final String JOURNAL_DIR = "journal.dir";
+    public static final String JOURNAL_SEGMENT_SIZE = "journal.segment.size";
+    public static final String JOURNAL_FLUSH_INTERVAL = "journal.flush.interval";
+    public static final String JOURNAL_SNAPSHOT_INTERVAL = "journal.snapshot.interval";
+    public static final String RESOURCE_LEDGER_FILE = "resource.ledger.file";
+    public static final String QUEUE_POLICY = "queue.policy";
+    public static final String FAIR_SHARE_WEIGHTS = "fair.share.weights";
+    public static final String QUEUE_AGING_INTERVAL = "queue.aging.interval";
+    public static final String CAPACITY_QUEUES = "capacity.queues";
+    public static final String CAPACITY_ROUTING = "capacity.routing";
+    public static final String SHARD_COUNT = "shard.count";
+    public static final String SHARD_KEY = "shard.key";
+    public static final String SHARD_REBALANCE_INTERVAL = "shard.rebalance.interval";
+    public static final String NODES = "nodes";
+    public static final String PLACEMENT_STRATEGY = "placement.strategy";
+    public static final String JOB_EVENT_BUFFER = "job.event.buffer";
+    public static final String DAG_PRIORITY_BOOST = "dag.priority.boost";
+    public static final String RESERVATION_SLOT = "reservation.slot";
+    public static final String RESERVATION_HORIZON = "reservation.horizon";
+
+    private final Properties properties;
+    private final int totalCpu;
+    private final int totalMemory;
+    private final int warningThreshold;
+    private final int queueSize;
+    private final int waitingQueueSize;
+    private final SchedulingMode schedulingMode;
+    private final int backfillWindow;
+    private final EventLevel eventLogLevel;
+    private final int eventLogCapacity;
+    private final ExecutionMode executionMode;
+    private final int timingWheelTick;
+    private final String journalDir;
+    private final int journalSegmentSize;
+    private final int journalFlushInterval;
+    private final int journalSnapshotInterval;
+    private final String resourceLedgerFile;
+    private final QueuePolicy queuePolicy;
+    private final Map<String, Double> fairShareWeights;
+    private final int queueAgingInterval;
+    private final String capacityQueues;
+    private final String capacityRouting;
+    private final int shardCount;
+    private final ShardKey shardKey;
+    private final int shardRebalanceInterval;
+    private final String nodes;
+    private final PlacementStrategy placementStrategy;
+    private final int jobEventBuffer;
+    private final int dagPriorityBoost;
+    private final int reservationSlot;
+    private final int reservationHorizon;
+
+    public SchedulerConfig(int totalCpu, int totalMemory, int warningThreshold, int queueSize, int waitingQueueSize) {
+        this(toProperties(totalCpu, totalMemory, warningThreshold, queueSize, waitingQueueSize));
+    }
+
+    private SchedulerConfig(Properties source) {
+        this.properties = new Properties();
+        this.properties.putAll(source);
+        this.totalCpu = nonNegative(CPU_TOTAL, intProperty(CPU_TOTAL, 20));
+        this.totalMemory = nonNegative(MEMORY_TOTAL, intProperty(MEMORY_TOTAL, 20480));
+        this.warningThreshold = nonNegative(RESOURCE_WARNING_THRESHOLD, intProperty(RESOURCE_WARNING_THRESHOLD, 95));
+        this.queueSize = positive(QUEUE_SIZE, intProperty(QUEUE_SIZE, 10));
+        this.waitingQueueSize = nonNegative(WAITING_QUEUE_SIZE, intProperty(WAITING_QUEUE_SIZE, 5));
+        this.schedulingMode = SchedulingMode.fromConfig(properties.getProperty(SCHEDULING_MODE, SchedulingMode.HEAD_OF_LINE.configName()));
+        this.backfillWindow = positive(BACKFILL_WINDOW, intProperty(BACKFILL_WINDOW, 64));
+        this.eventLogLevel = enumProperty(EVENT_LOG_LEVEL, EventLevel.class, EventLevel.INFO);
+        this.eventLogCapacity = positive(EVENT_LOG_CAPACITY, intProperty(EVENT_LOG_CAPACITY, 8192));
+        this.executionMode = ExecutionMode.fromConfig(properties.getProperty(EXECUTION_MODE, ExecutionMode.TIMING_WHEEL.configName()));
+        this.timingWheelTick = positive(TIMING_WHEEL_TICK, intProperty(TIMING_WHEEL_TICK, 10));
+        this.journalDir = properties.getProperty(JOURNAL_DIR, "").trim();
+        this.journalSegmentSize = positive(JOURNAL_SEGMENT_SIZE, intProperty(JOURNAL_SEGMENT_SIZE, 64));
+        this.journalFlushInterval = positive(JOURNAL_FLUSH_INTERVAL, intProperty(JOURNAL_FLUSH_INTERVAL, 10));
+        this.journalSnapshotInterval = nonNegative(JOURNAL_SNAPSHOT_INTERVAL, intProperty(JOURNAL_SNAPSHOT_INTERVAL, 300000));
+        this.resourceLedgerFile = properties.getProperty(RESOURCE_LEDGER_FILE, "").trim();
+        this.queuePolicy = QueuePolicy.fromConfig(properties.getProperty(QUEUE_POLICY, QueuePolicy.PRIORITY.configName()));
+        this.fairShareWeights = weightsProperty(FAIR_SHARE_WEIGHTS);
+        this.queueAgingInterval = nonNegative(QUEUE_AGING_INTERVAL, intProperty(QUEUE_AGING_INTERVAL, 60000));
+        this.capacityQueues = properties.getProperty(CAPACITY_QUEUES, "").trim();
+        this.capacityRouting = properties.getProperty(CAPACITY_ROUTING, "").trim();
+        this.shardCount = positive(SHARD_COUNT, intProperty(SHARD_COUNT, 1));
+        this.shardKey = ShardKey.fromConfig(properties.getProperty(SHARD_KEY, ShardKey.USER.configName()));
+        this.shardRebalanceInterval = positive(SHARD_REBALANCE_INTERVAL, intProperty(SHARD_REBALANCE_INTERVAL, 100));
+        this.nodes = properties.getProperty(NODES, "").trim();
+        this.placementStrategy = PlacementStrategy.fromConfig(properties.getProperty(PLACEMENT_STRATEGY, PlacementStrategy.BEST_FIT.configName()));
+        this.jobEventBuffer = positive(JOB_EVENT_BUFFER, intProperty(JOB_EVENT_BUFFER, 256));
+        this.dagPriorityBoost = nonNegative(DAG_PRIORITY_BOOST, intProperty(DAG_PRIORITY_BOOST, 2));
+        this.reservationSlot = positive(RESERVATION_SLOT, intProperty(RESERVATION_SLOT, 1000));
+        this.reservationHorizon = positive(RESERVATION_HORIZON, intProperty(RESERVATION_HORIZON, 3600));
+    }
+
+    /**
+     * 默认配置，与 config.properties 中的默认值一致。
+     */
+    public static SchedulerConfig defaults() {
+        return new SchedulerConfig(new Properties());
+    }
+
+    public static SchedulerConfig fromProperties(Properties properties) {
+        return new SchedulerConfig(properties);
+    }
+
+    /**
+     * 返回修改了单个配置项的新快照，原快照不变。
+     */
+    public SchedulerConfig with(String key, Object value) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        copy.setProperty(key, String.valueOf(value));
+        return new SchedulerConfig(copy);
+    }
+
+    public int getTotalCpu() {
+        return totalCpu;
+    }
+
+    public int getTotalMemory() {
+        return totalMemory;
+    }
+
+    public int getWarningThreshold() {
+        return warningThreshold;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getWaitingQueueSize() {
+        return waitingQueueSize;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    /**
+     * 回填调度时在等待队列中向后查看的作业数量上限。
+     */
+    public int getBackfillWindow() {
+        return backfillWindow;
+    }
+
+    /**
+     * 低于该级别的调度事件不记录。
+     */
+    public EventLevel getEventLogLevel() {
+        return eventLogLevel;
+    }
+
+    /**
+     * 事件日志环形缓冲区的容量，缓冲区满时丢弃新事件。
+     */
+    public int getEventLogCapacity() {
+        return eventLogCapacity;
+    }
+
+    /**
+     * 作业执行模式，fixed-pool 时线程数为 queue.size。
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * timing-wheel 执行模式的刻度（毫秒），作业完成时间按刻度向上取整。
+     */
+    public int getTimingWheelTick() {
+        return timingWheelTick;
+    }
+
+    /**
+     * 预写日志的目录，为空时不写日志，重启后不恢复作业。
+     */
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    /**
+     * 日志分段文件的大小（MB）。
+     */
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    /**
+     * 日志组提交的刷盘间隔（毫秒）。
+     */
+    public int getJournalFlushInterval() {
+        return journalFlushInterval;
+    }
+
+    /**
+     * 生成日志快照并截断日志的间隔（毫秒），为 0 时不自动生成快照。
+     */
+    public int getJournalSnapshotInterval() {
+        return journalSnapshotInterval;
+    }
+
+    /**
+     * 多个调度进程共享的资源账本文件，为空时资源账本只在本进程内。
+     */
+    public String getResourceLedgerFile() {
+        return resourceLedgerFile;
+    }
+
+    /**
+     * 等待队列的排序策略。
+     */
+    public QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+
+    /**
+     * fair-share 策略下各用户的权重，格式为 user:weight，以逗号分隔，未列出的用户权重为 1。
+     */
+    public Map<String, Double> getFairShareWeights() {
+        return fairShareWeights;
+    }
+
+    /**
+     * fair-share 策略下作业每等待多少毫秒优先级提高一级，为 0 时不老化。
+     */
+    public int getQueueAgingInterval() {
+        return queueAgingInterval;
+    }
+
+    /**
+     * capacity 策略下的队列树，格式为 path:guaranteed:max，以逗号分隔，份额为父队列的百分比，例如 eng:60:100,eng.search:50:100。
+     */
+    public String getCapacityQueues() {
+        return capacityQueues;
+    }
+
+    /**
+     * capacity 策略下的路由规则，格式为 user:name=path 或 type:name=path，以逗号分隔。
+     */
+    public String getCapacityRouting() {
+        return capacityRouting;
+    }
+
+    /**
+     * {@code ShardedJobManagerService} 的分片数量。
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 作业按用户还是按作业ID划分到分片。
+     */
+    public ShardKey getShardKey() {
+        return shardKey;
+    }
+
+    /**
+     * 在分片之间重新分配资源的间隔（毫秒）。
+     */
+    public int getShardRebalanceInterval() {
+        return shardRebalanceInterval;
+    }
+
+    /**
+     * 节点列表，格式为 id:cpu:memory，以逗号分隔；为空时不区分节点，只按资源总量分配，配置后资源总量为各节点之和。
+     */
+    public String getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 配置了节点列表时选择节点的策略。
+     */
+    public PlacementStrategy getPlacementStrategy() {
+        return placementStrategy;
+    }
+
+    /**
+     * 每个作业事件订阅者的缓冲区大小，缓冲区满时丢弃新事件。
+     */
+    public int getJobEventBuffer() {
+        return jobEventBuffer;
+    }
+
+    /**
+     * 作业图中关键路径上的作业最多提升的优先级，0 表示不提升。
+     */
+    public int getDagPriorityBoost() {
+        return dagPriorityBoost;
+    }
+
+    /**
+     * 预约日历的时间片长度（毫秒），调度模式为 reservation 时使用。
+     */
+    public int getReservationSlot() {
+        return reservationSlot;
+    }
+
+    /**
+     * 预约日历覆盖的时间片数量，更远的时间不能预约。
+     */
+    public int getReservationHorizon() {
+        return reservationHorizon;
+    }
+
+    private <E extends Enum<E>> E enumProperty(String key, Class<E> type, E defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, ex);
+        }
+    }
+
+    private Map<String, Double> weightsProperty(String key) {
+        String value = properties.getProperty(key, "").trim();
+        if (value.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String pair : value.split(",")) {
+            int separator = pair.lastIndexOf(':');
+            try {
+                double weight = Double.parseDouble(pair.substring(separator + 1).trim());
+                if (separator <= 0 || !(weight > 0)) {
+                    throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+                }
+                weights.put(pair.substring(0, separator).trim(), weight);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, ex);
+            }
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    private int intProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, ex);
+        }
+    }
+
+    private static int nonNegative(String key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(key + " must not be negative: " + value);
+        }
+        return value;
+    }
+
+    private static int positive(String key, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(key + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static Properties toProperties(int totalCpu, int totalMemory, int warningThreshold, int queueSize, int waitingQueueSize) {
+        Properties properties = new Properties();
+        properties.setProperty(CPU_TOTAL, String.valueOf(totalCpu));
+        properties.setProperty(MEMORY_TOTAL, String.valueOf(totalMemory));
+        properties.setProperty(RESOURCE_WARNING_THRESHOLD, String.valueOf(warningThreshold));
+        properties.setProperty(QUEUE_SIZE, String.valueOf(queueSize));
+        properties.setProperty(WAITING_QUEUE_SIZE, String.valueOf(waitingQueueSize));
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulerConfig{" + CPU_TOTAL + "=" + totalCpu + ", " + MEMORY_TOTAL + "=" + totalMemory
+                + ", " + RESOURCE_WARNING_THRESHOLD + "=" + warningThreshold + ", " + QUEUE_SIZE + "=" + queueSize
+                + ", " + WAITING_QUEUE_SIZE + "=" + waitingQueueSize + ", " + SCHEDULING_MODE + "=" + schedulingMode.configName()
+                + ", " + BACKFILL_WINDOW + "=" + backfillWindow + ", " + EVENT_LOG_LEVEL + "=" + eventLogLevel
+                + ", " + EVENT_LOG_CAPACITY + "=" + eventLogCapacity + ", " + EXECUTION_MODE + "=" + executionMode.configName()
+                + ", " + TIMING_WHEEL_TICK + "=" + timingWheelTick + ", " + JOURNAL_DIR + "=" + journalDir
+                + ", " + JOURNAL_SEGMENT_SIZE + "=" + journalSegmentSize + ", " + JOURNAL_FLUSH_INTERVAL + "=" + journalFlushInterval
+                + ", " + JOURNAL_SNAPSHOT_INTERVAL + "=" + journalSnapshotInterval
+                + ", " + RESOURCE_LEDGER_FILE + "=" + resourceLedgerFile + ", " + QUEUE_POLICY + "=" + queuePolicy.configName()
+                + ", " + FAIR_SHARE_WEIGHTS + "=" + fairShareWeights + ", " + QUEUE_AGING_INTERVAL + "=" + queueAgingInterval
+                + ", " + CAPACITY_QUEUES + "=" + capacityQueues + ", " + CAPACITY_ROUTING + "=" + capacityRouting
+                + ", " + SHARD_COUNT + "=" + shardCount + ", " + SHARD_KEY + "=" + shardKey.configName()
+                + ", " + SHARD_REBALANCE_INTERVAL + "=" + shardRebalanceInterval + ", " + NODES + "=" + nodes
+                + ", " + PLACEMENT_STRATEGY + "=" + placementStrategy.configName()
+                + ", " + JOB_EVENT_BUFFER + "=" + jobEventBuffer + ", " + DAG_PRIORITY_BOOST + "=" + dagPriorityBoost
+                + ", " + RESERVATION_SLOT + "=" + reservationSlot + ", " + RESERVATION_HORIZON + "=" + reservationHorizon + "}";
+    }
+}
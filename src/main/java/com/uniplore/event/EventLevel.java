@@ -0,0 +1,11 @@
+package com.uniplore.event;
+
+/**
+ * 调度事件级别，低于当前级别的事件在记录入口处直接丢弃，不产生任何开销。
+ */
+public enum EventLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    OFF
+}
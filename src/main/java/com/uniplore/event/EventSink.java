@@ -0,0 +1,14 @@
+package com.uniplore.event;
+
+/**
+ * 事件输出接口，由事件日志的后台写线程调用。
+ */
+public interface EventSink {
+    void write(SchedulerEvent event);
+
+    /**
+     * 一批事件写完后调用，可在此刷新缓冲。
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,33 @@
+package com.uniplore.event;
+
+/**
+ * 作业生命周期与资源事件类型。
+ */
+public enum EventType {
+    /** 作业分配到资源并开始运行 */
+    ADMIT(EventLevel.INFO),
+    /** 作业资源不足，进入等待队列 */
+    WAIT(EventLevel.INFO),
+    /** 运行中的作业被移回等待队列以腾出资源 */
+    EVICT(EventLevel.WARN),
+    /** 作业完成或被移除，归还资源 */
+    RELEASE(EventLevel.INFO),
+    /** 等待队列已满，作业被丢弃 */
+    DROP(EventLevel.WARN),
+    /** 作业被拒绝，例如作业ID重复 */
+    REJECT(EventLevel.WARN),
+    /** 资源账本完成一次分配 */
+    ALLOCATE(EventLevel.DEBUG),
+    /** 资源使用率超过告警阈值 */
+    RESOURCE_WARNING(EventLevel.WARN);
+
+    private final EventLevel level;
+
+    EventType(EventLevel level) {
+        this.level = level;
+    }
+
+    public EventLevel getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,28 @@
+package com.uniplore.event;
+
+/**
+ * 调度事件的只读视图。
+ * <p>
+ * 事件日志中的事件槽会被复用，视图只在 {@link EventSink#write(SchedulerEvent)} 回调期间有效，
+ * 需要保留时应复制其中的字段。
+ */
+public interface SchedulerEvent {
+    EventType getType();
+
+    /**
+     * 事件发生时间（毫秒时间戳）。
+     */
+    long getTimestamp();
+
+    String getJobId();
+
+    String getJobName();
+
+    int getCpu();
+
+    int getMemory();
+
+    int getAvailableCpu();
+
+    int getAvailableMemory();
+}
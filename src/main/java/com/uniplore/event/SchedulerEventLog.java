@@ -0,0 +1,230 @@
+package com.uniplore.event;
+
+import com.uniplore.config.ConfigManager;
+import com.uniplore.config.SchedulerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步调度事件日志，单例模式。
+ * <p>
+ * 调度线程把事件字段写入预先分配好的环形缓冲区槽位后立即返回，由一个后台写线程批量取出并交给
+ * {@link EventSink} 输出。缓冲区满时丢弃新事件并计数，调度线程永不阻塞；未启用的事件类型在入口处直接返回。
+ * 输出失败的事件同样计入丢弃数量。
+ */
+public class SchedulerEventLog {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerEventLog.class);
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private static SchedulerEventLog instance;
+
+    private final Slot[] slots;
+    private final AtomicLongArray published; // 每个槽位已发布的序号
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(); // 下一个可申请的序号
+    private volatile long consumed; // 写线程已处理到的序号
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int enabledMask;
+    private volatile EventSink sink;
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    public SchedulerEventLog(int capacity, EventLevel level, EventSink sink) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.sink = sink;
+        setLevel(level);
+        this.writer = new Thread(this::drainLoop, "scheduler-event-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static synchronized SchedulerEventLog getInstance() {
+        if (instance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            SchedulerConfig config = configManager.getConfig();
+            instance = new SchedulerEventLog(config.getEventLogCapacity(), config.getEventLogLevel(), new Slf4jEventSink());
+            SchedulerEventLog log = instance;
+            configManager.addListener(newConfig -> log.setLevel(newConfig.getEventLogLevel()));
+        }
+        return instance;
+    }
+
+    /**
+     * 设置事件级别，低于该级别的事件不再记录。
+     */
+    public void setLevel(EventLevel level) {
+        int newMask = 0;
+        for (EventType type : EventType.values()) {
+            if (level != EventLevel.OFF && type.getLevel().compareTo(level) >= 0) {
+                newMask |= 1 << type.ordinal();
+            }
+        }
+        enabledMask = newMask;
+    }
+
+    public void setEnabled(EventType type, boolean enabled) {
+        if (enabled) {
+            enabledMask |= 1 << type.ordinal();
+        } else {
+            enabledMask &= ~(1 << type.ordinal());
+        }
+    }
+
+    public boolean isEnabled(EventType type) {
+        return (enabledMask & (1 << type.ordinal())) != 0;
+    }
+
+    public void setSink(EventSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 记录一个事件。缓冲区满时丢弃并返回 false。
+     */
+    public boolean record(EventType type, String jobId, String jobName, int cpu, int memory,
+                          int availableCpu, int availableMemory) {
+        if (!isEnabled(type)) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        Slot slot = slots[index];
+        slot.type = type;
+        slot.timestamp = System.currentTimeMillis();
+        slot.jobId = jobId;
+        slot.jobName = jobName;
+        slot.cpu = cpu;
+        slot.memory = memory;
+        slot.availableCpu = availableCpu;
+        slot.availableMemory = availableMemory;
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * 因缓冲区满或输出失败而丢弃的事件数量。
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 等待写线程处理完调用前已记录的全部事件。
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (consumed < target && running) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+    }
+
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(writer);
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (running) {
+            int index = (int) (next & mask);
+            if (published.get(index) != next) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            EventSink currentSink = sink;
+            do {
+                Slot slot = slots[index];
+                try {
+                    currentSink.write(slot);
+                } catch (RuntimeException ex) {
+                    dropped.incrementAndGet();
+                    logger.warn("Event sink failed, dropping {} event for job {}", slot.type, slot.jobId, ex);
+                }
+                slot.jobId = null;
+                slot.jobName = null;
+                next++;
+                consumed = next;
+                index = (int) (next & mask);
+            } while (published.get(index) == next);
+            try {
+                currentSink.flush();
+            } catch (RuntimeException ex) {
+                logger.warn("Event sink flush failed", ex);
+            }
+        }
+    }
+
+    private static final class Slot implements SchedulerEvent {
+        private EventType type;
+        private long timestamp;
+        private String jobId;
+        private String jobName;
+        private int cpu;
+        private int memory;
+        private int availableCpu;
+        private int availableMemory;
+
+        @Override
+        public EventType getType() {
+            return type;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public String getJobName() {
+            return jobName;
+        }
+
+        @Override
+        public int getCpu() {
+            return cpu;
+        }
+
+        @Override
+        public int getMemory() {
+            return memory;
+        }
+
+        @Override
+        public int getAvailableCpu() {
+            return availableCpu;
+        }
+
+        @Override
+        public int getAvailableMemory() {
+            return availableMemory;
+        }
+    }
+}
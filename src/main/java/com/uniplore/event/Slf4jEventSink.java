@@ -0,0 +1,41 @@
+package com.uniplore.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 将调度事件写入 slf4j 日志，格式化在后台写线程中进行，调度线程不做任何字符串拼接。
+ */
+public class Slf4jEventSink implements EventSink {
+    private static final Logger logger = LoggerFactory.getLogger("com.uniplore.scheduler.events");
+
+    private final StringBuilder buffer = new StringBuilder(128);
+
+    @Override
+    public void write(SchedulerEvent event) {
+        buffer.setLength(0);
+        buffer.append(event.getType()).append(' ');
+        if (event.getJobId() != null) {
+            buffer.append("job=").append(event.getJobId());
+            if (event.getJobName() != null) {
+                buffer.append(" (").append(event.getJobName()).append(')');
+            }
+            buffer.append(' ');
+        }
+        buffer.append("cpu=").append(event.getCpu())
+                .append(" memory=").append(event.getMemory()).append("MB")
+                .append(" available: CPU=").append(event.getAvailableCpu())
+                .append(", Memory=").append(event.getAvailableMemory()).append("MB");
+        switch (event.getType().getLevel()) {
+            case WARN:
+                logger.warn(buffer.toString());
+                break;
+            case INFO:
+                logger.info(buffer.toString());
+                break;
+            default:
+                logger.debug(buffer.toString());
+                break;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.uniplore.execution;
+
+import java.util.List;
+
+/**
+ * 作业完成处理器，同一时刻完成的作业一次性回调。
+ */
+@FunctionalInterface
+public interface CompletionHandler<T> {
+    void completed(List<T> finished);
+}
@@ -0,0 +1,39 @@
+package com.uniplore.execution;
+
+/**
+ * 作业执行模式，决定准入后的作业由哪种线程运行。
+ */
+public enum ExecutionMode {
+    /**
+     * 固定大小的平台线程池，线程数为 queue.size，线程用完时已准入的作业需要再次排队。
+     */
+    FIXED_POOL("fixed-pool"),
+    /**
+     * 每个作业一个虚拟线程，并发只受 {@code ResourceManager} 的资源限制。需要 JDK 21 及以上运行，
+     * 项目以 Java 17 编译，因此不是默认模式；运行时不支持虚拟线程时退回按需创建的平台线程并记录警告。
+     */
+    VIRTUAL_THREADS("virtual-threads"),
+    /**
+     * 作业不占用线程，完成时间登记在分层时间轮上，由一个推进线程按刻度批量完成。
+     */
+    TIMING_WHEEL("timing-wheel");
+
+    private final String configName;
+
+    ExecutionMode(String configName) {
+        this.configName = configName;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    public static ExecutionMode fromConfig(String value) {
+        for (ExecutionMode mode : values()) {
+            if (mode.configName.equalsIgnoreCase(value.trim()) || mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown execution mode: " + value);
+    }
+}
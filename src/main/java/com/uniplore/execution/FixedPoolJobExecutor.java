@@ -0,0 +1,39 @@
+package com.uniplore.execution;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 固定线程池执行器类，线程数随配置的 queue.size 调整。
+ */
+public class FixedPoolJobExecutor<T> extends ThreadJobExecutor<T> {
+    private final ThreadPoolExecutor pool;
+
+    public FixedPoolJobExecutor(int poolSize, CompletionHandler<T> handler) {
+        this(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                JobExecutors.threadFactory("job-runner-")), handler);
+    }
+
+    private FixedPoolJobExecutor(ThreadPoolExecutor pool, CompletionHandler<T> handler) {
+        super(pool, handler);
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void resize(int parallelism) {
+        // 先调大的一端，保证任何时刻 core <= max
+        if (parallelism >= pool.getCorePoolSize()) {
+            pool.setMaximumPoolSize(parallelism);
+            pool.setCorePoolSize(parallelism);
+        } else {
+            pool.setCorePoolSize(parallelism);
+            pool.setMaximumPoolSize(parallelism);
+        }
+    }
+
+    @Override
+    public ExecutionMode getMode() {
+        return ExecutionMode.FIXED_POOL;
+    }
+}
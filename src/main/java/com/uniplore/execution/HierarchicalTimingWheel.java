@@ -0,0 +1,320 @@
+package com.uniplore.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 分层时间轮类，按截止时间触发大量定时任务。
+ * <p>
+ * 每层有 wheelSize 个槽，第 L 层一个槽覆盖 wheelSize^L 个刻度；任务按剩余时间放入对应层，
+ * 低层转完一圈时把上一层当前槽中的任务下放。槽是双向链表，插入和取消都是 O(1)，
+ * 内存与未到期任务数成正比，每个刻度的开销只与本刻度到期和下放的任务数有关。
+ * <p>
+ * 提交和取消只写入无锁队列，时间轮本身只由推进线程修改；同一次推进中到期的任务一次性交给处理器。
+ */
+public class HierarchicalTimingWheel<T> {
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final Bucket<T>[][] levels;
+    private final Consumer<List<T>> expiryHandler;
+    private final LongSupplier clock;
+    private final long startNanos;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private long currentTick;
+    private volatile Thread ticker;
+    private volatile boolean draining;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, Consumer<List<T>> expiryHandler) {
+        this(tickMillis, wheelSize, levelCount, expiryHandler, System::nanoTime);
+    }
+
+    /**
+     * @param clock 纳秒时钟，测试时可传入手动推进的时钟并直接调用 {@link #advance()}
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, Consumer<List<T>> expiryHandler, LongSupplier clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two: " + wheelSize);
+        }
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        if (levelCount < 1 || (long) bits * levelCount > 62) {
+            throw new IllegalArgumentException("invalid level count: " + levelCount);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        @SuppressWarnings("unchecked") // 泛型数组只能按通配类型创建，桶里只会放入本时间轮的任务
+        Bucket<T>[][] buckets = (Bucket<T>[][]) new Bucket<?>[levelCount][wheelSize];
+        this.levels = buckets;
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+        this.expiryHandler = expiryHandler;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    /**
+     * 登记一个 delayMillis 毫秒后到期的任务，可以从任意线程调用。
+     */
+    public Timeout<T> schedule(T payload, long delayMillis) {
+        long elapsed = clock.getAsLong() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout<T> timeout = new Timeout<>(this, payload, (elapsed + tickNanos - 1) / tickNanos);
+        size.incrementAndGet();
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * 未到期且未取消的任务数。
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 启动推进线程，每个刻度唤醒一次。
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "timing-wheel-ticker");
+        thread.setDaemon(true);
+        ticker = thread;
+        thread.start();
+    }
+
+    /**
+     * 不再需要推进线程时调用：剩余任务全部到期后推进线程退出。
+     */
+    public void drainAndStop() {
+        draining = true;
+        LockSupport.unpark(ticker);
+    }
+
+    /**
+     * 立即停止推进线程，剩余任务不再触发。
+     */
+    public synchronized void stop() {
+        Thread thread = ticker;
+        ticker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 把时间轮推进到当前时钟，返回本次到期的任务数；到期任务一次性交给处理器。
+     * 只能由一个线程调用。
+     */
+    public synchronized int advance() {
+        long targetTick = (clock.getAsLong() - startNanos) / tickNanos;
+        List<T> expired = new ArrayList<>();
+        cleanCancelled();
+        transferPending(expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(expired);
+            expire(levels[0][(int) (currentTick & mask)], expired);
+            // 推进过程中新提交的任务可能已经在之前的刻度到期
+            transferPending(expired);
+        }
+        if (!expired.isEmpty()) {
+            size.addAndGet(-expired.size());
+            expiryHandler.accept(Collections.unmodifiableList(expired));
+        }
+        return expired.size();
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        while (ticker == self && !self.isInterrupted()) {
+            try {
+                advance();
+            } catch (RuntimeException ex) {
+                // 处理器异常不能让推进线程退出，否则之后的任务都不会到期
+                self.getUncaughtExceptionHandler().uncaughtException(self, ex);
+            }
+            if (draining && size.get() == 0) {
+                break;
+            }
+            long nextTickAt = startNanos + (currentTick + 1) * tickNanos;
+            long waitNanos = nextTickAt - clock.getAsLong();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+        }
+    }
+
+    private void transferPending(List<T> expired) {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() == INIT) {
+                place(timeout, expired);
+            }
+        }
+    }
+
+    private void cleanCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.unlink(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout, List<T> expired) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                expired.add(timeout.payload);
+            }
+            return;
+        }
+        for (int level = 0; level < levels.length; level++) {
+            if (delta < 1L << (bits * (level + 1))) {
+                levels[level][(int) ((timeout.deadlineTick >>> (bits * level)) & mask)].link(timeout);
+                return;
+            }
+        }
+        // 超出最高层范围：放在最高层下一圈才会下放的槽，下放时重新计算位置
+        int top = levels.length - 1;
+        levels[top][(int) (((currentTick >>> (bits * top)) - 1) & mask)].link(timeout);
+    }
+
+    // 从最高层开始，把低层刚好转完一圈的各层当前槽下放
+    private void cascade(List<T> expired) {
+        int highest = 0;
+        for (int level = 1; level < levels.length; level++) {
+            if ((currentTick & ((1L << (bits * level)) - 1)) != 0) {
+                break;
+            }
+            highest = level;
+        }
+        for (int level = highest; level >= 1; level--) {
+            Bucket<T> bucket = levels[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            Timeout<T> timeout = bucket.clear();
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                timeout.bucket = null;
+                if (timeout.state.get() == INIT) {
+                    place(timeout, expired);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(Bucket<T> bucket, List<T> expired) {
+        Timeout<T> timeout = bucket.clear();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+            if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                expired.add(timeout.payload);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * 时间轮中的一个定时任务。
+     */
+    public static final class Timeout<T> {
+        private final HierarchicalTimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private Bucket<T> bucket;
+
+        private Timeout(HierarchicalTimingWheel<T> wheel, T payload, long deadlineTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * 取消任务，任务已到期或已取消时返回 false。
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            wheel.size.decrementAndGet();
+            wheel.cancelled.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        private void link(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void unlink(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private Timeout<T> clear() {
+            Timeout<T> first = head;
+            head = null;
+            return first;
+        }
+    }
+}
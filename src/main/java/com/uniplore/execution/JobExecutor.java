@@ -0,0 +1,30 @@
+package com.uniplore.execution;
+
+/**
+ * 作业执行器接口，运行已准入的作业，作业到达执行时间后回调 {@link CompletionHandler}。
+ */
+public interface JobExecutor<T> extends AutoCloseable {
+    /**
+     * 启动作业，durationMillis 毫秒后完成；执行器已关闭时抛出 {@link java.util.concurrent.RejectedExecutionException}。
+     */
+    JobRun start(T job, long durationMillis);
+
+    /**
+     * 调整并发执行的线程数，不限制线程数的执行器忽略该调用。
+     */
+    default void resize(int parallelism) {
+    }
+
+    ExecutionMode getMode();
+
+    /**
+     * 不再接受新作业，已启动的作业继续运行到结束。
+     */
+    void shutdown();
+
+    /**
+     * 不再接受新作业，正在运行的作业被取消且不回调完成处理器。
+     */
+    @Override
+    void close();
+}
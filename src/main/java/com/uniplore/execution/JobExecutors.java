@@ -0,0 +1,38 @@
+package com.uniplore.execution;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 作业执行器工厂类。
+ */
+public final class JobExecutors {
+    private JobExecutors() {
+    }
+
+    /**
+     * @param poolSize   fixed-pool 模式的线程数
+     * @param tickMillis timing-wheel 模式的刻度
+     */
+    public static <T> JobExecutor<T> create(ExecutionMode mode, int poolSize, long tickMillis, CompletionHandler<T> handler) {
+        switch (mode) {
+            case FIXED_POOL:
+                return new FixedPoolJobExecutor<>(poolSize, handler);
+            case VIRTUAL_THREADS:
+                return new VirtualThreadJobExecutor<>(handler);
+            case TIMING_WHEEL:
+                return new TimingWheelJobExecutor<>(tickMillis, handler);
+            default:
+                throw new IllegalArgumentException("Unknown execution mode: " + mode);
+        }
+    }
+
+    static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
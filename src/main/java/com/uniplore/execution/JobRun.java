@@ -0,0 +1,11 @@
+package com.uniplore.execution;
+
+/**
+ * 正在运行的作业句柄。
+ */
+public interface JobRun {
+    /**
+     * 取消作业，取消后不再回调完成处理器；作业已完成或已取消时返回 false。
+     */
+    boolean cancel();
+}
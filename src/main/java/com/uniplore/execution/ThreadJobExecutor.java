@@ -0,0 +1,43 @@
+package com.uniplore.execution;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 线程执行器基类，每个作业占用一个线程休眠到执行时间结束，然后回调完成处理器。
+ */
+abstract class ThreadJobExecutor<T> implements JobExecutor<T> {
+    private final ExecutorService executor;
+    private final CompletionHandler<T> handler;
+
+    ThreadJobExecutor(ExecutorService executor, CompletionHandler<T> handler) {
+        this.executor = executor;
+        this.handler = handler;
+    }
+
+    @Override
+    public JobRun start(T job, long durationMillis) {
+        Future<?> future = executor.submit(() -> {
+            try {
+                // 模拟作业执行时间
+                Thread.sleep(durationMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // 作业被取消或执行器关闭
+            }
+            handler.completed(List.of(job));
+        });
+        return () -> future.cancel(true);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.uniplore.execution;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 时间轮执行器类，作业不占用线程，只在时间轮上登记完成时间。
+ * <p>
+ * 由一个推进线程按刻度触发到期作业，同一刻度完成的作业一次性交给完成处理器，
+ * 调度器只需为整批作业释放一次资源、处理一次等待队列。
+ */
+public class TimingWheelJobExecutor<T> implements JobExecutor<T> {
+    private static final int WHEEL_SIZE = 256;
+    private static final int LEVELS = 4;
+
+    private final HierarchicalTimingWheel<T> wheel;
+    private volatile boolean shutdown;
+
+    public TimingWheelJobExecutor(long tickMillis, CompletionHandler<T> handler) {
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, LEVELS, handler::completed);
+        this.wheel.start();
+    }
+
+    @Override
+    public JobRun start(T job, long durationMillis) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Timing wheel executor is shut down");
+        }
+        HierarchicalTimingWheel.Timeout<T> timeout = wheel.schedule(job, durationMillis);
+        return timeout::cancel;
+    }
+
+    @Override
+    public ExecutionMode getMode() {
+        return ExecutionMode.TIMING_WHEEL;
+    }
+
+    /**
+     * 尚未完成的作业数。
+     */
+    public int pending() {
+        return wheel.size();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        wheel.drainAndStop();
+    }
+
+    @Override
+    public void close() {
+        shutdown = true;
+        wheel.stop();
+    }
+}
@@ -0,0 +1,54 @@
+package com.uniplore.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程执行器类，每个作业一个虚拟线程，阻塞的作业不占用平台线程。
+ * <p>
+ * 项目以 Java 17 编译，通过反射调用 {@code Executors.newVirtualThreadPerTaskExecutor()}；
+ * 运行在不支持虚拟线程的JDK上时退回按需创建的守护平台线程，同样不会让已准入的作业再次排队。
+ */
+public class VirtualThreadJobExecutor<T> extends ThreadJobExecutor<T> {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadJobExecutor.class);
+
+    private final boolean virtual;
+
+    public VirtualThreadJobExecutor(CompletionHandler<T> handler) {
+        this(newVirtualThreadExecutor(), handler);
+    }
+
+    private VirtualThreadJobExecutor(ExecutorService virtualExecutor, CompletionHandler<T> handler) {
+        super(virtualExecutor != null ? virtualExecutor : Executors.newCachedThreadPool(JobExecutors.threadFactory("job-runner-")), handler);
+        this.virtual = virtualExecutor != null;
+        if (!virtual) {
+            logger.warn("Virtual threads are not available on Java {}, running jobs on platform threads",
+                    System.getProperty("java.specification.version"));
+        }
+    }
+
+    @Override
+    public ExecutionMode getMode() {
+        return ExecutionMode.VIRTUAL_THREADS;
+    }
+
+    /**
+     * 是否真正使用了虚拟线程。
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.uniplore.job;
+
+/**
+ * 作业生命周期事件，不可变，由 {@link JobLifecycle} 发布给订阅者。
+ */
+public final class JobEvent {
+    private final JobState state;
+    private final String jobId;
+    private final String jobName;
+    private final String user;
+    private final int cpu;
+    private final int memory;
+    private final long timestamp;
+
+    public JobEvent(JobState state, String jobId, String jobName, String user, int cpu, int memory, long timestamp) {
+        this.state = state;
+        this.jobId = jobId;
+        this.jobName = jobName;
+        this.user = user;
+        this.cpu = cpu;
+        this.memory = memory;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 作业进入的状态。
+     */
+    public JobState getState() {
+        return state;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * 本次变化涉及的CPU：准入和驱逐时为租约，等待时为评估结果，丢弃时为 0。
+     */
+    public int getCpu() {
+        return cpu;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * 事件发生时间（毫秒时间戳）。
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "JobEvent{state=" + state + ", jobId=" + jobId + ", jobName=" + jobName + ", user=" + user
+                + ", cpu=" + cpu + ", memory=" + memory + ", timestamp=" + timestamp + "}";
+    }
+}
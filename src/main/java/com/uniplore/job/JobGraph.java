@@ -0,0 +1,120 @@
+package com.uniplore.job;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 有依赖关系的一组作业：作业只有在全部上游作业执行完成后才开始调度，任一上游作业失败时下游作业被取消。
+ * <p>
+ * 依赖只能指向同一个图中的作业，图中不能有环，{@link #topologicalOrder()} 在提交时检查。
+ */
+public class JobGraph {
+    private final Map<String, JobContext> jobs = new LinkedHashMap<>();
+    private final Map<String, Set<String>> children = new LinkedHashMap<>();
+    private final Map<String, Set<String>> parents = new LinkedHashMap<>();
+
+    /**
+     * 加入作业，同一ID只能加入一次。
+     */
+    public JobGraph addJob(JobContext context) {
+        if (jobs.putIfAbsent(context.getId(), context) != null) {
+            throw new IllegalArgumentException("Duplicate job id in graph: " + context.getId());
+        }
+        children.put(context.getId(), new LinkedHashSet<>());
+        parents.put(context.getId(), new LinkedHashSet<>());
+        return this;
+    }
+
+    /**
+     * 声明 childId 在 parentId 执行完成后才能开始，两个作业都必须已经加入。
+     */
+    public JobGraph addDependency(String parentId, String childId) {
+        if (!jobs.containsKey(parentId) || !jobs.containsKey(childId)) {
+            throw new IllegalArgumentException("Dependency refers to a job outside the graph: " + parentId + " -> " + childId);
+        }
+        if (parentId.equals(childId)) {
+            throw new IllegalArgumentException("Job cannot depend on itself: " + childId);
+        }
+        children.get(parentId).add(childId);
+        parents.get(childId).add(parentId);
+        return this;
+    }
+
+    public List<JobContext> getJobs() {
+        return Collections.unmodifiableList(new ArrayList<>(jobs.values()));
+    }
+
+    public JobContext getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Set<String> childrenOf(String jobId) {
+        return Collections.unmodifiableSet(children.getOrDefault(jobId, Collections.emptySet()));
+    }
+
+    public Set<String> parentsOf(String jobId) {
+        return Collections.unmodifiableSet(parents.getOrDefault(jobId, Collections.emptySet()));
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * 按入度逐层剥离得到拓扑顺序，剩下无法剥离的作业构成环，此时抛出 {@link IllegalArgumentException}。
+     */
+    public List<String> topologicalOrder() {
+        Map<String, Integer> inDegree = new LinkedHashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, Set<String>> entry : parents.entrySet()) {
+            inDegree.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                ready.add(entry.getKey());
+            }
+        }
+        List<String> order = new ArrayList<>(jobs.size());
+        while (!ready.isEmpty()) {
+            String jobId = ready.poll();
+            order.add(jobId);
+            for (String child : children.get(jobId)) {
+                if (inDegree.merge(child, -1, Integer::sum) == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+        if (order.size() < jobs.size()) {
+            List<String> cycle = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cycle.add(entry.getKey());
+                }
+            }
+            throw new IllegalArgumentException("Job graph has a cycle through " + cycle);
+        }
+        return order;
+    }
+
+    /**
+     * 每个作业到图末端的最长执行时间（秒，含自身），其中的最大值即关键路径长度。
+     */
+    public Map<String, Long> bottomLevels() {
+        List<String> order = topologicalOrder();
+        Map<String, Long> levels = new LinkedHashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            String jobId = order.get(i);
+            long longest = 0;
+            for (String child : children.get(jobId)) {
+                longest = Math.max(longest, levels.get(child));
+            }
+            levels.put(jobId, Math.max(0, jobs.get(jobId).getExecutionTime()) + longest);
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,91 @@
+package com.uniplore.job;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步提交作业后返回的句柄。
+ * <p>
+ * {@link #admission()} 在作业第一次开始运行时以 {@link JobState#ADMITTED} 完成，作业在运行前被丢弃、拒绝或移除时以对应状态完成；
+ * {@link #completion()} 在作业结束时以 {@link JobState#COMPLETED}、{@link JobState#REMOVED}、{@link JobState#DROPPED}、
+ * {@link JobState#REJECTED} 或 {@link JobState#CANCELLED} 完成。服务关闭时尚未完成的 future 以 {@link IllegalStateException} 异常完成。
+ * 返回的 future 是副本，取消或完成副本不影响作业和其他调用者。
+ */
+public final class JobHandle {
+    private final JobContext context;
+    private final CompletableFuture<JobState> admission = new CompletableFuture<>();
+    private final CompletableFuture<JobState> completion = new CompletableFuture<>();
+    private volatile JobState state = JobState.WAITING;
+
+    JobHandle(JobContext context) {
+        this.context = context;
+    }
+
+    /**
+     * 已被拒绝的句柄，例如同一ID的作业仍在调度器中。
+     */
+    static JobHandle rejected(JobContext context) {
+        JobHandle handle = new JobHandle(context);
+        handle.update(JobState.REJECTED);
+        return handle;
+    }
+
+    public String getJobId() {
+        return context.getId();
+    }
+
+    public JobContext getContext() {
+        return context;
+    }
+
+    /**
+     * 作业最近一次进入的状态。
+     */
+    public JobState getState() {
+        return state;
+    }
+
+    public CompletableFuture<JobState> admission() {
+        return admission.copy();
+    }
+
+    public CompletableFuture<JobState> completion() {
+        return completion.copy();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    // 返回作业是否已经结束。作业先入队再发布 WAITING，期间可能已被调度运行，迟到的 WAITING 不覆盖 ADMITTED
+    synchronized boolean update(JobState newState) {
+        if (newState == JobState.WAITING && state == JobState.ADMITTED) {
+            return false;
+        }
+        state = newState;
+        switch (newState) {
+            case ADMITTED:
+                admission.complete(newState);
+                return false;
+            case COMPLETED:
+            case REMOVED:
+            case DROPPED:
+            case REJECTED:
+            case CANCELLED:
+                admission.complete(newState);
+                completion.complete(newState);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    void fail(Throwable cause) {
+        admission.completeExceptionally(cause);
+        completion.completeExceptionally(cause);
+    }
+
+    @Override
+    public String toString() {
+        return "JobHandle{jobId=" + context.getId() + ", state=" + state + "}";
+    }
+}
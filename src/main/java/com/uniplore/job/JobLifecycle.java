@@ -0,0 +1,113 @@
+package com.uniplore.job;
+
+import com.uniplore.job.service.Job;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 作业生命周期的通知中心：维护异步提交的 {@link JobHandle}，并把生命周期事件发布给订阅者。
+ * <p>
+ * 每个订阅者有独立的有界缓冲区，按 {@link Flow.Subscription#request(long)} 的需求投递；
+ * 缓冲区满时丢弃新事件并计数，调度线程不会因为订阅者处理慢而阻塞。没有订阅者时不创建事件对象。
+ * 多个分片共用同一个实例时，订阅者看到的是全部分片的事件。
+ */
+public class JobLifecycle implements AutoCloseable {
+    private final SubmissionPublisher<JobEvent> publisher;
+    private final Flow.Publisher<JobEvent> view;
+    private final Map<String, JobHandle> handles = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    public JobLifecycle(int bufferSize) {
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferSize);
+        this.view = publisher::subscribe; // 不暴露 submit 和 close
+    }
+
+    /**
+     * 为即将提交的作业创建句柄，同一ID的作业还没有结束时返回 null。
+     */
+    public JobHandle register(JobContext context) {
+        if (closed) {
+            throw new IllegalStateException("JobManagerService is closed");
+        }
+        JobHandle handle = new JobHandle(context);
+        return handles.putIfAbsent(context.getId(), handle) == null ? handle : null;
+    }
+
+    /**
+     * 已被拒绝的句柄，不登记。
+     */
+    public JobHandle rejected(JobContext context) {
+        return JobHandle.rejected(context);
+    }
+
+    /**
+     * 作业进入新的状态：更新通过 {@link #register(JobContext)} 提交的句柄，作业结束时注销句柄，并通知订阅者。
+     * 句柄只跟随提交时的那个作业对象，同一ID的其他作业不会改变它。
+     */
+    public void publish(Job job, JobState state, int cpu, int memory) {
+        publish(job.getContext(), state, cpu, memory);
+    }
+
+    /**
+     * 按作业上下文发布状态变化，用于还没有作业对象的情况，例如作业类型无法识别而被拒绝。
+     */
+    public void publish(JobContext context, JobState state, int cpu, int memory) {
+        JobHandle handle = handles.get(context.getId());
+        if (handle != null && handle.getContext() == context && handle.update(state)) {
+            handles.remove(context.getId(), handle);
+        }
+        if (!closed && publisher.hasSubscribers()) {
+            JobEvent event = new JobEvent(state, context.getId(), context.getName(), context.getUser(), cpu, memory,
+                    System.currentTimeMillis());
+            try {
+                publisher.offer(event, (subscriber, item) -> {
+                    dropped.increment();
+                    return false;
+                });
+            } catch (IllegalStateException ex) {
+                // 并发关闭，事件不再投递
+            }
+        }
+    }
+
+    /**
+     * 作业事件的发布者，订阅者通过 request(n) 控制投递速度。
+     */
+    public Flow.Publisher<JobEvent> publisher() {
+        return view;
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * 因订阅者缓冲区已满而丢弃的事件数，同一事件对多个订阅者分别计数。
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 通知订阅者事件流结束，尚未结束的句柄以 {@link IllegalStateException} 异常完成。
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        publisher.close();
+        IllegalStateException cause = new IllegalStateException("JobManagerService is closed");
+        for (JobHandle handle : handles.values()) {
+            handle.fail(cause);
+        }
+        handles.clear();
+    }
+}
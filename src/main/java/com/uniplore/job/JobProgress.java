@@ -0,0 +1,62 @@
+package com.uniplore.job;
+
+/**
+ * 作业执行进度的快照，不可变。
+ * <p>
+ * 已完成时间包含之前被驱逐时保存的进度，作业重新运行时只执行剩余部分。
+ */
+public final class JobProgress {
+    private final String jobId;
+    private final long totalMillis;
+    private final long completedMillis;
+    private final boolean running;
+
+    public JobProgress(String jobId, long totalMillis, long completedMillis, boolean running) {
+        this.jobId = jobId;
+        this.totalMillis = totalMillis;
+        this.completedMillis = Math.min(totalMillis, Math.max(0, completedMillis));
+        this.running = running;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * 作业需要的总执行时间（毫秒）。
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * 已完成的执行时间（毫秒）。
+     */
+    public long getCompletedMillis() {
+        return completedMillis;
+    }
+
+    public long getRemainingMillis() {
+        return totalMillis - completedMillis;
+    }
+
+    /**
+     * 完成比例，取值 0 到 1。
+     */
+    public double getFraction() {
+        return totalMillis <= 0 ? 1 : (double) completedMillis / totalMillis;
+    }
+
+    /**
+     * 作业正在运行时为 true，在等待队列中时为 false。
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public String toString() {
+        return "JobProgress{jobId=" + jobId + ", completed=" + completedMillis + "/" + totalMillis
+                + ", running=" + running + "}";
+    }
+}
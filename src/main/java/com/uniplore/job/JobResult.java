@@ -0,0 +1,38 @@
+package com.uniplore.job;
+
+import com.uniplore.job.service.Job;
+
+/**
+ * 批量操作中单个作业的处理结果。
+ */
+public final class JobResult {
+    private final String jobId;
+    private final Job job;
+    private final JobState state;
+
+    public JobResult(String jobId, Job job, JobState state) {
+        this.jobId = jobId;
+        this.job = job;
+        this.state = state;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * 对应的作业，作业未创建或未找到时为 null。
+     */
+    public Job getJob() {
+        return job;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return jobId + "=" + state;
+    }
+}
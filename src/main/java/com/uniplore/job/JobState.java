@@ -0,0 +1,27 @@
+package com.uniplore.job;
+
+/**
+ * 作业在调度器中的状态。
+ */
+public enum JobState {
+    /** 已分配资源并开始运行 */
+    ADMITTED,
+    /** 资源不足，在等待队列中等待 */
+    WAITING,
+    /** 等待队列已满，作业被丢弃 */
+    DROPPED,
+    /** 作业被拒绝，例如作业ID重复或作业类型未知 */
+    REJECTED,
+    /** 运行中的作业被驱逐，带着已保存的进度回到等待队列 */
+    EVICTED,
+    /** 作业执行完成 */
+    COMPLETED,
+    /** 作业图中的作业在等待上游作业完成，尚未进入调度 */
+    BLOCKED,
+    /** 上游作业失败或被移除，作业图中的作业不再运行 */
+    CANCELLED,
+    /** 作业已被移除 */
+    REMOVED,
+    /** 未找到该作业 */
+    NOT_FOUND
+}
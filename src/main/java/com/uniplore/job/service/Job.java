@@ -1,10 +1,34 @@
 package com.uniplore.job.service;
 
 import com.uniplore.job.JobContext;
+import com.uniplore.resouce.estimator.ResourceUsage;
 
 /**
  * 作业接口，定义所有作业的基础方法。
  */
 public interface Job {
     JobContext getContext();
+
+    /**
+     * 作业执行期间观测到的CPU、内存峰值，无法观测时返回 null，调度器只记录运行时间。
+     * 返回的运行时间不大于 0 时使用调度器测得的运行时间。
+     */
+    default ResourceUsage getObservedUsage() {
+        return null;
+    }
+
+    /**
+     * 接收作业运行期间上报的一次CPU、内存用量采样；不支持观测用量的作业忽略采样并返回 false。
+     */
+    default boolean reportUsage(int cpu, int memory) {
+        return false;
+    }
+
+    /**
+     * 作业被驱逐前调用，elapsedMillis 为累计已执行的时间（包含之前保存的进度），返回可以保留的进度（毫秒）。
+     * 默认全部保留，重新运行时只执行剩余部分；不支持检查点的作业返回 0，重新运行时从头开始。
+     */
+    default long checkpoint(long elapsedMillis) {
+        return elapsedMillis;
+    }
 }
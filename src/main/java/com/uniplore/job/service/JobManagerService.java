@@ -1,20 +1,65 @@
 package com.uniplore.job.service;
 
 import com.uniplore.job.JobContext;
+import com.uniplore.job.JobEvent;
+import com.uniplore.job.JobGraph;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.JobResult;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
 
 /**
  * 作业管理服务接口，定义作业管理服务的方法。
  */
-public interface JobManagerService {
+public interface JobManagerService extends AutoCloseable {
     Job createJob(JobContext context);
+    List<JobResult> createJobs(List<JobContext> contexts);
     boolean removeJob(String jobId);
     boolean removeJobs(List<String> jobIds);
+    List<JobResult> removeJobsWithResults(List<String> jobIds);
     void estimateResources(String jobId);
     List<Job> getAllJobs();
     List<Job> getJobsByUser(String user);
     List<Job> getJobsByType(String type);
     boolean updateJob(String jobId, String newName, String newContent);
     void processWaitingQueue();
+
+    /**
+     * 返回运行中或等待中作业的执行进度，作业不存在时返回 null。
+     */
+    JobProgress getProgress(String jobId);
+
+    /**
+     * 上报运行中作业的一次CPU、内存用量采样，作业完成后以峰值更新资源评估；作业不在运行或不支持观测用量时返回 false。
+     */
+    boolean reportUsage(String jobId, int cpu, int memory);
+
+    /**
+     * 异步提交作业，立即返回句柄，通过句柄上的 future 获知作业的准入和结束。
+     */
+    JobHandle submit(JobContext context);
+
+    /**
+     * 作业生命周期事件的发布者，订阅者通过 request(n) 控制投递速度，处理不过来时新事件被丢弃。
+     */
+    Flow.Publisher<JobEvent> events();
+
+    /**
+     * 提交有依赖关系的一组作业，返回按作业ID索引的句柄；上游作业全部完成后下游作业才开始调度，上游作业失败时下游作业被取消。
+     */
+    Map<String, JobHandle> submitGraph(JobGraph graph);
+
+    /**
+     * 提交作业组，组内作业预约同一时间窗口并一起开始运行，返回按作业ID索引的句柄。
+     */
+    Map<String, JobHandle> submitGang(List<JobContext> contexts);
+
+    /**
+     * 关闭服务：不再接受新作业，中断正在运行的作业并归还其资源。
+     */
+    @Override
+    void close();
 }
@@ -2,12 +2,17 @@ package com.uniplore.job.service.impl;
 
 import com.uniplore.job.JobContext;
 import com.uniplore.job.service.Job;
+import com.uniplore.resouce.estimator.ResourceUsage;
 
 /**
  * 通用作业类，实现作业接口。
+ * <p>
+ * 保留运行期间上报的CPU、内存峰值，作业完成后作为实际用量回报给资源评估器。
  */
 public class GeneralJob implements Job {
     private JobContext context;
+    private int peakCpu = -1;
+    private int peakMemory = -1;
 
     public GeneralJob(JobContext context) {
         this.context = context;
@@ -17,4 +22,19 @@ public class GeneralJob implements Job {
     public JobContext getContext() {
         return context;
     }
+
+    @Override
+    public synchronized boolean reportUsage(int cpu, int memory) {
+        if (cpu < 0 || memory < 0) {
+            throw new IllegalArgumentException("Usage must not be negative: cpu=" + cpu + ", memory=" + memory);
+        }
+        peakCpu = Math.max(peakCpu, cpu);
+        peakMemory = Math.max(peakMemory, memory);
+        return true;
+    }
+
+    @Override
+    public synchronized ResourceUsage getObservedUsage() {
+        return peakCpu < 0 ? null : new ResourceUsage(peakCpu, peakMemory, 0);
+    }
 }
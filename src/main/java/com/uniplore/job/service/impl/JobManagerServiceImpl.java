@@ -1,309 +1,1271 @@
 package com.uniplore.job.service.impl;
 
+import com.uniplore.config.ConfigManager;
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.event.EventType;
+import com.uniplore.event.SchedulerEventLog;
+import com.uniplore.execution.JobExecutor;
+import com.uniplore.execution.JobExecutors;
+import com.uniplore.execution.JobRun;
 import com.uniplore.factory.JobFactory;
 import com.uniplore.job.JobContext;
+import com.uniplore.job.JobEvent;
+import com.uniplore.job.JobGraph;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobLifecycle;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.JobResult;
+import com.uniplore.job.JobState;
 import com.uniplore.job.service.Job;
 import com.uniplore.job.service.JobManagerService;
+import com.uniplore.journal.JobJournal;
+import com.uniplore.journal.JournalRecovery;
+import com.uniplore.journal.JournalSnapshotter;
+import com.uniplore.journal.RecoveredJob;
+import com.uniplore.metrics.SchedulerMetrics;
+import com.uniplore.queue.CapacityWaitingQueue;
+import com.uniplore.queue.FairShareWaitingQueue;
 import com.uniplore.queue.JobQueue;
+import com.uniplore.queue.WaitingQueue;
+import com.uniplore.queue.WaitingQueues;
+import com.uniplore.resouce.estimator.ResourceEstimate;
 import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.estimator.ResourceUsage;
 import com.uniplore.resouce.estimator.SimpleResourceEstimator;
+import com.uniplore.resouce.management.AllocationLease;
+import com.uniplore.resouce.management.ReservationCalendar;
 import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.resouce.management.ResourceSnapshot;
+import com.uniplore.scheduler.BackfillPlanner;
+import com.uniplore.scheduler.DependencyTracker;
+import com.uniplore.scheduler.PreemptionEngine;
+import com.uniplore.scheduler.RunningAllocation;
+import com.uniplore.scheduler.SchedulingMode;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Properties;
-import java.util.Queue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * 作业管理服务实现类，实现作业管理服务接口。
+ * <p>
+ * 每个作业提交时只评估一次资源，准入后以 {@link AllocationLease} 记录实际分配的资源，
+ * 完成、移除或驱逐时按租约归还；租约从登记表移除成功的一方负责释放，同一次分配不会重复释放。
+ * 作业由 {@link JobExecutor} 运行，执行模式来自配置；默认的时间轮模式下作业不占用线程，
+ * 同一刻度完成的作业合并释放资源并只处理一次等待队列。服务使用完毕后需要调用 {@link #close()}。
+ * 被驱逐的作业通过 {@link Job#checkpoint(long)} 保存进度，重新准入后只执行剩余部分。
+ * 配置了日志目录时，作业生命周期事件写入 {@link JobJournal}，启动时加载快照并重放之后的日志，恢复运行中和等待中的作业以及可用资源；
+ * 后台定期生成快照并截断日志。
+ * 作业的状态变化同时通知 {@link JobLifecycle}，{@link #submit(JobContext)} 返回的句柄和 {@link #events()} 的订阅者由它驱动。
+ * 作业图中的作业由 {@link DependencyTracker} 跟踪，上游作业在执行器回调中完成时，下游作业在同一次回调中进入等待队列。
+ * 调度模式为 reservation 时分配资源带上作业的预计运行时间，资源不足的队首作业和作业组在 {@link ResourceManager} 的预约日历中预约时间窗口。
  */
 public class JobManagerServiceImpl implements JobManagerService {
+    private static final Logger logger = LoggerFactory.getLogger(JobManagerServiceImpl.class);
+    private static final String GANG_PREFIX = "gang:";
+
     private JobQueue jobQueue;
-    private ResourceEstimator resourceEstimator;
+    private volatile ResourceEstimator resourceEstimator; // 运行时可替换，已准入作业按租约释放
     private ResourceManager resourceManager;
-    private Queue<Job> waitingQueue; // 等待队列
-    private static final int MAX_WAITING_QUEUE_SIZE; // 从配置文件读取
-    private ExecutorService executorService;
-
-    static {
-        Properties properties = new Properties();
-        try (InputStream input = JobManagerServiceImpl.class.getClassLoader().getResourceAsStream("config.properties")) {
-            if (input == null) {
-                System.out.println("Sorry, unable to find config.properties");
-                MAX_WAITING_QUEUE_SIZE = 5; // 默认等待队列大小
+    private WaitingQueue waitingQueue; // 等待队列，按 queue.policy 排序
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private volatile int maxWaitingQueueSize; // 从配置读取
+    private volatile SchedulingMode schedulingMode;
+    private volatile int backfillWindow;
+    private final Map<String, RunningJob> running = new ConcurrentHashMap<>(); // 运行中作业及其资源租约
+    private volatile JobExecutor<RunningJob> jobExecutor;
+    private volatile boolean closed;
+    private Consumer<SchedulerConfig> configListener;
+    private final SchedulerEventLog eventLog = SchedulerEventLog.getInstance();
+    private final SchedulerMetrics metrics;
+    private volatile JobJournal journal = JobJournal.disabled();
+    private JournalSnapshotter snapshotter;
+    private final JobLifecycle lifecycle;
+    private final boolean ownsLifecycle; // 分片共用的通知中心由分片服务关闭
+    private final DependencyTracker dependencies;
+    private final Map<String, Gang> gangs = new ConcurrentHashMap<>(); // 等待预约时间的作业组
+    private final Map<String, String> gangOf = new ConcurrentHashMap<>(); // 作业ID -> 作业组ID
+
+    public JobManagerServiceImpl() {
+        this(ConfigManager.getInstance().getConfig(), ResourceManager.getInstance());
+        this.configListener = this::applyConfig;
+        ConfigManager.getInstance().addListener(configListener); // 配置热加载后调整队列大小
+    }
+
+    public JobManagerServiceImpl(SchedulerConfig config, ResourceManager resourceManager) {
+        this(config, resourceManager, new JobLifecycle(config.getJobEventBuffer()), true);
+    }
+
+    /**
+     * 使用共享的生命周期通知中心创建服务，通知中心由调用方关闭。
+     */
+    public JobManagerServiceImpl(SchedulerConfig config, ResourceManager resourceManager, JobLifecycle lifecycle) {
+        this(config, resourceManager, lifecycle, false);
+    }
+
+    private JobManagerServiceImpl(SchedulerConfig config, ResourceManager resourceManager, JobLifecycle lifecycle, boolean ownsLifecycle) {
+        this.lifecycle = lifecycle;
+        this.ownsLifecycle = ownsLifecycle;
+        this.dependencies = new DependencyTracker(config.getDagPriorityBoost());
+        this.jobQueue = new JobQueue(config.getQueueSize());
+        this.resourceEstimator = new SimpleResourceEstimator(); // 默认使用简单资源评估
+        this.resourceManager = resourceManager;
+        this.waitingQueue = WaitingQueues.create(config, resourceManager.getTotalCpu(), resourceManager.getTotalMemory());
+        this.maxWaitingQueueSize = config.getWaitingQueueSize();
+        this.schedulingMode = effectiveMode(config.getSchedulingMode());
+        this.backfillWindow = config.getBackfillWindow();
+        this.jobExecutor = JobExecutors.create(config.getExecutionMode(), config.getQueueSize(),
+                config.getTimingWheelTick(), this::completeJobs);
+        this.metrics = new SchedulerMetrics(jobQueue::size, waitingQueue::size, resourceManager);
+        if (!config.getJournalDir().isEmpty()) {
+            Path directory = Paths.get(config.getJournalDir());
+            JournalRecovery recovery = JournalRecovery.replay(directory);
+            this.journal = JobJournal.open(directory, config.getJournalSegmentSize() * 1024 * 1024, config.getJournalFlushInterval());
+            recover(recovery);
+            this.snapshotter = new JournalSnapshotter(journal);
+            if (config.getJournalSnapshotInterval() > 0) {
+                snapshotter.start(config.getJournalSnapshotInterval());
+            }
+        }
+    }
+
+    /**
+     * 应用新的配置快照，调整作业队列、等待队列和执行器；执行模式改变时换用新的执行器，
+     * 旧执行器上的作业继续运行到结束。等待队列的排序策略只在创建服务时读取。
+     */
+    public void applyConfig(SchedulerConfig config) {
+        jobQueue.setMaxQueueSize(config.getQueueSize());
+        if (waitingQueue instanceof FairShareWaitingQueue) {
+            ((FairShareWaitingQueue) waitingQueue).configure(resourceManager.getTotalCpu(), resourceManager.getTotalMemory(),
+                    config.getFairShareWeights(), config.getQueueAgingInterval());
+        } else if (waitingQueue instanceof CapacityWaitingQueue) {
+            ((CapacityWaitingQueue) waitingQueue).configure(resourceManager.getTotalCpu(), resourceManager.getTotalMemory());
+        }
+        maxWaitingQueueSize = config.getWaitingQueueSize();
+        schedulingMode = effectiveMode(config.getSchedulingMode());
+        backfillWindow = config.getBackfillWindow();
+        dependencies.setPriorityBoost(config.getDagPriorityBoost());
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (config.getExecutionMode() != jobExecutor.getMode()) {
+                JobExecutor<RunningJob> previous = jobExecutor;
+                jobExecutor = JobExecutors.create(config.getExecutionMode(), config.getQueueSize(),
+                        config.getTimingWheelTick(), this::completeJobs);
+                previous.shutdown();
             } else {
-                properties.load(input);
-                MAX_WAITING_QUEUE_SIZE = Integer.parseInt(properties.getProperty("waiting.queue.size", "5"));
+                jobExecutor.resize(config.getQueueSize());
             }
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            throw new RuntimeException("Failed to load configuration");
         }
     }
 
-    public JobManagerServiceImpl() {
-        this.jobQueue = new JobQueue(loadQueueSizeFromConfig()); // 从配置文件加载队列大小
-        this.resourceEstimator = new SimpleResourceEstimator(); // 默认使用简单资源评估
-        this.resourceManager = ResourceManager.getInstance();
-        this.waitingQueue = new LinkedList<>();
-        this.executorService = Executors.newFixedThreadPool(loadQueueSizeFromConfig());
+    /**
+     * 关闭服务：注销配置监听和 JMX 指标，中断正在运行的作业，并归还尚未释放的租约。
+     * 被中断的作业不写入日志，下次启动时按运行中的作业恢复；尚未结束的作业句柄以异常完成。
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (configListener != null) {
+            ConfigManager.getInstance().removeListener(configListener);
+        }
+        metrics.unregister();
+        jobExecutor.close();
+        // 还没开始运行的作业不会执行 finally，由这里归还资源
+        for (RunningJob runningJob : running.values()) {
+            if (removeRunning(runningJob)) {
+                jobQueue.removeJob(runningJob.jobId());
+                resourceManager.releaseResources(runningJob.jobId(), runningJob.getCpu(), runningJob.getMemory());
+            }
+        }
+        if (snapshotter != null) {
+            snapshotter.close();
+        }
+        journal.close();
+        if (ownsLifecycle) {
+            lifecycle.close();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 立即生成日志快照并截断日志，未配置日志目录或没有新记录时返回 false。
+     */
+    public boolean snapshotJournal() {
+        return snapshotter != null && snapshotter.snapshot();
     }
 
     public void setResourceEstimator(ResourceEstimator resourceEstimator) {
         this.resourceEstimator = resourceEstimator;
     }
 
+    /**
+     * 切换调度模式；预约模式需要资源管理器在创建时启用预约日历，启用后不再切换到其他模式。
+     */
+    public void setSchedulingMode(SchedulingMode schedulingMode) {
+        if ((schedulingMode == SchedulingMode.RESERVATION) != resourceManager.isReservationEnabled()) {
+            throw new IllegalArgumentException("Scheduling mode " + schedulingMode.configName()
+                    + " does not match the resource manager, reservations are fixed when it is created");
+        }
+        this.schedulingMode = schedulingMode;
+    }
+
+    // 预约日历随资源管理器创建，启用与否不能在运行时改变
+    private SchedulingMode effectiveMode(SchedulingMode requested) {
+        if (resourceManager.isReservationEnabled()) {
+            if (requested != SchedulingMode.RESERVATION) {
+                logger.warn("预约日历已启用，忽略调度模式 : {}", requested.configName());
+            }
+            return SchedulingMode.RESERVATION;
+        }
+        if (requested == SchedulingMode.RESERVATION) {
+            logger.warn("资源管理器未启用预约日历，使用 {}", SchedulingMode.EASY_BACKFILL.configName());
+            return SchedulingMode.EASY_BACKFILL;
+        }
+        return requested;
+    }
+
     public ResourceManager getResourceManager() {
         return resourceManager;
     }
 
+    /**
+     * 返回调度指标，调用 {@link SchedulerMetrics#register(String)} 可通过 JMX 查看。
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Job createJob(JobContext context) {
+        ensureOpen();
+        long submittedAt = System.nanoTime();
         Job job = JobFactory.createJob(context);
-        int requiredCpu = resourceEstimator.estimateCpu(job);
-        int requiredMemory = resourceEstimator.estimateMemory(job);
-
-        if (resourceManager.allocateResources(requiredCpu, requiredMemory)) {
-            jobQueue.addJob(job);
-            executorService.submit(() -> executeJob(job));
-            System.out.println("Process " + context.getProcessId() + " created job: " + context.getName() + " 类型 " + context.getType());
-            System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+        ResourceEstimate estimate = resourceEstimator.estimate(job);
+        journal.recordSubmit(context);
+
+        long allocatedAt = System.nanoTime();
+        if (!waitingQueue.admits(job, estimate.getCpu(), estimate.getMemory())) {
+            logger.debug("队列已达上限 : {}", context.getName());
+            waitOrReject(job, estimate, estimate.getCpu(), estimate.getMemory());
+            trimWaitingQueue();
+        } else if (resourceManager.allocateResources(context.getId(), estimate.getCpu(), estimate.getMemory(), durationMillis(job))) {
+            admitJob(job, estimate, 0, allocatedAt, 0);
         } else {
-            System.out.println("资源不足 : " + context.getName());
-            moveToWaitingQueue(job, requiredCpu, requiredMemory);
+            logger.debug("资源不足 : {}", context.getName());
+            moveToWaitingQueue(job, estimate);
         }
+        metrics.recordSubmit(System.nanoTime() - submittedAt);
         return job;
     }
 
+    /**
+     * 异步提交作业：在调用线程上完成一次准入尝试后立即返回句柄，资源不足时作业进入等待队列，不等待资源释放。
+     * 同一ID的作业尚未结束或作业无法创建时，返回的句柄已经以 {@link JobState#REJECTED} 完成。
+     */
+    @Override
+    public JobHandle submit(JobContext context) {
+        ensureOpen();
+        JobHandle handle = lifecycle.register(context);
+        if (handle == null) {
+            logger.debug("同一ID的作业尚未结束 : {}", context.getId());
+            return lifecycle.rejected(context);
+        }
+        try {
+            createJob(context);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("无法创建作业 : {}, {}", context.getId(), ex.getMessage());
+            metrics.recordReject();
+            lifecycle.publish(context, JobState.REJECTED, 0, 0);
+        }
+        return handle;
+    }
+
+    @Override
+    public Flow.Publisher<JobEvent> events() {
+        return lifecycle.publisher();
+    }
+
+    /**
+     * 提交作业图：没有上游的作业立即进入调度，其余作业以 {@link JobState#BLOCKED} 等待，上游作业全部完成时进入等待队列。
+     * 作业按关键路径提升优先级后调度，返回的句柄按拓扑顺序排列，句柄中的上下文是提升后的副本。
+     * 图中有环、依赖指向图外或作业ID已被使用时抛出 {@link IllegalArgumentException}，不提交任何作业。
+     * 依赖关系不写入日志，重启后只恢复已经进入调度的作业。
+     */
+    @Override
+    public Map<String, JobHandle> submitGraph(JobGraph graph) {
+        ensureOpen();
+        for (JobContext context : graph.getJobs()) {
+            if (jobQueue.getJob(context.getId()) != null || waitingQueue.contains(context.getId())) {
+                throw new IllegalArgumentException("Job id already in use: " + context.getId());
+            }
+        }
+        List<JobContext> contexts = dependencies.add(graph);
+        Map<String, JobHandle> handles = new LinkedHashMap<>();
+        for (JobContext context : contexts) {
+            JobHandle handle = lifecycle.register(context);
+            if (handle == null) {
+                dependencies.discard(contexts);
+                for (JobContext registered : contexts) {
+                    if (handles.containsKey(registered.getId())) {
+                        lifecycle.publish(registered, JobState.REJECTED, 0, 0);
+                    }
+                }
+                throw new IllegalArgumentException("Job id already in use: " + context.getId());
+            }
+            handles.put(context.getId(), handle);
+        }
+
+        List<JobContext> roots = new ArrayList<>();
+        for (JobContext context : contexts) {
+            if (graph.parentsOf(context.getId()).isEmpty()) {
+                roots.add(context);
+            } else {
+                lifecycle.publish(context, JobState.BLOCKED, 0, 0);
+            }
+        }
+        enqueueReady(roots);
+        processWaitingQueue();
+        return handles;
+    }
+
+    /**
+     * 提交作业组：组内作业同时开始运行，不会只运行其中一部分。资源足够时立即启动，否则在预约日历中预约最早能同时放下
+     * 全部作业的时间窗口，作业组不进入等待队列，之后每次处理等待队列时先尝试启动作业组，预约随运行中作业的实际结束提前。
+     * 移除任一成员时整个作业组取消。需要调度模式为 reservation；作业组不写入日志，重启后按单独的等待作业恢复。
+     *
+     * @throws IllegalStateException    未启用预约
+     * @throws IllegalArgumentException 作业无法创建、ID重复或作业组超出资源总量
+     */
+    @Override
+    public Map<String, JobHandle> submitGang(List<JobContext> contexts) {
+        ensureOpen();
+        if (!resourceManager.isReservationEnabled()) {
+            throw new IllegalStateException("Gang scheduling needs " + SchedulerConfig.SCHEDULING_MODE + "="
+                    + SchedulingMode.RESERVATION.configName());
+        }
+        if (contexts.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Gang gang = new Gang(GANG_PREFIX + contexts.get(0).getId(), contexts.size());
+        long totalCpu = 0;
+        long totalMemory = 0;
+        for (int i = 0; i < contexts.size(); i++) {
+            String jobId = contexts.get(i).getId();
+            if (jobQueue.getJob(jobId) != null || waitingQueue.contains(jobId) || gangOf.containsKey(jobId) || dependencies.contains(jobId)) {
+                throw new IllegalArgumentException("Job id already in use: " + jobId);
+            }
+            gang.jobs[i] = JobFactory.createJob(contexts.get(i));
+            gang.jobIds[i] = jobId;
+            gang.estimates[i] = resourceEstimator.estimate(gang.jobs[i]);
+            gang.cpu[i] = gang.estimates[i].getCpu();
+            gang.memory[i] = gang.estimates[i].getMemory();
+            gang.durations[i] = durationMillis(gang.jobs[i]);
+            totalCpu += gang.cpu[i];
+            totalMemory += gang.memory[i];
+        }
+        if (totalCpu > resourceManager.getTotalCpu() || totalMemory > resourceManager.getTotalMemory()) {
+            throw new IllegalArgumentException("Gang " + gang.id + " needs more than the total resources");
+        }
+
+        Map<String, JobHandle> handles = new LinkedHashMap<>();
+        for (Job job : gang.jobs) {
+            JobHandle handle = lifecycle.register(job.getContext());
+            if (handle == null) {
+                for (Job registered : gang.jobs) {
+                    if (handles.containsKey(registered.getContext().getId())) {
+                        lifecycle.publish(registered, JobState.REJECTED, 0, 0);
+                    }
+                }
+                throw new IllegalArgumentException("Job id already in use: " + job.getContext().getId());
+            }
+            handles.put(job.getContext().getId(), handle);
+        }
+        for (int i = 0; i < gang.jobs.length; i++) {
+            journal.recordSubmit(gang.jobs[i].getContext());
+            journal.recordWait(gang.jobIds[i], gang.cpu[i], gang.memory[i], 0);
+            gangOf.put(gang.jobIds[i], gang.id);
+            transition(gang.jobs[i], JobState.WAITING, EventType.WAIT, gang.cpu[i], gang.memory[i]);
+        }
+        gangs.put(gang.id, gang);
+        processWaitingQueue(); // 在处理等待队列的线程上启动或预约
+        return handles;
+    }
+
+    /**
+     * 作业或其所在作业组预约的开始时间，没有预约时返回 -1。
+     */
+    public long getReservedStart(String jobId) {
+        ReservationCalendar calendar = resourceManager.getCalendar();
+        if (calendar == null) {
+            return -1;
+        }
+        String gangId = gangOf.get(jobId);
+        return calendar.reservedStart(gangId != null ? gangId : jobId);
+    }
+
+    /**
+     * 作业图中尚未结束的作业数，包括等待上游的作业。
+     */
+    public int getPendingGraphJobs() {
+        return dependencies.size();
+    }
+
+    /**
+     * 作业生命周期通知中心，可查看订阅者数量和被丢弃的事件数。
+     */
+    public JobLifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    /**
+     * 批量创建作业：一次评估全部作业，一次CAS为能满足的作业分配资源，其余作业进入等待队列，
+     * 最后统一裁剪并处理一次等待队列。批量提交不会抢占正在运行的作业。
+     */
+    @Override
+    public List<JobResult> createJobs(List<JobContext> contexts) {
+        ensureOpen();
+        long submittedAt = System.nanoTime();
+        int size = contexts.size();
+        Job[] jobs = new Job[size];
+        String[] jobIds = new String[size];
+        ResourceEstimate[] estimates = new ResourceEstimate[size];
+        int[] requiredCpu = new int[size];
+        int[] requiredMemory = new int[size];
+        long[] durations = new long[size];
+        boolean[] granted = new boolean[size];
+        JobState[] states = new JobState[size];
+        for (int i = 0; i < size; i++) {
+            try {
+                jobs[i] = JobFactory.createJob(contexts.get(i));
+                jobIds[i] = jobs[i].getContext().getId();
+                estimates[i] = resourceEstimator.estimate(jobs[i]);
+                journal.recordSubmit(jobs[i].getContext());
+                boolean admissible = waitingQueue.admits(jobs[i], estimates[i].getCpu(), estimates[i].getMemory());
+                requiredCpu[i] = admissible ? estimates[i].getCpu() : Integer.MAX_VALUE; // 所属队列已达上限时不参与资源分配
+                requiredMemory[i] = admissible ? estimates[i].getMemory() : Integer.MAX_VALUE;
+                durations[i] = durationMillis(jobs[i]);
+            } catch (IllegalArgumentException ex) {
+                logger.warn("无法创建作业 : {}, {}", contexts.get(i).getId(), ex.getMessage());
+                states[i] = JobState.REJECTED;
+                requiredCpu[i] = Integer.MAX_VALUE; // 不参与资源分配
+                requiredMemory[i] = Integer.MAX_VALUE;
+            }
+        }
+
+        long allocatedAt = System.nanoTime();
+        int admitted = resourceManager.allocateResources(jobIds, requiredCpu, requiredMemory, durations, granted);
+        for (int i = 0; i < size; i++) {
+            if (states[i] == JobState.REJECTED) {
+                metrics.recordReject();
+                continue;
+            }
+            if (granted[i]) {
+                states[i] = admitJob(jobs[i], estimates[i], 0, allocatedAt, 0) ? JobState.ADMITTED : JobState.REJECTED;
+            } else if (offerWaiting(jobs[i], estimates[i])) {
+                states[i] = JobState.WAITING;
+                metrics.recordWait();
+                transition(jobs[i], JobState.WAITING, EventType.WAIT, estimates[i].getCpu(), estimates[i].getMemory());
+            } else {
+                states[i] = JobState.REJECTED;
+                metrics.recordReject();
+                transition(jobs[i], JobState.REJECTED, EventType.REJECT, estimates[i].getCpu(), estimates[i].getMemory());
+            }
+        }
+        logger.debug("批量创建作业 : {} 个，立即运行 {} 个", size, admitted);
+
+        trimWaitingQueue();
+        processWaitingQueue(); // 整批只处理一次等待队列
+        if (size > 0) {
+            long perJob = (System.nanoTime() - submittedAt) / size; // 批量提交按作业平摊耗时
+            for (int i = 0; i < size; i++) {
+                metrics.recordSubmit(perJob);
+            }
+        }
+
+        List<JobResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String jobId = contexts.get(i).getId();
+            JobState state = states[i];
+            if (state != JobState.REJECTED) {
+                state = jobQueue.getJob(jobId) == jobs[i] ? JobState.ADMITTED
+                        : waitingQueue.contains(jobId) ? JobState.WAITING : JobState.DROPPED;
+            }
+            results.add(new JobResult(jobId, jobs[i], state));
+        }
+        return results;
+    }
+
     @Override
     public boolean removeJob(String jobId) {
-        Job job = findJobById(jobId);
+        Job job = jobQueue.takeJob(jobId);
         if (job != null) {
-            boolean removed = jobQueue.removeJob(jobId);
-            if (removed) {
-                resourceManager.releaseResources(resourceEstimator.estimateCpu(job), resourceEstimator.estimateMemory(job));
-                System.out.println("移除作业 : " + jobId);
-                System.out.println("移除后的剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+            long releasedAt = System.nanoTime();
+            journal.recordRemove(jobId);
+            RunningJob runningJob = takeRunning(jobId);
+            if (runningJob != null) {
+                resourceManager.releaseResources(jobId, runningJob.getCpu(), runningJob.getMemory());
+                transition(job, JobState.REMOVED, EventType.RELEASE, runningJob.getCpu(), runningJob.getMemory());
                 processWaitingQueue(); // 处理等待队列中的作业
-                return true;
+                metrics.recordRelease(1, System.nanoTime() - releasedAt);
             }
+            return true;
         }
-        System.out.println("未找到该作业 : " + jobId);
+        Job waiting = waitingQueue.remove(jobId);
+        if (waiting != null) {
+            journal.recordRemove(jobId);
+            transition(waiting, JobState.REMOVED, null, 0, 0);
+            logger.debug("从等待队列移除作业 : {}", jobId);
+            return true;
+        }
+        if (removeBlocked(jobId) || removeGang(jobId)) {
+            return true;
+        }
+        logger.debug("未找到该作业 : {}", jobId);
         return false;
     }
 
     @Override
     public boolean removeJobs(List<String> jobIds) {
+        removeJobsWithResults(jobIds);
+        return true;
+    }
+
+    /**
+     * 批量移除作业：一次遍历按ID移除运行中或等待中的作业，合并后一次性释放资源，并只处理一次等待队列。
+     */
+    @Override
+    public List<JobResult> removeJobsWithResults(List<String> jobIds) {
+        long releasedAt = System.nanoTime();
+        List<JobResult> results = new ArrayList<>(jobIds.size());
+        List<AllocationLease> released = new ArrayList<>();
         for (String jobId : jobIds) {
-            Job job = findJobById(jobId);
+            Job job = jobQueue.takeJob(jobId);
             if (job != null) {
-                jobQueue.removeJob(jobId);
-                resourceManager.releaseResources(resourceEstimator.estimateCpu(job), resourceEstimator.estimateMemory(job));
+                RunningJob runningJob = takeRunning(jobId);
+                if (runningJob != null) {
+                    released.add(runningJob.lease);
+                    transition(job, JobState.REMOVED, EventType.RELEASE, runningJob.getCpu(), runningJob.getMemory());
+                }
+            } else {
+                job = waitingQueue.remove(jobId);
+                if (job != null) {
+                    transition(job, JobState.REMOVED, null, 0, 0);
+                }
             }
+            if (job != null) {
+                journal.recordRemove(jobId);
+            }
+            boolean removed = job != null || removeBlocked(jobId) || removeGang(jobId);
+            results.add(new JobResult(jobId, job, removed ? JobState.REMOVED : JobState.NOT_FOUND));
         }
-        System.out.println("移除作业 : " + jobIds);
-        System.out.println("移除后的剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+        resourceManager.releaseResources(released);
+        logger.debug("移除作业 : {}", jobIds);
         processWaitingQueue(); // 处理等待队列中的作业
-        return true;
+        if (!released.isEmpty()) {
+            metrics.recordRelease(released.size(), System.nanoTime() - releasedAt);
+        }
+        return results;
     }
 
     @Override
     public void estimateResources(String jobId) {
-        Job job = jobQueue.pollJob();
-        if (job != null && job.getContext().getId().equals(jobId)) {
-            resourceEstimator.estimateCpu(job);
-            resourceEstimator.estimateMemory(job);
+        Job job = jobQueue.getJob(jobId);
+        if (job != null) {
+            logger.debug("资源评估 {} : {}", jobId, resourceEstimator.estimate(job));
         } else {
-            System.out.println("未找到该作业 : " + jobId);
+            logger.debug("未找到该作业 : {}", jobId);
         }
     }
 
     @Override
     public List<Job> getAllJobs() {
         List<Job> jobs = jobQueue.getAllJobs();
-        System.out.println("全部作业 : " + jobs);
+        logger.debug("全部作业 : {}", jobs);
         return jobs;
     }
 
     @Override
     public List<Job> getJobsByUser(String user) {
         List<Job> jobs = jobQueue.getJobsByUser(user);
-        System.out.println("作业属于 " + user + ": " + jobs);
+        logger.debug("作业属于 {}: {}", user, jobs);
         return jobs;
     }
 
     @Override
     public List<Job> getJobsByType(String type) {
         List<Job> jobs = jobQueue.getJobsByType(type);
-        System.out.println("作业类型 " + type + ": " + jobs);
+        logger.debug("作业类型 {}: {}", type, jobs);
         return jobs;
     }
 
     @Override
     public boolean updateJob(String jobId, String newName, String newContent) {
-        for (Job job : jobQueue.getAllJobs()) {
-            if (job.getContext().getId().equals(jobId)) {
-                job.getContext().setName(newName);
-                job.getContext().setContent(newContent);
-                System.out.println("更新作业 : " + job.getContext().getName());
-                return true;
-            }
+        Job job = jobQueue.getJob(jobId);
+        if (job != null) {
+            job.getContext().setName(newName);
+            job.getContext().setContent(newContent);
+            journal.recordUpdate(jobId, newName, newContent);
+            logger.debug("更新作业 : {}", job.getContext().getName());
+            return true;
         }
-        System.out.println("未找到该作业 : " + jobId);
+        logger.debug("未找到该作业 : {}", jobId);
         return false;
     }
 
-    private Job findJobById(String jobId) {
-        for (Job job : jobQueue.getAllJobs()) {
-            if (job.getContext().getId().equals(jobId)) {
-                return job;
+    // 处理等待队列的方法
+    public void processWaitingQueue() {
+        if (closed) {
+            return;
+        }
+        // 同一时刻只有一个线程在处理等待队列，其他线程只登记请求，由正在处理的线程再处理一轮
+        drainRequested.set(true);
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested.set(false);
+                drainWaitingQueue();
+            } finally {
+                draining.set(false);
             }
         }
-        return null;
     }
 
-    // 处理等待队列的方法
-    public void processWaitingQueue() {
-        if (!waitingQueue.isEmpty()) {
-            // 先将等待队列中的作业按优先级排序，优先级相同按作业ID排序
-            List<Job> jobsToProcess = new LinkedList<>(waitingQueue);
-            Collections.sort(jobsToProcess, Comparator.comparingInt((Job job) -> job.getContext().getPriority()).thenComparing((Job job) -> job.getContext().getId()));
-
-            // 遍历排序后的作业，尝试分配资源并将其移出等待队列
-            for (Job job : jobsToProcess) {
-                int requiredCpu = resourceEstimator.estimateCpu(job);
-                int requiredMemory = resourceEstimator.estimateMemory(job);
-                if (resourceManager.allocateResources(requiredCpu, requiredMemory)) {
-                    waitingQueue.remove(job);
-                    jobQueue.addJob(job);
-                    executorService.submit(() -> executeJob(job));
-                    System.out.println("将作业从等待队列移动到作业队列 : " + job.getContext().getName());
-                    System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", 内存=" + resourceManager.getAvailableMemory() + "MB");
-                } else {
-                    break; // 资源不足，停止处理等待队列
+    // 从队首开始依次尝试分配资源，队首作业资源不足时停止，不重新扫描整个等待队列
+    private void drainWaitingQueue() {
+        if (!gangs.isEmpty()) {
+            startGangs(); // 作业组持有预约，先于等待队列处理
+        }
+        Job job;
+        while ((job = waitingQueue.peek()) != null) {
+            String jobId = job.getContext().getId();
+            ResourceEstimate estimate = waitingQueue.estimateOf(jobId);
+            long enqueuedAt = waitingQueue.enqueuedAt(jobId);
+            long completedMillis = waitingQueue.completedMillisOf(jobId);
+            if (estimate == null) {
+                continue; // 作业已被移除
+            }
+            long allocatedAt = System.nanoTime();
+            if (!resourceManager.allocateResources(jobId, estimate.getCpu(), estimate.getMemory(), remainingMillis(job, completedMillis))) {
+                break; // 资源不足，停止处理等待队列
+            }
+            if (waitingQueue.remove(jobId) == null) {
+                resourceManager.releaseResources(jobId, estimate.getCpu(), estimate.getMemory()); // 作业已被移除
+                continue;
+            }
+            admitJob(job, estimate, completedMillis, allocatedAt, SchedulerMetrics.elapsedMillis(enqueuedAt));
+        }
+        if (job != null && schedulingMode == SchedulingMode.EASY_BACKFILL) {
+            backfill(job);
+        } else if (job != null && schedulingMode == SchedulingMode.RESERVATION) {
+            reserveAndBackfill(job);
+        }
+    }
+
+    // 预约调度：为队首作业预约最早的时间窗口，之后的作业只要运行期间不占用任何预约即可立即启动
+    private void reserveAndBackfill(Job head) {
+        String headId = head.getContext().getId();
+        ResourceEstimate headEstimate = waitingQueue.estimateOf(headId);
+        if (headEstimate == null) {
+            return; // 队首作业已被移除，等待下一轮处理
+        }
+        // 每轮按当前日历重新预约，运行中的作业提前结束时预约随之提前；已有的预约不会因为之后的预约推迟
+        resourceManager.reserve(headId, headEstimate.getCpu(), headEstimate.getMemory(),
+                remainingMillis(head, waitingQueue.completedMillisOf(headId)));
+        for (Job candidate : waitingQueue.head(backfillWindow)) {
+            if (candidate == head) {
+                continue;
+            }
+            String candidateId = candidate.getContext().getId();
+            ResourceEstimate estimate = waitingQueue.estimateOf(candidateId);
+            if (estimate == null || !waitingQueue.admits(candidate, estimate.getCpu(), estimate.getMemory())) {
+                continue;
+            }
+            long completedMillis = waitingQueue.completedMillisOf(candidateId);
+            long allocatedAt = System.nanoTime();
+            if (!resourceManager.allocateResources(candidateId, estimate.getCpu(), estimate.getMemory(),
+                    remainingMillis(candidate, completedMillis))) {
+                continue;
+            }
+            long enqueuedAt = waitingQueue.enqueuedAt(candidateId);
+            if (waitingQueue.remove(candidateId) == null) {
+                resourceManager.releaseResources(candidateId, estimate.getCpu(), estimate.getMemory()); // 作业已被移除
+                continue;
+            }
+            admitJob(candidate, estimate, completedMillis, allocatedAt, SchedulerMetrics.elapsedMillis(enqueuedAt));
+        }
+    }
+
+    // 依次尝试启动到达预约时间的作业组，只在处理等待队列的线程上调用，同一作业组不会被并发启动
+    private void startGangs() {
+        for (Gang gang : gangs.values()) {
+            long allocatedAt = System.nanoTime();
+            if (!resourceManager.allocateGang(gang.id, gang.jobIds, gang.cpu, gang.memory, gang.durations)) {
+                if (!gangs.containsKey(gang.id)) {
+                    resourceManager.cancelReservation(gang.id); // 作业组同时被移除
                 }
+                continue;
             }
+            if (!gangs.remove(gang.id, gang)) {
+                // 作业组同时被移除，归还刚分配的资源
+                for (int i = 0; i < gang.jobs.length; i++) {
+                    resourceManager.releaseResources(gang.jobIds[i], gang.cpu[i], gang.memory[i]);
+                }
+                continue;
+            }
+            long waitMillis = SchedulerMetrics.elapsedMillis(gang.submittedAt);
+            for (int i = 0; i < gang.jobs.length; i++) {
+                gangOf.remove(gang.jobIds[i]);
+                admitJob(gang.jobs[i], gang.estimates[i], 0, allocatedAt, waitMillis);
+            }
+            logger.debug("作业组开始运行 : {}", gang.id);
         }
     }
 
-    // 执行作业的方法
-    private void executeJob(Job job) {
-        try {
-            // 模拟作业执行时间
-            Thread.sleep(job.getContext().getExecutionTime() * 1000); // 使用 executionTime
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.out.println("作业执行被中断 : " + job.getContext().getName());
-        } finally {
-            // 在作业执行完成后释放资源
-            int requiredCpu = resourceEstimator.estimateCpu(job);
-            int requiredMemory = resourceEstimator.estimateMemory(job);
-            resourceManager.releaseResources(requiredCpu, requiredMemory);
-            System.out.println("作业执行完成并释放资源 : " + job.getContext().getName());
-            System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", 内存=" + resourceManager.getAvailableMemory() + "MB");
+    // EASY 回填：为队首作业预留最早启动时间，启动不会推迟该预留的后续作业
+    private void backfill(Job head) {
+        ResourceEstimate headEstimate = waitingQueue.estimateOf(head.getContext().getId());
+        if (headEstimate == null) {
+            return; // 队首作业已被移除，等待下一轮处理
+        }
+        long now = System.currentTimeMillis();
+        BackfillPlanner.Reservation reservation = BackfillPlanner.reserve(resourceManager.getAvailableResources(),
+                running.values(), headEstimate.getCpu(), headEstimate.getMemory(), now);
+        for (Job candidate : waitingQueue.head(backfillWindow)) {
+            if (candidate == head) {
+                continue;
+            }
+            String candidateId = candidate.getContext().getId();
+            ResourceEstimate estimate = waitingQueue.estimateOf(candidateId);
+            if (estimate == null) {
+                continue;
+            }
+            int requiredCpu = estimate.getCpu();
+            int requiredMemory = estimate.getMemory();
+            long completedMillis = waitingQueue.completedMillisOf(candidateId);
+            long duration = remainingMillis(candidate, completedMillis);
+            if (!waitingQueue.admits(candidate, requiredCpu, requiredMemory) || !reservation.admits(requiredCpu, requiredMemory, duration, now)) {
+                continue;
+            }
+            long allocatedAt = System.nanoTime();
+            if (!resourceManager.allocateResources(candidateId, requiredCpu, requiredMemory, duration)) {
+                reservation.restore(requiredCpu, requiredMemory, duration, now);
+                continue;
+            }
+            long enqueuedAt = waitingQueue.enqueuedAt(candidateId);
+            if (waitingQueue.remove(candidateId) == null) {
+                resourceManager.releaseResources(candidateId, requiredCpu, requiredMemory); // 作业已被移除
+                reservation.restore(requiredCpu, requiredMemory, duration, now);
+                continue;
+            }
+            admitJob(candidate, estimate, completedMillis, allocatedAt, SchedulerMetrics.elapsedMillis(enqueuedAt));
         }
     }
 
+    // 启动已分配资源并已计入队列用量的作业，登记租约，只执行 completedMillis 之后的剩余部分，作业队列拒绝时归还资源
+    private boolean startJob(Job job, ResourceEstimate granted, long completedMillis) {
+        // 作业进入作业队列后其他线程即可移除或驱逐它，准入记录必须先写，之后的记录才不会排在它前面
+        journal.recordAdmit(job.getContext().getId(), granted.getCpu(), granted.getMemory(), completedMillis);
+        long now = System.currentTimeMillis();
+        long remaining = remainingMillis(job, completedMillis);
+        AllocationLease lease = new AllocationLease(job.getContext().getId(), granted.getCpu(), granted.getMemory(),
+                now, now + remaining);
+        RunningJob runningJob = new RunningJob(job, lease, completedMillis);
+        // 先登记运行表再进入作业队列，移除方从作业队列取到作业时一定能取到租约，由它释放资源
+        if (running.putIfAbsent(lease.getJobId(), runningJob) != null) {
+            waitingQueue.released(job, granted.getCpu(), granted.getMemory());
+            resourceManager.releaseResources(lease.getJobId(), granted.getCpu(), granted.getMemory());
+            return false;
+        }
+        if (!jobQueue.addJob(job)) {
+            if (removeRunning(runningJob)) {
+                resourceManager.releaseResources(lease.getJobId(), granted.getCpu(), granted.getMemory());
+            }
+            return false;
+        }
+        try {
+            runningJob.run = jobExecutor.start(runningJob, remaining);
+            if (running.get(lease.getJobId()) != runningJob) {
+                runningJob.run.cancel(); // 启动前已被移除或驱逐，取出方看不到执行句柄，由这里取消
+            }
+        } catch (RejectedExecutionException ex) {
+            // 服务已关闭
+            if (removeRunning(runningJob)) {
+                jobQueue.removeJob(lease.getJobId());
+                resourceManager.releaseResources(lease.getJobId(), lease.getCpu(), lease.getMemory());
+            }
+            return false;
+        }
+        return true;
+    }
 
+    // 从运行表中取出作业并取消其执行，取出成功的一方负责释放租约
+    private RunningJob takeRunning(String jobId) {
+        RunningJob runningJob = running.remove(jobId);
+        if (runningJob != null) {
+            waitingQueue.released(runningJob.job, runningJob.getCpu(), runningJob.getMemory());
+            JobRun run = runningJob.run;
+            if (run != null) {
+                run.cancel();
+            }
+        }
+        return runningJob;
+    }
 
+    // 从运行表中移除指定的运行实例，移除成功时该作业的资源不再计入用户份额
+    private boolean removeRunning(RunningJob runningJob) {
+        if (!running.remove(runningJob.jobId(), runningJob)) {
+            return false;
+        }
+        waitingQueue.released(runningJob.job, runningJob.getCpu(), runningJob.getMemory());
+        return true;
+    }
 
-    private void freeUpResources(int requiredCpu, int requiredMemory) {
-        // 获取当前所有作业，按优先级降序排序，优先级相同按作业ID排序
-        List<Job> allJobs = jobQueue.getAllJobs();
-        Collections.sort(allJobs, Comparator.comparingInt((Job job) -> job.getContext().getPriority()).reversed().thenComparing((Job job) -> job.getContext().getId()));
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("JobManagerService is closed");
+        }
+    }
 
-        // 尝试释放资源
-        for (Job job : allJobs) {
-            int jobCpu = resourceEstimator.estimateCpu(job);
-            int jobMemory = resourceEstimator.estimateMemory(job);
-            jobQueue.removeJob(job.getContext().getId());
-            waitingQueue.add(job);
-            resourceManager.releaseResources(jobCpu, jobMemory);
-            System.out.println("通过将作业移动到等待队列来释放资源 : " + job.getContext().getName());
-            System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+    // 启动作业并记录准入事件和指标，completedMillis 为已保存的进度，allocatedAt 为开始分配资源的时间，
+    // waitMillis 为在等待队列中的时间
+    private boolean admitJob(Job job, ResourceEstimate granted, long completedMillis, long allocatedAt, long waitMillis) {
+        // 先计入份额，其他线程取出作业时才能正确扣除；并发准入使所属队列超出上限时归还资源回到等待队列
+        if (!waitingQueue.tryAllocate(job, granted.getCpu(), granted.getMemory())) {
+            String jobId = job.getContext().getId();
+            resourceManager.releaseResources(jobId, granted.getCpu(), granted.getMemory());
+            journal.recordWait(jobId, granted.getCpu(), granted.getMemory(), completedMillis);
+            waitingQueue.offer(job, granted, completedMillis);
+            metrics.recordWait();
+            transition(job, JobState.WAITING, EventType.WAIT, granted.getCpu(), granted.getMemory());
+            return true;
+        }
+        if (!startJob(job, granted, completedMillis)) {
+            journal.recordDrop(job.getContext().getId());
+            metrics.recordReject();
+            transition(job, JobState.REJECTED, EventType.REJECT, granted.getCpu(), granted.getMemory());
+            return false;
+        }
+        metrics.recordAdmit(job.getContext().getPriority(), System.nanoTime() - allocatedAt, waitMillis);
+        if (completedMillis > 0) {
+            metrics.recordResume();
+        }
+        transition(job, JobState.ADMITTED, EventType.ADMIT, granted.getCpu(), granted.getMemory());
+        return true;
+    }
 
-            if (resourceManager.getAvailableCpu() >= requiredCpu && resourceManager.getAvailableMemory() >= requiredMemory) {
-                processWaitingQueue(); // 尝试处理等待队列
-                break;
+    // 作业进入新的状态：记录调度事件（type 为 null 时不记录），再通知作业句柄和订阅者
+    private void transition(Job job, JobState state, EventType type, int cpu, int memory) {
+        if (type != null) {
+            logEvent(type, job, cpu, memory);
+        }
+        lifecycle.publish(job, state, cpu, memory);
+        if (state == JobState.REMOVED || state == JobState.DROPPED || state == JobState.REJECTED) {
+            resourceManager.cancelReservation(job.getContext().getId());
+            if (!dependencies.isEmpty()) {
+                cancelDependents(job.getContext());
             }
         }
+    }
 
-        // 如果等待队列已满，根据优先级删除等待队列中的低优先级作业
-        if (waitingQueue.size() > MAX_WAITING_QUEUE_SIZE) {
-            List<Job> jobsToRemove = new LinkedList<>(waitingQueue);
-            Collections.sort(jobsToRemove, Comparator.comparingInt((Job job) -> job.getContext().getPriority()).reversed().thenComparing((Job job) -> job.getContext().getId()));
+    // 作业图中的作业失败，尚未开始的下游作业全部取消
+    private void cancelDependents(JobContext context) {
+        for (JobContext cancelled : dependencies.failed(context)) {
+            logger.debug("上游作业失败，取消作业 : {}", cancelled.getId());
+            lifecycle.publish(cancelled, JobState.CANCELLED, 0, 0);
+        }
+    }
 
-            while (waitingQueue.size() > MAX_WAITING_QUEUE_SIZE) {
-                Job jobToRemove = jobsToRemove.remove(0);
-                waitingQueue.remove(jobToRemove);
-                System.out.println("由于容量过大，已从等待队列中删除作业 : " + jobToRemove.getContext().getName());
+    // 移除作业图中尚未开始的作业，下游作业一并取消
+    private boolean removeBlocked(String jobId) {
+        if (dependencies.isEmpty()) {
+            return false;
+        }
+        List<JobContext> cancelled = dependencies.cancel(jobId);
+        if (cancelled.isEmpty()) {
+            return false;
+        }
+        lifecycle.publish(cancelled.get(0), JobState.REMOVED, 0, 0);
+        for (JobContext dependent : cancelled.subList(1, cancelled.size())) {
+            lifecycle.publish(dependent, JobState.CANCELLED, 0, 0);
+        }
+        logger.debug("移除尚未开始的作业 : {}", jobId);
+        return true;
+    }
+
+    // 移除等待预约时间的作业组成员，同组的其他作业一并取消
+    private boolean removeGang(String jobId) {
+        String gangId = gangOf.get(jobId);
+        Gang gang = gangId == null ? null : gangs.remove(gangId);
+        if (gang == null) {
+            return false;
+        }
+        resourceManager.cancelReservation(gang.id);
+        for (int i = 0; i < gang.jobs.length; i++) {
+            gangOf.remove(gang.jobIds[i]);
+            journal.recordRemove(gang.jobIds[i]);
+            lifecycle.publish(gang.jobs[i], gang.jobIds[i].equals(jobId) ? JobState.REMOVED : JobState.CANCELLED, 0, 0);
+        }
+        logger.debug("移除作业组 : {}", gang.id);
+        return true;
+    }
+
+    // 作业图中可以调度的作业进入等待队列，由随后的等待队列处理按优先级准入，不抢占正在运行的作业
+    private void enqueueReady(List<JobContext> ready) {
+        for (JobContext context : ready) {
+            Job job;
+            try {
+                job = JobFactory.createJob(context);
+            } catch (IllegalArgumentException ex) {
+                logger.warn("无法创建作业 : {}, {}", context.getId(), ex.getMessage());
+                metrics.recordReject();
+                lifecycle.publish(context, JobState.REJECTED, 0, 0);
+                cancelDependents(context);
+                continue;
+            }
+            ResourceEstimate estimate = resourceEstimator.estimate(job);
+            journal.recordSubmit(context);
+            if (offerWaiting(job, estimate)) {
+                metrics.recordWait();
+                transition(job, JobState.WAITING, EventType.WAIT, estimate.getCpu(), estimate.getMemory());
+            } else {
+                journal.recordDrop(context.getId());
+                metrics.recordReject();
+                transition(job, JobState.REJECTED, EventType.REJECT, estimate.getCpu(), estimate.getMemory());
             }
         }
+        trimWaitingQueue();
+    }
+
+    // 记录作业生命周期事件，事件未启用时不读取资源快照也不分配任何对象
+    private void logEvent(EventType type, Job job, int cpu, int memory) {
+        if (eventLog.isEnabled(type)) {
+            ResourceSnapshot available = resourceManager.getAvailableResources();
+            eventLog.record(type, job.getContext().getId(), job.getContext().getName(), cpu, memory,
+                    available.getAvailableCpu(), available.getAvailableMemory());
+        }
     }
 
-    private void moveToWaitingQueue(Job job, int requiredCpu, int requiredMemory) {
-        List<Job> jobsToFree = new LinkedList<>(jobQueue.getAllJobs());
-        Collections.sort(jobsToFree, Comparator.comparingInt((Job jobToFree) -> jobToFree.getContext().getPriority()).reversed().thenComparing((Job jobToFree) -> jobToFree.getContext().getId()));
+    private static long durationMillis(Job job) {
+        return job.getContext().getExecutionTime() * 1000L;
+    }
+
+    private static long remainingMillis(Job job, long completedMillis) {
+        return Math.max(0, durationMillis(job) - completedMillis);
+    }
+
+    // 把作业的实际用量回报给评估器，作业没有观测到用量时只记录运行时间，运行时间包含驱逐前保存的进度
+    private void recordUsage(RunningJob runningJob) {
+        Job job = runningJob.job;
+        ResourceUsage observed = job.getObservedUsage();
+        long elapsed = runningJob.elapsedMillis(System.currentTimeMillis());
+        ResourceUsage usage;
+        if (observed == null) {
+            usage = ResourceUsage.runtimeOnly(elapsed);
+        } else if (observed.getRuntimeMillis() <= 0) {
+            usage = new ResourceUsage(observed.getCpu(), observed.getMemory(), elapsed);
+        } else {
+            usage = observed;
+        }
+        try {
+            resourceEstimator.recordUsage(job, usage);
+        } catch (RuntimeException ex) {
+            logger.warn("记录作业用量失败 : {}, {}", job.getContext().getId(), ex.getMessage());
+        }
+    }
 
-        for (Job jobToFree : jobsToFree) {
-            int jobCpu = resourceEstimator.estimateCpu(jobToFree);
-            int jobMemory = resourceEstimator.estimateMemory(jobToFree);
-            jobQueue.removeJob(jobToFree.getContext().getId());
-            waitingQueue.add(jobToFree);
-            resourceManager.releaseResources(jobCpu, jobMemory);
-            System.out.println("通过将作业移动到等待队列来释放资源 : " + jobToFree.getContext().getName());
-            System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+    private void trimWaitingQueue() {
+        for (Job jobToRemove : waitingQueue.trimTo(maxWaitingQueueSize)) {
+            journal.recordDrop(jobToRemove.getContext().getId());
+            metrics.recordDrop();
+            transition(jobToRemove, JobState.DROPPED, EventType.DROP, 0, 0);
+        }
+    }
 
-            if (resourceManager.getAvailableCpu() >= requiredCpu && resourceManager.getAvailableMemory() >= requiredMemory) {
-                break;
+    // 执行器回调：一批作业到达执行时间，合并释放租约后只处理一次等待队列
+    private void completeJobs(List<RunningJob> finished) {
+        long releasedAt = System.nanoTime();
+        List<AllocationLease> released = new ArrayList<>(finished.size());
+        List<JobContext> ready = new ArrayList<>();
+        for (RunningJob runningJob : finished) {
+            // 作业已被移除或驱逐时已不在运行表中
+            if (!removeRunning(runningJob)) {
+                continue;
             }
+            jobQueue.removeJob(runningJob.jobId());
+            journal.recordComplete(runningJob.jobId());
+            released.add(runningJob.lease);
+            recordUsage(runningJob);
+            transition(runningJob.job, JobState.COMPLETED, EventType.RELEASE, runningJob.getCpu(), runningJob.getMemory());
+            if (!dependencies.isEmpty()) {
+                ready.addAll(dependencies.completed(runningJob.job.getContext()));
+            }
+        }
+        if (released.isEmpty()) {
+            return;
         }
+        resourceManager.releaseResources(released);
+        enqueueReady(ready); // 下游作业和已在等待的作业一起按优先级竞争刚释放的资源
+        processWaitingQueue(); // 资源释放后处理等待队列
+        metrics.recordRelease(released.size(), System.nanoTime() - releasedAt);
+    }
 
-        if (resourceManager.allocateResources(requiredCpu, requiredMemory)) {
-            jobQueue.addJob(job);
-            executorService.submit(() -> executeJob(job));
-            System.out.println("创建作业 : " + job.getContext().getName() + " 类型 " + job.getContext().getType());
-            System.out.println("剩余资源 : CPU=" + resourceManager.getAvailableCpu() + ", Memory=" + resourceManager.getAvailableMemory() + "MB");
+    // 驱逐运行中的作业：取消其执行，按租约归还资源，作业带着原评估结果和保存的进度回到等待队列
+    private AllocationLease evict(Job job) {
+        String jobId = job.getContext().getId();
+        RunningJob runningJob = takeRunning(jobId);
+        if (runningJob == null) {
+            return null;
+        }
+        AllocationLease lease = runningJob.lease;
+        if (!jobQueue.removeJob(jobId)) {
+            // 作业同时被移除，由这里归还资源，不再回到等待队列
+            resourceManager.releaseResources(jobId, lease.getCpu(), lease.getMemory());
+            return null;
+        }
+        long elapsed = Math.min(durationMillis(job), runningJob.elapsedMillis(System.currentTimeMillis()));
+        long preserved = checkpoint(job, elapsed);
+        metrics.recordPreemptedWork(elapsed - preserved, preserved);
+        journal.recordEvict(jobId, lease.getCpu(), lease.getMemory(), preserved);
+        // 先归还节点上的资源再回到等待队列，处理等待队列时不会因为作业仍占着原节点而重复放置失败
+        resourceManager.releaseResources(jobId, lease.getCpu(), lease.getMemory());
+        waitingQueue.offer(job, new ResourceEstimate(lease.getCpu(), lease.getMemory()), preserved);
+        return lease;
+    }
+
+    // 调用作业的检查点，结果限制在 0 到已执行时间之间，检查点失败时从头重新执行
+    private static long checkpoint(Job job, long elapsedMillis) {
+        try {
+            return Math.max(0, Math.min(elapsedMillis, job.checkpoint(elapsedMillis)));
+        } catch (RuntimeException ex) {
+            logger.warn("保存作业进度失败 : {}, {}", job.getContext().getId(), ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 放入等待队列后才发布 WAITING；队列拒绝（同一ID的作业已在排队或队列已满）时发布 REJECTED，句柄不会停在 WAITING。
+     */
+    private void waitOrReject(Job job, ResourceEstimate estimate, int cpu, int memory) {
+        if (offerWaiting(job, estimate)) {
+            metrics.recordWait();
+            transition(job, JobState.WAITING, EventType.WAIT, cpu, memory);
         } else {
-            System.out.println("资源仍然不足，作业已添加到等待队列中 : " + job.getContext().getName());
-            waitingQueue.add(job);
+            journal.recordDrop(job.getContext().getId());
+            metrics.recordReject();
+            transition(job, JobState.REJECTED, EventType.REJECT, cpu, memory);
         }
+    }
 
-        // 如果等待队列已满，根据优先级删除等待队列中的低优先级作业
-        if (waitingQueue.size() > MAX_WAITING_QUEUE_SIZE) {
-            List<Job> jobsToRemove = new LinkedList<>(waitingQueue);
-            Collections.sort(jobsToRemove, Comparator.comparingInt((Job jobToRemove) -> jobToRemove.getContext().getPriority()).reversed().thenComparing((Job jobToRemove) -> jobToRemove.getContext().getId()));
+    // 作业进入等待队列，先写日志再入队，准入记录不会早于等待记录
+    private boolean offerWaiting(Job job, ResourceEstimate estimate) {
+        journal.recordWait(job.getContext().getId(), estimate.getCpu(), estimate.getMemory(), 0);
+        return waitingQueue.offer(job, estimate);
+    }
 
-            while (waitingQueue.size() > MAX_WAITING_QUEUE_SIZE) {
-                Job jobToRemove = jobsToRemove.remove(0);
-                waitingQueue.remove(jobToRemove);
-                System.out.println("由于容量过大，已从等待队列中删除作业 : " + jobToRemove.getContext().getName());
+    // 按日志恢复崩溃前的作业：运行中的作业重新分配资源并只执行剩余部分，资源不足时进入等待队列
+    private void recover(JournalRecovery recovery) {
+        long startedAt = System.nanoTime();
+        for (RecoveredJob recovered : recovery.getRunning()) {
+            Job job = recoveredJob(recovered);
+            if (job == null) {
+                continue;
             }
+            ResourceEstimate estimate = new ResourceEstimate(recovered.getCpu(), recovered.getMemory());
+            if (resourceManager.allocateResources(recovered.getContext().getId(), recovered.getCpu(), recovered.getMemory(),
+                    remainingMillis(job, recovered.getCompletedMillis()))) {
+                waitingQueue.allocated(job, recovered.getCpu(), recovered.getMemory()); // 恢复崩溃前的用量，不检查队列上限
+                if (startJob(job, estimate, recovered.getCompletedMillis())) {
+                    continue;
+                }
+            }
+            journal.recordWait(recovered.getContext().getId(), recovered.getCpu(), recovered.getMemory(), recovered.getCompletedMillis());
+            waitingQueue.offer(job, estimate, recovered.getCompletedMillis());
+        }
+        for (RecoveredJob recovered : recovery.getWaiting()) {
+            Job job = recoveredJob(recovered);
+            if (job != null) {
+                waitingQueue.offer(job, new ResourceEstimate(recovered.getCpu(), recovered.getMemory()), recovered.getCompletedMillis());
+            }
+        }
+        trimWaitingQueue();
+        processWaitingQueue();
+        logger.info("从日志恢复作业 : 运行 {} 个，等待 {} 个，快照之后重放 {} 条记录，耗时 {} 毫秒", jobQueue.size(), waitingQueue.size(),
+                recovery.getRecordCount(), SchedulerMetrics.elapsedMillis(startedAt));
+    }
+
+    private Job recoveredJob(RecoveredJob recovered) {
+        try {
+            return JobFactory.createJob(recovered.getContext());
+        } catch (IllegalArgumentException ex) {
+            logger.warn("无法恢复作业 : {}, {}", recovered.getContext().getId(), ex.getMessage());
+            journal.recordDrop(recovered.getContext().getId());
+            return null;
         }
     }
 
-    private int loadQueueSizeFromConfig() {
-        Properties properties = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
-            if (input == null) {
-                System.out.println("Sorry, unable to find config.properties");
-                return 10; // 默认队列大小
+    // 资源不足时抢占优先级更低的作业，仍然无法运行的作业进入等待队列
+    private void moveToWaitingQueue(Job job, ResourceEstimate estimate) {
+        int requiredCpu = estimate.getCpu();
+        int requiredMemory = estimate.getMemory();
+        long evictStartedAt = System.nanoTime();
+        ResourceSnapshot available = resourceManager.getAvailableResources();
+        int deficitCpu = requiredCpu - available.getAvailableCpu();
+        int deficitMemory = requiredMemory - available.getAvailableMemory();
+        long now = System.currentTimeMillis();
+        List<Job> victims = PreemptionEngine.selectVictims(jobQueue.lowestPriorityFirst(), running::get,
+                job.getContext().getPriority(), deficitCpu, deficitMemory, now);
+        if (victims.isEmpty()) {
+            // 所属队列低于保证份额时从借用资源的队列收回，不比较优先级
+            victims = PreemptionEngine.selectVictims(waitingQueue.reclaimable(job, requiredCpu, requiredMemory, jobQueue.lowestPriorityFirst()),
+                    running::get, Integer.MIN_VALUE, deficitCpu, deficitMemory, now);
+        }
+        int evictedJobs = 0;
+        for (Job victim : victims) {
+            AllocationLease lease = evict(victim);
+            if (lease != null) {
+                evictedJobs++;
+                transition(victim, JobState.EVICTED, EventType.EVICT, lease.getCpu(), lease.getMemory());
             }
-            properties.load(input);
-            return Integer.parseInt(properties.getProperty("queue.size", "10"));
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            return 10; // 默认队列大小
+        }
+        if (evictedJobs > 0) {
+            metrics.recordEvict(evictedJobs, System.nanoTime() - evictStartedAt);
+        }
+
+        long allocatedAt = System.nanoTime();
+        if (resourceManager.allocateResources(job.getContext().getId(), requiredCpu, requiredMemory, durationMillis(job))) {
+            admitJob(job, estimate, 0, allocatedAt, 0);
+        } else {
+            waitOrReject(job, estimate, requiredCpu, requiredMemory);
+        }
+
+        // 如果等待队列已满，根据优先级删除等待队列中的低优先级作业
+        trimWaitingQueue();
+        if (schedulingMode == SchedulingMode.RESERVATION) {
+            processWaitingQueue(); // 队首作业可能已经换成新作业，为它预约
         }
     }
 
     public List<Job> getWaitingQueue() {
-        return new LinkedList<>(waitingQueue);
+        return waitingQueue.toList();
+    }
+
+    /**
+     * 等待队列最前面至多 limit 个作业需要的资源之和。
+     */
+    public ResourceEstimate getWaitingDemand(int limit) {
+        int cpu = 0;
+        int memory = 0;
+        for (Job job : waitingQueue.head(limit)) {
+            ResourceEstimate estimate = waitingQueue.estimateOf(job.getContext().getId());
+            if (estimate != null) {
+                cpu += estimate.getCpu();
+                memory += estimate.getMemory();
+            }
+        }
+        return new ResourceEstimate(cpu, memory);
+    }
+
+    @Override
+    public JobProgress getProgress(String jobId) {
+        RunningJob runningJob = running.get(jobId);
+        if (runningJob != null) {
+            return new JobProgress(jobId, durationMillis(runningJob.job), runningJob.elapsedMillis(System.currentTimeMillis()), true);
+        }
+        Job job = waitingQueue.getJob(jobId);
+        if (job != null) {
+            return new JobProgress(jobId, durationMillis(job), waitingQueue.completedMillisOf(jobId), false);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean reportUsage(String jobId, int cpu, int memory) {
+        RunningJob runningJob = running.get(jobId);
+        return runningJob != null && runningJob.job.reportUsage(cpu, memory);
+    }
+
+    /**
+     * 等待同时启动的作业组，数组按提交顺序对应组内各作业。
+     */
+    private static final class Gang {
+        private final String id;
+        private final Job[] jobs;
+        private final String[] jobIds;
+        private final ResourceEstimate[] estimates;
+        private final int[] cpu;
+        private final int[] memory;
+        private final long[] durations;
+        private final long submittedAt = System.nanoTime();
+
+        private Gang(String id, int size) {
+            this.id = id;
+            this.jobs = new Job[size];
+            this.jobIds = new String[size];
+            this.estimates = new ResourceEstimate[size];
+            this.cpu = new int[size];
+            this.memory = new int[size];
+            this.durations = new long[size];
+        }
+    }
+
+    /**
+     * 运行中的作业：作业、资源租约、本次运行前已保存的进度和执行句柄。
+     */
+    private static final class RunningJob implements RunningAllocation {
+        private final Job job;
+        private final AllocationLease lease;
+        private final long completedMillis;
+        private volatile JobRun run;
+
+        private RunningJob(Job job, AllocationLease lease, long completedMillis) {
+            this.job = job;
+            this.lease = lease;
+            this.completedMillis = completedMillis;
+        }
+
+        private String jobId() {
+            return lease.getJobId();
+        }
+
+        // 累计执行时间：之前保存的进度加上本次运行的时间
+        private long elapsedMillis(long nowMillis) {
+            return completedMillis + Math.max(0, nowMillis - lease.getGrantedAt());
+        }
+
+        @Override
+        public int getCpu() {
+            return lease.getCpu();
+        }
+
+        @Override
+        public int getMemory() {
+            return lease.getMemory();
+        }
+
+        @Override
+        public long getExpectedEndMillis() {
+            return lease.getExpectedEndMillis();
+        }
     }
 }
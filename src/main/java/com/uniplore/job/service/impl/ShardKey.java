@@ -0,0 +1,34 @@
+package com.uniplore.job.service.impl;
+
+/**
+ * {@link ShardedJobManagerService} 划分作业的依据。
+ */
+public enum ShardKey {
+    /**
+     * 按用户划分，同一用户的作业在同一个分片中，按用户查询只访问一个分片。
+     */
+    USER("user"),
+    /**
+     * 按作业ID划分，单个用户的大量作业也能分散到全部分片。
+     */
+    ID("id");
+
+    private final String configName;
+
+    ShardKey(String configName) {
+        this.configName = configName;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    public static ShardKey fromConfig(String value) {
+        for (ShardKey key : values()) {
+            if (key.configName.equalsIgnoreCase(value.trim()) || key.name().equalsIgnoreCase(value.trim())) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown shard key: " + value);
+    }
+}
@@ -0,0 +1,475 @@
+package com.uniplore.job.service.impl;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobEvent;
+import com.uniplore.job.JobGraph;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobLifecycle;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.JobResult;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.JobManagerService;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.resouce.management.ResourceSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片的作业管理服务：作业按用户或作业ID的哈希划分到 shard.count 个 {@link JobManagerServiceImpl}，
+ * 每个分片有自己的作业队列、等待队列、执行器和资源账本，不同分片的提交和完成互不竞争。
+ * <p>
+ * 全局资源在分片之间划分为各自的配额，配额之和始终等于资源总量。后台线程每隔 shard.rebalance.interval 毫秒
+ * 按各分片等待队列的需求重新划分空闲资源：先从空闲多于目标的分片移出空闲资源，再加到不足的分片，
+ * 移出只取分片当时确实空闲的部分，因此任何时刻都不会超额分配。等待中的作业最多等待一个重新划分的间隔。
+ * <p>
+ * 作业队列和等待队列的容量按分片数平分（向上取整）；配置了日志目录时每个分片写入各自的子目录，
+ * 分片只使用本进程内的资源账本，不支持按节点放置（节点容量不能在分片之间划分）。按作业ID查找的操作在按用户划分时需要依次询问各个分片。
+ * 全部分片共用一个 {@link JobLifecycle}，事件订阅者看到全部分片的作业。
+ */
+public class ShardedJobManagerService implements JobManagerService {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedJobManagerService.class);
+
+    private final JobManagerServiceImpl[] shards;
+    private final ResourceManager[] resourceManagers;
+    private final ShardKey shardKey;
+    private final int totalCpu;
+    private final int totalMemory;
+    private final int demandWindow;
+    private final ScheduledExecutorService rebalancer;
+    private final JobLifecycle lifecycle;
+    private volatile boolean closed;
+
+    public ShardedJobManagerService(SchedulerConfig config) {
+        if (!config.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("Sharded service does not support " + SchedulerConfig.NODES);
+        }
+        int count = config.getShardCount();
+        this.shards = new JobManagerServiceImpl[count];
+        this.resourceManagers = new ResourceManager[count];
+        this.shardKey = config.getShardKey();
+        this.totalCpu = config.getTotalCpu();
+        this.totalMemory = config.getTotalMemory();
+        this.demandWindow = config.getBackfillWindow();
+        this.lifecycle = new JobLifecycle(config.getJobEventBuffer());
+        int queueSize = ceilDiv(config.getQueueSize(), count);
+        int waitingQueueSize = ceilDiv(config.getWaitingQueueSize(), count);
+        for (int i = 0; i < count; i++) {
+            SchedulerConfig shardConfig = config
+                    .with(SchedulerConfig.CPU_TOTAL, portion(totalCpu, count, i))
+                    .with(SchedulerConfig.MEMORY_TOTAL, portion(totalMemory, count, i))
+                    .with(SchedulerConfig.QUEUE_SIZE, queueSize)
+                    .with(SchedulerConfig.WAITING_QUEUE_SIZE, waitingQueueSize)
+                    .with(SchedulerConfig.RESOURCE_LEDGER_FILE, "")
+                    .with(SchedulerConfig.SHARD_COUNT, 1);
+            if (!config.getJournalDir().isEmpty()) {
+                shardConfig = shardConfig.with(SchedulerConfig.JOURNAL_DIR, Paths.get(config.getJournalDir(), "shard-" + i));
+            }
+            resourceManagers[i] = new ResourceManager(shardConfig);
+            shards[i] = new JobManagerServiceImpl(shardConfig, resourceManagers[i], lifecycle);
+        }
+        this.rebalancer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getShardRebalanceInterval();
+        rebalancer.scheduleWithFixedDelay(this::rebalanceQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按需求重新划分各分片的空闲资源：等待队列的需求先满足，剩余的平均分配，便于新提交的作业立即运行。
+     */
+    public synchronized void rebalance() {
+        if (closed) {
+            return;
+        }
+        int count = shards.length;
+        int[] freeCpu = new int[count];
+        int[] freeMemory = new int[count];
+        int[] demandCpu = new int[count];
+        int[] demandMemory = new int[count];
+        for (int i = 0; i < count; i++) {
+            ResourceSnapshot available = resourceManagers[i].getAvailableResources();
+            freeCpu[i] = Math.max(0, available.getAvailableCpu());
+            freeMemory[i] = Math.max(0, available.getAvailableMemory());
+            ResourceEstimate demand = shards[i].getWaitingDemand(demandWindow);
+            demandCpu[i] = demand.getCpu();
+            demandMemory[i] = demand.getMemory();
+        }
+        int[] targetCpu = split(sum(freeCpu), demandCpu);
+        int[] targetMemory = split(sum(freeMemory), demandMemory);
+
+        // 先移出多余的空闲资源，分片在此期间分配掉的部分移出失败，留在原分片
+        long poolCpu = 0;
+        long poolMemory = 0;
+        for (int i = 0; i < count; i++) {
+            int excessCpu = freeCpu[i] - targetCpu[i];
+            if (excessCpu > 0 && resourceManagers[i].shrinkAllotment(excessCpu, 0)) {
+                poolCpu += excessCpu;
+            }
+            int excessMemory = freeMemory[i] - targetMemory[i];
+            if (excessMemory > 0 && resourceManagers[i].shrinkAllotment(0, excessMemory)) {
+                poolMemory += excessMemory;
+            }
+        }
+        // 再加到不足的分片，移出失败时剩余的资源按顺序补齐
+        boolean[] grown = new boolean[count];
+        for (int pass = 0; pass < 2 && (poolCpu > 0 || poolMemory > 0); pass++) {
+            for (int i = 0; i < count; i++) {
+                int cpu = (int) Math.min(poolCpu, pass == 0 ? Math.max(0, targetCpu[i] - freeCpu[i]) : poolCpu);
+                int memory = (int) Math.min(poolMemory, pass == 0 ? Math.max(0, targetMemory[i] - freeMemory[i]) : poolMemory);
+                if (cpu > 0 || memory > 0) {
+                    resourceManagers[i].growAllotment(cpu, memory);
+                    poolCpu -= cpu;
+                    poolMemory -= memory;
+                    grown[i] = true;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (grown[i]) {
+                shards[i].processWaitingQueue();
+            }
+        }
+    }
+
+    @Override
+    public Job createJob(JobContext context) {
+        return shardFor(context).createJob(context);
+    }
+
+    @Override
+    public JobHandle submit(JobContext context) {
+        return shardFor(context).submit(context);
+    }
+
+    /**
+     * 作业图的下游作业由完成上游作业的分片提交，因此全部作业必须划分到同一个分片，例如按用户划分时由同一用户提交。
+     */
+    @Override
+    public Map<String, JobHandle> submitGraph(JobGraph graph) {
+        List<JobContext> jobs = graph.getJobs();
+        if (jobs.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        JobManagerServiceImpl shard = shardFor(jobs.get(0));
+        for (JobContext context : jobs) {
+            if (shardFor(context) != shard) {
+                throw new IllegalArgumentException("Job graph spans shards: " + context.getId());
+            }
+        }
+        return shard.submitGraph(graph);
+    }
+
+    /**
+     * 作业组只能在一个分片的资源中预约，全部作业必须划分到同一个分片。
+     */
+    @Override
+    public Map<String, JobHandle> submitGang(List<JobContext> contexts) {
+        if (contexts.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        JobManagerServiceImpl shard = shardFor(contexts.get(0));
+        for (JobContext context : contexts) {
+            if (shardFor(context) != shard) {
+                throw new IllegalArgumentException("Gang spans shards: " + context.getId());
+            }
+        }
+        return shard.submitGang(contexts);
+    }
+
+    @Override
+    public Flow.Publisher<JobEvent> events() {
+        return lifecycle.publisher();
+    }
+
+    /**
+     * 按分片分组后由各分片批量创建，结果按输入顺序返回。
+     */
+    @Override
+    public List<JobResult> createJobs(List<JobContext> contexts) {
+        List<List<JobContext>> groups = new ArrayList<>(shards.length);
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < contexts.size(); i++) {
+            int shard = shardIndex(contexts.get(i));
+            groups.get(shard).add(contexts.get(i));
+            positions.get(shard).add(i);
+        }
+        JobResult[] results = new JobResult[contexts.size()];
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (groups.get(shard).isEmpty()) {
+                continue;
+            }
+            List<JobResult> shardResults = shards[shard].createJobs(groups.get(shard));
+            for (int i = 0; i < shardResults.size(); i++) {
+                results[positions.get(shard).get(i)] = shardResults.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public boolean removeJob(String jobId) {
+        if (shardKey == ShardKey.ID) {
+            return shards[shardIndex(jobId)].removeJob(jobId);
+        }
+        for (JobManagerServiceImpl shard : shards) {
+            if (shard.removeJob(jobId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeJobs(List<String> jobIds) {
+        removeJobsWithResults(jobIds);
+        return true;
+    }
+
+    @Override
+    public List<JobResult> removeJobsWithResults(List<String> jobIds) {
+        List<JobResult> results = new ArrayList<>(Collections.nCopies(jobIds.size(), null));
+        List<String> pending = new ArrayList<>(jobIds);
+        List<Integer> pendingPositions = new ArrayList<>();
+        for (int i = 0; i < jobIds.size(); i++) {
+            pendingPositions.add(i);
+        }
+        // 按用户划分时依次询问各个分片，每个分片只处理上一个分片没有找到的作业
+        for (int shard = 0; shard < shards.length && !pending.isEmpty(); shard++) {
+            List<String> ids = pending;
+            List<Integer> idPositions = pendingPositions;
+            if (shardKey == ShardKey.ID) {
+                ids = new ArrayList<>();
+                idPositions = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    if (shardIndex(pending.get(i)) == shard) {
+                        ids.add(pending.get(i));
+                        idPositions.add(pendingPositions.get(i));
+                    }
+                }
+                if (ids.isEmpty()) {
+                    continue;
+                }
+            }
+            List<JobResult> shardResults = shards[shard].removeJobsWithResults(ids);
+            List<String> notFound = new ArrayList<>();
+            List<Integer> notFoundPositions = new ArrayList<>();
+            for (int i = 0; i < shardResults.size(); i++) {
+                results.set(idPositions.get(i), shardResults.get(i));
+                if (shardResults.get(i).getJob() == null) {
+                    notFound.add(ids.get(i));
+                    notFoundPositions.add(idPositions.get(i));
+                }
+            }
+            if (shardKey == ShardKey.USER) {
+                pending = notFound;
+                pendingPositions = notFoundPositions;
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void estimateResources(String jobId) {
+        for (JobManagerServiceImpl shard : shardsFor(jobId)) {
+            shard.estimateResources(jobId);
+        }
+    }
+
+    @Override
+    public List<Job> getAllJobs() {
+        List<Job> jobs = new ArrayList<>();
+        for (JobManagerServiceImpl shard : shards) {
+            jobs.addAll(shard.getAllJobs());
+        }
+        return jobs;
+    }
+
+    @Override
+    public List<Job> getJobsByUser(String user) {
+        if (shardKey == ShardKey.USER) {
+            return shards[shardIndex(user)].getJobsByUser(user);
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (JobManagerServiceImpl shard : shards) {
+            jobs.addAll(shard.getJobsByUser(user));
+        }
+        return jobs;
+    }
+
+    @Override
+    public List<Job> getJobsByType(String type) {
+        List<Job> jobs = new ArrayList<>();
+        for (JobManagerServiceImpl shard : shards) {
+            jobs.addAll(shard.getJobsByType(type));
+        }
+        return jobs;
+    }
+
+    @Override
+    public boolean updateJob(String jobId, String newName, String newContent) {
+        for (JobManagerServiceImpl shard : shardsFor(jobId)) {
+            if (shard.updateJob(jobId, newName, newContent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void processWaitingQueue() {
+        for (JobManagerServiceImpl shard : shards) {
+            shard.processWaitingQueue();
+        }
+    }
+
+    @Override
+    public JobProgress getProgress(String jobId) {
+        for (JobManagerServiceImpl shard : shardsFor(jobId)) {
+            JobProgress progress = shard.getProgress(jobId);
+            if (progress != null) {
+                return progress;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean reportUsage(String jobId, int cpu, int memory) {
+        for (JobManagerServiceImpl shard : shardsFor(jobId)) {
+            if (shard.reportUsage(jobId, cpu, memory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 停止重新划分资源并关闭全部分片，最后结束事件流。
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        rebalancer.shutdownNow();
+        for (JobManagerServiceImpl shard : shards) {
+            shard.close();
+        }
+        lifecycle.close();
+    }
+
+    public void setResourceEstimator(ResourceEstimator resourceEstimator) {
+        for (JobManagerServiceImpl shard : shards) {
+            shard.setResourceEstimator(resourceEstimator);
+        }
+    }
+
+    public List<JobManagerServiceImpl> getShards() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
+    }
+
+    /**
+     * 全部分片的可用资源之和。
+     */
+    public ResourceSnapshot getAvailableResources() {
+        int cpu = 0;
+        int memory = 0;
+        for (ResourceManager resourceManager : resourceManagers) {
+            ResourceSnapshot available = resourceManager.getAvailableResources();
+            cpu += available.getAvailableCpu();
+            memory += available.getAvailableMemory();
+        }
+        return new ResourceSnapshot(cpu, memory);
+    }
+
+    public int getTotalCpu() {
+        return totalCpu;
+    }
+
+    public int getTotalMemory() {
+        return totalMemory;
+    }
+
+    private void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (RuntimeException ex) {
+            logger.warn("重新划分分片资源失败 : {}", ex.getMessage());
+        }
+    }
+
+    private JobManagerServiceImpl shardFor(JobContext context) {
+        return shards[shardIndex(context)];
+    }
+
+    private List<JobManagerServiceImpl> shardsFor(String jobId) {
+        return shardKey == ShardKey.ID ? List.of(shards[shardIndex(jobId)]) : Arrays.asList(shards);
+    }
+
+    private int shardIndex(JobContext context) {
+        return shardIndex(shardKey == ShardKey.USER ? context.getUser() : context.getId());
+    }
+
+    private int shardIndex(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    // 先满足各分片的需求，剩余的平均分配；需求之和超过总量时按需求比例分配
+    private static int[] split(long total, int[] demand) {
+        int count = demand.length;
+        int[] target = new int[count];
+        long totalDemand = sum(demand);
+        long assigned = 0;
+        for (int i = 0; i < count; i++) {
+            target[i] = (int) (totalDemand <= total ? demand[i] : total * demand[i] / totalDemand);
+            assigned += target[i];
+        }
+        long remaining = total - assigned;
+        for (int i = 0; i < count; i++) {
+            target[i] += (int) (remaining / count + (i < remaining % count ? 1 : 0));
+        }
+        return target;
+    }
+
+    private static long sum(int[] values) {
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static int portion(int total, int count, int index) {
+        return total / count + (index < total % count ? 1 : 0);
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
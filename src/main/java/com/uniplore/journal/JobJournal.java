@@ -0,0 +1,465 @@
+package com.uniplore.journal;
+
+import com.uniplore.job.JobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 作业生命周期的预写日志，只追加，写入内存映射的分段文件。
+ * <p>
+ * 每条记录格式为 [长度][CRC32C][内容]，写入时只复制到映射区域，不等待落盘；后台线程每隔 flushIntervalMillis
+ * 把这段时间内的全部记录一次性刷到磁盘（组提交），提交作业的线程不会被磁盘同步拖慢，需要确认落盘时调用 {@link #sync()}。
+ * 分段写满后换到下一个文件，每次打开日志都从新的分段开始。读取时遇到长度为 0 或校验失败的记录即认为该分段结束，
+ * 崩溃时写了一半的记录会被忽略。已经写入快照的分段由 {@link JournalSnapshotter} 删除。
+ */
+public class JobJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JobJournal.class);
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8; // 长度 + CRC32C
+    private static final JobJournal DISABLED = new JobJournal();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long flushIntervalMillis;
+    private final Thread flusher;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private long segmentStartBytes;
+    private long appendedBytes;
+    private long forcedBytes;
+    private long appendedRecords;
+    private boolean syncRequested;
+    private volatile boolean closed;
+
+    private JobJournal() {
+        this.directory = null;
+        this.segmentBytes = 0;
+        this.flushIntervalMillis = 0;
+        this.flusher = null;
+        this.closed = true;
+    }
+
+    private JobJournal(Path directory, int segmentBytes, long flushIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+        List<Path> segments = segments(directory);
+        // 分段可能已被快照截断，新分段的序号不能小于快照没有包含的第一个分段
+        this.segmentIndex = Math.max(segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1)),
+                JournalSnapshot.latestCoveredSegment(directory) - 1);
+        this.segment = nextSegment();
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 在指定目录打开日志，目录不存在时创建。
+     *
+     * @param segmentBytes        每个分段文件的大小
+     * @param flushIntervalMillis 组提交的间隔
+     */
+    public static JobJournal open(Path directory, int segmentBytes, long flushIntervalMillis) {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal segment size too small: " + segmentBytes);
+        }
+        try {
+            Files.createDirectories(directory);
+            return new JobJournal(directory, segmentBytes, flushIntervalMillis);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open journal in " + directory, ex);
+        }
+    }
+
+    /**
+     * 不写任何内容的日志，未配置日志目录时使用。
+     */
+    public static JobJournal disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    public void recordSubmit(JobContext context) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            ByteBuffer body = begin(JournalRecordType.SUBMIT, context.getId());
+            body = putString(body, context.getName());
+            body = putString(body, context.getUser());
+            body = ensure(body, 4);
+            body.putInt(context.getPriority());
+            body = putString(body, context.getType());
+            body = putString(body, context.getContent());
+            body = ensure(body, 8);
+            body.putInt(context.getProcessId());
+            body.putInt(context.getExecutionTime());
+            append(body);
+        }
+    }
+
+    public void recordAdmit(String jobId, int cpu, int memory, long completedMillis) {
+        recordAllocation(JournalRecordType.ADMIT, jobId, cpu, memory, completedMillis);
+    }
+
+    public void recordWait(String jobId, int cpu, int memory, long completedMillis) {
+        recordAllocation(JournalRecordType.WAIT, jobId, cpu, memory, completedMillis);
+    }
+
+    /**
+     * 记录驱逐，completedMillis 为作业保存下来的进度。
+     */
+    public void recordEvict(String jobId, int cpu, int memory, long completedMillis) {
+        recordAllocation(JournalRecordType.EVICT, jobId, cpu, memory, completedMillis);
+    }
+
+    public void recordComplete(String jobId) {
+        recordJob(JournalRecordType.COMPLETE, jobId);
+    }
+
+    public void recordRemove(String jobId) {
+        recordJob(JournalRecordType.REMOVE, jobId);
+    }
+
+    public void recordDrop(String jobId) {
+        recordJob(JournalRecordType.DROP, jobId);
+    }
+
+    public void recordUpdate(String jobId, String name, String content) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            ByteBuffer body = begin(JournalRecordType.UPDATE, jobId);
+            body = putString(body, name);
+            body = putString(body, content);
+            append(body);
+        }
+    }
+
+    /**
+     * 等待到调用前写入的全部记录都已落盘。
+     */
+    public synchronized void sync() throws InterruptedException {
+        long target = appendedBytes;
+        syncRequested = true;
+        notifyAll();
+        while (forcedBytes < target && !closed) {
+            wait();
+        }
+    }
+
+    public synchronized long getAppendedRecords() {
+        return appendedRecords;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 结束当前分段，之后的记录写入新分段，返回正在写入的分段序号；序号更小的分段不会再改变。
+     * 当前分段为空时不换分段。
+     */
+    synchronized long sealSegment() {
+        if (!closed && appendedBytes > segmentStartBytes) {
+            roll();
+        }
+        return segmentIndex;
+    }
+
+    /**
+     * 刷盘并关闭日志，关闭后的写入被忽略。
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            segment.force();
+            forcedBytes = appendedBytes;
+        }
+    }
+
+    /**
+     * 按写入顺序读取目录中的全部记录，返回读取的记录数。
+     */
+    public static long replay(Path directory, Consumer<JournalRecord> consumer) {
+        return replay(directory, 0, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 按写入顺序读取序号在 [fromSegment, toSegment) 之间的分段，返回读取的记录数。
+     */
+    static long replay(Path directory, long fromSegment, long toSegment, Consumer<JournalRecord> consumer) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long count = 0;
+        try {
+            for (Path file : segments(directory)) {
+                long index = indexOf(file);
+                if (index >= fromSegment && index < toSegment) {
+                    count += replaySegment(file, consumer);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read journal in " + directory, ex);
+        }
+        return count;
+    }
+
+    private void recordAllocation(JournalRecordType type, String jobId, int cpu, int memory, long completedMillis) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            ByteBuffer body = begin(type, jobId);
+            body = ensure(body, 16);
+            body.putInt(cpu);
+            body.putInt(memory);
+            body.putLong(completedMillis);
+            append(body);
+        }
+    }
+
+    private void recordJob(JournalRecordType type, String jobId) {
+        if (closed) {
+            return;
+        }
+        synchronized (this) {
+            append(begin(type, jobId));
+        }
+    }
+
+    // 以下方法在持有锁时调用
+    private ByteBuffer begin(JournalRecordType type, String jobId) {
+        ByteBuffer body = scratch;
+        body.clear();
+        body.put(type.code());
+        body.putLong(System.currentTimeMillis());
+        return putString(body, jobId);
+    }
+
+    private ByteBuffer putString(ByteBuffer body, String value) {
+        if (value == null) {
+            body = ensure(body, 4);
+            body.putInt(-1);
+            return body;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        body = ensure(body, 4 + bytes.length);
+        body.putInt(bytes.length);
+        body.put(bytes);
+        return body;
+    }
+
+    private ByteBuffer ensure(ByteBuffer body, int bytes) {
+        if (body.remaining() >= bytes) {
+            return body;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + bytes));
+        body.flip();
+        larger.put(body);
+        scratch = larger;
+        return larger;
+    }
+
+    private void append(ByteBuffer body) {
+        if (closed) {
+            return;
+        }
+        body.flip();
+        int length = body.remaining();
+        int recordBytes = HEADER_BYTES + length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Journal record too large: " + recordBytes + " bytes");
+        }
+        if (segment.remaining() < recordBytes) {
+            roll();
+        }
+        crc.reset();
+        crc.update(body.duplicate());
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(body);
+        appendedBytes += recordBytes;
+        appendedRecords++;
+    }
+
+    private void roll() {
+        segment.force();
+        forcedBytes = appendedBytes;
+        segmentStartBytes = appendedBytes;
+        try {
+            segment = nextSegment();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to create journal segment in " + directory, ex);
+        }
+    }
+
+    private MappedByteBuffer nextSegment() throws IOException {
+        segmentIndex++;
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes); // 关闭通道后映射仍然有效
+        }
+    }
+
+    // 组提交：每个间隔把新写入的记录一次性刷盘，有线程等待时提前刷盘
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer toForce;
+            long target;
+            synchronized (this) {
+                try {
+                    if (!closed && !syncRequested) {
+                        wait(flushIntervalMillis);
+                    }
+                } catch (InterruptedException ex) {
+                    // 关闭时中断，由 close 完成最后一次刷盘
+                }
+                if (closed) {
+                    return;
+                }
+                syncRequested = false;
+                if (forcedBytes == appendedBytes) {
+                    continue;
+                }
+                toForce = segment;
+                target = appendedBytes;
+            }
+            toForce.force();
+            synchronized (this) {
+                if (target > forcedBytes) {
+                    forcedBytes = target;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private static long replaySegment(Path file, Consumer<JournalRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        CRC32C crc = new CRC32C();
+        long count = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0) {
+                break; // 分段结束
+            }
+            if (length > buffer.remaining()) {
+                logger.warn("日志记录不完整，忽略分段剩余部分 : {}", file);
+                break;
+            }
+            ByteBuffer body = buffer.slice();
+            body.limit(length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("日志记录校验失败，忽略分段剩余部分 : {}", file);
+                break;
+            }
+            buffer.position(buffer.position() + length);
+            JournalRecord record = decode(body);
+            if (record != null) {
+                consumer.accept(record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static JournalRecord decode(ByteBuffer body) {
+        JournalRecordType type = JournalRecordType.fromCode(body.get());
+        long timestamp = body.getLong();
+        String jobId = getString(body);
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case SUBMIT:
+                String name = getString(body);
+                String user = getString(body);
+                int priority = body.getInt();
+                String jobType = getString(body);
+                String content = getString(body);
+                int processId = body.getInt();
+                int executionTime = body.getInt();
+                JobContext context = new JobContext(jobId, name, user, priority, jobType, content, processId, executionTime);
+                return new JournalRecord(type, timestamp, jobId, context, 0, 0, 0, name, content);
+            case ADMIT:
+            case WAIT:
+            case EVICT:
+                return new JournalRecord(type, timestamp, jobId, null, body.getInt(), body.getInt(), body.getLong(), null, null);
+            case UPDATE:
+                return new JournalRecord(type, timestamp, jobId, null, 0, 0, 0, getString(body), getString(body));
+            default:
+                return new JournalRecord(type, timestamp, jobId, null, 0, 0, 0, null, null);
+        }
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments); // 文件名中的序号补零到固定宽度，按名称排序即按写入顺序
+        return segments;
+    }
+
+    static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.uniplore.journal;
+
+import com.uniplore.job.JobContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按作业ID折叠日志记录得到的作业状态表，恢复和生成快照共用。
+ * <p>
+ * 每条记录 O(1)：提交时登记作业，准入、等待、驱逐更新状态和资源，完成、移除、丢弃时直接删除。
+ * 不是线程安全的，由调用方保证单线程使用。
+ */
+final class JobStateTable {
+    static final byte SUBMITTED = 0;
+    static final byte RUNNING = 1;
+    static final byte WAITING = 2;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    void apply(JournalRecord record) {
+        String jobId = record.getJobId();
+        switch (record.getType()) {
+            case SUBMIT:
+                entries.put(jobId, new Entry(record.getContext()));
+                return;
+            case COMPLETE:
+            case REMOVE:
+            case DROP:
+                entries.remove(jobId);
+                return;
+            default:
+                break;
+        }
+        Entry entry = entries.get(jobId);
+        if (entry == null) {
+            return; // 提交记录已丢失
+        }
+        switch (record.getType()) {
+            case ADMIT:
+                entry.update(RUNNING, record.getCpu(), record.getMemory(), record.getCompletedMillis());
+                break;
+            case WAIT:
+            case EVICT:
+                entry.update(WAITING, record.getCpu(), record.getMemory(), record.getCompletedMillis());
+                break;
+            case UPDATE:
+                entry.context.setName(record.getName());
+                entry.context.setContent(record.getContent());
+                break;
+            default:
+                break;
+        }
+    }
+
+    void put(Entry entry) {
+        entries.put(entry.context.getId(), entry);
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    /**
+     * 运行中或等待中的作业，只提交过的作业已被拒绝，不包含在内。
+     */
+    List<RecoveredJob> jobs(boolean running) {
+        byte status = running ? RUNNING : WAITING;
+        List<RecoveredJob> jobs = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.status == status) {
+                jobs.add(new RecoveredJob(entry.context, running, entry.cpu, entry.memory, entry.completedMillis));
+            }
+        }
+        return jobs;
+    }
+
+    static final class Entry {
+        final JobContext context;
+        byte status = SUBMITTED;
+        int cpu;
+        int memory;
+        long completedMillis;
+
+        Entry(JobContext context) {
+            this.context = context;
+        }
+
+        void update(byte status, int cpu, int memory, long completedMillis) {
+            this.status = status;
+            this.cpu = cpu;
+            this.memory = memory;
+            this.completedMillis = completedMillis;
+        }
+    }
+}
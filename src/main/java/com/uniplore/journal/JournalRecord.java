@@ -0,0 +1,82 @@
+package com.uniplore.journal;
+
+import com.uniplore.job.JobContext;
+
+/**
+ * 从日志中读出的一条记录，不可变。
+ * <p>
+ * 各类型使用的字段：SUBMIT 带完整的作业上下文；ADMIT、WAIT、EVICT 带资源和已完成的进度；
+ * UPDATE 带新的名称和内容；COMPLETE、REMOVE、DROP 只有作业ID。
+ */
+public final class JournalRecord {
+    private final JournalRecordType type;
+    private final long timestamp;
+    private final String jobId;
+    private final JobContext context;
+    private final int cpu;
+    private final int memory;
+    private final long completedMillis;
+    private final String name;
+    private final String content;
+
+    JournalRecord(JournalRecordType type, long timestamp, String jobId, JobContext context, int cpu, int memory,
+                  long completedMillis, String name, String content) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.jobId = jobId;
+        this.context = context;
+        this.cpu = cpu;
+        this.memory = memory;
+        this.completedMillis = completedMillis;
+        this.name = name;
+        this.content = content;
+    }
+
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    /**
+     * 写入时间（毫秒时间戳）。
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * SUBMIT 记录的作业上下文，其他类型为 null。
+     */
+    public JobContext getContext() {
+        return context;
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    public long getCompletedMillis() {
+        return completedMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{type=" + type + ", jobId=" + jobId + ", cpu=" + cpu + ", memory=" + memory
+                + ", completedMillis=" + completedMillis + "}";
+    }
+}
@@ -0,0 +1,40 @@
+package com.uniplore.journal;
+
+/**
+ * 日志记录类型，对应作业生命周期中改变队列或资源状态的事件。
+ */
+public enum JournalRecordType {
+    SUBMIT(1),
+    ADMIT(2),
+    WAIT(3),
+    EVICT(4),
+    COMPLETE(5),
+    REMOVE(6),
+    DROP(7),
+    UPDATE(8);
+
+    private static final JournalRecordType[] BY_CODE = new JournalRecordType[9];
+
+    static {
+        for (JournalRecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    JournalRecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    /**
+     * 按编码查找类型，未知编码返回 null。
+     */
+    static JournalRecordType fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
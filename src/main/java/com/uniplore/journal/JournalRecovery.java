@@ -0,0 +1,53 @@
+package com.uniplore.journal;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 加载最新的快照并重放之后的日志分段，得到崩溃前的队列状态：哪些作业在运行、哪些在等待，以及它们的资源和进度。
+ */
+public final class JournalRecovery {
+    private final List<RecoveredJob> running;
+    private final List<RecoveredJob> waiting;
+    private final long recordCount;
+    private final long snapshotSegment;
+
+    private JournalRecovery(List<RecoveredJob> running, List<RecoveredJob> waiting, long recordCount, long snapshotSegment) {
+        this.running = running;
+        this.waiting = waiting;
+        this.recordCount = recordCount;
+        this.snapshotSegment = snapshotSegment;
+    }
+
+    public static JournalRecovery replay(Path directory) {
+        JournalSnapshot snapshot = JournalSnapshot.latest(directory);
+        JobStateTable table = snapshot == null ? new JobStateTable() : snapshot.getTable();
+        long fromSegment = snapshot == null ? 0 : snapshot.getCoveredSegment();
+        long count = JobJournal.replay(directory, fromSegment, Long.MAX_VALUE, table::apply);
+        return new JournalRecovery(Collections.unmodifiableList(table.jobs(true)), Collections.unmodifiableList(table.jobs(false)),
+                count, fromSegment);
+    }
+
+    public List<RecoveredJob> getRunning() {
+        return running;
+    }
+
+    public List<RecoveredJob> getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * 快照之后重放的记录数。
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 加载的快照没有包含的第一个日志分段，没有快照时为 0。
+     */
+    public long getSnapshotSegment() {
+        return snapshotSegment;
+    }
+}
@@ -0,0 +1,269 @@
+package com.uniplore.journal;
+
+import com.uniplore.job.JobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 调度状态的时间点快照：全部运行中、等待中和刚提交的作业的上下文、状态、资源和进度，以及已分配的资源总量。
+ * <p>
+ * 文件名中的序号是快照没有包含的第一个日志分段，恢复时先加载快照，再重放该序号及之后的分段。
+ * 文件先写到临时文件并刷盘，再原子重命名，末尾的 CRC32C 覆盖全部内容，校验失败的快照被忽略。
+ * 读取时映射文件后顺序解析，除作业本身外不创建中间对象。
+ */
+final class JournalSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(JournalSnapshot.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int MAGIC = 0x4a534e50; // "JSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 44;
+    private static final Comparator<JobStateTable.Entry> WAITING_ORDER = Comparator
+            .comparingInt((JobStateTable.Entry entry) -> entry.context.getPriority())
+            .thenComparing(entry -> entry.context.getId());
+
+    private final long coveredSegment;
+    private final long createdAt;
+    private final long usedCpu;
+    private final long usedMemory;
+    private final JobStateTable table;
+
+    private JournalSnapshot(long coveredSegment, long createdAt, long usedCpu, long usedMemory, JobStateTable table) {
+        this.coveredSegment = coveredSegment;
+        this.createdAt = createdAt;
+        this.usedCpu = usedCpu;
+        this.usedMemory = usedMemory;
+        this.table = table;
+    }
+
+    /**
+     * 快照没有包含的第一个日志分段。
+     */
+    long getCoveredSegment() {
+        return coveredSegment;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getUsedCpu() {
+        return usedCpu;
+    }
+
+    long getUsedMemory() {
+        return usedMemory;
+    }
+
+    JobStateTable getTable() {
+        return table;
+    }
+
+    /**
+     * 写入快照：先写运行中的作业，再按调度顺序写等待中的作业，最后写只有提交记录的作业。
+     * 后者的准入或等待记录可能在快照之后的分段中，必须保留。
+     */
+    static Path write(Path directory, long coveredSegment, JobStateTable table) throws IOException {
+        List<JobStateTable.Entry> running = new ArrayList<>();
+        List<JobStateTable.Entry> waiting = new ArrayList<>();
+        List<JobStateTable.Entry> submitted = new ArrayList<>();
+        long usedCpu = 0;
+        long usedMemory = 0;
+        for (JobStateTable.Entry entry : table.entries()) {
+            if (entry.status == JobStateTable.RUNNING) {
+                running.add(entry);
+                usedCpu += entry.cpu;
+                usedMemory += entry.memory;
+            } else if (entry.status == JobStateTable.WAITING) {
+                waiting.add(entry);
+            } else {
+                submitted.add(entry);
+            }
+        }
+        waiting.sort(WAITING_ORDER);
+
+        Path target = directory.resolve(fileName(coveredSegment));
+        Path temp = directory.resolve(fileName(coveredSegment) + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(coveredSegment);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(usedCpu);
+            out.writeLong(usedMemory);
+            out.writeInt(running.size() + waiting.size() + submitted.size());
+            for (JobStateTable.Entry entry : running) {
+                writeEntry(out, entry);
+            }
+            for (JobStateTable.Entry entry : waiting) {
+                writeEntry(out, entry);
+            }
+            for (JobStateTable.Entry entry : submitted) {
+                writeEntry(out, entry);
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * 读取目录中最新的有效快照，没有时返回 null。
+     */
+    static JournalSnapshot latest(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try {
+            List<Path> snapshots = snapshots(directory);
+            for (int i = snapshots.size() - 1; i >= 0; i--) {
+                JournalSnapshot snapshot = read(snapshots.get(i));
+                if (snapshot != null) {
+                    return snapshot;
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read snapshots in " + directory, ex);
+        }
+        return null;
+    }
+
+    /**
+     * 最新快照没有包含的第一个日志分段，只看文件名，没有快照时返回 0。
+     */
+    static long latestCoveredSegment(Path directory) throws IOException {
+        List<Path> snapshots = snapshots(directory);
+        return snapshots.isEmpty() ? 0 : indexOf(snapshots.get(snapshots.size() - 1));
+    }
+
+    static List<Path> snapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : stream) {
+                snapshots.add(file);
+            }
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    static long indexOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static String fileName(long coveredSegment) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, coveredSegment, SNAPSHOT_SUFFIX);
+    }
+
+    private static JournalSnapshot read(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES + 4 || channel.size() > Integer.MAX_VALUE) {
+                logger.warn("快照文件大小无效，忽略 : {}", file);
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int contentBytes = buffer.limit() - 4;
+        CRC32C crc = new CRC32C();
+        ByteBuffer checked = buffer.duplicate();
+        checked.limit(contentBytes);
+        crc.update(checked);
+        if ((int) crc.getValue() != buffer.getInt(contentBytes) || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            logger.warn("快照校验失败，忽略 : {}", file);
+            return null;
+        }
+        buffer.position(8);
+        long coveredSegment = buffer.getLong();
+        long createdAt = buffer.getLong();
+        long usedCpu = buffer.getLong();
+        long usedMemory = buffer.getLong();
+        int count = buffer.getInt();
+        JobStateTable table = new JobStateTable();
+        byte[] scratch = new byte[256]; // 字符串解码复用同一个缓冲区
+        for (int i = 0; i < count; i++) {
+            byte status = buffer.get();
+            int cpu = buffer.getInt();
+            int memory = buffer.getInt();
+            long completedMillis = buffer.getLong();
+            String id = getString(buffer, scratch);
+            String name = getString(buffer, scratch);
+            String user = getString(buffer, scratch);
+            int priority = buffer.getInt();
+            String type = getString(buffer, scratch);
+            String content = getString(buffer, scratch);
+            int processId = buffer.getInt();
+            int executionTime = buffer.getInt();
+            JobStateTable.Entry entry = new JobStateTable.Entry(
+                    new JobContext(id, name, user, priority, type, content, processId, executionTime));
+            entry.update(status, cpu, memory, completedMillis);
+            table.put(entry);
+        }
+        return new JournalSnapshot(coveredSegment, createdAt, usedCpu, usedMemory, table);
+    }
+
+    private static void writeEntry(DataOutputStream out, JobStateTable.Entry entry) throws IOException {
+        JobContext context = entry.context;
+        out.writeByte(entry.status);
+        out.writeInt(entry.cpu);
+        out.writeInt(entry.memory);
+        out.writeLong(entry.completedMillis);
+        writeString(out, context.getId());
+        writeString(out, context.getName());
+        writeString(out, context.getUser());
+        out.writeInt(context.getPriority());
+        writeString(out, context.getType());
+        writeString(out, context.getContent());
+        out.writeInt(context.getProcessId());
+        out.writeInt(context.getExecutionTime());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.uniplore.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期为日志生成快照并截断已包含在快照中的分段。
+ * <p>
+ * 快照不读取调度器的内存状态：先结束日志的当前分段，再把上一个快照之后已结束的分段折叠进状态表并写出，
+ * 提交和移除作业的线程只在换分段时短暂竞争日志的锁，不会因为生成快照而暂停。
+ * 快照写入成功后删除它包含的分段和更早的快照，重启时只需加载快照并重放之后的少量记录。
+ * 状态表在两次快照之间保留在内存中，每次只重放新结束的分段。
+ */
+public class JournalSnapshotter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JournalSnapshotter.class);
+
+    private final JobJournal journal;
+    private final Path directory;
+    private ScheduledExecutorService scheduler;
+    private JobStateTable table;
+    private long coveredSegment;
+
+    public JournalSnapshotter(JobJournal journal) {
+        this.journal = journal;
+        this.directory = journal.getDirectory();
+    }
+
+    /**
+     * 每隔 intervalMillis 生成一次快照。
+     */
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Snapshotter already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即生成一次快照，没有新结束的分段时不生成，返回是否生成了快照。
+     */
+    public synchronized boolean snapshot() {
+        long activeSegment = journal.sealSegment();
+        if (table == null) {
+            JournalSnapshot latest = JournalSnapshot.latest(directory);
+            table = latest == null ? new JobStateTable() : latest.getTable();
+            coveredSegment = latest == null ? 0 : latest.getCoveredSegment();
+        }
+        if (activeSegment <= coveredSegment) {
+            return false;
+        }
+        long startedAt = System.nanoTime();
+        long records = JobJournal.replay(directory, coveredSegment, activeSegment, table::apply);
+        try {
+            JournalSnapshot.write(directory, activeSegment, table);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to write snapshot in " + directory, ex);
+        }
+        coveredSegment = activeSegment;
+        truncate(activeSegment);
+        logger.debug("生成快照 : 折叠 {} 条记录，耗时 {} 毫秒", records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException ex) {
+            logger.warn("生成快照失败 : {}", ex.getMessage());
+        }
+    }
+
+    // 删除快照已包含的分段和更早的快照，删除失败只影响磁盘占用，不影响恢复
+    private void truncate(long activeSegment) {
+        try {
+            for (Path segment : JobJournal.segments(directory)) {
+                if (JobJournal.indexOf(segment) < activeSegment) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+            for (Path snapshot : JournalSnapshot.snapshots(directory)) {
+                if (JournalSnapshot.indexOf(snapshot) < activeSegment) {
+                    Files.deleteIfExists(snapshot);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("截断日志失败 : {}", ex.getMessage());
+        }
+    }
+}
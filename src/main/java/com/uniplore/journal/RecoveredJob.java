@@ -0,0 +1,48 @@
+package com.uniplore.journal;
+
+import com.uniplore.job.JobContext;
+
+/**
+ * 从日志恢复的作业：上下文、崩溃前的状态、分配或评估的资源以及保存的进度。
+ */
+public final class RecoveredJob {
+    private final JobContext context;
+    private final boolean running;
+    private final int cpu;
+    private final int memory;
+    private final long completedMillis;
+
+    RecoveredJob(JobContext context, boolean running, int cpu, int memory, long completedMillis) {
+        this.context = context;
+        this.running = running;
+        this.cpu = cpu;
+        this.memory = memory;
+        this.completedMillis = completedMillis;
+    }
+
+    public JobContext getContext() {
+        return context;
+    }
+
+    /**
+     * 崩溃前正在运行时为 true，在等待队列中时为 false。
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * 最近一次准入或驱逐时记录的进度，崩溃前最后一段运行的时间不计入。
+     */
+    public long getCompletedMillis() {
+        return completedMillis;
+    }
+}
@@ -0,0 +1,170 @@
+package com.uniplore.metrics;
+
+import com.uniplore.resouce.management.FragmentationStats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 调度指标快照类，某一时刻全部计数器、直方图和仪表值的不可变副本。
+ */
+public final class MetricsSnapshot {
+    private final long submittedCount;
+    private final long admittedCount;
+    private final long waitingCount;
+    private final long evictedCount;
+    private final long releasedCount;
+    private final long droppedCount;
+    private final long rejectedCount;
+    private final long resumedCount;
+    private final long wastedWorkMillis;
+    private final long preservedWorkMillis;
+    private final HistogramSnapshot submitLatency;
+    private final HistogramSnapshot admitLatency;
+    private final HistogramSnapshot evictLatency;
+    private final HistogramSnapshot releaseLatency;
+    private final Map<Integer, HistogramSnapshot> queueWaitTimeByPriority;
+    private final int jobQueueDepth;
+    private final int waitingQueueDepth;
+    private final double cpuUtilization;
+    private final double memoryUtilization;
+    private final double cpuFragmentation;
+    private final double memoryFragmentation;
+    private final long strandedCpu;
+    private final long strandedMemory;
+
+    MetricsSnapshot(SchedulerMetrics metrics) {
+        this.submittedCount = metrics.getSubmittedCount();
+        this.admittedCount = metrics.getAdmittedCount();
+        this.waitingCount = metrics.getWaitingCount();
+        this.evictedCount = metrics.getEvictedCount();
+        this.releasedCount = metrics.getReleasedCount();
+        this.droppedCount = metrics.getDroppedCount();
+        this.rejectedCount = metrics.getRejectedCount();
+        this.resumedCount = metrics.getResumedCount();
+        this.wastedWorkMillis = metrics.getWastedWorkMillis();
+        this.preservedWorkMillis = metrics.getPreservedWorkMillis();
+        this.submitLatency = metrics.getSubmitLatency();
+        this.admitLatency = metrics.getAdmitLatency();
+        this.evictLatency = metrics.getEvictLatency();
+        this.releaseLatency = metrics.getReleaseLatency();
+        this.queueWaitTimeByPriority = Collections.unmodifiableMap(new TreeMap<>(metrics.getQueueWaitTimeByPriority()));
+        this.jobQueueDepth = metrics.getJobQueueDepth();
+        this.waitingQueueDepth = metrics.getWaitingQueueDepth();
+        this.cpuUtilization = metrics.getCpuUtilization();
+        this.memoryUtilization = metrics.getMemoryUtilization();
+        FragmentationStats fragmentation = metrics.getFragmentation(); // 只遍历一次节点
+        this.cpuFragmentation = fragmentation.getCpuFragmentation();
+        this.memoryFragmentation = fragmentation.getMemoryFragmentation();
+        this.strandedCpu = fragmentation.getStrandedCpu();
+        this.strandedMemory = fragmentation.getStrandedMemory();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    public long getWaitingCount() {
+        return waitingCount;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getReleasedCount() {
+        return releasedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getResumedCount() {
+        return resumedCount;
+    }
+
+    public long getWastedWorkMillis() {
+        return wastedWorkMillis;
+    }
+
+    public long getPreservedWorkMillis() {
+        return preservedWorkMillis;
+    }
+
+    public HistogramSnapshot getSubmitLatency() {
+        return submitLatency;
+    }
+
+    public HistogramSnapshot getAdmitLatency() {
+        return admitLatency;
+    }
+
+    public HistogramSnapshot getEvictLatency() {
+        return evictLatency;
+    }
+
+    public HistogramSnapshot getReleaseLatency() {
+        return releaseLatency;
+    }
+
+    /**
+     * 各优先级作业在等待队列中的等待时间分布，按优先级排序。
+     */
+    public Map<Integer, HistogramSnapshot> getQueueWaitTimeByPriority() {
+        return queueWaitTimeByPriority;
+    }
+
+    public int getJobQueueDepth() {
+        return jobQueueDepth;
+    }
+
+    public int getWaitingQueueDepth() {
+        return waitingQueueDepth;
+    }
+
+    public double getCpuUtilization() {
+        return cpuUtilization;
+    }
+
+    public double getMemoryUtilization() {
+        return memoryUtilization;
+    }
+
+    public double getCpuFragmentation() {
+        return cpuFragmentation;
+    }
+
+    public double getMemoryFragmentation() {
+        return memoryFragmentation;
+    }
+
+    public long getStrandedCpu() {
+        return strandedCpu;
+    }
+
+    public long getStrandedMemory() {
+        return strandedMemory;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{submitted=" + submittedCount + ", admitted=" + admittedCount + ", waiting=" + waitingCount
+                + ", evicted=" + evictedCount + ", released=" + releasedCount + ", dropped=" + droppedCount
+                + ", rejected=" + rejectedCount + ", resumed=" + resumedCount + ", wastedWorkMillis=" + wastedWorkMillis
+                + ", preservedWorkMillis=" + preservedWorkMillis + ", jobQueueDepth=" + jobQueueDepth + ", waitingQueueDepth=" + waitingQueueDepth
+                + ", cpuUtilization=" + String.format("%.1f", cpuUtilization) + ", memoryUtilization=" + String.format("%.1f", memoryUtilization)
+                + ", cpuFragmentation=" + String.format("%.1f", cpuFragmentation) + ", memoryFragmentation=" + String.format("%.1f", memoryFragmentation)
+                + ", strandedCpu=" + strandedCpu + ", strandedMemory=" + strandedMemory
+                + ", submitLatency=[" + submitLatency + "], queueWaitTimeByPriority=" + queueWaitTimeByPriority + "}";
+    }
+}
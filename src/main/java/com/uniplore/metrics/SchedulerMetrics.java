@@ -0,0 +1,293 @@
+package com.uniplore.metrics;
+
+import com.uniplore.resouce.management.FragmentationStats;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.resouce.management.ResourceSnapshot;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 调度指标类，记录作业提交、准入、驱逐和释放的计数与延迟，以及队列深度和资源利用率。
+ * <p>
+ * 计数器使用 {@link LongAdder}，延迟使用无锁的 {@link LatencyHistogram}，记录时不加锁也不分配对象；
+ * 队列深度和利用率是仪表，只在读取时计算。可以通过 {@link #register(String)} 注册为 JMX MXBean。
+ */
+public class SchedulerMetrics implements SchedulerMetricsMXBean {
+    public static final String DOMAIN = "com.uniplore.scheduler";
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder waiting = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder wastedWork = new LongAdder();
+    private final LongAdder preservedWork = new LongAdder();
+    private final LatencyHistogram submitLatency = new LatencyHistogram();
+    private final LatencyHistogram admitLatency = new LatencyHistogram();
+    private final LatencyHistogram evictLatency = new LatencyHistogram();
+    private final LatencyHistogram releaseLatency = new LatencyHistogram();
+    private final ConcurrentMap<Integer, LatencyHistogram> queueWaitTimes = new ConcurrentHashMap<>();
+    private final IntSupplier jobQueueDepth;
+    private final IntSupplier waitingQueueDepth;
+    private final ResourceManager resourceManager;
+    private ObjectName objectName;
+
+    public SchedulerMetrics(IntSupplier jobQueueDepth, IntSupplier waitingQueueDepth, ResourceManager resourceManager) {
+        this.jobQueueDepth = jobQueueDepth;
+        this.waitingQueueDepth = waitingQueueDepth;
+        this.resourceManager = resourceManager;
+    }
+
+    /**
+     * 记录一次作业提交的耗时。
+     */
+    public void recordSubmit(long nanos) {
+        submitted.increment();
+        submitLatency.record(nanos);
+    }
+
+    /**
+     * 记录一次作业准入：nanos 为分配资源到作业开始执行的耗时，waitMillis 为作业在等待队列中的时间。
+     */
+    public void recordAdmit(int priority, long nanos, long waitMillis) {
+        admitted.increment();
+        admitLatency.record(nanos);
+        LatencyHistogram histogram = queueWaitTimes.get(priority);
+        if (histogram == null) {
+            histogram = queueWaitTimes.computeIfAbsent(priority, key -> new LatencyHistogram());
+        }
+        histogram.record(waitMillis);
+    }
+
+    public void recordWait() {
+        waiting.increment();
+    }
+
+    /**
+     * 记录一轮驱逐：nanos 为整轮耗时，count 为被驱逐的作业数。
+     */
+    public void recordEvict(int count, long nanos) {
+        evicted.add(count);
+        evictLatency.record(nanos);
+    }
+
+    /**
+     * 记录一次资源释放：nanos 包含释放后处理等待队列的耗时，count 为释放的作业数。
+     */
+    public void recordRelease(int count, long nanos) {
+        released.add(count);
+        releaseLatency.record(nanos);
+    }
+
+    /**
+     * 记录一个被驱逐作业的进度：wastedMillis 为没有保存、重新运行时需要重做的执行时间，preservedMillis 为保存的进度。
+     */
+    public void recordPreemptedWork(long wastedMillis, long preservedMillis) {
+        wastedWork.add(wastedMillis);
+        preservedWork.add(preservedMillis);
+    }
+
+    /**
+     * 记录一次带着已保存进度重新运行的准入。
+     */
+    public void recordResume() {
+        resumed.increment();
+    }
+
+    public void recordDrop() {
+        dropped.increment();
+    }
+
+    public void recordReject() {
+        rejected.increment();
+    }
+
+    @Override
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getWaitingCount() {
+        return waiting.sum();
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    @Override
+    public long getReleasedCount() {
+        return released.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getResumedCount() {
+        return resumed.sum();
+    }
+
+    @Override
+    public long getWastedWorkMillis() {
+        return wastedWork.sum();
+    }
+
+    @Override
+    public long getPreservedWorkMillis() {
+        return preservedWork.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getSubmitLatency() {
+        return submitLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getAdmitLatency() {
+        return admitLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getEvictLatency() {
+        return evictLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getReleaseLatency() {
+        return releaseLatency.snapshot();
+    }
+
+    @Override
+    public Map<Integer, HistogramSnapshot> getQueueWaitTimeByPriority() {
+        Map<Integer, HistogramSnapshot> snapshots = new HashMap<>();
+        for (Map.Entry<Integer, LatencyHistogram> entry : queueWaitTimes.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    @Override
+    public int getJobQueueDepth() {
+        return jobQueueDepth.getAsInt();
+    }
+
+    @Override
+    public int getWaitingQueueDepth() {
+        return waitingQueueDepth.getAsInt();
+    }
+
+    @Override
+    public double getCpuUtilization() {
+        ResourceSnapshot available = resourceManager.getAvailableResources();
+        return utilization(available.getAvailableCpu(), resourceManager.getTotalCpu());
+    }
+
+    @Override
+    public double getMemoryUtilization() {
+        ResourceSnapshot available = resourceManager.getAvailableResources();
+        return utilization(available.getAvailableMemory(), resourceManager.getTotalMemory());
+    }
+
+    /**
+     * 节点空闲资源的碎片统计，需要遍历全部节点，未配置节点时各项均为 0。
+     */
+    public FragmentationStats getFragmentation() {
+        return resourceManager.getFragmentation();
+    }
+
+    @Override
+    public double getCpuFragmentation() {
+        return getFragmentation().getCpuFragmentation();
+    }
+
+    @Override
+    public double getMemoryFragmentation() {
+        return getFragmentation().getMemoryFragmentation();
+    }
+
+    @Override
+    public long getStrandedCpu() {
+        return getFragmentation().getStrandedCpu();
+    }
+
+    @Override
+    public long getStrandedMemory() {
+        return getFragmentation().getStrandedMemory();
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(this);
+    }
+
+    /**
+     * 以 com.uniplore.scheduler:type=SchedulerMetrics,name=&lt;name&gt; 注册到平台 MBeanServer，名称已存在时抛出异常。
+     */
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("Metrics already registered as " + objectName);
+        }
+        try {
+            ObjectName candidate = new ObjectName(DOMAIN + ":type=SchedulerMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException ex) {
+            throw new IllegalStateException("Failed to register scheduler metrics: " + name, ex);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            throw new IllegalStateException("Failed to unregister scheduler metrics: " + objectName, ex);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    public static long elapsedMillis(long sinceNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sinceNanos);
+    }
+
+    private static double utilization(int available, int total) {
+        return total <= 0 ? 0 : (1 - (double) available / total) * 100;
+    }
+}
@@ -0,0 +1,60 @@
+package com.uniplore.metrics;
+
+import java.util.Map;
+
+/**
+ * 调度指标的 JMX 接口，延迟单位为纳秒，等待时间单位为毫秒，利用率单位为百分比。
+ */
+public interface SchedulerMetricsMXBean {
+    long getSubmittedCount();
+
+    long getAdmittedCount();
+
+    long getWaitingCount();
+
+    long getEvictedCount();
+
+    long getReleasedCount();
+
+    long getDroppedCount();
+
+    long getRejectedCount();
+
+    long getResumedCount();
+
+    /**
+     * 被驱逐作业没有保存、需要重做的执行时间总和（毫秒）。
+     */
+    long getWastedWorkMillis();
+
+    /**
+     * 被驱逐作业保存下来的执行时间总和（毫秒）。
+     */
+    long getPreservedWorkMillis();
+
+    HistogramSnapshot getSubmitLatency();
+
+    HistogramSnapshot getAdmitLatency();
+
+    HistogramSnapshot getEvictLatency();
+
+    HistogramSnapshot getReleaseLatency();
+
+    Map<Integer, HistogramSnapshot> getQueueWaitTimeByPriority();
+
+    int getJobQueueDepth();
+
+    int getWaitingQueueDepth();
+
+    double getCpuUtilization();
+
+    double getMemoryUtilization();
+
+    double getCpuFragmentation();
+
+    double getMemoryFragmentation();
+
+    long getStrandedCpu();
+
+    long getStrandedMemory();
+}
@@ -0,0 +1,77 @@
+package com.uniplore.queue;
+
+/**
+ * 容量队列的份额和用量快照，不可变。份额和用量都包含整棵子树。
+ */
+public final class CapacityQueueUsage {
+    private final String path;
+    private final double guaranteedCpu;
+    private final double guaranteedMemory;
+    private final double maxCpu;
+    private final double maxMemory;
+    private final long usedCpu;
+    private final long usedMemory;
+    private final int waiting;
+
+    public CapacityQueueUsage(String path, double guaranteedCpu, double guaranteedMemory, double maxCpu, double maxMemory,
+                              long usedCpu, long usedMemory, int waiting) {
+        this.path = path;
+        this.guaranteedCpu = guaranteedCpu;
+        this.guaranteedMemory = guaranteedMemory;
+        this.maxCpu = maxCpu;
+        this.maxMemory = maxMemory;
+        this.usedCpu = usedCpu;
+        this.usedMemory = usedMemory;
+        this.waiting = waiting;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public double getGuaranteedCpu() {
+        return guaranteedCpu;
+    }
+
+    public double getGuaranteedMemory() {
+        return guaranteedMemory;
+    }
+
+    public double getMaxCpu() {
+        return maxCpu;
+    }
+
+    public double getMaxMemory() {
+        return maxMemory;
+    }
+
+    public long getUsedCpu() {
+        return usedCpu;
+    }
+
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    /**
+     * 子树中的等待作业数。
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * 用量超过保证份额的部分来自其他队列借出的资源。
+     */
+    public boolean isBorrowing() {
+        return usedCpu > guaranteedCpu || usedMemory > guaranteedMemory;
+    }
+
+    @Override
+    public String toString() {
+        return "CapacityQueueUsage{path=" + path + ", usedCpu=" + usedCpu + ", guaranteedCpu=" + String.format("%.1f", guaranteedCpu)
+                + ", maxCpu=" + String.format("%.1f", maxCpu) + ", usedMemory=" + usedMemory
+                + ", guaranteedMemory=" + String.format("%.1f", guaranteedMemory) + ", maxMemory=" + String.format("%.1f", maxMemory)
+                + ", waiting=" + waiting + "}";
+    }
+}
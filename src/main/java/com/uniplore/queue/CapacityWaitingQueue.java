@@ -0,0 +1,534 @@
+package com.uniplore.queue;
+
+import com.uniplore.job.service.Job;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 层级容量等待队列：队列组成一棵树（例如 组织 → 团队 → 用户），作业按用户或类型路由到叶子队列。
+ * <p>
+ * 每个队列有保证份额和最大份额，都是父队列对应资源的百分比，沿路径逐级相乘得到绝对量。用量低于保证份额的队列优先获得资源；
+ * 其他队列空闲时可以借用资源直到最大份额，借出的资源在保证份额不足的队列需要时通过驱逐收回，见 {@link #reclaimable}。
+ * <p>
+ * 每个队列缓存整棵子树中运行作业的用量和等待作业数，作业开始、结束、入队和出队时只沿叶子到根的路径更新。
+ * 有等待作业的子队列按（用量 / 保证份额, 路径）放在父队列的红黑树中，选择下一个作业时从根开始逐级取比例最低且未达到最大份额的子队列，
+ * 为 O(深度 × log 子队列数)，不需要重新统计用量。叶子队列内按（优先级, 作业ID）排序。
+ */
+public class CapacityWaitingQueue implements WaitingQueue {
+    public static final String DEFAULT_QUEUE = "default";
+    private static final double EPSILON = 1e-9;
+    private static final Comparator<QueueNode> BY_USAGE = Comparator
+            .comparingDouble((QueueNode queue) -> queue.usage)
+            .thenComparing(queue -> queue.path);
+
+    private final QueueNode root = new QueueNode("", "", null, 100, 100);
+    private final Map<String, QueueNode> queuesByPath = new LinkedHashMap<>();
+    private final Map<String, QueueNode> leavesByName = new HashMap<>();
+    private final Map<String, QueueNode> userRoutes = new HashMap<>();
+    private final Map<String, QueueNode> typeRoutes = new HashMap<>();
+    private final Map<String, Entry> entriesById = new HashMap<>();
+    private final Map<String, QueueNode> runningQueues = new HashMap<>(); // 运行中作业计入用量的队列
+
+    /**
+     * @param queues  队列列表，格式为 path:guaranteed:max，以逗号分隔，例如 eng:60:100,eng.search:50:100,ops:40:60；
+     *                份额为父队列的百分比，父队列需要先列出；未列出 default 队列时自动在根下添加，保证份额为剩余部分
+     * @param routing 路由规则，格式为 user:name=path 或 type:name=path，以逗号分隔；未匹配的作业依次路由到与用户同名、
+     *                与类型同名的叶子队列，都没有时进入 default 队列
+     */
+    public CapacityWaitingQueue(int totalCpu, int totalMemory, String queues, String routing) {
+        queuesByPath.put("", root);
+        if (!queues.trim().isEmpty()) {
+            for (String spec : queues.split(",")) {
+                addQueue(spec.trim());
+            }
+        }
+        if (!queuesByPath.containsKey(DEFAULT_QUEUE)) {
+            double guaranteed = 100;
+            for (QueueNode child : root.children) {
+                guaranteed -= child.guaranteedPercent;
+            }
+            attach(new QueueNode(DEFAULT_QUEUE, DEFAULT_QUEUE, root, Math.max(0, guaranteed), 100));
+        }
+        for (QueueNode queue : queuesByPath.values()) {
+            if (queue.children.isEmpty()) {
+                leavesByName.putIfAbsent(queue.name, queue);
+            }
+        }
+        if (!routing.trim().isEmpty()) {
+            for (String rule : routing.split(",")) {
+                addRoute(rule.trim());
+            }
+        }
+        configure(totalCpu, totalMemory);
+    }
+
+    /**
+     * 按新的资源总量重新计算各队列的绝对份额和用量比例，队列结构不变。
+     */
+    public synchronized void configure(int totalCpu, int totalMemory) {
+        root.guaranteedCpu = totalCpu;
+        root.guaranteedMemory = totalMemory;
+        root.maxCpu = totalCpu;
+        root.maxMemory = totalMemory;
+        root.usage = usage(root);
+        resize(root);
+    }
+
+    @Override
+    public synchronized boolean offer(Job job, ResourceEstimate estimate, long completedMillis) {
+        String jobId = job.getContext().getId();
+        if (entriesById.containsKey(jobId)) {
+            return false;
+        }
+        QueueNode queue = route(job);
+        Entry entry = new Entry(queue, new Key(job.getContext().getPriority(), jobId), job, System.nanoTime(), estimate, completedMillis);
+        entriesById.put(jobId, entry);
+        queue.jobs.put(entry.key, entry);
+        updateWaiting(queue, 1);
+        return true;
+    }
+
+    /**
+     * 返回用量比例最低且放下队首作业后不超过最大份额的队列中的第一个作业，所有队列都已达到上限时返回 null。
+     */
+    @Override
+    public synchronized Job peek() {
+        Entry entry = select(root);
+        return entry == null ? null : entry.job;
+    }
+
+    @Override
+    public synchronized Job poll() {
+        Entry entry = select(root);
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.job;
+    }
+
+    @Override
+    public synchronized Job remove(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.job;
+    }
+
+    @Override
+    public synchronized Job getJob(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? null : entry.job;
+    }
+
+    @Override
+    public synchronized boolean contains(String jobId) {
+        return entriesById.containsKey(jobId);
+    }
+
+    @Override
+    public synchronized ResourceEstimate estimateOf(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? null : entry.estimate;
+    }
+
+    @Override
+    public synchronized long enqueuedAt(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? -1 : entry.enqueuedNanos;
+    }
+
+    @Override
+    public synchronized long completedMillisOf(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? 0 : entry.completedMillis;
+    }
+
+    /**
+     * 从用量比例最高的队列的最后一个作业开始移除。
+     */
+    @Override
+    public synchronized List<Job> trimTo(int maxSize) {
+        List<Job> removed = new ArrayList<>();
+        while (entriesById.size() > maxSize) {
+            QueueNode queue = root;
+            while (!queue.children.isEmpty()) {
+                queue = queue.pending.last();
+            }
+            Entry last = queue.jobs.lastEntry().getValue();
+            removeEntry(last);
+            removed.add(last.job);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entriesById.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return entriesById.isEmpty();
+    }
+
+    /**
+     * 按用量比例从低到高逐级遍历队列，依次返回每个叶子队列的作业，包括已达到上限的队列。
+     */
+    @Override
+    public synchronized List<Job> head(int limit) {
+        List<Job> jobs = new ArrayList<>(Math.min(limit, entriesById.size()));
+        collect(root, jobs, limit);
+        return jobs;
+    }
+
+    @Override
+    public synchronized List<Job> toList() {
+        return head(entriesById.size());
+    }
+
+    @Override
+    public synchronized boolean admits(Job job, int cpu, int memory) {
+        return fits(route(job), cpu, memory);
+    }
+
+    @Override
+    public synchronized boolean tryAllocate(Job job, int cpu, int memory) {
+        QueueNode queue = route(job);
+        if (!fits(queue, cpu, memory)) {
+            return false;
+        }
+        charge(job, queue, cpu, memory);
+        return true;
+    }
+
+    @Override
+    public synchronized void allocated(Job job, int cpu, int memory) {
+        charge(job, route(job), cpu, memory);
+    }
+
+    @Override
+    public synchronized void released(Job job, int cpu, int memory) {
+        QueueNode queue = runningQueues.remove(job.getContext().getId());
+        updateUsage(queue != null ? queue : route(job), -cpu, -memory);
+    }
+
+    /**
+     * 作业所属的叶子队列用量加上本次需求仍不超过保证份额时，返回运行在超出保证份额的其他队列中的作业，
+     * 保持 lowestPriorityFirst 的顺序；否则返回空。
+     */
+    @Override
+    public synchronized Iterator<Job> reclaimable(Job job, int cpu, int memory, Iterator<Job> lowestPriorityFirst) {
+        QueueNode queue = route(job);
+        if (queue.usedCpu + cpu > queue.guaranteedCpu + EPSILON || queue.usedMemory + memory > queue.guaranteedMemory + EPSILON) {
+            return Collections.emptyIterator();
+        }
+        List<Job> candidates = new ArrayList<>();
+        while (lowestPriorityFirst.hasNext()) {
+            Job candidate = lowestPriorityFirst.next();
+            QueueNode lender = runningQueues.get(candidate.getContext().getId());
+            if (lender != null && lender != queue
+                    && (lender.usedCpu > lender.guaranteedCpu + EPSILON || lender.usedMemory > lender.guaranteedMemory + EPSILON)) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates.iterator();
+    }
+
+    /**
+     * 作业路由到的叶子队列路径。
+     */
+    public synchronized String queueOf(Job job) {
+        return route(job).path;
+    }
+
+    /**
+     * 队列及其子树的当前用量，队列不存在时返回 null；根队列的路径为空字符串。
+     */
+    public synchronized CapacityQueueUsage usageOf(String path) {
+        QueueNode queue = queuesByPath.get(path);
+        if (queue == null) {
+            return null;
+        }
+        return new CapacityQueueUsage(queue.path, queue.guaranteedCpu, queue.guaranteedMemory, queue.maxCpu, queue.maxMemory,
+                queue.usedCpu, queue.usedMemory, queue.waiting);
+    }
+
+    /**
+     * 按配置顺序返回全部队列的路径，不含根队列。
+     */
+    public synchronized List<String> queues() {
+        List<String> paths = new ArrayList<>(queuesByPath.keySet());
+        paths.remove("");
+        return Collections.unmodifiableList(paths);
+    }
+
+    // 从根开始逐级选择用量比例最低、未达到上限的子队列，叶子队列的队首作业放不下时换下一个队列
+    private Entry select(QueueNode queue) {
+        if (queue.children.isEmpty()) {
+            Map.Entry<Key, Entry> first = queue.jobs.firstEntry();
+            if (first == null) {
+                return null;
+            }
+            Entry entry = first.getValue();
+            return fits(queue, entry.estimate.getCpu(), entry.estimate.getMemory()) ? entry : null;
+        }
+        for (QueueNode child : queue.pending) {
+            if (child.usedCpu >= child.maxCpu - EPSILON && child.usedMemory >= child.maxMemory - EPSILON) {
+                continue; // 已达到上限
+            }
+            Entry entry = select(child);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void collect(QueueNode queue, List<Job> jobs, int limit) {
+        if (queue.children.isEmpty()) {
+            for (Entry entry : queue.jobs.values()) {
+                if (jobs.size() >= limit) {
+                    return;
+                }
+                jobs.add(entry.job);
+            }
+            return;
+        }
+        for (QueueNode child : queue.pending) {
+            if (jobs.size() >= limit) {
+                return;
+            }
+            collect(child, jobs, limit);
+        }
+    }
+
+    // 叶子到根之下的每一级加上本次需求后都不超过最大份额，资源总量由资源账本检查，可以通过收回借出的资源满足
+    private static boolean fits(QueueNode queue, int cpu, int memory) {
+        for (QueueNode node = queue; node.parent != null; node = node.parent) {
+            if (node.usedCpu + cpu > node.maxCpu + EPSILON || node.usedMemory + memory > node.maxMemory + EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void charge(Job job, QueueNode queue, int cpu, int memory) {
+        runningQueues.put(job.getContext().getId(), queue);
+        updateUsage(queue, cpu, memory);
+    }
+
+    // 用量比例是队列在父队列树中的排序键，修改前先取出，修改后放回
+    private static void updateUsage(QueueNode queue, int cpu, int memory) {
+        for (QueueNode node = queue; node != null; node = node.parent) {
+            boolean pending = node.parent != null && node.waiting > 0;
+            if (pending) {
+                node.parent.pending.remove(node);
+            }
+            node.usedCpu += cpu;
+            node.usedMemory += memory;
+            node.usage = usage(node);
+            if (pending) {
+                node.parent.pending.add(node);
+            }
+        }
+    }
+
+    // 子树的等待作业数从 0 变为非 0 时加入父队列的树，变回 0 时移出
+    private static void updateWaiting(QueueNode queue, int delta) {
+        for (QueueNode node = queue; node != null; node = node.parent) {
+            boolean wasPending = node.waiting > 0;
+            node.waiting += delta;
+            if (node.parent == null || wasPending == node.waiting > 0) {
+                continue;
+            }
+            if (wasPending) {
+                node.parent.pending.remove(node);
+            } else {
+                node.parent.pending.add(node);
+            }
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        entriesById.remove(entry.key.jobId);
+        entry.queue.jobs.remove(entry.key);
+        updateWaiting(entry.queue, -1);
+    }
+
+    private void resize(QueueNode queue) {
+        queue.pending.clear();
+        for (QueueNode child : queue.children) {
+            child.guaranteedCpu = queue.guaranteedCpu * child.guaranteedPercent / 100;
+            child.guaranteedMemory = queue.guaranteedMemory * child.guaranteedPercent / 100;
+            child.maxCpu = queue.maxCpu * child.maxPercent / 100;
+            child.maxMemory = queue.maxMemory * child.maxPercent / 100;
+            child.usage = usage(child);
+            if (child.waiting > 0) {
+                queue.pending.add(child);
+            }
+            resize(child);
+        }
+    }
+
+    private static double usage(QueueNode queue) {
+        return Math.max(ratio(queue.usedCpu, queue.guaranteedCpu), ratio(queue.usedMemory, queue.guaranteedMemory));
+    }
+
+    private static double ratio(long used, double guaranteed) {
+        if (guaranteed > 0) {
+            return used / guaranteed;
+        }
+        return used > 0 ? Double.POSITIVE_INFINITY : 0;
+    }
+
+    private QueueNode route(Job job) {
+        String user = job.getContext().getUser();
+        String type = job.getContext().getType();
+        QueueNode queue = user == null ? null : userRoutes.get(user);
+        if (queue == null && type != null) {
+            queue = typeRoutes.get(type);
+        }
+        if (queue == null && user != null) {
+            queue = leavesByName.get(user);
+        }
+        if (queue == null && type != null) {
+            queue = leavesByName.get(type);
+        }
+        return queue != null ? queue : queuesByPath.get(DEFAULT_QUEUE);
+    }
+
+    private void addQueue(String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length != 3 || parts[0].trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid capacity queue: " + spec);
+        }
+        String path = parts[0].trim();
+        double guaranteed;
+        double max;
+        try {
+            guaranteed = Double.parseDouble(parts[1].trim());
+            max = Double.parseDouble(parts[2].trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid capacity queue: " + spec, ex);
+        }
+        if (!(guaranteed >= 0 && guaranteed <= max && max <= 100)) {
+            throw new IllegalArgumentException("Capacity queue shares must satisfy 0 <= guaranteed <= max <= 100: " + spec);
+        }
+        if (queuesByPath.containsKey(path)) {
+            throw new IllegalArgumentException("Duplicate capacity queue: " + path);
+        }
+        int separator = path.lastIndexOf('.');
+        QueueNode parent = queuesByPath.get(separator < 0 ? "" : path.substring(0, separator));
+        if (parent == null) {
+            throw new IllegalArgumentException("Parent of capacity queue " + path + " must be listed first");
+        }
+        double children = guaranteed;
+        for (QueueNode sibling : parent.children) {
+            children += sibling.guaranteedPercent;
+        }
+        if (children > 100 + EPSILON) {
+            throw new IllegalArgumentException("Guaranteed shares under " + (parent == root ? "root" : parent.path) + " exceed 100%");
+        }
+        attach(new QueueNode(path, path.substring(separator + 1), parent, guaranteed, max));
+    }
+
+    private void attach(QueueNode queue) {
+        queue.parent.children.add(queue);
+        queuesByPath.put(queue.path, queue);
+    }
+
+    private void addRoute(String rule) {
+        int colon = rule.indexOf(':');
+        int equals = rule.indexOf('=');
+        if (colon <= 0 || equals <= colon + 1) {
+            throw new IllegalArgumentException("Invalid capacity routing rule: " + rule);
+        }
+        String kind = rule.substring(0, colon).trim();
+        String name = rule.substring(colon + 1, equals).trim();
+        QueueNode queue = queuesByPath.get(rule.substring(equals + 1).trim());
+        if (queue == null || !queue.children.isEmpty()) {
+            throw new IllegalArgumentException("Capacity routing rule must target a leaf queue: " + rule);
+        }
+        if ("user".equals(kind)) {
+            userRoutes.put(name, queue);
+        } else if ("type".equals(kind)) {
+            typeRoutes.put(name, queue);
+        } else {
+            throw new IllegalArgumentException("Invalid capacity routing rule: " + rule);
+        }
+    }
+
+    private static final class QueueNode {
+        private final String path;
+        private final String name;
+        private final QueueNode parent;
+        private final double guaranteedPercent;
+        private final double maxPercent;
+        private final List<QueueNode> children = new ArrayList<>();
+        private final TreeSet<QueueNode> pending = new TreeSet<>(BY_USAGE); // 有等待作业的子队列
+        private final TreeMap<Key, Entry> jobs = new TreeMap<>(); // 只有叶子队列有作业
+        private double guaranteedCpu;
+        private double guaranteedMemory;
+        private double maxCpu;
+        private double maxMemory;
+        private long usedCpu; // 子树中运行作业的用量之和
+        private long usedMemory;
+        private int waiting; // 子树中的等待作业数
+        private double usage;
+
+        private QueueNode(String path, String name, QueueNode parent, double guaranteedPercent, double maxPercent) {
+            this.path = path;
+            this.name = name;
+            this.parent = parent;
+            this.guaranteedPercent = guaranteedPercent;
+            this.maxPercent = maxPercent;
+        }
+    }
+
+    private static final class Entry {
+        private final QueueNode queue;
+        private final Key key;
+        private final Job job;
+        private final long enqueuedNanos;
+        private final ResourceEstimate estimate;
+        private final long completedMillis;
+
+        private Entry(QueueNode queue, Key key, Job job, long enqueuedNanos, ResourceEstimate estimate, long completedMillis) {
+            this.queue = queue;
+            this.key = key;
+            this.job = job;
+            this.enqueuedNanos = enqueuedNanos;
+            this.estimate = estimate;
+            this.completedMillis = completedMillis;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final int priority;
+        private final String jobId;
+
+        private Key(int priority, String jobId) {
+            this.priority = priority;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : jobId.compareTo(other.jobId);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.uniplore.queue;
+
+import com.uniplore.job.service.Job;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * 按主导资源公平（DRF）在用户之间分配的等待队列。
+ * <p>
+ * 每个用户一个子队列，用户的主导资源份额为其运行中作业占用的CPU和内存分别占总量比例的较大者，再除以用户权重。
+ * 有等待作业的用户按（份额, 用户）放在红黑树中，队首即份额最小的用户的第一个作业；作业开始运行或归还资源时
+ * 只把该用户从树中取出、更新占用后放回，选择下一个作业为 O(log 用户数)，不需要对等待作业重新排序。
+ * <p>
+ * 用户子队列按老化后的优先级排序：每等待 agingMillis 毫秒优先级提高一级。两个作业老化后的优先级之差不随时间变化，
+ * 因此排序键 优先级 × agingMillis + 入队时间 在入队时即可固定。agingMillis 为 0 时不老化。
+ */
+public class FairShareWaitingQueue implements WaitingQueue {
+    private static final Comparator<UserQueue> BY_SHARE = Comparator
+            .comparingDouble((UserQueue user) -> user.share)
+            .thenComparing(user -> user.user);
+
+    private final TreeSet<UserQueue> activeUsers = new TreeSet<>(BY_SHARE); // 有等待作业的用户
+    private final Map<String, UserQueue> users = new HashMap<>();
+    private final Map<String, Entry> entriesById = new HashMap<>();
+    private final LongSupplier clock;
+    private Map<String, Double> weights;
+    private long agingMillis;
+    private int totalCpu;
+    private int totalMemory;
+
+    public FairShareWaitingQueue(int totalCpu, int totalMemory, Map<String, Double> weights, long agingMillis) {
+        this(totalCpu, totalMemory, weights, agingMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * clock 返回毫秒时间，用于计算老化。
+     */
+    public FairShareWaitingQueue(int totalCpu, int totalMemory, Map<String, Double> weights, long agingMillis, LongSupplier clock) {
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+        this.weights = new HashMap<>(weights);
+        this.agingMillis = agingMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 调整资源总量和用户权重，重新计算全部用户的份额。老化间隔只影响之后入队的作业。
+     */
+    public synchronized void configure(int totalCpu, int totalMemory, Map<String, Double> weights, long agingMillis) {
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+        this.weights = new HashMap<>(weights);
+        this.agingMillis = agingMillis;
+        activeUsers.clear();
+        for (UserQueue user : users.values()) {
+            user.weight = weightOf(user.user);
+            user.share = share(user);
+            if (!user.jobs.isEmpty()) {
+                activeUsers.add(user);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean offer(Job job, ResourceEstimate estimate, long completedMillis) {
+        String jobId = job.getContext().getId();
+        if (entriesById.containsKey(jobId)) {
+            return false;
+        }
+        UserQueue user = userQueue(userOf(job));
+        int priority = job.getContext().getPriority();
+        long rank = agingMillis > 0 ? priority * agingMillis + clock.getAsLong() : priority;
+        Entry entry = new Entry(user, new Key(rank, jobId), job, System.nanoTime(), estimate, completedMillis);
+        entriesById.put(jobId, entry);
+        if (user.jobs.isEmpty()) {
+            activeUsers.add(user);
+        }
+        user.jobs.put(entry.key, entry);
+        return true;
+    }
+
+    @Override
+    public synchronized Job peek() {
+        if (activeUsers.isEmpty()) {
+            return null;
+        }
+        return activeUsers.first().jobs.firstEntry().getValue().job;
+    }
+
+    @Override
+    public synchronized Job poll() {
+        if (activeUsers.isEmpty()) {
+            return null;
+        }
+        Entry entry = activeUsers.first().jobs.firstEntry().getValue();
+        removeEntry(entry);
+        return entry.job;
+    }
+
+    @Override
+    public synchronized Job remove(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        if (entry == null) {
+            return null;
+        }
+        removeEntry(entry);
+        return entry.job;
+    }
+
+    @Override
+    public synchronized Job getJob(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? null : entry.job;
+    }
+
+    @Override
+    public synchronized boolean contains(String jobId) {
+        return entriesById.containsKey(jobId);
+    }
+
+    @Override
+    public synchronized ResourceEstimate estimateOf(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? null : entry.estimate;
+    }
+
+    @Override
+    public synchronized long enqueuedAt(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? -1 : entry.enqueuedNanos;
+    }
+
+    @Override
+    public synchronized long completedMillisOf(String jobId) {
+        Entry entry = entriesById.get(jobId);
+        return entry == null ? 0 : entry.completedMillis;
+    }
+
+    /**
+     * 从份额最大的用户的最后一个作业开始移除。
+     */
+    @Override
+    public synchronized List<Job> trimTo(int maxSize) {
+        List<Job> removed = new ArrayList<>();
+        while (entriesById.size() > maxSize) {
+            Entry last = activeUsers.last().jobs.lastEntry().getValue();
+            removeEntry(last);
+            removed.add(last.job);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entriesById.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return entriesById.isEmpty();
+    }
+
+    /**
+     * 按用户份额从小到大，依次返回每个用户的作业，用于回填时向后查看。
+     */
+    @Override
+    public synchronized List<Job> head(int limit) {
+        List<Job> jobs = new ArrayList<>(Math.min(limit, entriesById.size()));
+        for (UserQueue user : activeUsers) {
+            for (Entry entry : user.jobs.values()) {
+                if (jobs.size() >= limit) {
+                    return jobs;
+                }
+                jobs.add(entry.job);
+            }
+        }
+        return jobs;
+    }
+
+    @Override
+    public synchronized List<Job> toList() {
+        return head(entriesById.size());
+    }
+
+    @Override
+    public synchronized void allocated(Job job, int cpu, int memory) {
+        updateUsage(userOf(job), cpu, memory);
+    }
+
+    @Override
+    public synchronized void released(Job job, int cpu, int memory) {
+        updateUsage(userOf(job), -cpu, -memory);
+    }
+
+    /**
+     * 用户当前的加权主导资源份额，用户不存在时返回 0。
+     */
+    public synchronized double shareOf(String user) {
+        UserQueue queue = users.get(user == null ? "" : user);
+        return queue == null ? 0 : queue.share;
+    }
+
+    /**
+     * 按份额从小到大返回有等待作业的用户。
+     */
+    public synchronized List<String> activeUsers() {
+        List<String> result = new ArrayList<>(activeUsers.size());
+        for (UserQueue user : activeUsers) {
+            result.add(user.user);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // 份额是用户在树中的排序键，修改占用前先取出，修改后放回
+    private void updateUsage(String name, int cpu, int memory) {
+        UserQueue user = userQueue(name);
+        boolean active = !user.jobs.isEmpty();
+        if (active) {
+            activeUsers.remove(user);
+        }
+        user.usedCpu += cpu;
+        user.usedMemory += memory;
+        user.share = share(user);
+        if (active) {
+            activeUsers.add(user);
+        } else {
+            forgetIfIdle(user);
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        entriesById.remove(entry.key.jobId);
+        UserQueue user = entry.user;
+        user.jobs.remove(entry.key);
+        if (user.jobs.isEmpty()) {
+            activeUsers.remove(user);
+            forgetIfIdle(user);
+        }
+    }
+
+    // 没有等待作业也没有占用的用户不再保留，用户表不会随历史用户增长
+    private void forgetIfIdle(UserQueue user) {
+        if (user.jobs.isEmpty() && user.usedCpu == 0 && user.usedMemory == 0) {
+            users.remove(user.user);
+        }
+    }
+
+    private UserQueue userQueue(String name) {
+        UserQueue user = users.get(name);
+        if (user == null) {
+            user = new UserQueue(name, weightOf(name));
+            users.put(name, user);
+        }
+        return user;
+    }
+
+    private double weightOf(String user) {
+        Double weight = weights.get(user);
+        return weight == null || weight <= 0 ? 1.0 : weight;
+    }
+
+    private double share(UserQueue user) {
+        double cpuShare = totalCpu > 0 ? (double) user.usedCpu / totalCpu : 0;
+        double memoryShare = totalMemory > 0 ? (double) user.usedMemory / totalMemory : 0;
+        return Math.max(cpuShare, memoryShare) / user.weight;
+    }
+
+    private static String userOf(Job job) {
+        String user = job.getContext().getUser();
+        return user == null ? "" : user;
+    }
+
+    private static final class UserQueue {
+        private final String user;
+        private final TreeMap<Key, Entry> jobs = new TreeMap<>();
+        private double weight;
+        private long usedCpu;
+        private long usedMemory;
+        private double share;
+
+        private UserQueue(String user, double weight) {
+            this.user = user;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Entry {
+        private final UserQueue user;
+        private final Key key;
+        private final Job job;
+        private final long enqueuedNanos;
+        private final ResourceEstimate estimate;
+        private final long completedMillis;
+
+        private Entry(UserQueue user, Key key, Job job, long enqueuedNanos, ResourceEstimate estimate, long completedMillis) {
+            this.user = user;
+            this.key = key;
+            this.job = job;
+            this.enqueuedNanos = enqueuedNanos;
+            this.estimate = estimate;
+            this.completedMillis = completedMillis;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final long rank; // 老化后的优先级，越小越先准入
+        private final String jobId;
+
+        private Key(long rank, String jobId) {
+            this.rank = rank;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byRank = Long.compare(rank, other.rank);
+            return byRank != 0 ? byRank : jobId.compareTo(other.jobId);
+        }
+    }
+}
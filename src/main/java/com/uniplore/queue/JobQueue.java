@@ -1,67 +1,240 @@
 package com.uniplore.queue;
 
 import com.uniplore.job.service.Job;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 作业队列类，管理所有作业队列。
+ * <p>
+ * 以作业ID为主键的并发哈希表保存作业，同时维护按用户、按类型的二级索引以及按优先级排序的视图，
+ * 按ID、用户、类型查找均不需要复制或遍历整个队列。
+ * <p>
+ * ID、用户、类型和优先级在入队时记录在条目中，之后修改作业上下文不影响索引和排序。同一条目的加入和移除在条目上加锁，
+ * 移除总能看到完整的索引，不会留下残余的索引项。按用户、类型查找的结果保持入队顺序。
  */
 public class JobQueue {
-    private Queue<Job> jobQueue;
-    private int maxQueueSize;
+    private static final Logger logger = LoggerFactory.getLogger(JobQueue.class);
+
+    /**
+     * 优先级视图的排序规则：优先级数值小的在前，优先级相同按作业ID排序，与等待队列的调度顺序一致。
+     * 使用的是入队时的优先级。
+     */
+    private static final Comparator<Entry> PRIORITY_ORDER = Comparator
+            .comparingInt((Entry entry) -> entry.priority)
+            .thenComparing((Entry entry) -> entry.id)
+            .thenComparingLong((Entry entry) -> entry.sequence);
+
+    private final Map<String, Entry> jobsById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Entry> jobsInOrder = new ConcurrentSkipListMap<>(); // 按入队顺序
+    private final Map<String, ConcurrentSkipListMap<Long, Job>> jobsByUser = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, Job>> jobsByType = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Entry, Job> jobsByPriority = new ConcurrentSkipListMap<>(PRIORITY_ORDER);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int maxQueueSize;
 
     public JobQueue(int maxQueueSize) {
-        this.jobQueue = new LinkedList<>();
         this.maxQueueSize = maxQueueSize;
     }
 
     public boolean addJob(Job job) {
-        if (jobQueue.size() < maxQueueSize) {
-            return jobQueue.offer(job);
-        } else {
-            System.out.println("Job queue is full, cannot add job: " + job.getContext().getName());
+        if (!reserveSlot()) {
+            logger.debug("Job queue is full, cannot add job: {}", job.getContext().getName());
             return false;
         }
+        Entry entry = new Entry(job, sequence.incrementAndGet());
+        synchronized (entry) {
+            if (jobsById.putIfAbsent(entry.id, entry) != null) {
+                size.decrementAndGet();
+                logger.debug("Job already queued, cannot add job: {}", entry.id);
+                return false;
+            }
+            jobsInOrder.put(entry.sequence, entry);
+            index(jobsByUser, entry.user, entry);
+            index(jobsByType, entry.type, entry);
+            jobsByPriority.put(entry, job);
+        }
+        return true;
     }
 
     public boolean removeJob(String jobId) {
-        return jobQueue.removeIf(job -> job.getContext().getId().equals(jobId));
+        return detach(jobId) != null;
     }
 
     public boolean removeJobs(List<String> jobIds) {
-        return jobQueue.removeIf(job -> jobIds.contains(job.getContext().getId()));
+        boolean removed = false;
+        for (String jobId : jobIds) {
+            removed |= detach(jobId) != null;
+        }
+        return removed;
+    }
+
+    /**
+     * 按ID取出并移除作业，不存在时返回 null。
+     */
+    public Job takeJob(String jobId) {
+        return detach(jobId);
+    }
+
+    public Job getJob(String jobId) {
+        Entry entry = jobsById.get(jobId);
+        return entry == null ? null : entry.job;
+    }
+
+    public boolean containsJob(String jobId) {
+        return jobsById.containsKey(jobId);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
     }
 
     public List<Job> getAllJobs() {
-        return new LinkedList<>(jobQueue);
+        List<Job> jobs = new ArrayList<>(jobsInOrder.size());
+        for (Entry entry : jobsInOrder.values()) {
+            jobs.add(entry.job);
+        }
+        return jobs;
     }
 
     public List<Job> getJobsByUser(String user) {
-        List<Job> jobs = new LinkedList<>();
-        for (Job job : jobQueue) {
-            if (job.getContext().getUser().equals(user)) {
-                jobs.add(job);
+        return snapshot(jobsByUser.get(user));
+    }
+
+    public List<Job> getJobsByType(String type) {
+        return snapshot(jobsByType.get(type));
+    }
+
+    /**
+     * 按优先级排序的只读视图（优先级数值小的在前），随队列实时变化，不复制数据。
+     */
+    public Collection<Job> priorityView() {
+        return Collections.unmodifiableCollection(jobsByPriority.values());
+    }
+
+    /**
+     * 按优先级从低到高（优先级数值大的在前）遍历作业，用于挑选被抢占的作业。
+     */
+    public Iterator<Job> lowestPriorityFirst() {
+        return Collections.unmodifiableCollection(jobsByPriority.descendingMap().values()).iterator();
+    }
+
+    public Job pollJob() {
+        while (true) {
+            Map.Entry<Long, Entry> first = jobsInOrder.firstEntry();
+            if (first == null) {
+                return null;
             }
+            // 只移除看到的这个条目，同ID的作业被移除后重新加入时不会误取新条目
+            if (detach(first.getValue())) {
+                return first.getValue().job;
+            }
+            // 头部条目已被移除，由移除方清理索引，这里等它完成后重试
+            Thread.onSpinWait();
         }
-        return jobs;
     }
 
-    public List<Job> getJobsByType(String type) {
-        List<Job> jobs = new LinkedList<>();
-        for (Job job : jobQueue) {
-            if (job.getContext().getType().equals(type)) {
-                jobs.add(job);
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxQueueSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
             }
         }
-        return jobs;
     }
 
-    public Job pollJob() {
-        return jobQueue.poll();
+    private Job detach(String jobId) {
+        while (true) {
+            Entry entry = jobsById.get(jobId);
+            if (entry == null) {
+                return null;
+            }
+            if (detach(entry)) {
+                return entry.job;
+            }
+            // 条目已被替换，重新读取
+        }
+    }
+
+    // 加入方在发布条目前已持有该锁，这里等到索引写完整再移除
+    private boolean detach(Entry entry) {
+        synchronized (entry) {
+            if (!jobsById.remove(entry.id, entry)) {
+                return false;
+            }
+            jobsInOrder.remove(entry.sequence);
+            unindex(jobsByUser, entry.user, entry);
+            unindex(jobsByType, entry.type, entry);
+            jobsByPriority.remove(entry);
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    private static void index(Map<String, ConcurrentSkipListMap<Long, Job>> index, String key, Entry entry) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, jobs) -> {
+            ConcurrentSkipListMap<Long, Job> bucket = jobs == null ? new ConcurrentSkipListMap<>() : jobs;
+            bucket.put(entry.sequence, entry.job);
+            return bucket;
+        });
+    }
+
+    private static void unindex(Map<String, ConcurrentSkipListMap<Long, Job>> index, String key, Entry entry) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, jobs) -> {
+            jobs.remove(entry.sequence);
+            return jobs.isEmpty() ? null : jobs;
+        });
+    }
+
+    private static List<Job> snapshot(ConcurrentSkipListMap<Long, Job> jobs) {
+        return jobs == null ? new ArrayList<>() : new ArrayList<>(jobs.values());
+    }
+
+    private static final class Entry {
+        private final Job job;
+        private final String id;
+        private final long sequence;
+        private final int priority;
+        private final String user;
+        private final String type;
+
+        private Entry(Job job, long sequence) {
+            this.job = job;
+            this.id = job.getContext().getId();
+            this.sequence = sequence;
+            this.priority = job.getContext().getPriority();
+            this.user = job.getContext().getUser();
+            this.type = job.getContext().getType();
+        }
     }
 }
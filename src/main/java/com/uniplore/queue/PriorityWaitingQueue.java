@@ -0,0 +1,176 @@
+package com.uniplore.queue;
+
+import com.uniplore.job.service.Job;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 等待队列类，按优先级保持有序。
+ * <p>
+ * 作业入队时即按（优先级, 作业ID）插入红黑树，同时以作业ID建立索引：入队、按ID移除、
+ * 取队首和裁剪最低优先级作业均为 O(log n)，不需要每次重新排序整个队列。
+ * 排序键在入队时固定，作业等待期间修改优先级不会破坏队列结构。
+ * 入队时同时保存作业的资源评估结果和已完成的进度，出队准入时不再重新评估，被驱逐的作业只执行剩余部分。
+ */
+public class PriorityWaitingQueue implements WaitingQueue {
+    private final TreeMap<Key, Job> ordered = new TreeMap<>();
+    private final Map<String, Key> keysById = new HashMap<>();
+
+    /**
+     * 带着已完成的进度（毫秒）入队，用于被驱逐的作业。
+     */
+    @Override
+    public synchronized boolean offer(Job job, ResourceEstimate estimate, long completedMillis) {
+        String jobId = job.getContext().getId();
+        if (keysById.containsKey(jobId)) {
+            return false;
+        }
+        Key key = new Key(job.getContext().getPriority(), jobId, System.nanoTime(), estimate, completedMillis);
+        keysById.put(jobId, key);
+        ordered.put(key, job);
+        return true;
+    }
+
+    /**
+     * 返回优先级最高的作业但不移除。
+     */
+    @Override
+    public synchronized Job peek() {
+        Map.Entry<Key, Job> first = ordered.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    @Override
+    public synchronized Job poll() {
+        Map.Entry<Key, Job> first = ordered.pollFirstEntry();
+        if (first == null) {
+            return null;
+        }
+        keysById.remove(first.getKey().jobId);
+        return first.getValue();
+    }
+
+    /**
+     * 按ID移除作业，不存在时返回 null。
+     */
+    @Override
+    public synchronized Job remove(String jobId) {
+        Key key = keysById.remove(jobId);
+        return key == null ? null : ordered.remove(key);
+    }
+
+    /**
+     * 按ID查找作业但不移除，不存在时返回 null。
+     */
+    @Override
+    public synchronized Job getJob(String jobId) {
+        Key key = keysById.get(jobId);
+        return key == null ? null : ordered.get(key);
+    }
+
+    @Override
+    public synchronized boolean contains(String jobId) {
+        return keysById.containsKey(jobId);
+    }
+
+    /**
+     * 返回作业入队时保存的资源评估结果，作业不在队列中时返回 null。
+     */
+    @Override
+    public synchronized ResourceEstimate estimateOf(String jobId) {
+        Key key = keysById.get(jobId);
+        return key == null ? null : key.estimate;
+    }
+
+    /**
+     * 返回作业入队时的 {@link System#nanoTime()}，作业不在队列中时返回 -1。
+     */
+    @Override
+    public synchronized long enqueuedAt(String jobId) {
+        Key key = keysById.get(jobId);
+        return key == null ? -1 : key.enqueuedNanos;
+    }
+
+    /**
+     * 返回作业入队时已完成的进度（毫秒），作业不在队列中时返回 0。
+     */
+    @Override
+    public synchronized long completedMillisOf(String jobId) {
+        Key key = keysById.get(jobId);
+        return key == null ? 0 : key.completedMillis;
+    }
+
+    /**
+     * 将队列裁剪到指定大小，从优先级最低的作业开始移除，返回被移除的作业。
+     */
+    @Override
+    public synchronized List<Job> trimTo(int maxSize) {
+        List<Job> removed = new ArrayList<>();
+        while (ordered.size() > maxSize) {
+            Map.Entry<Key, Job> last = ordered.pollLastEntry();
+            keysById.remove(last.getKey().jobId);
+            removed.add(last.getValue());
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized int size() {
+        return ordered.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return ordered.isEmpty();
+    }
+
+    /**
+     * 按调度顺序返回排在最前面的至多 limit 个作业。
+     */
+    @Override
+    public synchronized List<Job> head(int limit) {
+        List<Job> jobs = new ArrayList<>(Math.min(limit, ordered.size()));
+        for (Job job : ordered.values()) {
+            if (jobs.size() >= limit) {
+                break;
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * 按调度顺序返回等待作业的副本。
+     */
+    @Override
+    public synchronized List<Job> toList() {
+        return new ArrayList<>(ordered.values());
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final int priority;
+        private final String jobId;
+        private final long enqueuedNanos;
+        private final ResourceEstimate estimate;
+        private final long completedMillis;
+
+        private Key(int priority, String jobId, long enqueuedNanos, ResourceEstimate estimate, long completedMillis) {
+            this.priority = priority;
+            this.jobId = jobId;
+            this.enqueuedNanos = enqueuedNanos;
+            this.estimate = estimate;
+            this.completedMillis = completedMillis;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : jobId.compareTo(other.jobId);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.uniplore.queue;
+
+/**
+ * 等待队列的排序策略。
+ */
+public enum QueuePolicy {
+    /**
+     * 按（优先级, 作业ID）排序，不区分用户。
+     */
+    PRIORITY("priority"),
+    /**
+     * 主导资源公平（DRF）：先选加权主导资源份额最小的用户，再按老化后的优先级选该用户的作业。
+     */
+    FAIR_SHARE("fair-share"),
+    /**
+     * 层级容量队列：作业路由到队列树的叶子，按各队列的保证份额和最大份额选择队列，空闲资源可以借给其他队列。
+     */
+    CAPACITY("capacity");
+
+    private final String configName;
+
+    QueuePolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    public static QueuePolicy fromConfig(String value) {
+        for (QueuePolicy policy : values()) {
+            if (policy.configName.equalsIgnoreCase(value.trim()) || policy.name().equalsIgnoreCase(value.trim())) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown queue policy: " + value);
+    }
+}
@@ -0,0 +1,114 @@
+package com.uniplore.queue;
+
+import com.uniplore.job.service.Job;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 等待队列，决定资源释放后下一个准入的作业。
+ * <p>
+ * 入队时保存作业的资源评估结果和已完成的进度，出队准入时不再重新评估。
+ * 实现按 {@link QueuePolicy} 选择：{@link PriorityWaitingQueue} 只按优先级排序，
+ * {@link FairShareWaitingQueue} 先按用户的主导资源份额选择用户，{@link CapacityWaitingQueue} 按层级队列的份额选择队列。
+ */
+public interface WaitingQueue {
+
+    default boolean offer(Job job, ResourceEstimate estimate) {
+        return offer(job, estimate, 0);
+    }
+
+    /**
+     * 带着已完成的进度（毫秒）入队，作业已在队列中时返回 false。
+     */
+    boolean offer(Job job, ResourceEstimate estimate, long completedMillis);
+
+    /**
+     * 返回下一个应准入的作业但不移除。
+     */
+    Job peek();
+
+    Job poll();
+
+    /**
+     * 按ID移除作业，不存在时返回 null。
+     */
+    Job remove(String jobId);
+
+    /**
+     * 按ID查找作业但不移除，不存在时返回 null。
+     */
+    Job getJob(String jobId);
+
+    boolean contains(String jobId);
+
+    /**
+     * 返回作业入队时保存的资源评估结果，作业不在队列中时返回 null。
+     */
+    ResourceEstimate estimateOf(String jobId);
+
+    /**
+     * 返回作业入队时的 {@link System#nanoTime()}，作业不在队列中时返回 -1。
+     */
+    long enqueuedAt(String jobId);
+
+    /**
+     * 返回作业入队时已完成的进度（毫秒），作业不在队列中时返回 0。
+     */
+    long completedMillisOf(String jobId);
+
+    /**
+     * 将队列裁剪到指定大小，从最后才会准入的作业开始移除，返回被移除的作业。
+     */
+    List<Job> trimTo(int maxSize);
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * 按调度顺序返回排在最前面的至多 limit 个作业。
+     */
+    List<Job> head(int limit);
+
+    /**
+     * 按调度顺序返回等待作业的副本。
+     */
+    List<Job> toList();
+
+    /**
+     * 作业所属的队列是否还能运行需要 cpu、memory 的作业，只检查不计入用量。
+     */
+    default boolean admits(Job job, int cpu, int memory) {
+        return true;
+    }
+
+    /**
+     * 作业开始运行前检查并计入用量，所属队列超出上限时不计入并返回 false。
+     */
+    default boolean tryAllocate(Job job, int cpu, int memory) {
+        allocated(job, cpu, memory);
+        return true;
+    }
+
+    /**
+     * 作业开始运行并占用资源，按用户计算份额的实现据此调整顺序。
+     */
+    default void allocated(Job job, int cpu, int memory) {
+    }
+
+    /**
+     * 运行中的作业归还资源。
+     */
+    default void released(Job job, int cpu, int memory) {
+    }
+
+    /**
+     * 资源不足且无法按优先级抢占时，可以驱逐以收回借出资源的运行中作业，保持 lowestPriorityFirst 的顺序；默认不收回。
+     */
+    default Iterator<Job> reclaimable(Job job, int cpu, int memory, Iterator<Job> lowestPriorityFirst) {
+        return Collections.emptyIterator();
+    }
+}
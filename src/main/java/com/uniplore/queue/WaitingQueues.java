@@ -0,0 +1,27 @@
+package com.uniplore.queue;
+
+import com.uniplore.config.SchedulerConfig;
+
+/**
+ * 等待队列工厂类。
+ */
+public final class WaitingQueues {
+    private WaitingQueues() {
+    }
+
+    /**
+     * 按 queue.policy 创建等待队列，totalCpu、totalMemory 为计算份额使用的资源总量。
+     */
+    public static WaitingQueue create(SchedulerConfig config, int totalCpu, int totalMemory) {
+        switch (config.getQueuePolicy()) {
+            case PRIORITY:
+                return new PriorityWaitingQueue();
+            case FAIR_SHARE:
+                return new FairShareWaitingQueue(totalCpu, totalMemory, config.getFairShareWeights(), config.getQueueAgingInterval());
+            case CAPACITY:
+                return new CapacityWaitingQueue(totalCpu, totalMemory, config.getCapacityQueues(), config.getCapacityRouting());
+            default:
+                throw new IllegalArgumentException("Unknown queue policy: " + config.getQueuePolicy());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.uniplore.resouce.estimator;
+
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 自适应资源评估类，根据已完成作业的实际用量评估资源。
+ * <p>
+ * 按（用户, 作业类型）分别维护CPU、内存的 P² 分位数和指数加权移动平均，以及运行时间的移动平均，
+ * 每组统计只占用固定的几十个字段。评估值取配置分位数与近期均值中的较大者，
+ * 观测到CPU和内存的样本数不足时使用静态评估器；只有运行时间的样本只更新运行时间的统计。
+ */
+public class AdaptiveResourceEstimator implements ResourceEstimator {
+    private final ResourceEstimator fallback;
+    private final double percentile;
+    private final int minSamples;
+    private final double alpha;
+    private final ConcurrentMap<String, UsageStats> statistics = new ConcurrentHashMap<>();
+
+    public AdaptiveResourceEstimator(ResourceEstimator fallback) {
+        this(fallback, 95, 5, 0.2);
+    }
+
+    /**
+     * @param percentile 评估使用的分位数（0-100，不含端点）
+     * @param minSamples 使用历史统计前至少需要的样本数
+     * @param alpha      移动平均的权重，越大越偏向近期样本
+     */
+    public AdaptiveResourceEstimator(ResourceEstimator fallback, double percentile, int minSamples, double alpha) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100): " + percentile);
+        }
+        if (minSamples < 1) {
+            throw new IllegalArgumentException("minSamples must be positive: " + minSamples);
+        }
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+        }
+        this.fallback = Objects.requireNonNull(fallback, "fallback");
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.alpha = alpha;
+    }
+
+    @Override
+    public int estimateCpu(Job job) {
+        return estimate(job).getCpu();
+    }
+
+    @Override
+    public int estimateMemory(Job job) {
+        return estimate(job).getMemory();
+    }
+
+    @Override
+    public ResourceEstimate estimate(Job job) {
+        UsageStats stats = statistics.get(keyOf(job.getContext()));
+        if (stats == null) {
+            return fallback.estimate(job);
+        }
+        ResourceEstimate estimate = stats.estimate(minSamples);
+        return estimate != null ? estimate : fallback.estimate(job);
+    }
+
+    /**
+     * 评估作业运行时间（毫秒），没有历史时使用作业声明的执行时间。
+     */
+    public long estimateRuntimeMillis(Job job) {
+        UsageStats stats = statistics.get(keyOf(job.getContext()));
+        long declared = job.getContext().getExecutionTime() * 1000L;
+        return stats == null ? declared : stats.runtimeMillis(minSamples, declared);
+    }
+
+    @Override
+    public void recordUsage(Job job, ResourceUsage usage) {
+        statistics.computeIfAbsent(keyOf(job.getContext()), key -> new UsageStats(percentile / 100, alpha)).add(usage);
+        fallback.recordUsage(job, usage);
+    }
+
+    /**
+     * 某个（用户, 作业类型）已记录的样本数，包括只有运行时间的样本。
+     */
+    public int sampleCount(String user, String type) {
+        UsageStats stats = statistics.get(user + '\u0000' + type);
+        return stats == null ? 0 : stats.count();
+    }
+
+    /**
+     * 某个（用户, 作业类型）观测到CPU和内存的样本数。
+     */
+    public int resourceSampleCount(String user, String type) {
+        UsageStats stats = statistics.get(user + '\u0000' + type);
+        return stats == null ? 0 : stats.resourceCount();
+    }
+
+    private static String keyOf(JobContext context) {
+        return context.getUser() + '\u0000' + context.getType();
+    }
+
+    private static final class UsageStats {
+        private final double alpha;
+        private final P2Quantile cpuQuantile;
+        private final P2Quantile memoryQuantile;
+        private double cpuAverage;
+        private double memoryAverage;
+        private double runtimeAverage;
+        private int count;
+        private int resourceCount;
+
+        private UsageStats(double quantile, double alpha) {
+            this.alpha = alpha;
+            this.cpuQuantile = new P2Quantile(quantile);
+            this.memoryQuantile = new P2Quantile(quantile);
+        }
+
+        private synchronized void add(ResourceUsage usage) {
+            if (usage.hasResources()) {
+                cpuQuantile.add(usage.getCpu());
+                memoryQuantile.add(usage.getMemory());
+                if (resourceCount == 0) {
+                    cpuAverage = usage.getCpu();
+                    memoryAverage = usage.getMemory();
+                } else {
+                    cpuAverage += alpha * (usage.getCpu() - cpuAverage);
+                    memoryAverage += alpha * (usage.getMemory() - memoryAverage);
+                }
+                resourceCount++;
+            }
+            if (count == 0) {
+                runtimeAverage = usage.getRuntimeMillis();
+            } else {
+                runtimeAverage += alpha * (usage.getRuntimeMillis() - runtimeAverage);
+            }
+            count++;
+        }
+
+        private synchronized ResourceEstimate estimate(int minSamples) {
+            if (resourceCount < minSamples) {
+                return null;
+            }
+            int cpu = (int) Math.ceil(Math.max(cpuQuantile.quantile(), cpuAverage));
+            int memory = (int) Math.ceil(Math.max(memoryQuantile.quantile(), memoryAverage));
+            return new ResourceEstimate(Math.max(1, cpu), Math.max(1, memory));
+        }
+
+        private synchronized long runtimeMillis(int minSamples, long declared) {
+            return count < minSamples ? declared : Math.round(runtimeAverage);
+        }
+
+        private synchronized int count() {
+            return count;
+        }
+
+        private synchronized int resourceCount() {
+            return resourceCount;
+        }
+    }
+}
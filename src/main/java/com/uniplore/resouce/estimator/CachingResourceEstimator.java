@@ -0,0 +1,113 @@
+package com.uniplore.resouce.estimator;
+
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 缓存资源评估类，按作业类型和内容哈希缓存被包装评估器的结果。
+ * <p>
+ * 类型和内容相同的作业只评估一次，适合评估代价较高的评估器。内容哈希为 64 位 FNV-1a，
+ * 缓存条目超过上限时整体清空，不维护访问顺序。
+ */
+public class CachingResourceEstimator implements ResourceEstimator {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ResourceEstimator delegate;
+    private final int maxEntries;
+    private final ConcurrentMap<Key, ResourceEstimate> cache = new ConcurrentHashMap<>();
+
+    public CachingResourceEstimator(ResourceEstimator delegate) {
+        this(delegate, 4096);
+    }
+
+    public CachingResourceEstimator(ResourceEstimator delegate, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public int estimateCpu(Job job) {
+        return estimate(job).getCpu();
+    }
+
+    @Override
+    public int estimateMemory(Job job) {
+        return estimate(job).getMemory();
+    }
+
+    @Override
+    public ResourceEstimate estimate(Job job) {
+        JobContext context = job.getContext();
+        Key key = new Key(context.getType(), contentHash(context.getContent()));
+        ResourceEstimate estimate = cache.get(key);
+        if (estimate == null) {
+            estimate = delegate.estimate(job);
+            if (cache.size() >= maxEntries) {
+                cache.clear();
+            }
+            cache.putIfAbsent(key, estimate);
+        }
+        return estimate;
+    }
+
+    @Override
+    public void recordUsage(Job job, ResourceUsage usage) {
+        delegate.recordUsage(job, usage);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    static long contentHash(String content) {
+        long hash = FNV_OFFSET;
+        if (content == null) {
+            return hash;
+        }
+        for (byte b : content.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static final class Key {
+        private final String type;
+        private final long contentHash;
+
+        private Key(String type, long contentHash) {
+            this.type = type;
+            this.contentHash = contentHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return contentHash == other.contentHash && Objects.equals(type, other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(type) + Long.hashCode(contentHash);
+        }
+    }
+}
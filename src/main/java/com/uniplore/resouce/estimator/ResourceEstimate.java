@@ -0,0 +1,27 @@
+package com.uniplore.resouce.estimator;
+
+/**
+ * 资源评估结果类，一次评估得到的CPU和内存需求，不可变。
+ */
+public final class ResourceEstimate {
+    private final int cpu;
+    private final int memory;
+
+    public ResourceEstimate(int cpu, int memory) {
+        this.cpu = cpu;
+        this.memory = memory;
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    @Override
+    public String toString() {
+        return "cpu=" + cpu + ", memory=" + memory;
+    }
+}
@@ -8,4 +8,17 @@ import com.uniplore.job.service.Job;
 public interface ResourceEstimator {
     int estimateCpu(Job job);
     int estimateMemory(Job job);
+
+    /**
+     * 一次评估作业的CPU和内存需求，调度器对每次提交只调用一次。
+     */
+    default ResourceEstimate estimate(Job job) {
+        return new ResourceEstimate(estimateCpu(job), estimateMemory(job));
+    }
+
+    /**
+     * 作业完成后回报实际用量，默认忽略；根据历史用量评估的实现据此更新统计。
+     */
+    default void recordUsage(Job job, ResourceUsage usage) {
+    }
 }
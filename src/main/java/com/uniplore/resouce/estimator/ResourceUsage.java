@@ -0,0 +1,53 @@
+package com.uniplore.resouce.estimator;
+
+/**
+ * 资源用量类，作业完成后观测到的CPU、内存峰值和实际运行时间，不可变。
+ * 没有观测到CPU和内存时只记录运行时间，见 {@link #runtimeOnly(long)}。
+ */
+public final class ResourceUsage {
+    private static final int UNMEASURED = -1;
+
+    private final int cpu;
+    private final int memory;
+    private final long runtimeMillis;
+
+    public ResourceUsage(int cpu, int memory, long runtimeMillis) {
+        this.cpu = cpu;
+        this.memory = memory;
+        this.runtimeMillis = runtimeMillis;
+    }
+
+    /**
+     * 只有运行时间的用量，评估器不会据此更新CPU和内存的统计。
+     */
+    public static ResourceUsage runtimeOnly(long runtimeMillis) {
+        return new ResourceUsage(UNMEASURED, UNMEASURED, runtimeMillis);
+    }
+
+    /**
+     * 是否观测到了CPU和内存用量。
+     */
+    public boolean hasResources() {
+        return cpu != UNMEASURED;
+    }
+
+    public int getCpu() {
+        return cpu;
+    }
+
+    public int getMemory() {
+        return memory;
+    }
+
+    public long getRuntimeMillis() {
+        return runtimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasResources()) {
+            return "runtimeMillis=" + runtimeMillis;
+        }
+        return "cpu=" + cpu + ", memory=" + memory + ", runtimeMillis=" + runtimeMillis;
+    }
+}
@@ -0,0 +1,67 @@
+package com.uniplore.resouce.management;
+
+import java.util.List;
+
+/**
+ * 只记录资源总量的账本，分配不区分作业，资源总量可以调整。按作业的操作按匿名分配处理。
+ */
+public interface AggregateResourceLedger extends ResourceLedger {
+    /**
+     * 同时预留CPU和内存，两者都足够时才会扣减，否则不做任何修改。
+     */
+    boolean tryAllocate(int cpu, int memory);
+
+    /**
+     * 按顺序为一批请求预留资源，能满足的请求全部预留、不能满足的跳过，结果写入 granted。
+     *
+     * @return 实际预留的请求数量
+     */
+    default int tryAllocateBatch(int[] cpu, int[] memory, boolean[] granted) {
+        int count = 0;
+        for (int i = 0; i < cpu.length; i++) {
+            granted[i] = tryAllocate(cpu[i], memory[i]);
+            if (granted[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void release(int cpu, int memory);
+
+    /**
+     * 调整资源总量，差值同步加到可用资源上；缩容到已用量以下时可用资源可能暂时为负，直到作业释放。
+     */
+    void resize(int totalCpu, int totalMemory);
+
+    @Override
+    default boolean tryAllocate(String jobId, int cpu, int memory) {
+        return tryAllocate(cpu, memory);
+    }
+
+    @Override
+    default int tryAllocateBatch(String[] jobIds, int[] cpu, int[] memory, boolean[] granted) {
+        return tryAllocateBatch(cpu, memory, granted);
+    }
+
+    @Override
+    default void release(String jobId, int cpu, int memory) {
+        release(cpu, memory);
+    }
+
+    /**
+     * 合计一批租约后一次归还。
+     */
+    @Override
+    default void releaseAll(List<AllocationLease> leases) {
+        long cpu = 0;
+        long memory = 0;
+        for (AllocationLease lease : leases) {
+            cpu += lease.getCpu();
+            memory += lease.getMemory();
+        }
+        if (cpu > 0 || memory > 0) {
+            release((int) cpu, (int) memory);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.uniplore.resouce.management;
+
+import com.uniplore.scheduler.RunningAllocation;
+
+/**
+ * 资源租约类，记录准入作业实际获得的CPU和内存，不可变。
+ * <p>
+ * 释放资源时按租约归还，而不是重新评估，归还的数量与分配的数量始终一致；
+ * 租约从登记表中移除成功的一方负责释放，保证每次分配只释放一次。
+ */
+public final class AllocationLease implements RunningAllocation {
+    private final String jobId;
+    private final int cpu;
+    private final int memory;
+    private final long grantedAt;
+    private final long expectedEnd;
+
+    public AllocationLease(String jobId, int cpu, int memory, long grantedAt, long expectedEnd) {
+        this.jobId = jobId;
+        this.cpu = cpu;
+        this.memory = memory;
+        this.grantedAt = grantedAt;
+        this.expectedEnd = expectedEnd;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public int getCpu() {
+        return cpu;
+    }
+
+    @Override
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * 分配时间（毫秒时间戳）。
+     */
+    public long getGrantedAt() {
+        return grantedAt;
+    }
+
+    @Override
+    public long getExpectedEndMillis() {
+        return expectedEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "AllocationLease{jobId=" + jobId + ", cpu=" + cpu + ", memory=" + memory
+                + ", grantedAt=" + grantedAt + ", expectedEnd=" + expectedEnd + "}";
+    }
+}
@@ -0,0 +1,122 @@
+package com.uniplore.resouce.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁资源账本，将可用CPU（高32位）和可用内存（低32位）打包进同一个原子长整型，
+ * 一次CAS即可同时预留两种资源，读取时也总能得到一致的快照。
+ */
+public class AtomicResourceLedger implements AggregateResourceLedger {
+    private static final long MEMORY_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLong available;
+    private volatile int totalCpu;
+    private volatile int totalMemory;
+
+    public AtomicResourceLedger(int totalCpu, int totalMemory) {
+        if (totalCpu < 0 || totalMemory < 0) {
+            throw new IllegalArgumentException("Resource totals must not be negative: CPU=" + totalCpu + ", Memory=" + totalMemory);
+        }
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+        this.available = new AtomicLong(pack(totalCpu, totalMemory));
+    }
+
+    @Override
+    public boolean tryAllocate(int cpu, int memory) {
+        while (true) {
+            long current = available.get();
+            int freeCpu = cpuOf(current);
+            int freeMemory = memoryOf(current);
+            if (freeCpu < cpu || freeMemory < memory) {
+                return false;
+            }
+            if (available.compareAndSet(current, pack(freeCpu - cpu, freeMemory - memory))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 基于同一个快照按顺序贪心地决定每个请求能否满足，再用一次CAS扣减全部预留量；CAS失败时整批重新计算。
+     */
+    @Override
+    public int tryAllocateBatch(int[] cpu, int[] memory, boolean[] granted) {
+        while (true) {
+            long current = available.get();
+            int freeCpu = cpuOf(current);
+            int freeMemory = memoryOf(current);
+            int count = 0;
+            for (int i = 0; i < cpu.length; i++) {
+                granted[i] = freeCpu >= cpu[i] && freeMemory >= memory[i];
+                if (granted[i]) {
+                    freeCpu -= cpu[i];
+                    freeMemory -= memory[i];
+                    count++;
+                }
+            }
+            if (count == 0 || available.compareAndSet(current, pack(freeCpu, freeMemory))) {
+                return count;
+            }
+        }
+    }
+
+    @Override
+    public void release(int cpu, int memory) {
+        while (true) {
+            long current = available.get();
+            long next = pack(cpuOf(current) + cpu, memoryOf(current) + memory);
+            if (available.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void resize(int totalCpu, int totalMemory) {
+        if (totalCpu < 0 || totalMemory < 0) {
+            throw new IllegalArgumentException("Resource totals must not be negative: CPU=" + totalCpu + ", Memory=" + totalMemory);
+        }
+        int cpuDelta = totalCpu - this.totalCpu;
+        int memoryDelta = totalMemory - this.totalMemory;
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+        release(cpuDelta, memoryDelta);
+    }
+
+    @Override
+    public ResourceSnapshot snapshot() {
+        long current = available.get();
+        return new ResourceSnapshot(cpuOf(current), memoryOf(current));
+    }
+
+    public int getAvailableCpu() {
+        return cpuOf(available.get());
+    }
+
+    public int getAvailableMemory() {
+        return memoryOf(available.get());
+    }
+
+    @Override
+    public int getTotalCpu() {
+        return totalCpu;
+    }
+
+    @Override
+    public int getTotalMemory() {
+        return totalMemory;
+    }
+
+    static long pack(int cpu, int memory) {
+        return ((long) cpu << 32) | (memory & MEMORY_MASK);
+    }
+
+    static int cpuOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    static int memoryOf(long packed) {
+        return (int) (packed & MEMORY_MASK);
+    }
+}
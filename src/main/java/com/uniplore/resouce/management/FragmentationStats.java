@@ -0,0 +1,75 @@
+package com.uniplore.resouce.management;
+
+/**
+ * 节点资源池的碎片统计，不可变。
+ * <p>
+ * 碎片率为 1 - 最大单节点空闲量 / 全部空闲量（百分比）：空闲资源集中在一个节点上时为 0，分散在越多节点上越接近 100。
+ * 搁浅资源是无法使用的空闲资源：CPU有空闲但内存已用完的节点上的CPU，以及CPU已用完的节点上的内存。
+ */
+public final class FragmentationStats {
+    public static final FragmentationStats NONE = new FragmentationStats(0, 0, 0, 0, 0, 0);
+
+    private final long freeCpu;
+    private final long freeMemory;
+    private final int largestFreeCpu;
+    private final int largestFreeMemory;
+    private final long strandedCpu;
+    private final long strandedMemory;
+
+    public FragmentationStats(long freeCpu, long freeMemory, int largestFreeCpu, int largestFreeMemory,
+                              long strandedCpu, long strandedMemory) {
+        this.freeCpu = freeCpu;
+        this.freeMemory = freeMemory;
+        this.largestFreeCpu = largestFreeCpu;
+        this.largestFreeMemory = largestFreeMemory;
+        this.strandedCpu = strandedCpu;
+        this.strandedMemory = strandedMemory;
+    }
+
+    public long getFreeCpu() {
+        return freeCpu;
+    }
+
+    public long getFreeMemory() {
+        return freeMemory;
+    }
+
+    /**
+     * 单个节点上最多的空闲CPU，即能放下的最大CPU需求。
+     */
+    public int getLargestFreeCpu() {
+        return largestFreeCpu;
+    }
+
+    public int getLargestFreeMemory() {
+        return largestFreeMemory;
+    }
+
+    public long getStrandedCpu() {
+        return strandedCpu;
+    }
+
+    public long getStrandedMemory() {
+        return strandedMemory;
+    }
+
+    public double getCpuFragmentation() {
+        return fragmentation(largestFreeCpu, freeCpu);
+    }
+
+    public double getMemoryFragmentation() {
+        return fragmentation(largestFreeMemory, freeMemory);
+    }
+
+    private static double fragmentation(long largest, long free) {
+        return free <= 0 ? 0 : (1 - (double) largest / free) * 100;
+    }
+
+    @Override
+    public String toString() {
+        return "FragmentationStats{freeCpu=" + freeCpu + ", freeMemory=" + freeMemory + ", largestFreeCpu=" + largestFreeCpu
+                + ", largestFreeMemory=" + largestFreeMemory + ", strandedCpu=" + strandedCpu + ", strandedMemory=" + strandedMemory
+                + ", cpuFragmentation=" + String.format("%.1f", getCpuFragmentation())
+                + ", memoryFragmentation=" + String.format("%.1f", getMemoryFragmentation()) + "}";
+    }
+}
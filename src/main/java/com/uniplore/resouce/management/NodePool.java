@@ -0,0 +1,291 @@
+package com.uniplore.resouce.management;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 由多个节点组成的资源账本，每个作业只能放在一个节点上，不能跨节点使用资源。
+ * <p>
+ * 节点按空闲CPU分桶，每个桶内按（空闲内存, 序号）排序，非空的桶记录在位图中。放置作业时只访问空闲CPU足够的非空桶，
+ * 每个桶内用一次有序查找取出该桶的最优候选：对任一策略，同一空闲CPU下的最优节点要么是内存刚好够的，要么是内存最多的。
+ * 查找次数只与节点的CPU规格有关（最多为最大节点的CPU数），与节点数量无关，放置和释放都是 O(C log n)。
+ * <p>
+ * 分配和释放都以作业ID记录作业所在的节点，因此只实现按作业的 {@link ResourceLedger}，不是可按总量分配和调整的
+ * {@link AggregateResourceLedger}；节点列表在创建后不变。
+ */
+public class NodePool implements ResourceLedger {
+    private static final Comparator<Node> BY_FREE_MEMORY = Comparator
+            .comparingInt((Node node) -> node.freeMemory)
+            .thenComparingInt(node -> node.index);
+
+    private final Node[] nodes;
+    private final PlacementStrategy strategy;
+    private final TreeSet<Node>[] buckets; // 下标为空闲CPU
+    private final BitSet nonEmpty = new BitSet();
+    private final Map<String, Node> placements = new HashMap<>();
+    private final Node probe = new Node("", -1, 0, 0);
+    private final double maxCpu;
+    private final double maxMemory;
+    private final int totalCpu;
+    private final int totalMemory;
+    private long freeCpu;
+    private long freeMemory;
+
+    public NodePool(List<NodeUsage> capacities, PlacementStrategy strategy) {
+        if (capacities.isEmpty()) {
+            throw new IllegalArgumentException("Node pool needs at least one node");
+        }
+        this.strategy = strategy;
+        this.nodes = new Node[capacities.size()];
+        Map<String, Node> byId = new HashMap<>();
+        int largestCpu = 0;
+        int largestMemory = 0;
+        long cpu = 0;
+        long memory = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            NodeUsage capacity = capacities.get(i);
+            if (capacity.getTotalCpu() < 0 || capacity.getTotalMemory() < 0) {
+                throw new IllegalArgumentException("Node capacity must not be negative: " + capacity);
+            }
+            nodes[i] = new Node(capacity.getNodeId(), i, capacity.getTotalCpu(), capacity.getTotalMemory());
+            if (byId.put(capacity.getNodeId(), nodes[i]) != null) {
+                throw new IllegalArgumentException("Duplicate node id: " + capacity.getNodeId());
+            }
+            largestCpu = Math.max(largestCpu, capacity.getTotalCpu());
+            largestMemory = Math.max(largestMemory, capacity.getTotalMemory());
+            cpu += capacity.getTotalCpu();
+            memory += capacity.getTotalMemory();
+        }
+        if (cpu > Integer.MAX_VALUE || memory > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Node pool capacity exceeds " + Integer.MAX_VALUE);
+        }
+        this.totalCpu = (int) cpu;
+        this.totalMemory = (int) memory;
+        this.freeCpu = cpu;
+        this.freeMemory = memory;
+        this.maxCpu = Math.max(1, largestCpu);
+        this.maxMemory = Math.max(1, largestMemory);
+        @SuppressWarnings("unchecked") // 泛型数组只能按通配类型创建，桶里只会放入本节点池的节点
+        TreeSet<Node>[] buckets = (TreeSet<Node>[]) new TreeSet<?>[largestCpu + 1];
+        this.buckets = buckets;
+        for (Node node : nodes) {
+            index(node);
+        }
+    }
+
+    /**
+     * 按 id:cpu:memory 的列表创建节点池，多个节点以逗号分隔，例如 node-1:16:32768,node-2:8:16384。
+     */
+    public static NodePool fromSpec(String spec, PlacementStrategy strategy) {
+        List<NodeUsage> capacities = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3 || parts[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid node spec: " + entry);
+            }
+            try {
+                int cpu = Integer.parseInt(parts[1].trim());
+                int memory = Integer.parseInt(parts[2].trim());
+                capacities.add(new NodeUsage(parts[0].trim(), cpu, memory, cpu, memory));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid node spec: " + entry, ex);
+            }
+        }
+        return new NodePool(capacities, strategy);
+    }
+
+    public PlacementStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 按放置策略为作业选择节点并扣减该节点的资源，没有能放下的节点或作业已有放置时返回 false。
+     */
+    @Override
+    public synchronized boolean tryAllocate(String jobId, int cpu, int memory) {
+        if (placements.containsKey(jobId)) {
+            return false;
+        }
+        Node node = place(cpu, memory);
+        if (node == null) {
+            return false;
+        }
+        update(node, -cpu, -memory);
+        placements.put(jobId, node);
+        return true;
+    }
+
+    @Override
+    public synchronized int tryAllocateBatch(String[] jobIds, int[] cpu, int[] memory, boolean[] granted) {
+        int count = 0;
+        for (int i = 0; i < jobIds.length; i++) {
+            granted[i] = jobIds[i] != null && tryAllocate(jobIds[i], cpu[i], memory[i]);
+            if (granted[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 把作业的资源归还到它所在的节点。
+     */
+    @Override
+    public synchronized void release(String jobId, int cpu, int memory) {
+        Node node = placements.remove(jobId);
+        if (node == null) {
+            throw new IllegalStateException("No placement for job " + jobId);
+        }
+        update(node, cpu, memory);
+    }
+
+    @Override
+    public synchronized void releaseAll(List<AllocationLease> leases) {
+        for (AllocationLease lease : leases) {
+            release(lease.getJobId(), lease.getCpu(), lease.getMemory());
+        }
+    }
+
+    /**
+     * 全部节点的空闲资源之和，只表示总量，作业能否放下取决于单个节点。
+     */
+    @Override
+    public synchronized ResourceSnapshot snapshot() {
+        return new ResourceSnapshot((int) freeCpu, (int) freeMemory);
+    }
+
+    @Override
+    public int getTotalCpu() {
+        return totalCpu;
+    }
+
+    @Override
+    public int getTotalMemory() {
+        return totalMemory;
+    }
+
+    /**
+     * 作业所在的节点，作业没有放置时返回 null。
+     */
+    public synchronized String nodeOf(String jobId) {
+        Node node = placements.get(jobId);
+        return node == null ? null : node.id;
+    }
+
+    public synchronized List<NodeUsage> getNodes() {
+        List<NodeUsage> usages = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            usages.add(new NodeUsage(node.id, node.totalCpu, node.totalMemory, node.freeCpu, node.freeMemory));
+        }
+        return usages;
+    }
+
+    /**
+     * 统计空闲资源的碎片情况，需要遍历全部节点，用于指标采集而不是放置。
+     */
+    public synchronized FragmentationStats fragmentation() {
+        int largestCpu = Math.max(0, nonEmpty.length() - 1);
+        int largestMemory = 0;
+        long strandedCpu = 0;
+        long strandedMemory = 0;
+        for (Node node : nodes) {
+            largestMemory = Math.max(largestMemory, node.freeMemory);
+            if (node.freeCpu > 0 && node.freeMemory <= 0) {
+                strandedCpu += node.freeCpu;
+            } else if (node.freeCpu <= 0 && node.freeMemory > 0) {
+                strandedMemory += node.freeMemory;
+            }
+        }
+        return new FragmentationStats(freeCpu, freeMemory, largestCpu, largestMemory, strandedCpu, strandedMemory);
+    }
+
+    // 依次访问空闲CPU足够的非空桶，每个桶只取一个候选，按策略打分取最高者
+    private Node place(int cpu, int memory) {
+        if (cpu < 0 || memory < 0 || cpu >= buckets.length) {
+            return null;
+        }
+        probe.freeMemory = memory;
+        Node best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int free = nonEmpty.nextSetBit(cpu); free >= 0; free = nonEmpty.nextSetBit(free + 1)) {
+            TreeSet<Node> bucket = buckets[free];
+            Node candidate = strategy == PlacementStrategy.BEST_FIT ? bucket.ceiling(probe) : bucket.last();
+            if (candidate == null || candidate.freeMemory < memory) {
+                continue;
+            }
+            double score = score(candidate, cpu, memory);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private double score(Node node, int cpu, int memory) {
+        double leftover = (node.freeCpu - cpu) / maxCpu + (node.freeMemory - memory) / maxMemory;
+        switch (strategy) {
+            case BEST_FIT:
+                return -leftover;
+            case WORST_FIT:
+                return leftover;
+            case DOT_PRODUCT:
+                return (cpu / maxCpu) * (node.freeCpu / maxCpu) + (memory / maxMemory) * (node.freeMemory / maxMemory);
+            default:
+                throw new IllegalStateException("Unknown placement strategy: " + strategy);
+        }
+    }
+
+    // 节点的空闲资源是它在桶中的排序键，修改前先移出，修改后放回
+    private void update(Node node, int cpu, int memory) {
+        unindex(node);
+        node.freeCpu += cpu;
+        node.freeMemory += memory;
+        freeCpu += cpu;
+        freeMemory += memory;
+        index(node);
+    }
+
+    private void index(Node node) {
+        int free = Math.max(0, node.freeCpu);
+        TreeSet<Node> bucket = buckets[free];
+        if (bucket == null) {
+            bucket = new TreeSet<>(BY_FREE_MEMORY);
+            buckets[free] = bucket;
+        }
+        bucket.add(node);
+        nonEmpty.set(free);
+    }
+
+    private void unindex(Node node) {
+        int free = Math.max(0, node.freeCpu);
+        TreeSet<Node> bucket = buckets[free];
+        bucket.remove(node);
+        if (bucket.isEmpty()) {
+            nonEmpty.clear(free);
+        }
+    }
+
+    private static final class Node {
+        private final String id;
+        private final int index;
+        private final int totalCpu;
+        private final int totalMemory;
+        private int freeCpu;
+        private int freeMemory;
+
+        private Node(String id, int index, int totalCpu, int totalMemory) {
+            this.id = id;
+            this.index = index;
+            this.totalCpu = totalCpu;
+            this.totalMemory = totalMemory;
+            this.freeCpu = totalCpu;
+            this.freeMemory = totalMemory;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.uniplore.resouce.management;
+
+/**
+ * 节点的容量和空闲资源快照，不可变。
+ */
+public final class NodeUsage {
+    private final String nodeId;
+    private final int totalCpu;
+    private final int totalMemory;
+    private final int freeCpu;
+    private final int freeMemory;
+
+    public NodeUsage(String nodeId, int totalCpu, int totalMemory, int freeCpu, int freeMemory) {
+        this.nodeId = nodeId;
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+        this.freeCpu = freeCpu;
+        this.freeMemory = freeMemory;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getTotalCpu() {
+        return totalCpu;
+    }
+
+    public int getTotalMemory() {
+        return totalMemory;
+    }
+
+    public int getFreeCpu() {
+        return freeCpu;
+    }
+
+    public int getFreeMemory() {
+        return freeMemory;
+    }
+
+    @Override
+    public String toString() {
+        return nodeId + "{CPU=" + freeCpu + "/" + totalCpu + ", Memory=" + freeMemory + "/" + totalMemory + "MB}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.uniplore.resouce.management;
+
+/**
+ * {@link NodePool} 为作业选择节点的策略，节点的CPU和内存都按集群中最大的节点归一化。
+ */
+public enum PlacementStrategy {
+    /**
+     * 最佳适配：选择放下作业后剩余CPU与内存之和最小的节点，大节点留给大作业。
+     */
+    BEST_FIT("best-fit"),
+    /**
+     * 最差适配：选择放下作业后剩余最多的节点，负载分散到各个节点。
+     */
+    WORST_FIT("worst-fit"),
+    /**
+     * 主导资源点积：选择空闲资源向量与作业需求向量点积最大的节点，CPU密集的作业放到CPU富余的节点，
+     * 减少一种资源用完、另一种资源闲置的情况。
+     */
+    DOT_PRODUCT("dot-product");
+
+    private final String configName;
+
+    PlacementStrategy(String configName) {
+        this.configName = configName;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    public static PlacementStrategy fromConfig(String value) {
+        for (PlacementStrategy strategy : values()) {
+            if (strategy.configName.equalsIgnoreCase(value.trim()) || strategy.name().equalsIgnoreCase(value.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown placement strategy: " + value);
+    }
+}
@@ -0,0 +1,400 @@
+package com.uniplore.resouce.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 资源预约日历：把从当前时刻起 horizon 个时间片内已承诺的CPU和内存记录为可用量曲线，
+ * 运行中的作业按预计结束时间占用，等待中的作业或作业组按预约的时间窗口占用。
+ * <p>
+ * 曲线保存在线段树中，每个节点记录区间内的最大、最小占用和整段区间的增量，不需要下推。
+ * 登记和撤销一段占用是 O(log n)；“从某一时刻起最早能放下”的查询每一步先在 O(log n) 内找到窗口内第一个放不下的时间片，
+ * 再跳到其后第一个放得下的时间片，步数只与途经的放不下的区段数有关，与时间片数量无关。时间起点落后超过半个 horizon 时整体平移并重建。
+ * <p>
+ * 日历只记录承诺，不分配资源；作业实际运行仍以 {@link ResourceLedger} 为准。超过预计时间仍在运行的作业
+ * 在预计结束之后不再计入日历，此时预约的作业到点后可能仍然无法启动。
+ * <p>
+ * 先登记的预约优先：重新预约只会把已有的预约提前，不会因为之后登记的占用或预约推迟；预约到点后保持原来的位置，
+ * 推迟启动时超出窗口的部分由之后的预约让出，见 {@link #admits(String, int, int, long, long)}。
+ */
+public class ReservationCalendar {
+    private final long slotMillis;
+    private final int slots;
+    private final long[] maxCpu;
+    private final long[] maxMemory;
+    private final long[] minCpu;
+    private final long[] minMemory;
+    private final long[] addCpu;
+    private final long[] addMemory;
+    private final Map<String, Booking> bookings = new HashMap<>();
+    private final LongSupplier clock;
+    private long sequence; // 预约的登记顺序
+    private long origin; // 第 0 个时间片的开始时间
+    private int totalCpu;
+    private int totalMemory;
+    private volatile int reservations; // 预约（而不是运行中作业）的数量
+
+    public ReservationCalendar(int totalCpu, int totalMemory, long slotMillis, int slots) {
+        this(totalCpu, totalMemory, slotMillis, slots, System::currentTimeMillis);
+    }
+
+    public ReservationCalendar(int totalCpu, int totalMemory, long slotMillis, int slots, LongSupplier clock) {
+        if (slotMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Reservation slot and horizon must be positive");
+        }
+        this.slotMillis = slotMillis;
+        this.slots = slots;
+        this.maxCpu = new long[4 * slots];
+        this.maxMemory = new long[4 * slots];
+        this.minCpu = new long[4 * slots];
+        this.minMemory = new long[4 * slots];
+        this.addCpu = new long[4 * slots];
+        this.addMemory = new long[4 * slots];
+        this.clock = clock;
+        this.origin = align(clock.getAsLong());
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    public synchronized void resize(int totalCpu, int totalMemory) {
+        this.totalCpu = totalCpu;
+        this.totalMemory = totalMemory;
+    }
+
+    /**
+     * 登记运行中作业从 start 到 end 的占用，同一ID已有的占用或预约被替换。
+     */
+    public synchronized void book(String id, int cpu, int memory, long start, long end) {
+        advance();
+        remove(id);
+        add(new Booking(id, cpu, memory, start, end, false, 0));
+    }
+
+    /**
+     * 为 id 预约最早能放下的时间窗口并返回开始时间；在 horizon 内放不下时不预约，返回 {@link Long#MAX_VALUE}。
+     * id 已有同样大小的预约时只会提前、不会推迟，已经到点的预约保持不变并延长到当前时刻之后的 durationMillis，
+     * 仍然挡住之后的作业；资源需求不同或 id 的占用不是预约时重新预约。
+     */
+    public synchronized long reserve(String id, int cpu, int memory, long durationMillis, long notBefore) {
+        advance();
+        Booking held = remove(id);
+        if (held != null && !(held.reserved && held.cpu == cpu && held.memory == memory)) {
+            held = null;
+        }
+        long now = clock.getAsLong();
+        if (held != null && held.start <= now) {
+            add(held.extendTo(now + durationMillis));
+            return held.start;
+        }
+        long start = earliest(cpu, memory, durationMillis, notBefore);
+        if (held != null && held.start <= start) {
+            add(held);
+            return held.start;
+        }
+        if (start != Long.MAX_VALUE) {
+            add(new Booking(id, cpu, memory, start, start + durationMillis, true,
+                    held != null ? held.sequence : ++sequence));
+        }
+        return start;
+    }
+
+    /**
+     * 最早能放下 cpu 和 memory 并持续 durationMillis 的开始时间，不早于 notBefore；在 horizon 内放不下时返回 {@link Long#MAX_VALUE}。
+     * 窗口超出 horizon 的部分不检查。
+     */
+    public synchronized long earliestStart(int cpu, int memory, long durationMillis, long notBefore) {
+        advance();
+        return earliest(cpu, memory, durationMillis, notBefore);
+    }
+
+    /**
+     * 不计 id 自身已有的占用或预约时，start 到 end 之间能否放下 cpu 和 memory。
+     */
+    public synchronized boolean fits(String id, int cpu, int memory, long start, long end) {
+        advance();
+        return fitsExcluding(id, cpu, memory, start, end);
+    }
+
+    private boolean fitsExcluding(String id, int cpu, int memory, long start, long end) {
+        Booking own = id == null ? null : bookings.get(id);
+        if (own != null) {
+            apply(own, -1);
+        }
+        long limitCpu = totalCpu - (long) cpu;
+        long limitMemory = totalMemory - (long) memory;
+        boolean fits = limitCpu >= 0 && limitMemory >= 0;
+        if (fits) {
+            int from = Math.max(0, slotOf(start));
+            int to = Math.min(slots, slotCeil(end)) - 1;
+            fits = from > to || firstAbove(1, 0, slots - 1, from, to, limitCpu, limitMemory, 0, 0) < 0;
+        }
+        if (own != null) {
+            apply(own, 1);
+        }
+        return fits;
+    }
+
+    /**
+     * id 能否从 now 起运行 durationMillis。id 的预约已经到点时不计自身的预约和在它之后登记的预约：
+     * 之后的预约按它的窗口安排，推迟启动时重叠的部分由它们让出，预约不会因为晚一个刻度处理而排到它们后面；
+     * 否则与 {@link #fits(String, int, int, long, long)} 相同。
+     */
+    public synchronized boolean admits(String id, int cpu, int memory, long now, long durationMillis) {
+        advance();
+        Booking held = bookings.get(id);
+        if (held == null || !held.reserved || held.start > now) {
+            return fitsExcluding(id, cpu, memory, now, now + durationMillis);
+        }
+        List<Booking> later = new ArrayList<>();
+        for (Booking booking : bookings.values()) {
+            if (booking.reserved && booking.sequence > held.sequence) {
+                later.add(booking);
+                apply(booking, -1);
+            }
+        }
+        boolean fits = fitsExcluding(id, cpu, memory, now, now + durationMillis);
+        for (Booking booking : later) {
+            apply(booking, 1);
+        }
+        return fits;
+    }
+
+    /**
+     * 撤销 id 的占用或预约。
+     */
+    public synchronized boolean release(String id) {
+        return remove(id) != null;
+    }
+
+    /**
+     * 只撤销预约，id 对应运行中作业的占用时不做处理。
+     */
+    public synchronized boolean cancel(String id) {
+        Booking booking = bookings.get(id);
+        return booking != null && booking.reserved && remove(id) != null;
+    }
+
+    /**
+     * id 预约的开始时间，没有预约时返回 -1。
+     */
+    public synchronized long reservedStart(String id) {
+        Booking booking = bookings.get(id);
+        return booking != null && booking.reserved ? booking.start : -1;
+    }
+
+    /**
+     * 有预约时返回 true，不加锁，没有预约时分配资源不需要检查日历。
+     */
+    public boolean hasReservations() {
+        return reservations > 0;
+    }
+
+    /**
+     * from 到 to 之间已承诺的最大CPU占用。
+     */
+    public synchronized long peakCpu(long from, long to) {
+        advance();
+        int start = Math.max(0, slotOf(from));
+        int end = Math.min(slots, slotCeil(to)) - 1;
+        return start > end ? 0 : peak(1, 0, slots - 1, start, end, 0);
+    }
+
+    public long getSlotMillis() {
+        return slotMillis;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    private long earliest(int cpu, int memory, long durationMillis, long notBefore) {
+        long limitCpu = totalCpu - (long) cpu;
+        long limitMemory = totalMemory - (long) memory;
+        if (limitCpu < 0 || limitMemory < 0) {
+            return Long.MAX_VALUE;
+        }
+        int start = Math.max(0, slotOf(notBefore));
+        while (start < slots) {
+            // notBefore 落在时间片中间时窗口会多跨一个时间片
+            long from = Math.max(notBefore, origin + start * slotMillis);
+            int end = Math.max(start, Math.min(slots, slotCeil(from + durationMillis)) - 1);
+            int blocked = firstAbove(1, 0, slots - 1, start, end, limitCpu, limitMemory, 0, 0);
+            if (blocked < 0) {
+                return from;
+            }
+            start = blocked + 1 < slots ? firstWithin(1, 0, slots - 1, blocked + 1, limitCpu, limitMemory, 0, 0) : -1;
+            if (start < 0) {
+                break;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // 时间起点落后超过半个 horizon 时平移到当前时间片，丢弃已经结束的占用并重建线段树
+    private void advance() {
+        long now = clock.getAsLong();
+        if (now - origin < (slots / 2) * slotMillis) {
+            return;
+        }
+        origin = align(now);
+        Arrays.fill(maxCpu, 0);
+        Arrays.fill(maxMemory, 0);
+        Arrays.fill(minCpu, 0);
+        Arrays.fill(minMemory, 0);
+        Arrays.fill(addCpu, 0);
+        Arrays.fill(addMemory, 0);
+        List<Booking> live = new ArrayList<>(bookings.values());
+        bookings.clear();
+        reservations = 0;
+        for (Booking booking : live) {
+            if (booking.end > origin) {
+                add(booking);
+            }
+        }
+    }
+
+    private void add(Booking booking) {
+        bookings.put(booking.id, booking);
+        if (booking.reserved) {
+            reservations++;
+        }
+        apply(booking, 1);
+    }
+
+    private Booking remove(String id) {
+        Booking booking = bookings.remove(id);
+        if (booking != null) {
+            if (booking.reserved) {
+                reservations--;
+            }
+            apply(booking, -1);
+        }
+        return booking;
+    }
+
+    private void apply(Booking booking, int sign) {
+        int from = Math.max(0, slotOf(booking.start));
+        int to = Math.min(slots, slotCeil(booking.end)) - 1;
+        if (from <= to) {
+            update(1, 0, slots - 1, from, to, sign * (long) booking.cpu, sign * (long) booking.memory);
+        }
+    }
+
+    private void update(int node, int lo, int hi, int from, int to, long cpu, long memory) {
+        if (to < lo || hi < from) {
+            return;
+        }
+        if (from <= lo && hi <= to) {
+            addCpu[node] += cpu;
+            addMemory[node] += memory;
+            maxCpu[node] += cpu;
+            maxMemory[node] += memory;
+            minCpu[node] += cpu;
+            minMemory[node] += memory;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        update(2 * node, lo, mid, from, to, cpu, memory);
+        update(2 * node + 1, mid + 1, hi, from, to, cpu, memory);
+        maxCpu[node] = addCpu[node] + Math.max(maxCpu[2 * node], maxCpu[2 * node + 1]);
+        maxMemory[node] = addMemory[node] + Math.max(maxMemory[2 * node], maxMemory[2 * node + 1]);
+        minCpu[node] = addCpu[node] + Math.min(minCpu[2 * node], minCpu[2 * node + 1]);
+        minMemory[node] = addMemory[node] + Math.min(minMemory[2 * node], minMemory[2 * node + 1]);
+    }
+
+    // from 之后第一个CPU和内存占用都不超过上限的时间片，子树中CPU或内存的最小占用已超过上限时整棵子树跳过
+    private int firstWithin(int node, int lo, int hi, int from, long limitCpu, long limitMemory,
+                            long inheritedCpu, long inheritedMemory) {
+        if (hi < from) {
+            return -1;
+        }
+        if (minCpu[node] + inheritedCpu > limitCpu || minMemory[node] + inheritedMemory > limitMemory) {
+            return -1;
+        }
+        if (lo == hi) {
+            return maxCpu[node] + inheritedCpu <= limitCpu && maxMemory[node] + inheritedMemory <= limitMemory ? lo : -1;
+        }
+        int mid = (lo + hi) >>> 1;
+        long cpu = inheritedCpu + addCpu[node];
+        long memory = inheritedMemory + addMemory[node];
+        int left = firstWithin(2 * node, lo, mid, from, limitCpu, limitMemory, cpu, memory);
+        return left >= 0 ? left : firstWithin(2 * node + 1, mid + 1, hi, from, limitCpu, limitMemory, cpu, memory);
+    }
+
+    // 区间内第一个占用超过上限的时间片，inheritedCpu 和 inheritedMemory 为祖先节点的增量之和
+    private int firstAbove(int node, int lo, int hi, int from, int to, long limitCpu, long limitMemory,
+                           long inheritedCpu, long inheritedMemory) {
+        if (to < lo || hi < from) {
+            return -1;
+        }
+        if (maxCpu[node] + inheritedCpu <= limitCpu && maxMemory[node] + inheritedMemory <= limitMemory) {
+            return -1;
+        }
+        if (lo == hi) {
+            return lo;
+        }
+        int mid = (lo + hi) >>> 1;
+        long cpu = inheritedCpu + addCpu[node];
+        long memory = inheritedMemory + addMemory[node];
+        int left = firstAbove(2 * node, lo, mid, from, to, limitCpu, limitMemory, cpu, memory);
+        return left >= 0 ? left : firstAbove(2 * node + 1, mid + 1, hi, from, to, limitCpu, limitMemory, cpu, memory);
+    }
+
+    private long peak(int node, int lo, int hi, int from, int to, long inherited) {
+        if (to < lo || hi < from) {
+            return Long.MIN_VALUE;
+        }
+        if (from <= lo && hi <= to) {
+            return maxCpu[node] + inherited;
+        }
+        int mid = (lo + hi) >>> 1;
+        long cpu = inherited + addCpu[node];
+        return Math.max(peak(2 * node, lo, mid, from, to, cpu), peak(2 * node + 1, mid + 1, hi, from, to, cpu));
+    }
+
+    private long align(long time) {
+        return Math.floorDiv(time, slotMillis) * slotMillis;
+    }
+
+    private int slotOf(long time) {
+        long slot = Math.floorDiv(time - origin, slotMillis);
+        return (int) Math.max(-1, Math.min(slots, slot));
+    }
+
+    private int slotCeil(long time) {
+        long slot = Math.floorDiv(time - origin + slotMillis - 1, slotMillis);
+        return (int) Math.max(0, Math.min(slots, slot));
+    }
+
+    private static final class Booking {
+        private final String id;
+        private final int cpu;
+        private final int memory;
+        private final long start;
+        private final long end;
+        private final boolean reserved;
+        private final long sequence;
+
+        private Booking(String id, int cpu, int memory, long start, long end, boolean reserved, long sequence) {
+            this.id = id;
+            this.cpu = cpu;
+            this.memory = memory;
+            this.start = start;
+            this.end = end;
+            this.reserved = reserved;
+            this.sequence = sequence;
+        }
+
+        private Booking extendTo(long end) {
+            return end <= this.end ? this : new Booking(id, cpu, memory, start, end, reserved, sequence);
+        }
+    }
+}
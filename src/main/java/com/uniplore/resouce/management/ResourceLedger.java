@@ -0,0 +1,51 @@
+package com.uniplore.resouce.management;
+
+import java.util.List;
+
+/**
+ * 资源账本接口，记录可用的CPU和内存并提供按作业的原子分配与释放操作。
+ * <p>
+ * 只记录总量、分配不区分作业的账本实现 {@link AggregateResourceLedger}；按节点放置的账本只提供本接口的操作。
+ */
+public interface ResourceLedger {
+    /**
+     * 为指定作业预留资源，CPU和内存都足够时才会扣减，否则不做任何修改。
+     */
+    boolean tryAllocate(String jobId, int cpu, int memory);
+
+    /**
+     * 按顺序为一批作业预留资源，能满足的请求全部预留、不能满足的跳过，结果写入 granted。
+     *
+     * @return 实际预留的请求数量
+     */
+    default int tryAllocateBatch(String[] jobIds, int[] cpu, int[] memory, boolean[] granted) {
+        int count = 0;
+        for (int i = 0; i < jobIds.length; i++) {
+            granted[i] = tryAllocate(jobIds[i], cpu[i], memory[i]);
+            if (granted[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void release(String jobId, int cpu, int memory);
+
+    /**
+     * 按租约归还一批作业的资源。
+     */
+    default void releaseAll(List<AllocationLease> leases) {
+        for (AllocationLease lease : leases) {
+            release(lease.getJobId(), lease.getCpu(), lease.getMemory());
+        }
+    }
+
+    /**
+     * 读取一致的可用资源快照，CPU与内存来自同一时刻。
+     */
+    ResourceSnapshot snapshot();
+
+    int getTotalCpu();
+
+    int getTotalMemory();
+}
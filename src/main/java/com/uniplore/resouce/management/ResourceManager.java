@@ -1,95 +1,366 @@
 package com.uniplore.resouce.management;
 
-import java.util.Properties;
-import java.io.InputStream;
-import java.io.IOException;
+import com.uniplore.config.ConfigManager;
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.event.EventType;
+import com.uniplore.event.SchedulerEventLog;
+import com.uniplore.scheduler.SchedulingMode;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongSupplier;
 
 /**
  * 资源管理类，单例模式。
+ * <p>
+ * 可用资源记录在无锁的 {@link ResourceLedger} 中，分配、释放和查询都不再竞争同一把锁。
+ * 资源总量和告警阈值来自 {@link SchedulerConfig} 快照，配置热加载后自动调整。
+ * 配置了 resource.ledger.file 时使用 {@link SharedMemoryResourceLedger}，同一台机器上的多个调度进程共享资源；
+ * 配置了 nodes 时使用 {@link NodePool}，每个作业放在单个节点上，此时资源总量由节点决定，不能按总量调整。
+ * 分配和释放都以作业ID进行。
+ * 调度模式为 reservation 时另外维护 {@link ReservationCalendar}：带预计运行时间的分配登记到日历，
+ * 存在预约时分配还必须不占用预约的时间窗口，检查日历和扣减账本在日历锁内完成。
  */
 public class ResourceManager {
-    private int totalCpu;
-    private int totalMemory;
-    private int availableCpu;
-    private int availableMemory;
+    private final ResourceLedger ledger;
+    private final AggregateResourceLedger aggregate; // 配置了节点时为 null
+    private final ReservationCalendar calendar; // 未启用预约时为 null
+    private volatile SchedulerConfig config;
+    private volatile SchedulerEventLog eventLog = SchedulerEventLog.getInstance();
     private static ResourceManager instance;
 
-    private ResourceManager() {
-        loadResourceConfig();
+    public ResourceManager(SchedulerConfig config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 预约日历使用的毫秒时钟，测试时可传入手动推进的时钟
+     */
+    public ResourceManager(SchedulerConfig config, LongSupplier clock) {
+        this.config = config;
+        this.ledger = createLedger(config);
+        this.aggregate = ledger instanceof AggregateResourceLedger ? (AggregateResourceLedger) ledger : null;
+        this.calendar = config.getSchedulingMode() == SchedulingMode.RESERVATION
+                ? new ReservationCalendar(ledger.getTotalCpu(), ledger.getTotalMemory(), config.getReservationSlot(), config.getReservationHorizon(), clock)
+                : null;
+    }
+
+    private static ResourceLedger createLedger(SchedulerConfig config) {
+        if (!config.getNodes().isEmpty()) {
+            return NodePool.fromSpec(config.getNodes(), config.getPlacementStrategy());
+        }
+        return config.getResourceLedgerFile().isEmpty()
+                ? new AtomicResourceLedger(config.getTotalCpu(), config.getTotalMemory())
+                : new SharedMemoryResourceLedger(Paths.get(config.getResourceLedgerFile()), config.getTotalCpu(), config.getTotalMemory());
     }
 
     public static synchronized ResourceManager getInstance() {
         if (instance == null) {
-            instance = new ResourceManager();
+            ConfigManager configManager = ConfigManager.getInstance();
+            instance = new ResourceManager(configManager.getConfig());
+            configManager.addListener(instance::applyConfig);
         }
         return instance;
     }
 
-    private void loadResourceConfig() {
-        Properties properties = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
-            if (input == null) {
-                System.out.println("Sorry, unable to find config.properties");
-                return;
+    /**
+     * 应用新的配置快照，按新的资源总量调整账本。节点列表只在创建时读取，热加载不改变节点。
+     */
+    public void applyConfig(SchedulerConfig newConfig) {
+        this.config = newConfig;
+        if (aggregate != null) {
+            aggregate.resize(newConfig.getTotalCpu(), newConfig.getTotalMemory());
+            resizeCalendar();
+        }
+    }
+
+    /**
+     * 资源总量能否调整，配置了节点时为 false，{@link #shrinkAllotment} 和 {@link #growAllotment} 不可用。
+     */
+    public boolean isResizable() {
+        return aggregate != null;
+    }
+
+    /**
+     * 从资源总量中移出一部分空闲资源，只有空闲资源足够时才移出，移出期间其他线程不会分配到这部分资源。
+     */
+    public synchronized boolean shrinkAllotment(int cpu, int memory) {
+        AggregateResourceLedger resizable = requireResizable();
+        if (!resizable.tryAllocate(cpu, memory)) {
+            return false;
+        }
+        resizable.resize(resizable.getTotalCpu() - cpu, resizable.getTotalMemory() - memory);
+        resizable.release(cpu, memory);
+        resizeCalendar();
+        return true;
+    }
+
+    /**
+     * 向资源总量中加入资源，加入的部分立即可分配。
+     */
+    public synchronized void growAllotment(int cpu, int memory) {
+        AggregateResourceLedger resizable = requireResizable();
+        resizable.resize(resizable.getTotalCpu() + cpu, resizable.getTotalMemory() + memory);
+        resizeCalendar();
+    }
+
+    public void setEventLog(SchedulerEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * 为作业分配资源，配置了节点时作业放在单个节点上。
+     */
+    public boolean allocateResources(String jobId, int cpu, int memory) {
+        Objects.requireNonNull(jobId, "jobId");
+        if (ledger.tryAllocate(jobId, cpu, memory)) {
+            ResourceSnapshot remaining = ledger.snapshot();
+            eventLog.record(EventType.ALLOCATE, jobId, null, cpu, memory, remaining.getAvailableCpu(), remaining.getAvailableMemory());
+            checkResourceWarning(remaining);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 为预计运行 durationMillis 的作业分配资源。启用预约时分配登记到日历，存在预约时还要求作业在运行期间不占用
+     * 预约的资源（作业自己的预约除外，分配成功后由运行占用替换；作业自己的预约已经到点时，之后登记的预约也除外）；
+     * 未启用预约时与 {@link #allocateResources(String, int, int)} 相同。
+     */
+    public boolean allocateResources(String jobId, int cpu, int memory, long durationMillis) {
+        if (calendar == null) {
+            return allocateResources(jobId, cpu, memory);
+        }
+        synchronized (calendar) {
+            long now = calendar.now();
+            if (calendar.hasReservations() && !calendar.admits(jobId, cpu, memory, now, durationMillis)) {
+                return false;
             }
-            properties.load(input);
-            this.totalCpu = Integer.parseInt(properties.getProperty("cpu.total", "20"));
-            this.totalMemory = Integer.parseInt(properties.getProperty("memory.total", "20480"));
-            this.availableCpu = totalCpu;
-            this.availableMemory = totalMemory;
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
-    }
-
-    public synchronized boolean allocateResources(int cpu, int memory) {
-        if (availableCpu >= cpu && availableMemory >= memory) {
-            availableCpu -= cpu;
-            availableMemory -= memory;
-            System.out.println("Resources allocated: CPU=" + cpu + ", Memory=" + memory + "MB");
-            System.out.println("Remaining resources: CPU=" + availableCpu + ", Memory=" + availableMemory + "MB");
-            checkResourceWarning();
+            if (!allocateResources(jobId, cpu, memory)) {
+                return false;
+            }
+            calendar.book(jobId, cpu, memory, now, now + durationMillis);
             return true;
-        } else {
-            System.out.println("Insufficient resources to allocate: CPU=" + cpu + ", Memory=" + memory + "MB");
+        }
+    }
+
+    /**
+     * 按预计运行时间批量分配资源；启用预约时逐个检查日历。
+     */
+    public int allocateResources(String[] jobIds, int[] cpu, int[] memory, long[] durations, boolean[] granted) {
+        if (calendar == null) {
+            return allocateResources(jobIds, cpu, memory, granted);
+        }
+        int count = 0;
+        for (int i = 0; i < jobIds.length; i++) {
+            granted[i] = jobIds[i] != null && allocateResources(jobIds[i], cpu[i], memory[i], durations[i]);
+            if (granted[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 为一组作业同时分配资源：日历中作业组的预约已经开始且全部作业都能分配时一起分配并返回 true，
+     * 否则不分配任何作业。还没有预约时预约最早能同时放下全部作业的时间窗口，已有的预约只会提前，
+     * 到点后按原来的位置分配，不会因为之后登记的预约推迟，见 {@link ReservationCalendar#admits}。
+     *
+     * @param gangId    作业组的预约ID
+     * @param durations 各作业的预计运行时间，预约窗口取最长的一个
+     */
+    public boolean allocateGang(String gangId, String[] jobIds, int[] cpu, int[] memory, long[] durations) {
+        ReservationCalendar calendar = requireCalendar();
+        long totalCpu = 0;
+        long totalMemory = 0;
+        long duration = 0;
+        for (int i = 0; i < jobIds.length; i++) {
+            totalCpu += cpu[i];
+            totalMemory += memory[i];
+            duration = Math.max(duration, durations[i]);
+        }
+        if (totalCpu > Integer.MAX_VALUE || totalMemory > Integer.MAX_VALUE) {
+            return false;
+        }
+        synchronized (calendar) {
+            long now = calendar.now();
+            if (calendar.reserve(gangId, (int) totalCpu, (int) totalMemory, duration, now) > now
+                    || !calendar.admits(gangId, (int) totalCpu, (int) totalMemory, now, duration)) {
+                return false;
+            }
+            // 日历已按整组检查，成员只扣减账本，不再逐个检查日历
+            boolean[] granted = new boolean[jobIds.length];
+            int count = 0;
+            for (int i = 0; i < jobIds.length && count == i; i++) {
+                granted[i] = allocateResources(jobIds[i], cpu[i], memory[i]);
+                if (granted[i]) {
+                    count++;
+                }
+            }
+            if (count == jobIds.length) {
+                calendar.release(gangId);
+                for (int i = 0; i < jobIds.length; i++) {
+                    calendar.book(jobIds[i], cpu[i], memory[i], now, now + durations[i]);
+                }
+                return true;
+            }
+            // 账本中实际空闲的资源比日历少，例如有作业超过预计时间仍在运行，撤销已分配的部分，保留预约
+            for (int i = 0; i < jobIds.length; i++) {
+                if (granted[i]) {
+                    ledger.release(jobIds[i], cpu[i], memory[i]);
+                }
+            }
             return false;
         }
     }
 
-    public synchronized void releaseResources(int cpu, int memory) {
-        availableCpu += cpu;
-        availableMemory += memory;
-        System.out.println("释放资源: CPU=" + cpu + ", 内存=" + memory + "MB");
-        System.out.println("剩余资源: CPU=" + availableCpu + ", 内存=" + availableMemory + "MB");
+    /**
+     * 为作业或作业组预约最早能放下的时间窗口，返回开始时间；horizon 内放不下时返回 {@link Long#MAX_VALUE}。
+     */
+    public long reserve(String id, int cpu, int memory, long durationMillis) {
+        ReservationCalendar calendar = requireCalendar();
+        return calendar.reserve(id, cpu, memory, durationMillis, calendar.now());
     }
 
-    public synchronized int getAvailableCpu() {
-        return availableCpu;
+    /**
+     * 撤销预约，未启用预约或没有预约时返回 false。
+     */
+    public boolean cancelReservation(String id) {
+        return calendar != null && calendar.hasReservations() && calendar.cancel(id);
     }
 
-    public synchronized int getAvailableMemory() {
-        return availableMemory;
+    public boolean isReservationEnabled() {
+        return calendar != null;
     }
 
-    private void checkResourceWarning() {
-        Properties properties = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties")) {
-            if (input == null) {
-                System.out.println("Sorry, unable to find config.properties");
-                return;
-            }
-            properties.load(input);
-            int cpuThreshold = Integer.parseInt(properties.getProperty("resource.warning.threshold", "95"));
-            int memoryThreshold = Integer.parseInt(properties.getProperty("resource.warning.threshold", "95"));
+    /**
+     * 预约日历，未启用预约时返回 null。
+     */
+    public ReservationCalendar getCalendar() {
+        return calendar;
+    }
 
-            int usedCpuPercentage = (int) ((1 - ((double) availableCpu / totalCpu)) * 100);
-            int usedMemoryPercentage = (int) ((1 - ((double) availableMemory / totalMemory)) * 100);
+    /**
+     * 一次性为一批作业分配资源，按顺序能满足的都分配，结果写入 granted，返回分配成功的数量。
+     */
+    public int allocateResources(String[] jobIds, int[] cpu, int[] memory, boolean[] granted) {
+        int count = ledger.tryAllocateBatch(jobIds, cpu, memory, granted);
+        if (count > 0) {
+            checkResourceWarning(ledger.snapshot());
+        }
+        return count;
+    }
+
+    public void releaseResources(String jobId, int cpu, int memory) {
+        ledger.release(jobId, cpu, memory);
+        if (calendar != null) {
+            calendar.release(jobId);
+        }
+    }
 
-            if (usedCpuPercentage >= cpuThreshold || usedMemoryPercentage >= memoryThreshold) {
-                System.out.println("Resource warning: Available CPU=" + availableCpu + ", Available Memory=" + availableMemory + "MB");
+    /**
+     * 按租约归还一批作业的资源。
+     */
+    public void releaseResources(List<AllocationLease> leases) {
+        if (!leases.isEmpty()) {
+            ledger.releaseAll(leases);
+            if (calendar != null) {
+                for (AllocationLease lease : leases) {
+                    calendar.release(lease.getJobId());
+                }
             }
-        } catch (IOException ex) {
-            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * 作业所在的节点，未配置节点或作业没有放置时返回 null。
+     */
+    public String getNodeOf(String jobId) {
+        return ledger instanceof NodePool ? ((NodePool) ledger).nodeOf(jobId) : null;
+    }
+
+    /**
+     * 节点空闲资源的碎片统计，未配置节点时返回 {@link FragmentationStats#NONE}。
+     */
+    public FragmentationStats getFragmentation() {
+        return ledger instanceof NodePool ? ((NodePool) ledger).fragmentation() : FragmentationStats.NONE;
+    }
+
+    /**
+     * 各节点的容量和空闲资源，未配置节点时返回空列表。
+     */
+    public List<NodeUsage> getNodes() {
+        return ledger instanceof NodePool ? ((NodePool) ledger).getNodes() : List.of();
+    }
+
+    public int getAvailableCpu() {
+        return ledger.snapshot().getAvailableCpu();
+    }
+
+    public int getAvailableMemory() {
+        return ledger.snapshot().getAvailableMemory();
+    }
+
+    /**
+     * 读取一致的可用资源快照，CPU与内存来自同一时刻。
+     */
+    public ResourceSnapshot getAvailableResources() {
+        return ledger.snapshot();
+    }
+
+    public int getTotalCpu() {
+        return ledger.getTotalCpu();
+    }
+
+    public int getTotalMemory() {
+        return ledger.getTotalMemory();
+    }
+
+    /**
+     * 释放共享账本中本进程的槽位，本地账本无需关闭。
+     */
+    public void close() {
+        if (ledger instanceof SharedMemoryResourceLedger) {
+            ((SharedMemoryResourceLedger) ledger).close();
+        }
+    }
+
+    private ReservationCalendar requireCalendar() {
+        if (calendar == null) {
+            throw new IllegalStateException("Reservations need " + SchedulerConfig.SCHEDULING_MODE + "="
+                    + SchedulingMode.RESERVATION.configName());
+        }
+        return calendar;
+    }
+
+    private AggregateResourceLedger requireResizable() {
+        if (aggregate == null) {
+            throw new IllegalStateException("Resource totals are fixed by " + SchedulerConfig.NODES);
+        }
+        return aggregate;
+    }
+
+    private void resizeCalendar() {
+        if (calendar != null) {
+            calendar.resize(ledger.getTotalCpu(), ledger.getTotalMemory());
+        }
+    }
+
+    private void checkResourceWarning(ResourceSnapshot remaining) {
+        if (!eventLog.isEnabled(EventType.RESOURCE_WARNING)) {
+            return;
+        }
+        int threshold = config.getWarningThreshold();
+        int totalCpu = ledger.getTotalCpu();
+        int totalMemory = ledger.getTotalMemory();
+
+        int usedCpuPercentage = (int) ((1 - ((double) remaining.getAvailableCpu() / totalCpu)) * 100);
+        int usedMemoryPercentage = (int) ((1 - ((double) remaining.getAvailableMemory() / totalMemory)) * 100);
+
+        if (usedCpuPercentage >= threshold || usedMemoryPercentage >= threshold) {
+            eventLog.record(EventType.RESOURCE_WARNING, null, null, usedCpuPercentage, usedMemoryPercentage,
+                    remaining.getAvailableCpu(), remaining.getAvailableMemory());
         }
     }
 }
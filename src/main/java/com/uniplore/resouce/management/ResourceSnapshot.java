@@ -0,0 +1,31 @@
+package com.uniplore.resouce.management;
+
+/**
+ * 可用资源快照，CPU和内存取自同一时刻的账本状态。
+ */
+public final class ResourceSnapshot {
+    private final int availableCpu;
+    private final int availableMemory;
+
+    public ResourceSnapshot(int availableCpu, int availableMemory) {
+        this.availableCpu = availableCpu;
+        this.availableMemory = availableMemory;
+    }
+
+    public int getAvailableCpu() {
+        return availableCpu;
+    }
+
+    public int getAvailableMemory() {
+        return availableMemory;
+    }
+
+    public boolean fits(int cpu, int memory) {
+        return availableCpu >= cpu && availableMemory >= memory;
+    }
+
+    @Override
+    public String toString() {
+        return "CPU=" + availableCpu + ", Memory=" + availableMemory + "MB";
+    }
+}
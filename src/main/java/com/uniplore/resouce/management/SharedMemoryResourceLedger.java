@@ -0,0 +1,289 @@
+package com.uniplore.resouce.management;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 多个调度进程共享的资源账本，账本保存在同一台机器上所有进程映射的同一个文件中。
+ * <p>
+ * 文件头保存资源总量，之后是固定数量的进程槽位，每个账本实例占用一个槽位，记录进程ID、进程启动时间和该实例
+ * 已占用的CPU与内存（打包在一个长整型中）。可用资源等于总量减去全部槽位的占用之和，没有单独的可用量计数，
+ * 所有修改都是对映射区域的单字CAS：分配时先把请求加到自己的槽位，再检查全部槽位之和，超过总量则撤回，
+ * 因此任何时刻都不会超额分配。进程崩溃时它的占用只存在于自己的槽位中，不存在写了一半的跨字状态；
+ * 打开账本、分配失败以及调用 {@link #reclaimDeadProcesses()} 时，进程已退出（或进程ID已被复用）的槽位会被回收。
+ * <p>
+ * 槽位的归属由令牌字决定：占用时先以CAS写入本实例的令牌，再写启动时间，最后写进程ID；进程ID非零时启动时间一定已经写好，
+ * 回收方不会用上一个所有者的启动时间判断新的所有者。回收时先把令牌CAS为回收标记，清零占用、启动时间和进程ID后才把令牌清零，
+ * 槽位在清理完成前不能被重新占用。
+ */
+public class SharedMemoryResourceLedger implements AggregateResourceLedger, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SharedMemoryResourceLedger.class);
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x5245534c45444731L; // "RESLEDG1"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int TOTALS_OFFSET = 8;
+    private static final int SLOT_COUNT_OFFSET = 16;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 64; // 每个槽位独占一个缓存行
+    private static final int PID = 0;
+    private static final int START_TIME = 8;
+    private static final int TOKEN = 16;
+    private static final int HELD = 24;
+    private static final int MAX_RETRIES = 16;
+    private static final long RECLAIMING = 2L; // 实例令牌都是奇数，不会与回收标记相同
+
+    public static final int DEFAULT_SLOTS = 256;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final long pid;
+    private final long startTime;
+    private final long token;
+    private final int slot;
+    private volatile boolean closed;
+
+    /**
+     * 打开或创建共享账本；文件第一次创建时以给定的资源总量初始化，之后以文件中的总量为准。
+     */
+    public SharedMemoryResourceLedger(Path file, int totalCpu, int totalMemory) {
+        this(file, totalCpu, totalMemory, DEFAULT_SLOTS);
+    }
+
+    public SharedMemoryResourceLedger(Path file, int totalCpu, int totalMemory, int slots) {
+        if (totalCpu < 0 || totalMemory < 0) {
+            throw new IllegalArgumentException("Resource totals must not be negative: CPU=" + totalCpu + ", Memory=" + totalMemory);
+        }
+        this.file = file;
+        ProcessHandle self = ProcessHandle.current();
+        this.pid = self.pid();
+        this.startTime = startTimeOf(self);
+        this.token = ThreadLocalRandom.current().nextLong() | 1; // 同一进程中的多个实例各占一个槽位
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    // 文件锁只在打开时使用，保证只有一个进程初始化文件头；魔数最后写入，初始化中途退出时下一个进程重新初始化
+                    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                    long magic = (long) LONGS.getVolatile(header, MAGIC_OFFSET);
+                    if (magic != MAGIC) {
+                        if (magic != 0) {
+                            throw new IllegalStateException("Not a resource ledger file: " + file);
+                        }
+                        MappedByteBuffer init = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) SLOT_BYTES * slots);
+                        LONGS.setVolatile(init, TOTALS_OFFSET, AtomicResourceLedger.pack(totalCpu, totalMemory));
+                        LONGS.setVolatile(init, SLOT_COUNT_OFFSET, (long) slots);
+                        LONGS.setVolatile(init, MAGIC_OFFSET, MAGIC);
+                        init.force();
+                    }
+                    this.slots = (int) (long) LONGS.getVolatile(header, SLOT_COUNT_OFFSET);
+                    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) SLOT_BYTES * this.slots);
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open shared resource ledger " + file, ex);
+        }
+        reclaimDeadProcesses();
+        this.slot = claimSlot();
+    }
+
+    @Override
+    public boolean tryAllocate(int cpu, int memory) {
+        ensureOpen();
+        if (tryReserve(cpu, memory)) {
+            return true;
+        }
+        // 资源不足时先回收已退出进程的占用再试一次
+        return reclaimDeadProcesses() > 0 && tryReserve(cpu, memory);
+    }
+
+    @Override
+    public void release(int cpu, int memory) {
+        ensureOpen();
+        addHeld(slot, -cpu, -memory);
+    }
+
+    @Override
+    public ResourceSnapshot snapshot() {
+        long totals = (long) LONGS.getVolatile(buffer, TOTALS_OFFSET);
+        long heldCpu = 0;
+        long heldMemory = 0;
+        for (int i = 0; i < slots; i++) {
+            long held = (long) LONGS.getVolatile(buffer, slotOffset(i) + HELD);
+            heldCpu += AtomicResourceLedger.cpuOf(held);
+            heldMemory += AtomicResourceLedger.memoryOf(held);
+        }
+        return new ResourceSnapshot((int) (AtomicResourceLedger.cpuOf(totals) - heldCpu),
+                (int) (AtomicResourceLedger.memoryOf(totals) - heldMemory));
+    }
+
+    /**
+     * 修改所有进程共享的资源总量。
+     */
+    @Override
+    public void resize(int totalCpu, int totalMemory) {
+        if (totalCpu < 0 || totalMemory < 0) {
+            throw new IllegalArgumentException("Resource totals must not be negative: CPU=" + totalCpu + ", Memory=" + totalMemory);
+        }
+        LONGS.setVolatile(buffer, TOTALS_OFFSET, AtomicResourceLedger.pack(totalCpu, totalMemory));
+    }
+
+    @Override
+    public int getTotalCpu() {
+        return AtomicResourceLedger.cpuOf((long) LONGS.getVolatile(buffer, TOTALS_OFFSET));
+    }
+
+    @Override
+    public int getTotalMemory() {
+        return AtomicResourceLedger.memoryOf((long) LONGS.getVolatile(buffer, TOTALS_OFFSET));
+    }
+
+    /**
+     * 本实例当前占用的资源。
+     */
+    public ResourceSnapshot getHeld() {
+        long held = (long) LONGS.getVolatile(buffer, slotOffset(slot) + HELD);
+        return new ResourceSnapshot(AtomicResourceLedger.cpuOf(held), AtomicResourceLedger.memoryOf(held));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 回收进程已退出的槽位，返回回收的槽位数量。
+     */
+    public int reclaimDeadProcesses() {
+        int reclaimed = 0;
+        for (int i = 0; i < slots; i++) {
+            int offset = slotOffset(i);
+            long owner = (long) LONGS.getVolatile(buffer, offset + TOKEN);
+            if (owner == 0 || owner == RECLAIMING) {
+                continue;
+            }
+            // 进程ID为零时所有者还在占用槽位的过程中
+            long ownerPid = (long) LONGS.getVolatile(buffer, offset + PID);
+            if (ownerPid == 0 || isAlive(ownerPid, (long) LONGS.getVolatile(buffer, offset + START_TIME))) {
+                continue;
+            }
+            // 令牌未变说明读到的进程ID和启动时间属于同一个所有者；抢到回收标记后其他进程既不能回收也不能占用该槽位
+            if (!LONGS.compareAndSet(buffer, offset + TOKEN, owner, RECLAIMING)) {
+                continue;
+            }
+            long held = (long) LONGS.getAndSet(buffer, offset + HELD, 0L);
+            free(offset);
+            reclaimed++;
+            logger.info("回收已退出进程的资源 : pid={}, cpu={}, memory={}", ownerPid,
+                    AtomicResourceLedger.cpuOf(held), AtomicResourceLedger.memoryOf(held));
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 释放本实例的槽位，尚未归还的资源一并释放。
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        int offset = slotOffset(slot);
+        LONGS.setVolatile(buffer, offset + HELD, 0L);
+        free(offset);
+    }
+
+    // 清除所有者信息，令牌最后清零，之后槽位才能被重新占用
+    private void free(int offset) {
+        LONGS.setVolatile(buffer, offset + PID, 0L);
+        LONGS.setVolatile(buffer, offset + START_TIME, 0L);
+        LONGS.setVolatile(buffer, offset + TOKEN, 0L);
+    }
+
+    // 乐观预留：先加到自己的槽位，全部槽位之和超过总量时撤回；多个进程同时超额时可能都撤回，检查仍有余量后重试
+    private boolean tryReserve(int cpu, int memory) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            ResourceSnapshot available = snapshot();
+            if (available.getAvailableCpu() < cpu || available.getAvailableMemory() < memory) {
+                return false;
+            }
+            addHeld(slot, cpu, memory);
+            available = snapshot();
+            if (available.getAvailableCpu() >= 0 && available.getAvailableMemory() >= 0) {
+                return true;
+            }
+            addHeld(slot, -cpu, -memory);
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    private void addHeld(int index, int cpu, int memory) {
+        int offset = slotOffset(index) + HELD;
+        while (true) {
+            long current = (long) LONGS.getVolatile(buffer, offset);
+            long next = AtomicResourceLedger.pack(AtomicResourceLedger.cpuOf(current) + cpu,
+                    AtomicResourceLedger.memoryOf(current) + memory);
+            if (LONGS.compareAndSet(buffer, offset, current, next)) {
+                return;
+            }
+        }
+    }
+
+    private int claimSlot() {
+        for (int i = 0; i < slots; i++) {
+            int offset = slotOffset(i);
+            if (LONGS.compareAndSet(buffer, offset + TOKEN, 0L, token)) {
+                LONGS.setVolatile(buffer, offset + START_TIME, startTime);
+                LONGS.setVolatile(buffer, offset + PID, pid); // 最后发布进程ID
+                return i;
+            }
+        }
+        throw new IllegalStateException("No free slot in shared resource ledger " + file);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Shared resource ledger is closed: " + file);
+        }
+    }
+
+    private static int slotOffset(int index) {
+        return HEADER_BYTES + index * SLOT_BYTES;
+    }
+
+    // 进程ID存在且启动时间一致才认为槽位的所有者仍然存活，避免进程ID被复用时误判
+    private static boolean isAlive(long pid, long startTime) {
+        Optional<ProcessHandle> process = ProcessHandle.of(pid);
+        if (process.isEmpty() || !process.get().isAlive()) {
+            return false;
+        }
+        long actual = startTimeOf(process.get());
+        return startTime == 0 || actual == 0 || actual == startTime;
+    }
+
+    private static long startTimeOf(ProcessHandle process) {
+        return process.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+    }
+}
@@ -0,0 +1,104 @@
+package com.uniplore.scheduler;
+
+import com.uniplore.resouce.management.ResourceSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * EASY 回填调度的预留计算。
+ * <p>
+ * 根据正在运行作业的预计完成时间，计算队首作业最早可以启动的时间（影子时间）以及届时在满足队首作业后
+ * 仍然富余的资源。之后的等待作业如果能在影子时间之前完成，或者只占用富余资源，就可以立即启动而不会推迟队首作业。
+ */
+public final class BackfillPlanner {
+    private static final Comparator<RunningAllocation> BY_END_TIME = Comparator.comparingLong(RunningAllocation::getExpectedEndMillis);
+
+    private BackfillPlanner() {
+    }
+
+    /**
+     * 为队首作业计算预留。
+     *
+     * @param available 当前可用资源
+     * @param running   正在运行作业的资源占用
+     * @param cpu       队首作业需要的CPU
+     * @param memory    队首作业需要的内存
+     * @param now       当前时间（毫秒）
+     */
+    public static Reservation reserve(ResourceSnapshot available, Collection<? extends RunningAllocation> running,
+                                      int cpu, int memory, long now) {
+        long freeCpu = available.getAvailableCpu();
+        long freeMemory = available.getAvailableMemory();
+        if (freeCpu >= cpu && freeMemory >= memory) {
+            return new Reservation(now, freeCpu - cpu, freeMemory - memory);
+        }
+        List<RunningAllocation> byEndTime = new ArrayList<>(running);
+        byEndTime.sort(BY_END_TIME);
+        for (RunningAllocation allocation : byEndTime) {
+            freeCpu += allocation.getCpu();
+            freeMemory += allocation.getMemory();
+            if (freeCpu >= cpu && freeMemory >= memory) {
+                long shadowTime = Math.max(now, allocation.getExpectedEndMillis());
+                return new Reservation(shadowTime, freeCpu - cpu, freeMemory - memory);
+            }
+        }
+        // 即使所有作业都完成也无法满足队首作业，此时队首作业不会启动，回填不受限制
+        return new Reservation(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * 队首作业的资源预留：影子时间以及影子时间时的富余资源。
+     */
+    public static final class Reservation {
+        private final long shadowTime;
+        private long extraCpu;
+        private long extraMemory;
+
+        Reservation(long shadowTime, long extraCpu, long extraMemory) {
+            this.shadowTime = shadowTime;
+            this.extraCpu = extraCpu;
+            this.extraMemory = extraMemory;
+        }
+
+        public long getShadowTime() {
+            return shadowTime;
+        }
+
+        public long getExtraCpu() {
+            return extraCpu;
+        }
+
+        public long getExtraMemory() {
+            return extraMemory;
+        }
+
+        /**
+         * 判断作业能否在不推迟队首作业的前提下立即启动。作业运行超过影子时间时会占用富余资源，
+         * 判断通过后富余资源相应减少，调用方随后必须真正启动该作业。
+         */
+        public boolean admits(int cpu, int memory, long durationMillis, long now) {
+            if (now + durationMillis <= shadowTime) {
+                return true;
+            }
+            if (cpu <= extraCpu && memory <= extraMemory) {
+                extraCpu -= cpu;
+                extraMemory -= memory;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 撤销 {@link #admits} 对富余资源的占用，用于作业最终未能启动的情况。
+         */
+        public void restore(int cpu, int memory, long durationMillis, long now) {
+            if (now + durationMillis > shadowTime) {
+                extraCpu += cpu;
+                extraMemory += memory;
+            }
+        }
+    }
+}
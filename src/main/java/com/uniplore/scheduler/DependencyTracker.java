@@ -0,0 +1,185 @@
+package com.uniplore.scheduler;
+
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跟踪已提交作业图中尚未结束的作业：每个作业记录还没完成的上游作业数，上游作业完成时只递减其直接下游的计数，
+ * 计数归零的作业即可调度，不需要重新扫描整个图。上游作业失败时取消全部尚未开始的下游作业。
+ * <p>
+ * 提交时按关键路径提升优先级：作业到图末端的最长执行时间越接近关键路径长度，优先级数值减小得越多，最多减小 priorityBoost。
+ * 作业以提升后的上下文副本进入调度，完成和失败通知按上下文对象匹配，同一ID的其他作业不会影响作业图。
+ */
+public class DependencyTracker {
+    private final Map<String, Node> nodes = new HashMap<>();
+    private volatile int tracked;
+    private volatile int priorityBoost;
+
+    public DependencyTracker(int priorityBoost) {
+        this.priorityBoost = priorityBoost;
+    }
+
+    public void setPriorityBoost(int priorityBoost) {
+        this.priorityBoost = priorityBoost;
+    }
+
+    /**
+     * 登记作业图并返回按拓扑顺序排列、已提升优先级的作业上下文；没有上游的作业视为已开始，由调用方提交。
+     * 图中有环或作业ID已被其他作业图使用时抛出 {@link IllegalArgumentException}。
+     */
+    public synchronized List<JobContext> add(JobGraph graph) {
+        List<String> order = graph.topologicalOrder();
+        for (String jobId : order) {
+            if (nodes.containsKey(jobId)) {
+                throw new IllegalArgumentException("Job id already in a pending graph: " + jobId);
+            }
+        }
+        Map<String, Long> levels = graph.bottomLevels();
+        long criticalPath = 0;
+        for (long level : levels.values()) {
+            criticalPath = Math.max(criticalPath, level);
+        }
+        int boost = priorityBoost;
+        List<JobContext> contexts = new ArrayList<>(order.size());
+        for (String jobId : order) {
+            JobContext original = graph.getJob(jobId);
+            int boosted = criticalPath == 0 ? 0 : (int) Math.round((double) boost * levels.get(jobId) / criticalPath);
+            JobContext context = new JobContext(original.getId(), original.getName(), original.getUser(),
+                    original.getPriority() - boosted, original.getType(), original.getContent(),
+                    original.getProcessId(), original.getExecutionTime());
+            Node node = new Node(context, graph.childrenOf(jobId).toArray(new String[0]), graph.parentsOf(jobId).size());
+            node.started = node.pending == 0;
+            nodes.put(jobId, node);
+            contexts.add(context);
+        }
+        tracked = nodes.size();
+        return contexts;
+    }
+
+    /**
+     * 撤销一个作业图的登记，用于提交失败时回滚。
+     */
+    public synchronized void discard(List<JobContext> contexts) {
+        for (JobContext context : contexts) {
+            Node node = nodes.get(context.getId());
+            if (node != null && node.context == context) {
+                nodes.remove(context.getId());
+            }
+        }
+        tracked = nodes.size();
+    }
+
+    /**
+     * 作业执行完成，返回因此可以调度的下游作业。
+     */
+    public synchronized List<JobContext> completed(JobContext context) {
+        Node node = take(context);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<JobContext> ready = new ArrayList<>();
+        for (String childId : node.children) {
+            Node child = nodes.get(childId);
+            if (child != null && --child.pending == 0) {
+                child.started = true;
+                ready.add(child.context);
+            }
+        }
+        tracked = nodes.size();
+        return ready;
+    }
+
+    /**
+     * 作业被拒绝、丢弃或移除，返回被取消的下游作业。
+     */
+    public synchronized List<JobContext> failed(JobContext context) {
+        Node node = take(context);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<JobContext> cancelled = cancelDescendants(node);
+        tracked = nodes.size();
+        return cancelled;
+    }
+
+    /**
+     * 移除尚未开始的作业及其全部下游作业，返回列表的第一个元素是该作业本身；作业不在跟踪中或已经开始时返回空列表。
+     */
+    public synchronized List<JobContext> cancel(String jobId) {
+        Node node = nodes.get(jobId);
+        if (node == null || node.started) {
+            return Collections.emptyList();
+        }
+        nodes.remove(jobId);
+        List<JobContext> cancelled = new ArrayList<>();
+        cancelled.add(node.context);
+        cancelled.addAll(cancelDescendants(node));
+        tracked = nodes.size();
+        return cancelled;
+    }
+
+    /**
+     * 没有跟踪中的作业时返回 true，不加锁，用于跳过普通作业的状态通知。
+     */
+    public boolean isEmpty() {
+        return tracked == 0;
+    }
+
+    /**
+     * 跟踪中的作业数，包括已开始和等待上游的作业。
+     */
+    public int size() {
+        return tracked;
+    }
+
+    public synchronized boolean contains(String jobId) {
+        return nodes.containsKey(jobId);
+    }
+
+    private Node take(JobContext context) {
+        Node node = nodes.get(context.getId());
+        if (node == null || node.context != context) {
+            return null;
+        }
+        nodes.remove(context.getId());
+        return node;
+    }
+
+    // 上游作业没有完成时下游作业都还没开始，全部取消
+    private List<JobContext> cancelDescendants(Node node) {
+        List<JobContext> cancelled = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.add(node);
+        while (!pending.isEmpty()) {
+            for (String childId : pending.poll().children) {
+                Node child = nodes.remove(childId);
+                if (child != null) {
+                    cancelled.add(child.context);
+                    pending.add(child);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    private static final class Node {
+        private final JobContext context;
+        private final String[] children;
+        private int pending; // 尚未完成的上游作业数
+        private boolean started;
+
+        private Node(JobContext context, String[] children, int pending) {
+            this.context = context;
+            this.children = children;
+            this.pending = pending;
+        }
+    }
+}
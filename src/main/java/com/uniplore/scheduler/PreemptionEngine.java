@@ -0,0 +1,134 @@
+package com.uniplore.scheduler;
+
+import com.uniplore.job.service.Job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 抢占选择：为高优先级作业挑选需要驱逐的运行中作业。
+ * <p>
+ * 只有优先级严格低于新作业（优先级数值更大）的作业才会被驱逐。候选作业直接从作业队列的优先级索引中
+ * 按优先级从低到高读取，遇到不低于新作业优先级的作业即停止，不对全部运行中作业排序。
+ * 在候选作业中按对剩余缺口的覆盖程度贪心选择，使被驱逐的作业尽量少，最后去掉多余的作业；
+ * 即使驱逐全部候选作业也无法满足时不驱逐任何作业。
+ * 同一优先级的作业优先驱逐剩余工作最多的，即将完成的作业很快会自己释放资源，尽量不驱逐。
+ */
+public final class PreemptionEngine {
+    // 优先级从低到高，同优先级中剩余工作从多到少
+    private static final Comparator<Candidate> VICTIM_ORDER = Comparator.comparingInt((Candidate c) -> c.priority).reversed()
+            .thenComparing(Comparator.comparingLong((Candidate c) -> c.remainingMillis).reversed());
+
+    private PreemptionEngine() {
+    }
+
+    /**
+     * 挑选被驱逐的作业。
+     *
+     * @param lowestPriorityFirst 按优先级从低到高排列的运行中作业
+     * @param allocationOf        作业ID到其资源占用的映射，不在运行中的作业返回 null
+     * @param priority            新作业的优先级
+     * @param deficitCpu          新作业还缺少的CPU
+     * @param deficitMemory       新作业还缺少的内存
+     * @param nowMillis           当前时间（毫秒时间戳），用于按预计完成时间计算剩余工作
+     * @return 需要驱逐的作业，按优先级从低到高排列；无需或无法抢占时为空
+     */
+    public static List<Job> selectVictims(Iterator<Job> lowestPriorityFirst, Function<String, ? extends RunningAllocation> allocationOf,
+                                          int priority, int deficitCpu, int deficitMemory, long nowMillis) {
+        if (deficitCpu <= 0 && deficitMemory <= 0) {
+            return Collections.emptyList();
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        long eligibleCpu = 0;
+        long eligibleMemory = 0;
+        while (lowestPriorityFirst.hasNext()) {
+            Job job = lowestPriorityFirst.next();
+            int jobPriority = job.getContext().getPriority();
+            if (jobPriority <= priority) {
+                break; // 之后的作业优先级都不低于新作业
+            }
+            RunningAllocation allocation = allocationOf.apply(job.getContext().getId());
+            if (allocation == null || (allocation.getCpu() <= 0 && allocation.getMemory() <= 0)) {
+                continue;
+            }
+            long remainingMillis = Math.max(0, allocation.getExpectedEndMillis() - nowMillis);
+            candidates.add(new Candidate(job, jobPriority, allocation.getCpu(), allocation.getMemory(), remainingMillis));
+            eligibleCpu += allocation.getCpu();
+            eligibleMemory += allocation.getMemory();
+        }
+        if (eligibleCpu < deficitCpu || eligibleMemory < deficitMemory) {
+            return Collections.emptyList();
+        }
+
+        List<Candidate> chosen = new ArrayList<>();
+        long remainingCpu = Math.max(0, deficitCpu);
+        long remainingMemory = Math.max(0, deficitMemory);
+        while (remainingCpu > 0 || remainingMemory > 0) {
+            Candidate best = null;
+            double bestCoverage = 0;
+            for (Candidate candidate : candidates) {
+                if (candidate.chosen) {
+                    continue;
+                }
+                double coverage = coverage(candidate.cpu, remainingCpu) + coverage(candidate.memory, remainingMemory);
+                // 覆盖程度相同时选择优先级更低（更早出现）的作业，优先级也相同时选择剩余工作更多的作业
+                if (coverage > bestCoverage || (coverage == bestCoverage && best != null
+                        && candidate.priority == best.priority && candidate.remainingMillis > best.remainingMillis)) {
+                    best = candidate;
+                    bestCoverage = coverage;
+                }
+            }
+            best.chosen = true;
+            chosen.add(best);
+            remainingCpu -= Math.min(remainingCpu, best.cpu);
+            remainingMemory -= Math.min(remainingMemory, best.memory);
+        }
+
+        // 去掉多余的作业，先尝试保留优先级更高、同优先级中剩余工作更少的作业
+        chosen.sort(VICTIM_ORDER);
+        long freedCpu = 0;
+        long freedMemory = 0;
+        for (Candidate candidate : chosen) {
+            freedCpu += candidate.cpu;
+            freedMemory += candidate.memory;
+        }
+        List<Job> victims = new ArrayList<>(chosen.size());
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            Candidate candidate = chosen.get(i);
+            if (freedCpu - candidate.cpu >= deficitCpu && freedMemory - candidate.memory >= deficitMemory) {
+                freedCpu -= candidate.cpu;
+                freedMemory -= candidate.memory;
+                chosen.remove(i);
+            }
+        }
+        for (Candidate candidate : chosen) {
+            victims.add(candidate.job);
+        }
+        return victims;
+    }
+
+    private static double coverage(long amount, long remaining) {
+        return remaining <= 0 ? 0 : (double) Math.min(amount, remaining) / remaining;
+    }
+
+    private static final class Candidate {
+        private final Job job;
+        private final int priority;
+        private final int cpu;
+        private final int memory;
+        private final long remainingMillis;
+        private boolean chosen;
+
+        private Candidate(Job job, int priority, int cpu, int memory, long remainingMillis) {
+            this.job = job;
+            this.priority = priority;
+            this.cpu = cpu;
+            this.memory = memory;
+            this.remainingMillis = remainingMillis;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.uniplore.scheduler;
+
+/**
+ * 正在运行的作业占用的资源及其预计完成时间，供回填调度计算预留时间使用。
+ */
+public interface RunningAllocation {
+    int getCpu();
+
+    int getMemory();
+
+    /**
+     * 预计完成时间（毫秒时间戳）。
+     */
+    long getExpectedEndMillis();
+
+    static RunningAllocation of(int cpu, int memory, long expectedEndMillis) {
+        return new RunningAllocation() {
+            @Override
+            public int getCpu() {
+                return cpu;
+            }
+
+            @Override
+            public int getMemory() {
+                return memory;
+            }
+
+            @Override
+            public long getExpectedEndMillis() {
+                return expectedEndMillis;
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.uniplore.scheduler;
+
+/**
+ * 等待队列的调度模式。
+ */
+public enum SchedulingMode {
+    /**
+     * 严格按队首顺序调度，队首作业资源不足时整个等待队列停止调度。
+     */
+    HEAD_OF_LINE("head-of-line"),
+    /**
+     * EASY 回填：为队首作业预留最早可启动时间，后续作业只要不推迟该预留即可提前启动。
+     */
+    EASY_BACKFILL("easy-backfill"),
+    /**
+     * 预约：队首作业资源不足时在预约日历中预约最早能放下的时间窗口，后续作业只要不占用任何预约即可提前启动，
+     * 作业组到预约时间后一起启动。
+     */
+    RESERVATION("reservation");
+
+    private final String configName;
+
+    SchedulingMode(String configName) {
+        this.configName = configName;
+    }
+
+    public String configName() {
+        return configName;
+    }
+
+    public static SchedulingMode fromConfig(String value) {
+        for (SchedulingMode mode : values()) {
+            if (mode.configName.equalsIgnoreCase(value.trim()) || mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scheduling mode: " + value);
+    }
+}
@@ -0,0 +1,176 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobResult;
+import com.uniplore.job.JobState;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.AdaptiveResourceEstimator;
+import com.uniplore.resouce.estimator.ComplexResourceEstimator;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.estimator.ResourceUsage;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应资源评估的单元测试：用合成负载和实际运行并上报用量的作业对比静态评估和自适应评估的装箱密度。
+ */
+public class AdaptiveResourceEstimatorTest {
+
+    @Test
+    public void testColdStartFallsBackToStaticEstimator() {
+        AdaptiveResourceEstimator estimator = new AdaptiveResourceEstimator(new ComplexResourceEstimator());
+        Job job = job("cold-1", "User1", "General");
+        for (int i = 0; i < 4; i++) {
+            estimator.recordUsage(job, new ResourceUsage(1, 256, 1000));
+        }
+        assertEquals(4, estimator.estimateCpu(job));
+        assertEquals(2048, estimator.estimateMemory(job));
+        assertEquals(60_000, estimator.estimateRuntimeMillis(job));
+
+        estimator.recordUsage(job, new ResourceUsage(1, 256, 1000));
+        assertEquals(1, estimator.estimateCpu(job));
+        assertEquals(256, estimator.estimateMemory(job));
+        assertEquals(1000, estimator.estimateRuntimeMillis(job));
+        // 其他用户的同类作业仍使用静态评估
+        assertEquals(4, estimator.estimateCpu(job("cold-2", "User2", "General")));
+    }
+
+    @Test
+    public void testEstimateTracksConfiguredPercentile() {
+        AdaptiveResourceEstimator estimator = new AdaptiveResourceEstimator(new ComplexResourceEstimator(), 95, 5, 0.05);
+        Job job = job("p95-1", "User1", "General");
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            estimator.recordUsage(job, new ResourceUsage(1 + random.nextInt(4), 512 + random.nextInt(1024), 1000));
+        }
+        ResourceEstimate estimate = estimator.estimate(job);
+        assertEquals(4, estimate.getCpu());
+        // 512 到 1535 均匀分布的 95 分位约为 1485
+        assertEquals(1485, estimate.getMemory(), 30);
+    }
+
+    @Test
+    public void testAdaptiveEstimatesImprovePackingDensity() {
+        Random random = new Random(42);
+        AdaptiveResourceEstimator adaptive = new AdaptiveResourceEstimator(new ComplexResourceEstimator());
+        for (int i = 0; i < 200; i++) {
+            Job general = job("train-g" + i, "User1", "General");
+            Job simple = job("train-s" + i, "User2", "Simple");
+            adaptive.recordUsage(general, trueUsage(general, random));
+            adaptive.recordUsage(simple, trueUsage(simple, random));
+        }
+
+        List<JobContext> workload = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            workload.add(i % 2 == 0
+                    ? new JobContext("pack-" + i, "Pack Job " + i, "User1", 1, "General", "Content " + i, 1, 60)
+                    : new JobContext("pack-" + i, "Pack Job " + i, "User2", 1, "Simple", "Content " + i, 1, 60));
+        }
+        int staticDensity = admitted(new ComplexResourceEstimator(), workload);
+        int adaptiveDensity = admitted(adaptive, workload);
+
+        // 静态评估每个作业 4 个CPU；自适应评估按 95 分位分别为 2 和 3 个CPU
+        assertEquals(5, staticDensity);
+        assertEquals(8, adaptiveDensity);
+        assertTrue(adaptiveDensity > staticDensity);
+    }
+
+    @Test
+    public void testMeasuredUsageFromExecutedJobsImprovesPacking() throws Exception {
+        AdaptiveResourceEstimator adaptive = new AdaptiveResourceEstimator(new ComplexResourceEstimator());
+        SchedulerConfig config = SchedulerConfig.defaults();
+        JobManagerServiceImpl trainer = new JobManagerServiceImpl(config, new ResourceManager(config));
+        trainer.setResourceEstimator(adaptive);
+        try {
+            // 作业运行期间上报用量，完成后以峰值更新评估
+            execute(trainer, "User1", "General", 2, 512);
+            execute(trainer, "User3", "General", -1, -1);
+        } finally {
+            trainer.close();
+        }
+        assertEquals(5, adaptive.resourceSampleCount("User1", "General"));
+        // 没有上报用量的作业只贡献运行时间，评估仍使用静态值
+        assertEquals(5, adaptive.sampleCount("User3", "General"));
+        assertEquals(0, adaptive.resourceSampleCount("User3", "General"));
+        assertEquals(4, adaptive.estimateCpu(job("unmeasured", "User3", "General")));
+
+        List<JobContext> workload = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            workload.add(new JobContext("pack-" + i, "Pack Job " + i, "User1", 1, "General", "Content " + i, 1, 60));
+        }
+        assertEquals(5, admitted(new ComplexResourceEstimator(), workload));
+        assertEquals(10, admitted(adaptive, workload));
+    }
+
+    @Test
+    public void testCompletedJobsReportUsage() throws InterruptedException {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        AdaptiveResourceEstimator estimator = new AdaptiveResourceEstimator(new ComplexResourceEstimator());
+        jobManager.setResourceEstimator(estimator);
+
+        jobManager.createJob(new JobContext("usage-1", "Usage Job", "User1", 1, "General", "Content", 1, 0));
+        for (int i = 0; i < 200 && estimator.sampleCount("User1", "General") == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, estimator.sampleCount("User1", "General"));
+        assertEquals(0, estimator.resourceSampleCount("User1", "General")); // 没有观测到用量，不把租约当作用量
+        assertEquals(20, jobManager.getResourceManager().getAvailableCpu());
+        assertFalse(jobManager.reportUsage("usage-1", 1, 256)); // 作业已结束
+    }
+
+    // 同时运行 5 个 1 秒的作业，cpu 不小于 0 时在运行期间上报用量，等待全部完成
+    private static void execute(JobManagerServiceImpl jobManager, String user, String type, int cpu, int memory) throws Exception {
+        List<JobHandle> handles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String id = user + "-" + type + "-" + i;
+            JobHandle handle = jobManager.submit(new JobContext(id, "Job " + id, user, 1, type, "Content", 1, 1));
+            assertEquals(JobState.ADMITTED, handle.admission().get(5, TimeUnit.SECONDS));
+            if (cpu >= 0) {
+                assertTrue(jobManager.reportUsage(id, cpu / 2, memory / 2));
+                assertTrue(jobManager.reportUsage(id, cpu, memory));
+            }
+            handles.add(handle);
+        }
+        for (JobHandle handle : handles) {
+            assertEquals(JobState.COMPLETED, handle.completion().get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    // 合成负载的真实用量：User1 的 General 作业 1-2 个CPU，User2 的 Simple 作业 2-3 个CPU
+    private static ResourceUsage trueUsage(Job job, Random random) {
+        if ("General".equals(job.getContext().getType())) {
+            return new ResourceUsage(1 + random.nextInt(2), 256 + random.nextInt(512), 20_000 + random.nextInt(10_000));
+        }
+        return new ResourceUsage(2 + random.nextInt(2), 1024 + random.nextInt(512), 40_000 + random.nextInt(20_000));
+    }
+
+    private static int admitted(ResourceEstimator estimator, List<JobContext> workload) {
+        SchedulerConfig config = SchedulerConfig.defaults().with(SchedulerConfig.QUEUE_SIZE, 50);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(estimator);
+        int admitted = 0;
+        for (JobResult result : jobManager.createJobs(workload)) {
+            if (result.getState() == JobState.ADMITTED) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    private static Job job(String id, String user, String type) {
+        return JobFactory.createJob(new JobContext(id, "Job " + id, user, 1, type, "Content", 1, 60));
+    }
+}
@@ -0,0 +1,105 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.CachingResourceEstimator;
+import com.uniplore.resouce.estimator.ComplexResourceEstimator;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.estimator.SimpleResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 资源租约和评估缓存的单元测试。
+ */
+public class AllocationLeaseTest {
+
+    @Test
+    public void testReleaseMatchesGrantAfterEstimatorSwap() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ComplexResourceEstimator());
+
+        jobManager.createJob(context("lease-1", "General", "Content"));
+        assertEquals(16, resourceManager.getAvailableCpu());
+
+        // 替换评估器后仍按租约归还准入时分配的 4 个CPU
+        jobManager.setResourceEstimator(new SimpleResourceEstimator());
+        assertTrue(jobManager.removeJob("lease-1"));
+        assertEquals(20, resourceManager.getAvailableCpu());
+        assertEquals(20480, resourceManager.getAvailableMemory());
+
+        assertFalse(jobManager.removeJob("lease-1"));
+        assertEquals(20, resourceManager.getAvailableCpu());
+    }
+
+    @Test
+    public void testEstimateOncePerSubmission() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        CountingEstimator estimator = new CountingEstimator(new ComplexResourceEstimator());
+        jobManager.setResourceEstimator(estimator);
+
+        for (int i = 1; i <= 7; i++) {
+            jobManager.createJob(context("once-" + i, "General", "Content " + i));
+        }
+        // 资源不足时驱逐和重新准入都使用入队时的评估结果，全部过程只评估 7 次
+        assertTrue(jobManager.removeJob("once-1"));
+        assertTrue(jobManager.removeJob("once-7"));
+        assertEquals(7, estimator.calls.get());
+        assertEquals(20 - 4 * jobManager.getAllJobs().size(), resourceManager.getAvailableCpu());
+    }
+
+    @Test
+    public void testCachingEstimatorKeysByTypeAndContent() {
+        CountingEstimator delegate = new CountingEstimator(new ComplexResourceEstimator());
+        CachingResourceEstimator estimator = new CachingResourceEstimator(delegate);
+
+        Job first = job(context("cache-1", "General", "select 1"));
+        Job sameContent = job(context("cache-2", "General", "select 1"));
+        Job otherContent = job(context("cache-3", "General", "select 2"));
+
+        assertEquals(4, estimator.estimateCpu(first));
+        assertEquals(2048, estimator.estimateMemory(sameContent));
+        assertEquals(4, estimator.estimate(otherContent).getCpu());
+        assertEquals(2, delegate.calls.get());
+        assertEquals(2, estimator.size());
+    }
+
+    private static JobContext context(String id, String type, String content) {
+        return new JobContext(id, "Job " + id, "User1", 1, type, content, 1, 60);
+    }
+
+    private static Job job(JobContext context) {
+        return JobFactory.createJob(context);
+    }
+
+    private static final class CountingEstimator implements ResourceEstimator {
+        private final ResourceEstimator delegate;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingEstimator(ResourceEstimator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int estimateCpu(Job job) {
+            calls.incrementAndGet();
+            return delegate.estimateCpu(job);
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return delegate.estimateMemory(job);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobState;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.resouce.management.ResourceSnapshot;
+import com.uniplore.scheduler.BackfillPlanner;
+import com.uniplore.scheduler.RunningAllocation;
+import com.uniplore.scheduler.SchedulingMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 回填调度的单元测试：调度服务在队首阻塞时的回填行为，以及用离散事件模拟对比队首阻塞调度和 EASY 回填调度的资源利用率和平均等待时间。
+ */
+public class BackfillSchedulingTest {
+    private static final int TOTAL_CPU = 20;
+    private static final int TOTAL_MEMORY = 20480;
+
+    @Test
+    public void testReservationUsesEarliestCompletion() {
+        List<RunningAllocation> running = List.of(
+                RunningAllocation.of(8, 4096, 30_000),
+                RunningAllocation.of(4, 2048, 10_000));
+        BackfillPlanner.Reservation reservation = BackfillPlanner.reserve(new ResourceSnapshot(6, 8192), running, 8, 4096, 0);
+
+        // 10 秒后释放 4 个CPU，可用CPU达到 10，满足队首作业的 8 个CPU，富余 2 个CPU
+        assertEquals(10_000, reservation.getShadowTime());
+        assertEquals(2, reservation.getExtraCpu());
+
+        // 在影子时间之前完成的作业可以回填
+        assertTrue(reservation.admits(4, 1024, 5_000, 0));
+        // 超过影子时间的作业只能使用富余资源
+        assertFalse(reservation.admits(4, 1024, 20_000, 0));
+        assertTrue(reservation.admits(2, 1024, 20_000, 0));
+        assertFalse(reservation.admits(2, 1024, 20_000, 0));
+    }
+
+    @Test
+    public void testBackfillImprovesUtilizationAndWaitTime() {
+        List<SimJob> workload = workload(new Random(42), 300);
+
+        Result headOfLine = simulate(copy(workload), SchedulingMode.HEAD_OF_LINE);
+        Result backfill = simulate(copy(workload), SchedulingMode.EASY_BACKFILL);
+
+        assertTrue(backfill.utilization > headOfLine.utilization, () -> String.format(
+                "utilization: easy-backfill=%.3f, head-of-line=%.3f", backfill.utilization, headOfLine.utilization));
+        assertTrue(backfill.meanWaitSeconds < headOfLine.meanWaitSeconds, () -> String.format(
+                "mean wait: easy-backfill=%.1fs, head-of-line=%.1fs", backfill.meanWaitSeconds, headOfLine.meanWaitSeconds));
+    }
+
+    @Test
+    public void testServiceBackfillsShortJobPastBlockedHead() throws Exception {
+        JobManagerServiceImpl jobManager = jobManager(SchedulingMode.EASY_BACKFILL);
+        try {
+            jobManager.submit(context("j0", 16, 60));
+            JobHandle quick = jobManager.submit(context("j1", 4, 1));
+            // 资源已占满，之后的作业都进入等待队列；队首作业需要 18 个CPU，j0 结束时才能启动，届时只富余 2 个CPU
+            JobHandle head = jobManager.submit(context("j2", 18, 60));
+            JobHandle longJob = jobManager.submit(context("j3", 3, 3600));
+            JobHandle shortJob = jobManager.submit(context("j4", 3, 30));
+            assertEquals(JobState.WAITING, shortJob.getState());
+
+            // j1 结束后队首作业仍然放不下：短作业在 j0 结束前完成，越过队首启动；长作业会推迟队首作业，继续等待
+            assertEquals(JobState.COMPLETED, quick.completion().get(5, TimeUnit.SECONDS));
+            assertEquals(JobState.ADMITTED, shortJob.admission().get(5, TimeUnit.SECONDS));
+            assertEquals(JobState.WAITING, longJob.getState());
+            assertEquals(JobState.WAITING, head.getState());
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    // 作业内容为需要的CPU数，每个CPU配 512MB 内存
+    private static JobManagerServiceImpl jobManager(SchedulingMode mode) {
+        SchedulerConfig config = SchedulerConfig.defaults()
+                .with(SchedulerConfig.CPU_TOTAL, TOTAL_CPU)
+                .with(SchedulerConfig.MEMORY_TOTAL, TOTAL_MEMORY)
+                .with(SchedulerConfig.SCHEDULING_MODE, mode.configName());
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ResourceEstimator() {
+            @Override
+            public int estimateCpu(Job job) {
+                return Integer.parseInt(job.getContext().getContent());
+            }
+
+            @Override
+            public int estimateMemory(Job job) {
+                return estimateCpu(job) * 512;
+            }
+        });
+        return jobManager;
+    }
+
+    private static JobContext context(String id, int cpu, int executionTime) {
+        return new JobContext(id, "Job " + id, "User1", 1, "General", String.valueOf(cpu), 1, executionTime);
+    }
+
+    // 混合负载：每 4 个作业中有 1 个 8 CPU 的大作业，其余为 2 CPU 的短作业
+    private static List<SimJob> workload(Random random, int count) {
+        List<SimJob> jobs = new ArrayList<>();
+        long arrival = 0;
+        for (int i = 0; i < count; i++) {
+            arrival += random.nextInt(3);
+            if (i % 4 == 0) {
+                jobs.add(new SimJob(i, arrival, 8, 4096, 30 + random.nextInt(60)));
+            } else {
+                jobs.add(new SimJob(i, arrival, 2, 1024, 5 + random.nextInt(25)));
+            }
+        }
+        return jobs;
+    }
+
+    private static List<SimJob> copy(List<SimJob> jobs) {
+        List<SimJob> copy = new ArrayList<>();
+        for (SimJob job : jobs) {
+            copy.add(new SimJob(job.id, job.arrival, job.cpu, job.memory, job.duration));
+        }
+        return copy;
+    }
+
+    private static Result simulate(List<SimJob> jobs, SchedulingMode mode) {
+        LinkedList<SimJob> arrivals = new LinkedList<>(jobs);
+        LinkedList<SimJob> waiting = new LinkedList<>();
+        PriorityQueue<SimJob> running = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+        int freeCpu = TOTAL_CPU;
+        int freeMemory = TOTAL_MEMORY;
+        long now = 0;
+        long busyCpuSeconds = 0;
+        long totalWait = 0;
+
+        while (!arrivals.isEmpty() || !waiting.isEmpty() || !running.isEmpty()) {
+            long nextArrival = arrivals.isEmpty() ? Long.MAX_VALUE : arrivals.peek().arrival;
+            long nextCompletion = running.isEmpty() ? Long.MAX_VALUE : running.peek().end;
+            now = Math.min(nextArrival, nextCompletion);
+            while (!running.isEmpty() && running.peek().end <= now) {
+                SimJob done = running.poll();
+                freeCpu += done.cpu;
+                freeMemory += done.memory;
+            }
+            while (!arrivals.isEmpty() && arrivals.peek().arrival <= now) {
+                waiting.add(arrivals.poll());
+            }
+
+            // 队首调度
+            while (!waiting.isEmpty() && waiting.peek().cpu <= freeCpu && waiting.peek().memory <= freeMemory) {
+                SimJob job = waiting.poll();
+                freeCpu -= job.cpu;
+                freeMemory -= job.memory;
+                start(job, now, running);
+            }
+
+            // 回填调度
+            if (mode == SchedulingMode.EASY_BACKFILL && !waiting.isEmpty()) {
+                SimJob head = waiting.peek();
+                List<RunningAllocation> allocations = new ArrayList<>();
+                for (SimJob job : running) {
+                    allocations.add(RunningAllocation.of(job.cpu, job.memory, job.end * 1000));
+                }
+                BackfillPlanner.Reservation reservation = BackfillPlanner.reserve(
+                        new ResourceSnapshot(freeCpu, freeMemory), allocations, head.cpu, head.memory, now * 1000);
+                Iterator<SimJob> candidates = waiting.iterator();
+                candidates.next();
+                while (candidates.hasNext()) {
+                    SimJob job = candidates.next();
+                    if (job.cpu <= freeCpu && job.memory <= freeMemory
+                            && reservation.admits(job.cpu, job.memory, job.duration * 1000, now * 1000)) {
+                        candidates.remove();
+                        freeCpu -= job.cpu;
+                        freeMemory -= job.memory;
+                        start(job, now, running);
+                    }
+                }
+            }
+        }
+
+        for (SimJob job : jobs) {
+            busyCpuSeconds += (long) job.cpu * job.duration;
+            totalWait += job.start - job.arrival;
+        }
+        Result result = new Result();
+        result.utilization = (double) busyCpuSeconds / ((double) TOTAL_CPU * now);
+        result.meanWaitSeconds = (double) totalWait / jobs.size();
+        return result;
+    }
+
+    private static void start(SimJob job, long now, PriorityQueue<SimJob> running) {
+        job.start = now;
+        job.end = now + job.duration;
+        running.add(job);
+    }
+
+    private static final class SimJob {
+        private final int id;
+        private final long arrival;
+        private final int cpu;
+        private final int memory;
+        private final long duration;
+        private long start;
+        private long end;
+
+        private SimJob(int id, long arrival, int cpu, int memory, long duration) {
+            this.id = id;
+            this.arrival = arrival;
+            this.cpu = cpu;
+            this.memory = memory;
+            this.duration = duration;
+        }
+    }
+
+    private static final class Result {
+        private double utilization;
+        private double meanWaitSeconds;
+    }
+}
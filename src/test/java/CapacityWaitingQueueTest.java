@@ -0,0 +1,149 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.queue.CapacityQueueUsage;
+import com.uniplore.queue.CapacityWaitingQueue;
+import com.uniplore.queue.QueuePolicy;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 层级容量等待队列的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class CapacityWaitingQueueTest {
+
+    @Test
+    public void testRoutingAndSelectionFollowQueueShares() {
+        CapacityWaitingQueue queue = new CapacityWaitingQueue(20, 20480,
+                "eng:60:100,eng.search:50:100,eng.web:50:100,ops:40:50", "type:Simple=ops");
+        assertEquals(List.of("eng", "eng.search", "eng.web", "ops", "default"), queue.queues());
+        assertEquals("eng.search", queue.queueOf(job("s0", "search", "General", 1)));
+        assertEquals("ops", queue.queueOf(job("b0", "search", "Simple", 1)));
+        assertEquals("default", queue.queueOf(job("x0", "nobody", "General", 1)));
+
+        queue.allocated(job("s0", "search", "General", 6), 6, 3072); // eng.search 达到保证份额，eng 为一半
+        queue.offer(job("s1", "search", "General", 1), estimate(1));
+        queue.offer(job("w1", "web", "General", 1), estimate(1));
+        queue.offer(job("o1", "ops", "General", 8), estimate(8));
+        assertEquals("o1", queue.peek().getContext().getId()); // ops 没有用量
+
+        queue.allocated(queue.poll(), 8, 4096); // ops 达到保证份额，比例高于 eng
+        assertEquals("w1", queue.peek().getContext().getId()); // eng 内 web 比例低于 search
+        assertEquals(List.of("w1", "s1"), ids(queue.head(2)));
+
+        CapacityQueueUsage eng = queue.usageOf("eng");
+        assertEquals(12.0, eng.getGuaranteedCpu(), 1e-9);
+        assertEquals(6, eng.getUsedCpu());
+        assertEquals(2, eng.getWaiting());
+        assertEquals(10.0, queue.usageOf("ops").getMaxCpu(), 1e-9);
+
+        // ops 的最大份额为 10 个CPU，空闲资源再多也不能超出
+        Job big = job("o2", "ops", "General", 4);
+        assertFalse(queue.admits(big, 4, 2048));
+        assertFalse(queue.tryAllocate(big, 4, 2048));
+        assertTrue(queue.admits(big, 2, 1024));
+        queue.remove("w1");
+        queue.remove("s1");
+        queue.offer(big, estimate(4));
+        assertNull(queue.peek());
+
+        queue.released(job("o1", "ops", "General", 8), 8, 4096);
+        assertEquals("o2", queue.peek().getContext().getId());
+        assertEquals(List.of("o2"), ids(queue.trimTo(0)));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.usageOf("").getWaiting());
+    }
+
+    @Test
+    public void testInvalidTreeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CapacityWaitingQueue(20, 20480, "eng.search:50:100", ""));
+        assertThrows(IllegalArgumentException.class, () -> new CapacityWaitingQueue(20, 20480, "a:60:100,b:50:100", ""));
+        assertThrows(IllegalArgumentException.class, () -> new CapacityWaitingQueue(20, 20480, "a:60:50", ""));
+        assertThrows(IllegalArgumentException.class, () -> new CapacityWaitingQueue(20, 20480, "a:50:100,a.b:50:100", "user:x=a"));
+    }
+
+    @Test
+    public void testIdleCapacityIsLentAndReclaimed() {
+        SchedulerConfig config = SchedulerConfig.defaults()
+                .with(SchedulerConfig.QUEUE_POLICY, QueuePolicy.CAPACITY.configName())
+                .with(SchedulerConfig.CAPACITY_QUEUES, "a:40:100,b:40:100,c:20:25")
+                .with(SchedulerConfig.WAITING_QUEUE_SIZE, 10);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ContentEstimator());
+        try {
+            jobManager.createJob(context("c1", "c", 3));
+            jobManager.createJob(context("c2", "c", 3)); // c 最多 5 个CPU
+            assertFalse(isRunning(jobManager, "c2"));
+
+            jobManager.createJob(context("a1", "a", 10));
+            jobManager.createJob(context("a2", "a", 4)); // a 借用 b 的空闲资源
+            assertTrue(isRunning(jobManager, "a1"));
+            assertTrue(isRunning(jobManager, "a2"));
+
+            // 优先级相同，b 仍在保证份额内，从超出保证份额的 a 收回
+            jobManager.createJob(context("b1", "b", 6));
+            assertTrue(isRunning(jobManager, "b1"));
+            assertTrue(isRunning(jobManager, "a1"));
+            assertFalse(isRunning(jobManager, "a2"));
+            assertEquals(1, jobManager.getResourceManager().getAvailableCpu());
+
+            jobManager.removeJob("c1");
+            assertTrue(isRunning(jobManager, "c2")); // c 的用量比例低于 a
+            assertFalse(isRunning(jobManager, "a2"));
+            assertEquals(1, jobManager.getWaitingQueue().size());
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    private static boolean isRunning(JobManagerServiceImpl jobManager, String jobId) {
+        JobProgress progress = jobManager.getProgress(jobId);
+        return progress != null && progress.isRunning();
+    }
+
+    private static List<String> ids(List<Job> jobs) {
+        List<String> ids = new ArrayList<>();
+        for (Job job : jobs) {
+            ids.add(job.getContext().getId());
+        }
+        return ids;
+    }
+
+    private static ResourceEstimate estimate(int cpu) {
+        return new ResourceEstimate(cpu, cpu * 512);
+    }
+
+    private static Job job(String id, String user, String type, int cpu) {
+        return JobFactory.createJob(new JobContext(id, "Job " + id, user, 1, type, String.valueOf(cpu), 1, 3600));
+    }
+
+    private static JobContext context(String id, String user, int cpu) {
+        return new JobContext(id, "Job " + id, user, 1, "General", String.valueOf(cpu), 1, 3600);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
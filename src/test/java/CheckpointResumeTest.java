@@ -0,0 +1,106 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.GeneralJob;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.metrics.MetricsSnapshot;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.scheduler.PreemptionEngine;
+import com.uniplore.scheduler.RunningAllocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 被驱逐作业保存进度、重新运行时只执行剩余部分的单元测试：作业内容为需要的CPU数。
+ */
+public class CheckpointResumeTest {
+
+    @Test
+    public void testEvictedJobResumesRemainingWork() throws InterruptedException {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ContentEstimator());
+        try {
+            jobManager.createJob(context("A", 5, 20, 1));
+            Thread.sleep(500);
+            jobManager.createJob(context("X", 1, 20, 3600)); // 驱逐 A
+
+            JobProgress saved = jobManager.getProgress("A");
+            assertFalse(saved.isRunning());
+            assertTrue(saved.getCompletedMillis() >= 500, saved.toString());
+
+            long resumedAt = System.nanoTime();
+            jobManager.removeJob("X"); // A 重新运行，只需执行剩余的约 500 毫秒
+            assertTrue(jobManager.getProgress("A").isRunning());
+            while (jobManager.getProgress("A") != null) {
+                Thread.sleep(10);
+            }
+            long rerunMillis = (System.nanoTime() - resumedAt) / 1_000_000;
+            assertTrue(rerunMillis < 900, "rerun took " + rerunMillis + "ms");
+
+            MetricsSnapshot snapshot = jobManager.getMetrics().snapshot();
+            assertEquals(1, snapshot.getEvictedCount());
+            assertEquals(1, snapshot.getResumedCount());
+            assertEquals(0, snapshot.getWastedWorkMillis());
+            assertEquals(saved.getCompletedMillis(), snapshot.getPreservedWorkMillis());
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testProgressOfRunningAndUnknownJobs() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        try {
+            jobManager.setResourceEstimator(new ContentEstimator());
+            jobManager.createJob(context("A", 5, 4, 60));
+            JobProgress progress = jobManager.getProgress("A");
+            assertTrue(progress.isRunning());
+            assertEquals(60_000, progress.getTotalMillis());
+            assertNull(jobManager.getProgress("missing"));
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testVictimSelectionSparesJobsNearCompletion() {
+        long now = 1_000_000;
+        Job almostDone = new GeneralJob(context("almost-done", 5, 4, 60));
+        Job justStarted = new GeneralJob(context("just-started", 5, 4, 60));
+        Map<String, RunningAllocation> allocations = Map.of(
+                "almost-done", RunningAllocation.of(4, 2048, now + 1_000),
+                "just-started", RunningAllocation.of(4, 2048, now + 59_000));
+
+        // 两个作业优先级和资源相同，驱逐剩余工作更多的作业
+        List<Job> victims = PreemptionEngine.selectVictims(List.of(almostDone, justStarted).iterator(), allocations::get,
+                1, 4, 0, now);
+        assertEquals(List.of(justStarted), victims);
+    }
+
+    private static JobContext context(String id, int priority, int cpu, int seconds) {
+        return new JobContext(id, "Job " + id, "User1", priority, "General", String.valueOf(cpu), 1, seconds);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
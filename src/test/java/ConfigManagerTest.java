@@ -0,0 +1,86 @@
+import com.uniplore.config.ConfigManager;
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.scheduler.SchedulingMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 配置加载与热加载的单元测试。
+ */
+public class ConfigManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testLoadFileAppliesValuesAndDefaults() throws IOException {
+        Path file = write("cpu.total=8\nmemory.total=4096\nscheduling.mode=easy-backfill\n");
+        SchedulerConfig config = ConfigManager.loadFile(file);
+        assertEquals(8, config.getTotalCpu());
+        assertEquals(4096, config.getTotalMemory());
+        assertEquals(SchedulingMode.EASY_BACKFILL, config.getSchedulingMode());
+        assertEquals(SchedulerConfig.defaults().getQueueSize(), config.getQueueSize()); // 未设置的项使用默认值
+
+        assertThrows(IllegalStateException.class, () -> ConfigManager.loadFile(directory.resolve("missing.properties")));
+    }
+
+    @Test
+    public void testReloadKeepsOldConfigOnInvalidFile() throws IOException {
+        Path file = write("cpu.total=8\n");
+        ConfigManager manager = new ConfigManager(ConfigManager.loadFile(file));
+        SchedulerConfig before = manager.getConfig();
+
+        write("cpu.total=not-a-number\n");
+        assertFalse(manager.reload(file));
+        assertSame(before, manager.getConfig());
+
+        write("cpu.total=12\n");
+        assertTrue(manager.reload(file));
+        assertEquals(12, manager.getConfig().getTotalCpu());
+    }
+
+    @Test
+    public void testWatcherReloadsModifiedFile() throws Exception {
+        Path file = write("cpu.total=8\nqueue.size=50\n");
+        ConfigManager manager = new ConfigManager(ConfigManager.loadFile(file));
+        LinkedBlockingQueue<SchedulerConfig> reloaded = new LinkedBlockingQueue<>();
+        manager.addListener(reloaded::add);
+        manager.watch(file);
+        try {
+            assertThrows(IllegalStateException.class, () -> manager.watch(file));
+            write("cpu.total=16\nqueue.size=70\n");
+
+            SchedulerConfig config = reloaded.poll(10, TimeUnit.SECONDS);
+            while (config != null && config.getTotalCpu() != 16) {
+                config = reloaded.poll(10, TimeUnit.SECONDS);
+            }
+            assertTrue(config != null, "配置文件修改后没有重新加载");
+            assertEquals(70, config.getQueueSize());
+            assertSame(config, manager.getConfig());
+        } finally {
+            manager.stopWatching();
+        }
+    }
+
+    // 先写临时文件再原子替换，监听线程不会读到写了一半的文件
+    private Path write(String content) throws IOException {
+        Path file = directory.resolve("scheduler.properties");
+        Path temp = Files.createTempFile(directory, "scheduler", ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.ISO_8859_1));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+}
@@ -0,0 +1,133 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.queue.FairShareWaitingQueue;
+import com.uniplore.queue.QueuePolicy;
+import com.uniplore.resouce.estimator.ResourceEstimate;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 主导资源公平等待队列的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class FairShareWaitingQueueTest {
+
+    @Test
+    public void testFloodingUserDoesNotStarveOthers() {
+        assertEquals("B1", nextAdmitted(QueuePolicy.FAIR_SHARE));
+        assertTrue(nextAdmitted(QueuePolicy.PRIORITY).startsWith("A")); // 只按优先级时轮不到 Bob
+    }
+
+    @Test
+    public void testWeightsScaleDominantShare() {
+        FairShareWaitingQueue queue = new FairShareWaitingQueue(20, 20480, Map.of("alice", 2.0), 0);
+        queue.allocated(job("a0", "alice", 1, 8), 8, 1024); // CPU 份额 0.4，权重 2
+        queue.allocated(job("b0", "bob", 1, 3), 3, 8192); // 内存份额 0.4，权重 1
+        assertEquals(0.2, queue.shareOf("alice"), 1e-9);
+        assertEquals(0.4, queue.shareOf("bob"), 1e-9);
+
+        queue.offer(job("b1", "bob", 0, 1), new ResourceEstimate(1, 512));
+        queue.offer(job("a1", "alice", 5, 1), new ResourceEstimate(1, 512));
+        assertEquals("a1", queue.peek().getContext().getId()); // 用户之间只看份额，不看优先级
+        assertEquals(List.of("alice", "bob"), queue.activeUsers());
+
+        queue.released(job("a0", "alice", 1, 8), 8, 1024);
+        queue.allocated(job("a2", "alice", 1, 18), 18, 1024); // 份额 0.45，超过 Bob
+        assertEquals("b1", queue.peek().getContext().getId());
+        assertEquals(List.of("b1", "a1"), ids(queue.toList()));
+
+        // 裁剪从份额最大的用户开始
+        assertEquals(List.of("a1"), ids(queue.trimTo(1)));
+        assertEquals(List.of("bob"), queue.activeUsers());
+    }
+
+    @Test
+    public void testAgingPromotesLongWaitingJobs() {
+        AtomicLong clock = new AtomicLong();
+        FairShareWaitingQueue queue = new FairShareWaitingQueue(20, 20480, Map.of(), 1000, clock::get);
+        queue.offer(job("old", "alice", 5, 1), new ResourceEstimate(1, 512));
+        clock.set(3000); // 等待 3 秒后优先级相当于 2
+        queue.offer(job("newer", "alice", 3, 1), new ResourceEstimate(1, 512));
+        assertEquals("old", queue.peek().getContext().getId());
+
+        queue.offer(job("urgent", "alice", 1, 1), new ResourceEstimate(1, 512));
+        assertEquals(List.of("urgent", "old", "newer"), ids(queue.toList()));
+
+        assertEquals("urgent", queue.poll().getContext().getId());
+        assertEquals("newer", queue.remove("newer").getContext().getId());
+        assertEquals("old", queue.poll().getContext().getId());
+        assertNull(queue.peek());
+        assertTrue(queue.isEmpty());
+    }
+
+    // Alice 占满资源并提交大量作业后 Bob 提交一个作业，Alice 的一个作业结束时准入的作业
+    private static String nextAdmitted(QueuePolicy policy) {
+        SchedulerConfig config = SchedulerConfig.defaults().with(SchedulerConfig.QUEUE_POLICY, policy.configName())
+                .with(SchedulerConfig.WAITING_QUEUE_SIZE, 100);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ContentEstimator());
+        try {
+            jobManager.createJob(context("A00", "alice", 10));
+            for (int i = 1; i <= 20; i++) {
+                jobManager.createJob(context(String.format("A%02d", i), "alice", 5));
+            }
+            jobManager.createJob(context("B1", "bob", 5));
+            assertEquals(19, jobManager.getWaitingQueue().size());
+
+            jobManager.removeJob("A01");
+            List<Job> waiting = jobManager.getWaitingQueue();
+            for (Job job : jobManager.getAllJobs()) {
+                String jobId = job.getContext().getId();
+                JobProgress progress = jobManager.getProgress(jobId);
+                if (progress != null && progress.isRunning() && !jobId.equals("A00") && !jobId.equals("A02")) {
+                    assertEquals(18, waiting.size());
+                    return jobId;
+                }
+            }
+            return null;
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    private static List<String> ids(List<Job> jobs) {
+        List<String> ids = new ArrayList<>();
+        for (Job job : jobs) {
+            ids.add(job.getContext().getId());
+        }
+        return ids;
+    }
+
+    private static Job job(String id, String user, int priority, int cpu) {
+        return JobFactory.createJob(new JobContext(id, "Job " + id, user, priority, "General", String.valueOf(cpu), 1, 3600));
+    }
+
+    private static JobContext context(String id, String user, int cpu) {
+        return new JobContext(id, "Job " + id, user, 1, "General", String.valueOf(cpu), 1, 3600);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import com.uniplore.execution.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分层时间轮的单元测试，使用手动推进的时钟。
+ */
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    public void testFiresEachTimeoutAtItsDeadline() {
+        AtomicLong clock = new AtomicLong();
+        List<List<Long>> batches = new ArrayList<>();
+        // 8 个槽 3 层：第 0 层 8 个刻度，第 1 层 64 个刻度，第 2 层 512 个刻度，更远的需要多次下放
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 8, 3, batches::add, clock::get);
+
+        Random random = new Random(3);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long delay = random.nextInt(3000);
+            deadlines.add(delay);
+            wheel.schedule(delay, delay);
+        }
+        assertEquals(2000, wheel.size());
+
+        for (long now = 0; now <= 3000; now++) {
+            clock.set(TimeUnit.MILLISECONDS.toNanos(now));
+            int before = batches.size();
+            wheel.advance();
+            for (int i = before; i < batches.size(); i++) {
+                for (long deadline : batches.get(i)) {
+                    assertEquals(now, deadline);
+                }
+            }
+        }
+        assertEquals(0, wheel.size());
+        assertEquals(2000, batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    public void testBatchesExpiriesAndSkipsCancelled() {
+        AtomicLong clock = new AtomicLong();
+        List<List<String>> batches = new ArrayList<>();
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 64, 2, batches::add, clock::get);
+
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 50);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule("job-" + i, 20 + i % 30);
+        }
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        // 一次推进跨越多个刻度，到期作业在同一批中交给处理器
+        clock.set(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(100, wheel.advance());
+        assertEquals(1, batches.size());
+        assertFalse(batches.get(0).contains("cancelled"));
+        assertTrue(cancelled.isCancelled());
+        assertEquals(0, wheel.size());
+
+        // 空刻度不回调处理器
+        clock.set(TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(0, wheel.advance());
+        assertEquals(1, batches.size());
+    }
+}
@@ -0,0 +1,76 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.execution.ExecutionMode;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ComplexResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 作业执行模式和服务关闭的单元测试。
+ */
+public class JobExecutorTest {
+
+    @Test
+    public void testRemovedJobsReleaseExecutionThreads() throws InterruptedException {
+        // 移除作业会取消其执行，固定线程池的线程不会被已移除的作业占住
+        assertEquals(20, runAfterRemovingLongJobs(ExecutionMode.FIXED_POOL));
+    }
+
+    @Test
+    public void testVirtualThreadsRunAdmittedJobsImmediately() throws InterruptedException {
+        assertEquals(20, runAfterRemovingLongJobs(ExecutionMode.VIRTUAL_THREADS));
+    }
+
+    @Test
+    public void testTimingWheelCompletesJobsWithoutThreads() throws InterruptedException {
+        assertEquals(20, runAfterRemovingLongJobs(ExecutionMode.TIMING_WHEEL));
+    }
+
+    @Test
+    public void testCloseReleasesResourcesAndRejectsNewJobs() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        for (int i = 1; i <= 3; i++) {
+            jobManager.createJob(context("close-" + i, 60));
+        }
+        assertEquals(14, resourceManager.getAvailableCpu());
+
+        jobManager.close();
+        assertTrue(jobManager.isClosed());
+        assertEquals(20, resourceManager.getAvailableCpu());
+        assertEquals(0, jobManager.getAllJobs().size());
+        assertThrows(IllegalStateException.class, () -> jobManager.createJob(context("close-4", 60)));
+        jobManager.close();
+    }
+
+    // 两个长作业被移除后，提交一个立即完成的 4 CPU 作业，返回之后的可用CPU
+    private static int runAfterRemovingLongJobs(ExecutionMode mode) throws InterruptedException {
+        SchedulerConfig config = SchedulerConfig.defaults()
+                .with(SchedulerConfig.QUEUE_SIZE, 2)
+                .with(SchedulerConfig.EXECUTION_MODE, mode.configName());
+        ResourceManager resourceManager = new ResourceManager(config);
+        try (JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager)) {
+            jobManager.setResourceEstimator(new ComplexResourceEstimator());
+            jobManager.createJob(context("long-1", 60));
+            jobManager.createJob(context("long-2", 60));
+            jobManager.removeJob("long-1");
+            jobManager.removeJob("long-2");
+
+            jobManager.createJob(context("short", 0));
+            for (int i = 0; i < 50 && resourceManager.getAvailableCpu() < 20; i++) {
+                Thread.sleep(10);
+            }
+            return resourceManager.getAvailableCpu();
+        }
+    }
+
+    private static JobContext context(String id, int executionTime) {
+        return new JobContext(id, "Job " + id, "User1", 1, "General", "Content", 1, executionTime);
+    }
+}
@@ -0,0 +1,135 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobGraph;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobState;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 作业图的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存，共 20 个CPU。
+ */
+public class JobGraphTest {
+    private JobManagerServiceImpl jobManager;
+
+    @BeforeEach
+    public void setUp() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ContentEstimator());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobManager.close();
+    }
+
+    @Test
+    public void testInvalidGraphIsRejected() {
+        JobGraph cyclic = new JobGraph().addJob(context("a", 1, 1)).addJob(context("b", 1, 1)).addJob(context("c", 1, 1))
+                .addDependency("a", "b").addDependency("b", "c").addDependency("c", "b");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, cyclic::topologicalOrder);
+        assertTrue(ex.getMessage().contains("[b, c]"));
+        assertThrows(IllegalArgumentException.class, () -> jobManager.submitGraph(cyclic));
+        assertEquals(0, jobManager.getPendingGraphJobs());
+        assertTrue(jobManager.getAllJobs().isEmpty()); // 有环时不提交任何作业
+
+        JobGraph graph = new JobGraph().addJob(context("a", 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.addDependency("a", "missing"));
+        assertThrows(IllegalArgumentException.class, () -> graph.addJob(context("a", 1, 1)));
+    }
+
+    @Test
+    public void testDependentsStartWhenParentsComplete() throws Exception {
+        // a、b 立即完成，c 需要两者都完成，d 在 c 之后
+        JobGraph graph = new JobGraph()
+                .addJob(context("a", 2, 0)).addJob(context("b", 2, 0)).addJob(context("c", 4, 3600)).addJob(context("d", 1, 1))
+                .addDependency("a", "c").addDependency("b", "c").addDependency("c", "d");
+        Map<String, JobHandle> handles = jobManager.submitGraph(graph);
+        assertEquals(List.of("a", "b", "c", "d"), List.copyOf(handles.keySet()));
+        assertEquals(JobState.BLOCKED, handles.get("d").getState());
+
+        assertEquals(JobState.COMPLETED, handles.get("a").completion().get(5, TimeUnit.SECONDS));
+        assertEquals(JobState.COMPLETED, handles.get("b").completion().get(5, TimeUnit.SECONDS));
+        assertEquals(JobState.ADMITTED, handles.get("c").admission().get(5, TimeUnit.SECONDS));
+        assertEquals(JobState.BLOCKED, handles.get("d").getState());
+        assertEquals(2, jobManager.getPendingGraphJobs());
+
+        // 运行中的上游作业被移除，下游作业取消
+        assertTrue(jobManager.removeJob("c"));
+        assertEquals(JobState.CANCELLED, handles.get("d").completion().getNow(null));
+        assertEquals(0, jobManager.getPendingGraphJobs());
+        assertFalse(jobManager.removeJob("d"));
+    }
+
+    @Test
+    public void testRemovingBlockedJobCancelsDescendants() {
+        JobGraph graph = new JobGraph()
+                .addJob(context("a", 1, 3600)).addJob(context("b", 1, 1)).addJob(context("c", 1, 1)).addJob(context("e", 1, 1))
+                .addDependency("a", "b").addDependency("b", "c").addDependency("a", "e");
+        Map<String, JobHandle> handles = jobManager.submitGraph(graph);
+        assertEquals(JobState.ADMITTED, handles.get("a").getState());
+
+        assertTrue(jobManager.removeJob("b"));
+        assertEquals(JobState.REMOVED, handles.get("b").completion().getNow(null));
+        assertEquals(JobState.CANCELLED, handles.get("c").completion().getNow(null));
+        assertEquals(JobState.BLOCKED, handles.get("e").getState()); // 不在 b 之后的作业不受影响
+        assertThrows(IllegalArgumentException.class, () -> jobManager.submitGraph(new JobGraph().addJob(context("e", 1, 1))));
+
+        // 作业类型未知的下游作业在开始调度时被拒绝
+        JobGraph unknown = new JobGraph().addJob(context("x", 1, 0))
+                .addJob(new JobContext("y", "Job y", "User1", 5, "Unknown", "1", 1, 0)).addJob(context("z", 1, 0))
+                .addDependency("x", "y").addDependency("y", "z");
+        Map<String, JobHandle> unknownHandles = jobManager.submitGraph(unknown);
+        assertEquals(JobState.REJECTED, unknownHandles.get("y").completion().join());
+        assertEquals(JobState.CANCELLED, unknownHandles.get("z").completion().join());
+    }
+
+    @Test
+    public void testCriticalPathRunsFirst() throws Exception {
+        jobManager.createJob(context("blocker", 20, 3600));
+        // long1 -> long2 是关键路径，short 与之无关，两者都需要全部CPU
+        JobGraph graph = new JobGraph()
+                .addJob(context("short", 20, 10)).addJob(context("long1", 20, 100)).addJob(context("long2", 1, 100))
+                .addDependency("long1", "long2");
+        Map<String, JobHandle> handles = jobManager.submitGraph(graph);
+        assertEquals(3, handles.get("long1").getContext().getPriority());
+        assertEquals(4, handles.get("long2").getContext().getPriority());
+        assertEquals(5, handles.get("short").getContext().getPriority());
+        assertEquals(5, graph.getJob("long1").getPriority()); // 提交的上下文不被修改
+
+        assertTrue(jobManager.removeJob("blocker"));
+        assertEquals(JobState.ADMITTED, handles.get("long1").getState());
+        assertEquals(JobState.WAITING, handles.get("short").getState());
+    }
+
+    private static JobContext context(String id, int cpu, int executionTime) {
+        return new JobContext(id, "Job " + id, "User1", 5, "General", String.valueOf(cpu), 1, executionTime);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
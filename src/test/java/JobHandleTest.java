@@ -0,0 +1,247 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobEvent;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobState;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步提交和作业事件流的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class JobHandleTest {
+
+    @Test
+    public void testHandleFollowsJobLifecycle() throws Exception {
+        JobManagerServiceImpl jobManager = jobManager(SchedulerConfig.defaults());
+        JobHandle waiting;
+        try {
+            JobHandle big = jobManager.submit(context("j1", 16, 3600));
+            assertEquals(JobState.ADMITTED, big.admission().getNow(null)); // 资源足够时在提交线程上准入
+            assertFalse(big.isDone());
+
+            waiting = jobManager.submit(context("j2", 8, 3600));
+            assertEquals(JobState.WAITING, waiting.getState());
+            assertFalse(waiting.admission().isDone());
+
+            JobHandle duplicate = jobManager.submit(context("j1", 1, 3600));
+            assertEquals(JobState.REJECTED, duplicate.completion().getNow(null));
+            JobHandle unknown = jobManager.submit(new JobContext("x", "Job x", "User1", 1, "Unknown", "1", 1, 3600));
+            assertEquals(JobState.REJECTED, unknown.completion().getNow(null));
+
+            assertTrue(jobManager.removeJob("j1"));
+            assertEquals(JobState.REMOVED, big.completion().getNow(null));
+            assertEquals(JobState.ADMITTED, waiting.admission().get(5, TimeUnit.SECONDS));
+
+            JobHandle quick = jobManager.submit(context("j3", 1, 0));
+            assertEquals(JobState.COMPLETED, quick.completion().get(5, TimeUnit.SECONDS));
+
+            // 取消副本不影响句柄本身
+            waiting.completion().cancel(true);
+            assertFalse(waiting.isDone());
+        } finally {
+            jobManager.close();
+        }
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> waiting.completion().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    public void testDroppedJobCompletesHandle() {
+        JobManagerServiceImpl jobManager = jobManager(SchedulerConfig.defaults().with(SchedulerConfig.WAITING_QUEUE_SIZE, 1));
+        try {
+            jobManager.submit(context("run", 20, 3600));
+            JobHandle low = jobManager.submit(new JobContext("low", "Job low", "User1", 9, "General", "4", 1, 3600));
+            assertEquals(JobState.WAITING, low.getState());
+            jobManager.submit(new JobContext("high", "Job high", "User1", 1, "General", "30", 1, 3600));
+            assertEquals(JobState.DROPPED, low.completion().getNow(null));
+            assertEquals(JobState.DROPPED, low.admission().getNow(null));
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testRejectedOfferIsNotReportedAsWaiting() throws Exception {
+        JobManagerServiceImpl jobManager = jobManager(SchedulerConfig.defaults());
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        try {
+            jobManager.events().subscribe(subscriber);
+            assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+            jobManager.submit(context("run", 20, 3600));
+            JobHandle waiting = jobManager.submit(context("w", 8, 3600));
+            assertEquals(JobState.WAITING, waiting.getState());
+
+            // 同一ID的作业已在等待队列中，入队失败时发布 REJECTED 而不是 WAITING
+            jobManager.createJob(context("w", 4, 3600));
+            assertEquals(1, jobManager.getMetrics().getWaitingCount());
+            assertEquals(1, jobManager.getMetrics().getRejectedCount());
+            assertEquals(JobState.WAITING, waiting.getState());
+
+            assertEquals(JobState.ADMITTED, subscriber.events.poll(5, TimeUnit.SECONDS).getState());
+            assertEquals(JobState.WAITING, subscriber.events.poll(5, TimeUnit.SECONDS).getState());
+            JobEvent rejected = subscriber.events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(rejected);
+            assertEquals(JobState.REJECTED, rejected.getState());
+            assertEquals("w", rejected.getJobId());
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testRemoveRacingAdmissionReleasesLease() throws Exception {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ContentEstimator());
+        int ids = 2;
+        int rounds = 20_000;
+        List<JobHandle> handles = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> submitter = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    handles.add(jobManager.submit(context("j" + (i % ids), 1, 3600)));
+                }
+                return null;
+            });
+            Future<?> remover = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    jobManager.removeJob("j" + (i % ids));
+                }
+                return null;
+            });
+            start.countDown();
+            submitter.get(30, TimeUnit.SECONDS);
+            remover.get(30, TimeUnit.SECONDS);
+
+            for (int i = 0; i < ids; i++) {
+                jobManager.removeJob("j" + i);
+            }
+            // 报告为已移除的作业不能继续运行并占用资源
+            assertEquals(config.getTotalCpu(), resourceManager.getAvailableCpu());
+            assertTrue(jobManager.getAllJobs().isEmpty());
+            for (JobHandle handle : handles) {
+                assertTrue(handle.isDone(), () -> handle + " 没有结束");
+            }
+        } finally {
+            executor.shutdownNow();
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testSlowSubscriberDropsInsteadOfBlocking() throws Exception {
+        JobManagerServiceImpl jobManager = jobManager(SchedulerConfig.defaults().with(SchedulerConfig.JOB_EVENT_BUFFER, 2));
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        try {
+            jobManager.events().subscribe(subscriber);
+            assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+            int jobs = 10;
+            for (int i = 0; i < jobs; i++) {
+                jobManager.submit(context("j" + i, 1, 3600));
+            }
+            JobEvent first = subscriber.events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertEquals(JobState.ADMITTED, first.getState());
+            assertEquals("j0", first.getJobId());
+            assertEquals(1, first.getCpu());
+            assertTrue(jobManager.getLifecycle().getDroppedCount() > 0);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            int received = 1;
+            while (received + jobManager.getLifecycle().getDroppedCount() < jobs && System.nanoTime() < deadline) {
+                if (subscriber.events.poll(10, TimeUnit.MILLISECONDS) != null) {
+                    received++;
+                }
+            }
+            assertEquals(jobs, received + jobManager.getLifecycle().getDroppedCount());
+        } finally {
+            jobManager.close();
+        }
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS)); // 关闭服务时结束事件流
+    }
+
+    private static JobManagerServiceImpl jobManager(SchedulerConfig config) {
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setResourceEstimator(new ContentEstimator());
+        return jobManager;
+    }
+
+    private static JobContext context(String id, int cpu, int executionTime) {
+        return new JobContext(id, "Job " + id, "User1", 1, "General", String.valueOf(cpu), 1, executionTime);
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<JobEvent> {
+        private final long initialDemand;
+        private final BlockingQueue<JobEvent> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(JobEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
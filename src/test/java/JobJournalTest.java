@@ -0,0 +1,239 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.journal.JobJournal;
+import com.uniplore.journal.JournalRecovery;
+import com.uniplore.journal.RecoveredJob;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 预写日志和崩溃恢复的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class JobJournalTest {
+
+    @Test
+    public void testRecoveryRebuildsQueuesAndResources(@TempDir Path directory) throws InterruptedException {
+        SchedulerConfig config = SchedulerConfig.defaults().with(SchedulerConfig.JOURNAL_DIR, directory)
+                .with(SchedulerConfig.JOURNAL_SEGMENT_SIZE, 1);
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = service(config, resourceManager);
+        jobManager.createJob(context("F", 5, 2, 0)); // 立即完成
+        // 作业先离开运行表再归还资源，等资源归还后再提交，否则后续作业看到的可用资源不确定
+        while (jobManager.getProgress("F") != null || resourceManager.getAvailableCpu() < config.getTotalCpu()) {
+            Thread.sleep(10);
+        }
+        jobManager.createJob(context("A", 5, 8, 3600));
+        jobManager.createJob(context("B", 6, 4, 3600));
+        jobManager.createJob(context("C", 7, 8, 3600));
+        jobManager.createJob(context("D", 9, 4, 3600));
+        jobManager.createJob(context("E", 8, 2, 3600));
+        jobManager.createJob(context("X", 1, 8, 3600)); // 驱逐 C
+        jobManager.updateJob("B", "Renamed B", "4");
+        jobManager.removeJob("E");
+        assertEquals(List.of("A", "B", "X"), running(jobManager));
+        assertEquals(List.of("C", "D"), waiting(jobManager));
+        jobManager.close();
+
+        ResourceManager restarted = new ResourceManager(config);
+        JobManagerServiceImpl recovered = service(config, restarted);
+        try {
+            assertEquals(List.of("A", "B", "X"), running(recovered));
+            assertEquals(List.of("C", "D"), waiting(recovered));
+            assertEquals(0, restarted.getAvailableCpu());
+            assertEquals(20480 - 20 * 512, restarted.getAvailableMemory());
+            assertEquals("Renamed B", recovered.getJobsByUser("User1").stream()
+                    .filter(job -> job.getContext().getId().equals("B")).findFirst().get().getContext().getName());
+            assertFalse(recovered.getProgress("C").isRunning());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testTornRecordIsSkipped(@TempDir Path directory) throws IOException {
+        try (JobJournal journal = JobJournal.open(directory, 1 << 20, 10)) {
+            journal.recordSubmit(context("A", 5, 4, 60));
+            journal.recordAdmit("A", 4, 2048, 0);
+            journal.recordSubmit(context("B", 5, 4, 60));
+            journal.recordAdmit("B", 4, 2048, 0);
+        }
+        try (JobJournal journal = JobJournal.open(directory, 1 << 20, 10)) {
+            journal.recordSubmit(context("C", 5, 4, 60));
+            journal.recordWait("C", 4, 2048, 0);
+        }
+        List<Path> segments = segments(directory);
+        assertEquals(2, segments.size());
+        corruptLastRecord(segments.get(0)); // 模拟崩溃时写了一半的 B 的准入记录
+
+        JournalRecovery recovery = JournalRecovery.replay(directory);
+        assertEquals(5, recovery.getRecordCount());
+        assertEquals(List.of("A"), ids(recovery.getRunning()));
+        assertEquals(List.of("C"), ids(recovery.getWaiting()));
+    }
+
+    @Test
+    public void testSegmentsRollOver(@TempDir Path directory) throws IOException {
+        try (JobJournal journal = JobJournal.open(directory, 256, 10)) {
+            for (int i = 0; i < 100; i++) {
+                journal.recordSubmit(context("job-" + i, 5, 1, 60));
+                journal.recordWait("job-" + i, 1, 512, 0);
+            }
+            assertEquals(200, journal.getAppendedRecords());
+        }
+        assertTrue(segments(directory).size() > 1);
+        JournalRecovery recovery = JournalRecovery.replay(directory);
+        assertEquals(200, recovery.getRecordCount());
+        assertEquals(100, recovery.getWaiting().size());
+    }
+
+    @Test
+    public void testSnapshotTruncatesJournal(@TempDir Path directory) throws IOException {
+        SchedulerConfig config = SchedulerConfig.defaults().with(SchedulerConfig.JOURNAL_DIR, directory)
+                .with(SchedulerConfig.JOURNAL_SEGMENT_SIZE, 1).with(SchedulerConfig.JOURNAL_SNAPSHOT_INTERVAL, 0);
+        JobManagerServiceImpl jobManager = service(config, new ResourceManager(config));
+        for (int i = 0; i < 10; i++) {
+            jobManager.createJob(context("job-" + i, 5 + i, 4, 3600));
+        }
+        assertTrue(jobManager.snapshotJournal());
+        assertFalse(jobManager.snapshotJournal()); // 没有新记录
+        List<Path> files = segments(directory);
+        assertEquals(2, files.size()); // 一个快照和正在写入的分段
+        assertTrue(files.get(1).getFileName().toString().startsWith("snapshot-"));
+
+        jobManager.removeJob("job-0");
+        jobManager.createJob(context("job-10", 1, 4, 3600));
+        List<String> running = running(jobManager);
+        List<String> waiting = waiting(jobManager);
+        jobManager.close();
+
+        JournalRecovery recovery = JournalRecovery.replay(directory);
+        assertTrue(recovery.getSnapshotSegment() > 0);
+        assertTrue(recovery.getRecordCount() < 10, "replayed " + recovery.getRecordCount());
+        JobManagerServiceImpl recovered = service(config, new ResourceManager(config));
+        try {
+            assertEquals(running, running(recovered));
+            assertEquals(waiting, waiting(recovered));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotsDoNotPauseWriters(@TempDir Path directory) throws InterruptedException {
+        SchedulerConfig config = new SchedulerConfig(64, 65536, 100, 200, 1000).with(SchedulerConfig.JOURNAL_DIR, directory)
+                .with(SchedulerConfig.JOURNAL_SEGMENT_SIZE, 1).with(SchedulerConfig.JOURNAL_SNAPSHOT_INTERVAL, 0);
+        JobManagerServiceImpl jobManager = service(config, new ResourceManager(config));
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; !stop.get(); i++) {
+                    jobManager.createJob(context("w" + thread + "-" + i, 1 + i % 20, 1, 3600));
+                    if (i % 3 == 0) {
+                        jobManager.removeJob("w" + thread + "-" + (i / 2));
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        int snapshots = 0;
+        long deadline = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < deadline) {
+            if (jobManager.snapshotJournal()) {
+                snapshots++;
+            }
+            Thread.sleep(20);
+        }
+        stop.set(true);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertTrue(snapshots > 1);
+        List<String> running = running(jobManager);
+        List<String> waiting = waiting(jobManager);
+        jobManager.close();
+
+        ResourceManager restarted = new ResourceManager(config);
+        JobManagerServiceImpl recovered = service(config, restarted);
+        try {
+            assertEquals(running, running(recovered));
+            assertEquals(waiting, waiting(recovered));
+            assertEquals(64 - running.size(), restarted.getAvailableCpu());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private static JobManagerServiceImpl service(SchedulerConfig config, ResourceManager resourceManager) {
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ContentEstimator());
+        return jobManager;
+    }
+
+    private static void corruptLastRecord(Path segment) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int last = 0;
+        int position = 0;
+        while (buffer.getInt(position) > 0) {
+            last = position;
+            position += 8 + buffer.getInt(position);
+        }
+        bytes[last + 9] ^= 0x7f;
+        Files.write(segment, bytes);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> ids(List<RecoveredJob> jobs) {
+        return jobs.stream().map(job -> job.getContext().getId()).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> running(JobManagerServiceImpl jobManager) {
+        return jobManager.getAllJobs().stream().map(job -> job.getContext().getId()).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> waiting(JobManagerServiceImpl jobManager) {
+        return jobManager.getWaitingQueue().stream().map(job -> job.getContext().getId()).collect(Collectors.toList());
+    }
+
+    private static JobContext context(String id, int priority, int cpu, int seconds) {
+        return new JobContext(id, "Job " + id, "User1", priority, "General", String.valueOf(cpu), 1, seconds);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
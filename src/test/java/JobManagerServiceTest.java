@@ -1,11 +1,16 @@
+import com.uniplore.config.SchedulerConfig;
 import com.uniplore.job.JobContext;
+import com.uniplore.job.JobResult;
+import com.uniplore.job.JobState;
 import com.uniplore.job.service.Job;
 import com.uniplore.job.service.JobManagerService;
 import com.uniplore.job.service.impl.JobManagerServiceImpl;
 import com.uniplore.resouce.estimator.AdvancedResourceEstimator;
 import com.uniplore.resouce.estimator.ComplexResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -153,4 +158,38 @@ public class JobManagerServiceTest {
         allJobs = jobManager.getAllJobs();
         assertEquals(10, allJobs.size());
     }
+
+    @Test
+    public void testCreateAndRemoveJobsInBatch() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ComplexResourceEstimator());
+
+        List<JobContext> contexts = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            contexts.add(new JobContext("batch-" + i, "Batch Job " + i, "User1", i, "General", "Content " + i, 1, 60));
+        }
+        contexts.add(new JobContext("batch-x", "Unknown Job", "User1", 1, "Unknown", "Content", 1, 60));
+
+        List<JobResult> created = jobManager.createJobs(contexts);
+        assertEquals(13, created.size());
+        // 20 个CPU只够 5 个 4 CPU 的作业，等待队列最多 5 个，其余被丢弃
+        assertEquals(5, created.stream().filter(result -> result.getState() == JobState.ADMITTED).count());
+        assertEquals(5, created.stream().filter(result -> result.getState() == JobState.WAITING).count());
+        assertEquals(2, created.stream().filter(result -> result.getState() == JobState.DROPPED).count());
+        assertEquals(JobState.REJECTED, created.get(12).getState());
+        assertEquals(0, resourceManager.getAvailableCpu());
+
+        List<JobResult> removed = jobManager.removeJobsWithResults(List.of("batch-1", "batch-2", "batch-12", "missing"));
+        assertEquals(JobState.REMOVED, removed.get(0).getState());
+        assertEquals(JobState.REMOVED, removed.get(1).getState());
+        assertEquals(JobState.NOT_FOUND, removed.get(2).getState());
+        assertEquals(JobState.NOT_FOUND, removed.get(3).getState());
+
+        // 释放的资源在一次等待队列处理中分配给优先级最高的两个等待作业
+        assertEquals(5, jobManager.getAllJobs().size());
+        assertEquals(3, jobManager.getWaitingQueue().size());
+        assertEquals(0, resourceManager.getAvailableCpu());
+    }
 }
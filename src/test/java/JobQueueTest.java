@@ -0,0 +1,147 @@
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+import com.uniplore.queue.JobQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 作业队列索引的单元测试。
+ */
+public class JobQueueTest {
+
+    @Test
+    public void testDuplicatesAndCapacity() {
+        JobQueue queue = new JobQueue(2);
+        Job first = job("a", "alice", 5);
+        assertTrue(queue.addJob(first));
+        assertFalse(queue.addJob(job("a", "bob", 1))); // 同ID的作业只能有一个
+        assertSame(first, queue.getJob("a"));
+        assertEquals(List.of("a"), ids(queue.getJobsByUser("alice")));
+        assertTrue(queue.getJobsByUser("bob").isEmpty());
+
+        assertTrue(queue.addJob(job("b", "alice", 5)));
+        assertFalse(queue.addJob(job("c", "alice", 5))); // 队列已满
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testRemovalClearsEveryIndex() {
+        JobQueue queue = new JobQueue(10);
+        queue.addJob(job("a", "alice", 5));
+        queue.addJob(job("b", "alice", 3));
+        queue.addJob(job("c", "bob", 1));
+
+        assertTrue(queue.removeJob("b"));
+        assertFalse(queue.removeJob("b"));
+        assertNull(queue.takeJob("missing"));
+        assertEquals(List.of("a", "c"), ids(queue.getAllJobs()));
+        assertEquals(List.of("a"), ids(queue.getJobsByUser("alice")));
+        assertEquals(List.of("a", "c"), ids(queue.getJobsByType("General")));
+        assertEquals(List.of("c", "a"), ids(new ArrayList<>(queue.priorityView())));
+
+        assertTrue(queue.removeJobs(List.of("a", "c", "missing")));
+        assertEquals(0, queue.size());
+        assertTrue(queue.getJobsByUser("alice").isEmpty());
+        assertTrue(queue.priorityView().isEmpty());
+        assertNull(queue.pollJob());
+    }
+
+    @Test
+    public void testOrderingUsesPriorityAtInsertion() {
+        JobQueue queue = new JobQueue(10);
+        Job low = job("low", "alice", 9);
+        queue.addJob(job("z", "alice", 5));
+        queue.addJob(low);
+        queue.addJob(job("m", "alice", 5));
+        queue.addJob(job("high", "alice", 1));
+
+        // 按用户、类型查找保持入队顺序；优先级相同时按ID排序
+        assertEquals(List.of("z", "low", "m", "high"), ids(queue.getJobsByUser("alice")));
+        assertEquals(List.of("high", "m", "z", "low"), ids(new ArrayList<>(queue.priorityView())));
+
+        // 入队后修改优先级不影响排序，也不影响移除
+        low.getContext().setPriority(0);
+        assertEquals("low", queue.lowestPriorityFirst().next().getContext().getId());
+        assertTrue(queue.removeJob("low"));
+        assertEquals(List.of("high", "m", "z"), ids(new ArrayList<>(queue.priorityView())));
+
+        Iterator<Job> lowest = queue.lowestPriorityFirst();
+        assertEquals("z", lowest.next().getContext().getId());
+        assertEquals("z", queue.pollJob().getContext().getId()); // pollJob 按入队顺序
+    }
+
+    @Test
+    public void testConcurrentAddAndRemoveLeaveNoGhostEntries() throws Exception {
+        JobQueue queue = new JobQueue(1000);
+        int threads = 4;
+        int rounds = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean adder = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        String jobId = "j" + (i % 16);
+                        if (adder) {
+                            queue.addJob(job(jobId, "u" + (i % 3), i % 7));
+                        } else {
+                            queue.removeJob(jobId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int remaining = queue.size();
+        assertEquals(remaining, queue.getAllJobs().size());
+        assertEquals(remaining, queue.priorityView().size());
+        int byUser = 0;
+        for (int u = 0; u < 3; u++) {
+            byUser += queue.getJobsByUser("u" + u).size();
+        }
+        assertEquals(remaining, byUser);
+        for (int i = 0; i < remaining; i++) {
+            assertTrue(queue.pollJob() != null);
+        }
+        assertNull(queue.pollJob());
+        assertTrue(queue.getJobsByType("General").isEmpty());
+        assertTrue(queue.priorityView().isEmpty());
+    }
+
+    private static List<String> ids(List<Job> jobs) {
+        List<String> ids = new ArrayList<>();
+        for (Job job : jobs) {
+            ids.add(job.getContext().getId());
+        }
+        return ids;
+    }
+
+    private static Job job(String id, String user, int priority) {
+        return JobFactory.createJob(new JobContext(id, "Job " + id, user, priority, "General", "1", 1, 1));
+    }
+}
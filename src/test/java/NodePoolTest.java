@@ -0,0 +1,130 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.job.service.impl.ShardedJobManagerService;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.AllocationLease;
+import com.uniplore.resouce.management.FragmentationStats;
+import com.uniplore.resouce.management.NodePool;
+import com.uniplore.resouce.management.PlacementStrategy;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 节点资源池的单元测试。
+ */
+public class NodePoolTest {
+
+    @Test
+    public void testStrategiesPickExpectedNode() {
+        String spec = "a:8:8192,b:4:4096,c:16:16384";
+        assertEquals("b", placeOne(spec, PlacementStrategy.BEST_FIT, 3, 3072));
+        assertEquals("c", placeOne(spec, PlacementStrategy.WORST_FIT, 3, 3072));
+
+        // CPU 密集的作业放到 CPU 富余的节点，内存密集的作业放到内存富余的节点
+        String skewed = "x:16:4096,y:4:16384";
+        assertEquals("x", placeOne(skewed, PlacementStrategy.DOT_PRODUCT, 4, 512));
+        assertEquals("y", placeOne(skewed, PlacementStrategy.DOT_PRODUCT, 1, 8192));
+    }
+
+    @Test
+    public void testJobCannotSpanNodes() {
+        NodePool pool = NodePool.fromSpec("a:4:4096,b:4:4096", PlacementStrategy.BEST_FIT);
+        assertFalse(pool.tryAllocate("big", 6, 1024)); // 总量足够但单个节点放不下
+        assertTrue(pool.tryAllocate("j1", 3, 1024));
+        assertTrue(pool.tryAllocate("j2", 3, 1024));
+        assertEquals("a", pool.nodeOf("j1"));
+        assertEquals("b", pool.nodeOf("j2"));
+        assertFalse(pool.tryAllocate("j3", 2, 512));
+        assertEquals(2, pool.snapshot().getAvailableCpu());
+        assertFalse(pool.tryAllocate("j1", 1, 512)); // 同一作业不能重复放置
+
+        pool.release("j1", 3, 1024);
+        assertNull(pool.nodeOf("j1"));
+        assertTrue(pool.tryAllocate("j3", 2, 512));
+        assertEquals("a", pool.nodeOf("j3"));
+        assertThrows(IllegalStateException.class, () -> pool.release("j1", 3, 1024));
+
+        pool.releaseAll(List.of(new AllocationLease("j2", 3, 1024, 0, 0), new AllocationLease("j3", 2, 512, 0, 0)));
+        assertEquals(8, pool.snapshot().getAvailableCpu());
+        assertEquals(8192, pool.snapshot().getAvailableMemory());
+    }
+
+    @Test
+    public void testFragmentationStats() {
+        NodePool pool = NodePool.fromSpec("a:4:4096,b:4:4096", PlacementStrategy.BEST_FIT);
+        assertEquals(50.0, pool.fragmentation().getCpuFragmentation(), 1e-9);
+
+        assertTrue(pool.tryAllocate("j1", 4, 1024)); // a 的 CPU 用完，剩余内存无法使用
+        FragmentationStats stats = pool.fragmentation();
+        assertEquals(4, stats.getLargestFreeCpu());
+        assertEquals(0.0, stats.getCpuFragmentation(), 1e-9);
+        assertEquals((1 - 4096.0 / 7168) * 100, stats.getMemoryFragmentation(), 1e-9);
+        assertEquals(0, stats.getStrandedCpu());
+        assertEquals(3072, stats.getStrandedMemory());
+    }
+
+    @Test
+    public void testServicePlacesJobsOnNodes() {
+        SchedulerConfig config = SchedulerConfig.defaults()
+                .with(SchedulerConfig.NODES, "a:4:2048,b:4:2048")
+                .with(SchedulerConfig.PLACEMENT_STRATEGY, PlacementStrategy.BEST_FIT.configName());
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ContentEstimator());
+        try {
+            assertEquals(8, resourceManager.getTotalCpu());
+            assertFalse(resourceManager.isResizable()); // 总量由节点决定
+            assertThrows(IllegalStateException.class, () -> resourceManager.growAllotment(1, 1024));
+            jobManager.createJob(context("j1", 3));
+            jobManager.createJob(context("j2", 3));
+            jobManager.createJob(context("j3", 2)); // 两个节点各剩 1 个CPU
+            assertEquals("a", resourceManager.getNodeOf("j1"));
+            assertEquals("b", resourceManager.getNodeOf("j2"));
+            assertEquals(1, jobManager.getWaitingQueue().size());
+            assertEquals(50.0, jobManager.getMetrics().snapshot().getCpuFragmentation(), 1e-9);
+
+            assertTrue(jobManager.removeJob("j1"));
+            assertEquals("a", resourceManager.getNodeOf("j3"));
+            assertTrue(jobManager.getWaitingQueue().isEmpty());
+
+            jobManager.removeJobs(List.of("j2", "j3"));
+            assertEquals(8, resourceManager.getAvailableCpu());
+            assertEquals(4096, resourceManager.getAvailableMemory());
+        } finally {
+            jobManager.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ShardedJobManagerService(config.with(SchedulerConfig.SHARD_COUNT, 2)));
+    }
+
+    private static String placeOne(String spec, PlacementStrategy strategy, int cpu, int memory) {
+        NodePool pool = NodePool.fromSpec(spec, strategy);
+        assertTrue(pool.tryAllocate("job", cpu, memory));
+        return pool.nodeOf("job");
+    }
+
+    private static JobContext context(String id, int cpu) {
+        return new JobContext(id, "Job " + id, "User1", 1, "General", String.valueOf(cpu), 1, 3600);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 抢占的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class PreemptionTest {
+    private ResourceManager resourceManager;
+    private JobManagerServiceImpl jobManager;
+
+    @BeforeEach
+    public void setUp() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        resourceManager = new ResourceManager(config);
+        jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ContentEstimator());
+        // 20 个CPU全部占满：A(优先级5, 8 CPU) B(6, 4) C(7, 4) D(8, 4)
+        jobManager.createJob(context("A", 5, 8));
+        jobManager.createJob(context("B", 6, 4));
+        jobManager.createJob(context("C", 7, 4));
+        jobManager.createJob(context("D", 8, 4));
+        assertEquals(0, resourceManager.getAvailableCpu());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobManager.close();
+    }
+
+    @Test
+    public void testEvictsSmallestSetOfLowerPriorityJobs() {
+        jobManager.createJob(context("X", 1, 8));
+
+        // 驱逐一个 8 CPU 的作业即可，不需要驱逐两个 4 CPU 的作业
+        assertEquals(List.of("B", "C", "D", "X"), running());
+        assertEquals(List.of("A"), waiting());
+        assertEquals(0, resourceManager.getAvailableCpu());
+        assertEquals(1, jobManager.getMetrics().getEvictedCount());
+    }
+
+    @Test
+    public void testPrefersLowestPriorityAmongEqualVictims() {
+        jobManager.createJob(context("X", 1, 4));
+
+        assertEquals(List.of("A", "B", "C", "X"), running());
+        assertEquals(List.of("D"), waiting());
+    }
+
+    @Test
+    public void testNeverEvictsEqualOrHigherPriorityJobs() {
+        jobManager.createJob(context("X", 8, 4));
+        jobManager.createJob(context("Y", 7, 8)); // 只有 D 的优先级更低，驱逐 D 也不够
+
+        assertEquals(List.of("A", "B", "C", "D"), running());
+        assertEquals(List.of("Y", "X"), waiting());
+        assertEquals(0, jobManager.getMetrics().getEvictedCount());
+    }
+
+    @Test
+    public void testEvictedAllocationsAreReleasedExactlyOnce() {
+        jobManager.createJob(context("X", 1, 12));
+        assertEquals(List.of("B", "C", "X"), running()); // 驱逐 A 和 D
+        assertEquals(0, resourceManager.getAvailableCpu());
+
+        jobManager.removeJobs(List.of("A", "B", "C", "D", "X"));
+        assertEquals(20, resourceManager.getAvailableCpu());
+        assertEquals(20480, resourceManager.getAvailableMemory());
+    }
+
+    private List<String> running() {
+        return jobManager.getAllJobs().stream().map(job -> job.getContext().getId()).sorted().collect(Collectors.toList());
+    }
+
+    private List<String> waiting() {
+        return jobManager.getWaitingQueue().stream().map(job -> job.getContext().getId()).collect(Collectors.toList());
+    }
+
+    private static JobContext context(String id, int priority, int cpu) {
+        return new JobContext(id, "Job " + id, "User1", priority, "General", String.valueOf(cpu), 1, 3600);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
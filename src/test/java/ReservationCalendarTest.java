@@ -0,0 +1,207 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobHandle;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.JobState;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ReservationCalendar;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.scheduler.SchedulingMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 预约日历和预约调度的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存，共 20 个CPU。
+ */
+public class ReservationCalendarTest {
+
+    @Test
+    public void testEarliestSlotFollowsAvailabilityProfile() {
+        AtomicLong clock = new AtomicLong();
+        ReservationCalendar calendar = new ReservationCalendar(10, 10240, 1000, 100, clock::get);
+        calendar.book("r1", 6, 1024, 0, 10_000);
+        calendar.book("r2", 4, 1024, 0, 5_000); // 0-5 秒占满，5-10 秒剩 4 个CPU
+
+        assertEquals(10_000, calendar.earliestStart(8, 0, 3_000, 0));
+        assertEquals(5_000, calendar.earliestStart(4, 0, 6_000, 0));
+        assertEquals(5_000, calendar.earliestStart(4, 0, 6_000, 2_500));
+        assertEquals(Long.MAX_VALUE, calendar.earliestStart(11, 0, 1_000, 0));
+        assertEquals(10_000, calendar.earliestStart(1, 9500, 1_000, 0)); // 只受内存限制
+
+        assertEquals(10_000, calendar.reserve("big", 8, 0, 3_000, 0));
+        assertTrue(calendar.hasReservations());
+        assertEquals(10_000, calendar.reservedStart("big"));
+        assertEquals(13_000, calendar.earliestStart(4, 0, 6_000, 0)); // 不能占用 10-13 秒的预约
+        assertFalse(calendar.fits(null, 4, 0, 5_000, 11_000));
+        assertTrue(calendar.fits(null, 4, 0, 5_000, 10_000));
+        assertTrue(calendar.fits("big", 8, 0, 10_000, 13_000)); // 不计自身的预约
+        assertEquals(8, calendar.peakCpu(10_000, 13_000));
+
+        assertFalse(calendar.cancel("r1")); // 运行中作业的占用不是预约
+        assertTrue(calendar.release("r2"));
+        assertEquals(0, calendar.reserve("big", 4, 0, 3_000, 0)); // 重新预约提前到当前时刻
+        assertTrue(calendar.cancel("big"));
+        assertFalse(calendar.hasReservations());
+        assertEquals(-1, calendar.reservedStart("big"));
+
+        // 时间超过半个 horizon 后整体平移，已经结束的占用被丢弃
+        clock.set(80_000);
+        assertEquals(80_000, calendar.earliestStart(10, 10240, 1_000, 80_000));
+        calendar.book("late", 10, 0, 80_000, 85_500);
+        assertEquals(86_000, calendar.earliestStart(1, 0, 1_000, 80_000));
+        assertEquals(Long.MAX_VALUE, calendar.reserve("far", 10, 0, 1_000, 200_000));
+    }
+
+    @Test
+    public void testReservedHeadIsNotDelayedByLongJobs() throws Exception {
+        JobManagerServiceImpl jobManager = jobManager();
+        try {
+            jobManager.createJob(context("a", 1, 12, 1));
+            JobHandle big = jobManager.submit(context("big", 1, 18, 3600));
+            assertEquals(JobState.WAITING, big.getState());
+            assertTrue(jobManager.getReservedStart("big") > 0);
+
+            // 现在有 8 个空闲CPU：长作业会占用预约的时间窗口，短作业在预约开始前就会结束
+            JobHandle longJob = jobManager.submit(context("long", 5, 4, 3600));
+            assertEquals(JobState.WAITING, longJob.getState());
+            jobManager.createJob(context("short", 5, 4, 0));
+
+            assertEquals(JobState.ADMITTED, big.admission().get(5, TimeUnit.SECONDS));
+            assertEquals(-1, jobManager.getReservedStart("big"));
+            assertEquals(JobState.WAITING, longJob.getState());
+        } finally {
+            jobManager.close();
+        }
+    }
+
+    @Test
+    public void testGangStartsTogether() {
+        // 日历使用手动推进的时钟；作业都不会在测试期间结束，等待队列只在调用线程上处理
+        AtomicLong clock = new AtomicLong();
+        JobManagerServiceImpl jobManager = jobManager(clock::get);
+        try {
+            jobManager.createJob(context("x", 1, 12, 3600));
+            Map<String, JobHandle> gang = jobManager.submitGang(List.of(context("g1", 5, 6, 3600), context("g2", 5, 8, 3600)));
+            assertFalse(isRunning(jobManager, "g1")); // 单独的 g1 现在放得下，但不能只启动一部分
+            assertEquals(3_600_000, jobManager.getReservedStart("g2"));
+            assertTrue(jobManager.getWaitingQueue().isEmpty());
+
+            clock.set(50); // 现在运行 other 会占用作业组的预约
+            JobHandle other = jobManager.submit(context("other", 5, 7, 3600));
+            assertEquals(JobState.WAITING, other.getState());
+            assertEquals(7_200_000, jobManager.getReservedStart("other")); // 排在作业组之后
+
+            // x 结束后晚了一个多刻度才处理：作业组按原来的预约启动，不会排到之后预约的 other 后面
+            clock.set(3_600_150);
+            assertTrue(jobManager.removeJob("x"));
+            assertEquals(JobState.ADMITTED, gang.get("g1").admission().getNow(null));
+            assertEquals(JobState.ADMITTED, gang.get("g2").admission().getNow(null));
+            assertTrue(isRunning(jobManager, "g1"));
+            assertTrue(isRunning(jobManager, "g2"));
+            assertEquals(JobState.WAITING, other.getState());
+            assertEquals(7_200_000, jobManager.getReservedStart("other"));
+
+            // 移除一个成员时整个作业组取消，作业组预约在 g1、g2 结束之后
+            Map<String, JobHandle> blocked = jobManager.submitGang(List.of(context("h1", 5, 4, 1), context("h2", 5, 4, 1)));
+            assertTrue(jobManager.getReservedStart("h1") > 0);
+            assertTrue(jobManager.removeJob("h2"));
+            assertEquals(JobState.REMOVED, blocked.get("h2").completion().getNow(null));
+            assertEquals(JobState.CANCELLED, blocked.get("h1").completion().getNow(null));
+            assertEquals(-1, jobManager.getReservedStart("h1"));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> jobManager.submitGang(List.of(context("y1", 5, 12, 1), context("y2", 5, 12, 1))));
+        } finally {
+            jobManager.close();
+        }
+
+        SchedulerConfig plain = SchedulerConfig.defaults();
+        JobManagerServiceImpl headOfLine = new JobManagerServiceImpl(plain, new ResourceManager(plain));
+        try {
+            assertThrows(IllegalStateException.class, () -> headOfLine.submitGang(List.of(context("z", 5, 1, 1))));
+            assertThrows(IllegalArgumentException.class, () -> headOfLine.setSchedulingMode(SchedulingMode.RESERVATION));
+        } finally {
+            headOfLine.close();
+        }
+    }
+
+    @Test
+    public void testDueReservationKeepsItsPlace() {
+        AtomicLong clock = new AtomicLong();
+        ResourceManager resourceManager = new ResourceManager(reservationConfig(), clock::get);
+        ReservationCalendar calendar = resourceManager.getCalendar();
+        String[] jobIds = {"g1", "g2"};
+        int[] cpu = {6, 8};
+        int[] memory = {3072, 4096};
+        long[] durations = {10_000, 10_000};
+        assertTrue(resourceManager.allocateResources("x", 12, 6144, 1_000));
+        assertFalse(resourceManager.allocateGang("gang", jobIds, cpu, memory, durations));
+        assertEquals(1_000, calendar.reservedStart("gang"));
+        assertEquals(11_000, resourceManager.reserve("other", 7, 3584, 10_000));
+
+        // x 超过预计时间仍在运行：作业组到点后放不下，预约保持原位，不排到 other 后面
+        clock.set(1_150);
+        assertFalse(resourceManager.allocateGang("gang", jobIds, cpu, memory, durations));
+        assertEquals(1_000, calendar.reservedStart("gang"));
+        assertEquals(20 - 12, resourceManager.getAvailableCpu());
+        assertFalse(resourceManager.allocateResources("y", 1, 512, 10_000)); // 到点的预约仍然挡住后面的作业
+
+        resourceManager.releaseResources("x", 12, 6144);
+        assertFalse(resourceManager.allocateResources("other", 7, 3584, 10_000));
+        assertTrue(resourceManager.allocateGang("gang", jobIds, cpu, memory, durations));
+        assertEquals(-1, calendar.reservedStart("gang"));
+        assertEquals(20 - 14, resourceManager.getAvailableCpu());
+        assertEquals(11_000, resourceManager.reserve("other", 7, 3584, 10_000)); // 之后的预约也不推迟
+    }
+
+    private static SchedulerConfig reservationConfig() {
+        return SchedulerConfig.defaults()
+                .with(SchedulerConfig.SCHEDULING_MODE, SchedulingMode.RESERVATION.configName())
+                .with(SchedulerConfig.RESERVATION_SLOT, 100)
+                .with(SchedulerConfig.RESERVATION_HORIZON, 100_000);
+    }
+
+    private static JobManagerServiceImpl jobManager() {
+        return jobManager(System::currentTimeMillis);
+    }
+
+    private static JobManagerServiceImpl jobManager(LongSupplier clock) {
+        SchedulerConfig config = reservationConfig();
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config, clock));
+        jobManager.setResourceEstimator(new ContentEstimator());
+        return jobManager;
+    }
+
+    private static boolean isRunning(JobManagerServiceImpl jobManager, String jobId) {
+        JobProgress progress = jobManager.getProgress(jobId);
+        return progress != null && progress.isRunning();
+    }
+
+    private static JobContext context(String id, int priority, int cpu, int executionTime) {
+        return new JobContext(id, "Job " + id, "User1", priority, "General", String.valueOf(cpu), 1, executionTime);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import com.uniplore.event.EventLevel;
+import com.uniplore.event.EventSink;
+import com.uniplore.event.EventType;
+import com.uniplore.event.SchedulerEvent;
+import com.uniplore.event.SchedulerEventLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步事件日志的单元测试。
+ */
+public class SchedulerEventLogTest {
+
+    @Test
+    public void testLevelGatingAndOrdering() {
+        List<String> written = new ArrayList<>();
+        SchedulerEventLog eventLog = new SchedulerEventLog(16, EventLevel.INFO,
+                event -> written.add(event.getType() + ":" + event.getJobId()));
+
+        assertFalse(eventLog.record(EventType.ALLOCATE, null, null, 2, 1024, 18, 19456)); // DEBUG 级别被过滤
+        assertTrue(eventLog.record(EventType.ADMIT, "1", "Job 1", 2, 1024, 18, 19456));
+        assertTrue(eventLog.record(EventType.RELEASE, "1", "Job 1", 2, 1024, 20, 20480));
+        eventLog.setEnabled(EventType.RELEASE, false);
+        assertFalse(eventLog.record(EventType.RELEASE, "2", "Job 2", 2, 1024, 20, 20480));
+        eventLog.close();
+
+        assertEquals(List.of("ADMIT:1", "RELEASE:1"), written);
+    }
+
+    @Test
+    public void testFullBufferDropsInsteadOfBlocking() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<SchedulerEvent> written = new ArrayList<>();
+        EventSink blockingSink = event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(event);
+        };
+        SchedulerEventLog eventLog = new SchedulerEventLog(4, EventLevel.DEBUG, blockingSink);
+
+        int recorded = 0;
+        for (int i = 0; i < 100; i++) {
+            if (eventLog.record(EventType.ADMIT, String.valueOf(i), null, 1, 1, 0, 0)) {
+                recorded++;
+            }
+        }
+        assertTrue(recorded <= 5); // 容量 4，外加写线程可能已取走的一个
+        assertEquals(100 - recorded, eventLog.getDroppedCount());
+
+        release.countDown();
+        eventLog.close();
+        assertEquals(recorded, written.size());
+    }
+
+    @Test
+    public void testSinkFailuresCountAsDropped() {
+        List<String> written = new ArrayList<>();
+        SchedulerEventLog eventLog = new SchedulerEventLog(16, EventLevel.DEBUG, event -> {
+            if ("bad".equals(event.getJobId())) {
+                throw new IllegalStateException("sink failure");
+            }
+            written.add(event.getJobId());
+        });
+        assertTrue(eventLog.record(EventType.ADMIT, "1", null, 1, 1, 0, 0));
+        assertTrue(eventLog.record(EventType.ADMIT, "bad", null, 1, 1, 0, 0));
+        assertTrue(eventLog.record(EventType.ADMIT, "2", null, 1, 1, 0, 0));
+        eventLog.close();
+
+        assertEquals(List.of("1", "2"), written); // 写线程在失败后继续输出
+        assertEquals(1, eventLog.getDroppedCount());
+    }
+}
@@ -0,0 +1,98 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.metrics.LatencyHistogram;
+import com.uniplore.metrics.MetricsSnapshot;
+import com.uniplore.metrics.SchedulerMetrics;
+import com.uniplore.resouce.estimator.ComplexResourceEstimator;
+import com.uniplore.resouce.management.ResourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调度指标的单元测试。
+ */
+public class SchedulerMetricsTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 0.001);
+        // 对数-线性分桶的相对误差不超过 1/16
+        assertEquals(5000, histogram.percentile(50), 5000 / 16.0);
+        assertEquals(9900, histogram.percentile(99), 9900 / 16.0);
+        assertEquals(10000, histogram.percentile(100));
+    }
+
+    @Test
+    public void testServiceMetricsSnapshot() {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        ResourceManager resourceManager = new ResourceManager(config);
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, resourceManager);
+        jobManager.setResourceEstimator(new ComplexResourceEstimator());
+
+        List<JobContext> contexts = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            contexts.add(new JobContext("metrics-" + i, "Metrics Job " + i, "User1", i, "General", "Content " + i, 1, 60));
+        }
+        contexts.add(new JobContext("metrics-x", "Unknown Job", "User1", 1, "Unknown", "Content", 1, 60));
+        jobManager.createJobs(contexts);
+        jobManager.removeJobsWithResults(List.of("metrics-1", "metrics-2"));
+
+        MetricsSnapshot snapshot = jobManager.getMetrics().snapshot();
+        assertEquals(13, snapshot.getSubmittedCount());
+        assertEquals(7, snapshot.getAdmittedCount());
+        assertEquals(7, snapshot.getWaitingCount());
+        assertEquals(2, snapshot.getDroppedCount());
+        assertEquals(1, snapshot.getRejectedCount());
+        assertEquals(2, snapshot.getReleasedCount());
+        assertEquals(13, snapshot.getSubmitLatency().getCount());
+        assertEquals(1, snapshot.getReleaseLatency().getCount());
+        assertEquals(5, snapshot.getJobQueueDepth());
+        assertEquals(3, snapshot.getWaitingQueueDepth());
+        assertEquals(100.0, snapshot.getCpuUtilization(), 0.001);
+
+        // 直接运行的作业等待时间为 0，优先级 6 和 7 的作业从等待队列准入
+        assertEquals(7, snapshot.getQueueWaitTimeByPriority().size());
+        assertEquals(1, snapshot.getQueueWaitTimeByPriority().get(6).getCount());
+        assertEquals(1, snapshot.getQueueWaitTimeByPriority().get(7).getCount());
+        assertFalse(snapshot.getQueueWaitTimeByPriority().containsKey(8));
+    }
+
+    @Test
+    public void testRegisterAsMXBean() throws Exception {
+        SchedulerConfig config = SchedulerConfig.defaults();
+        JobManagerServiceImpl jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.createJob(new JobContext("jmx-1", "JMX Job", "User1", 1, "General", "Content", 1, 60));
+
+        SchedulerMetrics metrics = jobManager.getMetrics();
+        metrics.register("metrics-test");
+        ObjectName name = metrics.getObjectName();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertTrue(server.isRegistered(name));
+            assertEquals(1L, server.getAttribute(name, "AdmittedCount"));
+            assertEquals(1, server.getAttribute(name, "JobQueueDepth"));
+            CompositeData submitLatency = (CompositeData) server.getAttribute(name, "SubmitLatency");
+            assertEquals(1L, submitLatency.get("count"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,178 @@
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.JobProgress;
+import com.uniplore.job.service.Job;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.job.service.impl.ShardKey;
+import com.uniplore.job.service.impl.ShardedJobManagerService;
+import com.uniplore.resouce.estimator.ResourceEstimator;
+import com.uniplore.resouce.management.ResourceSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分片作业管理服务的单元测试：作业内容为需要的CPU数，每个CPU配 512MB 内存。
+ */
+public class ShardedJobManagerServiceTest {
+    private static final int TOTAL_CPU = 40;
+
+    @Test
+    public void testRebalanceMovesIdleCapacityToWaitingShard() {
+        SchedulerConfig config = config(2, ShardKey.ID, 60000);
+        try (ShardedJobManagerService service = new ShardedJobManagerService(config)) {
+            service.setResourceEstimator(new ContentEstimator());
+            service.createJob(context("big", 1, 30, 3600)); // 每个分片只分到 20 个CPU
+            assertFalse(service.getProgress("big").isRunning());
+
+            service.rebalance();
+            assertTrue(service.getProgress("big").isRunning());
+            assertEquals(TOTAL_CPU, totalAllotment(service));
+            assertEquals(10, service.getAvailableResources().getAvailableCpu());
+
+            assertTrue(service.removeJob("big"));
+            assertNull(service.getProgress("big"));
+            assertEquals(TOTAL_CPU, service.getAvailableResources().getAvailableCpu());
+        }
+    }
+
+    @Test
+    public void testConcurrentSubmittersKeepLedgerConsistent() throws InterruptedException {
+        SchedulerConfig config = config(4, ShardKey.ID, 60000);
+        try (ShardedJobManagerService service = new ShardedJobManagerService(config)) {
+            service.setResourceEstimator(new ContentEstimator());
+            int threads = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Thread submitter = new Thread(() -> {
+                    Random random = new Random(thread);
+                    List<String> created = new ArrayList<>();
+                    try {
+                        start.await();
+                        for (int i = 0; i < 2000; i++) {
+                            String jobId = "t" + thread + "-" + i;
+                            // 一部分作业立即完成，和提交、移除、重新划分并发释放资源
+                            service.createJob(context(jobId, 1 + random.nextInt(5), 1 + random.nextInt(4), random.nextInt(4) == 0 ? 0 : 3600));
+                            created.add(jobId);
+                            if (random.nextBoolean()) {
+                                service.removeJob(created.remove(random.nextInt(created.size())));
+                            }
+                            ResourceSnapshot available = service.getAvailableResources();
+                            if (available.getAvailableCpu() > TOTAL_CPU) {
+                                throw new AssertionError("available " + available);
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                });
+                submitters.add(submitter);
+                submitter.start();
+            }
+            // 重新划分和提交并发进行
+            Thread rebalancer = new Thread(() -> {
+                while (submitters.stream().anyMatch(Thread::isAlive)) {
+                    service.rebalance();
+                    if (totalAllotment(service) != TOTAL_CPU) {
+                        failure.compareAndSet(null, new AssertionError("allotment " + totalAllotment(service)));
+                    }
+                }
+            });
+            start.countDown();
+            rebalancer.start();
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            rebalancer.join();
+            assertNull(failure.get());
+            service.rebalance();
+            assertEquals(TOTAL_CPU, totalAllotment(service));
+            awaitQuiescence(service);
+
+            // 运行中作业的资源之和等于各分片已分配的资源之和
+            int runningCpu = 0;
+            List<String> remaining = new ArrayList<>();
+            for (Job job : service.getAllJobs()) {
+                JobProgress progress = service.getProgress(job.getContext().getId());
+                if (progress != null && progress.isRunning()) {
+                    runningCpu += Integer.parseInt(job.getContext().getContent());
+                }
+                remaining.add(job.getContext().getId());
+            }
+            assertEquals(TOTAL_CPU - runningCpu, service.getAvailableResources().getAvailableCpu());
+
+            for (JobManagerServiceImpl shard : service.getShards()) {
+                for (Job job : shard.getWaitingQueue()) {
+                    remaining.add(job.getContext().getId());
+                }
+            }
+            service.removeJobs(remaining);
+            assertTrue(service.getAllJobs().isEmpty());
+            assertEquals(TOTAL_CPU, service.getAvailableResources().getAvailableCpu());
+            assertEquals(TOTAL_CPU * 512, service.getAvailableResources().getAvailableMemory());
+            assertEquals(TOTAL_CPU, totalAllotment(service));
+        }
+    }
+
+    // 等待立即完成的作业全部结束，之后不再有作业在后台准入或释放
+    private static void awaitQuiescence(ShardedJobManagerService service) throws InterruptedException {
+        boolean busy = true;
+        while (busy) {
+            busy = false;
+            for (Job job : service.getAllJobs()) {
+                JobProgress progress = service.getProgress(job.getContext().getId());
+                busy |= job.getContext().getExecutionTime() == 0 && progress != null && progress.isRunning();
+            }
+            if (busy) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static int totalAllotment(ShardedJobManagerService service) {
+        int total = 0;
+        for (JobManagerServiceImpl shard : service.getShards()) {
+            total += shard.getResourceManager().getTotalCpu();
+        }
+        return total;
+    }
+
+    private static SchedulerConfig config(int shards, ShardKey key, int rebalanceMillis) {
+        return SchedulerConfig.defaults()
+                .with(SchedulerConfig.CPU_TOTAL, TOTAL_CPU)
+                .with(SchedulerConfig.MEMORY_TOTAL, TOTAL_CPU * 512)
+                .with(SchedulerConfig.QUEUE_SIZE, 1000)
+                .with(SchedulerConfig.WAITING_QUEUE_SIZE, 1000)
+                .with(SchedulerConfig.SHARD_COUNT, shards)
+                .with(SchedulerConfig.SHARD_KEY, key.configName())
+                .with(SchedulerConfig.SHARD_REBALANCE_INTERVAL, rebalanceMillis);
+    }
+
+    private static JobContext context(String id, int priority, int cpu, int seconds) {
+        return new JobContext(id, "Job " + id, "User1", priority, "General", String.valueOf(cpu), 1, seconds);
+    }
+
+    private static final class ContentEstimator implements ResourceEstimator {
+        @Override
+        public int estimateCpu(Job job) {
+            return Integer.parseInt(job.getContext().getContent());
+        }
+
+        @Override
+        public int estimateMemory(Job job) {
+            return estimateCpu(job) * 512;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import com.uniplore.resouce.management.ResourceSnapshot;
+import com.uniplore.resouce.management.SharedMemoryResourceLedger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 共享内存资源账本的单元测试，同一文件上的多个账本实例相当于多个调度进程。
+ */
+public class SharedMemoryResourceLedgerTest {
+
+    @Test
+    public void testLedgersShareCapacity(@TempDir Path directory) {
+        Path file = directory.resolve("ledger");
+        try (SharedMemoryResourceLedger first = new SharedMemoryResourceLedger(file, 20, 20480)) {
+            try (SharedMemoryResourceLedger second = new SharedMemoryResourceLedger(file, 4, 1024)) {
+                assertEquals(20, second.getTotalCpu()); // 以先创建文件的进程的总量为准
+                assertTrue(first.tryAllocate(15, 8192));
+                assertFalse(second.tryAllocate(10, 1024));
+                assertTrue(second.tryAllocate(5, 1024));
+                assertEquals(0, first.snapshot().getAvailableCpu());
+                assertEquals(20480 - 9216, second.snapshot().getAvailableMemory());
+
+                first.release(15, 8192);
+                assertTrue(second.tryAllocate(10, 1024));
+                assertEquals(15, second.getHeld().getAvailableCpu());
+            }
+            assertEquals(20, first.snapshot().getAvailableCpu()); // 关闭时归还全部占用
+        }
+    }
+
+    @Test
+    public void testConcurrentAllocationNeverOvercommits(@TempDir Path directory) throws InterruptedException {
+        Path file = directory.resolve("ledger");
+        List<SharedMemoryResourceLedger> ledgers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ledgers.add(new SharedMemoryResourceLedger(file, 20, 20480));
+        }
+        AtomicInteger granted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (SharedMemoryResourceLedger ledger : ledgers) {
+            for (int t = 0; t < 2; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        if (ledger.tryAllocate(1, 512)) {
+                            granted.incrementAndGet();
+                            ResourceSnapshot snapshot = ledger.snapshot();
+                            assertTrue(snapshot.getAvailableCpu() >= 0 && snapshot.getAvailableMemory() >= 0);
+                            ledger.release(1, 512);
+                            granted.decrementAndGet();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, granted.get());
+        SharedMemoryResourceLedger ledger = ledgers.get(0);
+        assertEquals(20, ledger.snapshot().getAvailableCpu());
+        int count = 0;
+        while (ledger.tryAllocate(1, 512)) {
+            count++;
+        }
+        assertEquals(20, count);
+        ledgers.forEach(SharedMemoryResourceLedger::close);
+    }
+
+    @Test
+    public void testResourcesOfKilledProcessAreReclaimed(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("ledger");
+        try (SharedMemoryResourceLedger ledger = new SharedMemoryResourceLedger(file, 20, 20480)) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    Holder.class.getName(), file.toString()).redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null && !line.equals("ALLOCATED")) {
+                    // 跳过子进程的日志输出
+                }
+                assertEquals("ALLOCATED", line);
+            }
+            assertEquals(12, ledger.snapshot().getAvailableCpu());
+            assertEquals(0, ledger.reclaimDeadProcesses()); // 子进程存活时不回收
+
+            child.destroyForcibly();
+            assertTrue(child.waitFor(30, TimeUnit.SECONDS));
+            assertTrue(ledger.tryAllocate(20, 1024)); // 分配失败时自动回收已退出进程的资源
+            assertEquals(0, ledger.snapshot().getAvailableCpu());
+            assertEquals(20480 - 1024, ledger.snapshot().getAvailableMemory());
+        }
+    }
+
+    @Test
+    public void testSlotOwnershipIsPublishedBeforeReclaim(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("ledger");
+        new SharedMemoryResourceLedger(file, 20, 20480, 4).close();
+        long deadPid = Integer.MAX_VALUE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, 64 + 64 * 4);
+            slots.order(ByteOrder.nativeOrder());
+            // 槽位 0 正在被占用：令牌已写入，进程ID尚未发布，留有上一个所有者的启动时间
+            slots.putLong(64 + 16, 3L);
+            slots.putLong(64 + 8, 1L);
+            // 槽位 1 的所有者已退出
+            slots.putLong(128, deadPid);
+            slots.putLong(128 + 8, 1L);
+            slots.putLong(128 + 16, 5L);
+
+            try (SharedMemoryResourceLedger ledger = new SharedMemoryResourceLedger(file, 20, 20480, 4)) {
+                assertEquals(3L, slots.getLong(64 + 16)); // 占用中的槽位不被回收
+                assertEquals(0, ledger.reclaimDeadProcesses());
+                assertEquals(ProcessHandle.current().pid(), slots.getLong(128)); // 回收的槽位被新实例占用
+                assertTrue(slots.getLong(128 + 8) != 1L);
+            }
+            // 关闭后所有者信息全部清零，包括启动时间
+            assertEquals(0L, slots.getLong(128));
+            assertEquals(0L, slots.getLong(128 + 8));
+            assertEquals(0L, slots.getLong(128 + 16));
+        }
+    }
+
+    /**
+     * 子进程：分配资源后不释放，等待被强制结束。
+     */
+    public static class Holder {
+        public static void main(String[] args) throws InterruptedException {
+            SharedMemoryResourceLedger ledger = new SharedMemoryResourceLedger(Paths.get(args[0]), 20, 20480);
+            if (!ledger.tryAllocate(8, 4096)) {
+                System.exit(1);
+            }
+            System.out.println("ALLOCATED");
+            System.out.flush();
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
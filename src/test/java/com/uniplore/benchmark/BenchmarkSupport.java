@@ -0,0 +1,32 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.event.EventLevel;
+import com.uniplore.event.SchedulerEventLog;
+import com.uniplore.job.JobContext;
+
+/**
+ * 基准测试的公共方法。
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 关闭事件日志，避免日志输出影响测量。
+     */
+    static void quiet() {
+        SchedulerEventLog.getInstance().setLevel(EventLevel.OFF);
+    }
+
+    /**
+     * 资源足够容纳 jobs 个简单作业（每个 2 CPU / 1024MB）的配置。
+     */
+    static SchedulerConfig configFor(int jobs, int waitingJobs) {
+        return new SchedulerConfig(jobs * 2, jobs * 1024, 100, jobs, waitingJobs);
+    }
+
+    static JobContext context(String id, String user, int priority, String type, int executionTime) {
+        return new JobContext(id, "Job " + id, user, priority, type, "Content of " + id, 1, executionTime);
+    }
+}
@@ -0,0 +1,64 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.management.ResourceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * createJob / removeJob 在不同作业队列规模下的耗时。
+ * 队列预先填满到只剩一个空位，每次操作创建一个作业再将其移除。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobManagerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int queueSize;
+
+    private JobManagerServiceImpl jobManager;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        SchedulerConfig config = BenchmarkSupport.configFor(queueSize, queueSize);
+        jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        for (int i = 0; i < queueSize - 1; i++) {
+            jobManager.createJob(BenchmarkSupport.context("fill-" + i, "User" + (i % 100), i % 50, "General", 3600));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jobManager.close();
+    }
+
+    @Benchmark
+    public boolean createAndRemoveJob() {
+        String jobId = "job-" + sequence++;
+        jobManager.createJob(BenchmarkSupport.context(jobId, "User1", 1, "General", 3600));
+        return jobManager.removeJob(jobId);
+    }
+
+    @Benchmark
+    public boolean updateJob() {
+        return jobManager.updateJob("fill-" + (sequence++ % (queueSize - 1)), "Updated", "Updated content");
+    }
+}
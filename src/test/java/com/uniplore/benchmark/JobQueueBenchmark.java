@@ -0,0 +1,65 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.factory.JobFactory;
+import com.uniplore.job.service.Job;
+import com.uniplore.queue.JobQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobQueue 按ID、用户、类型查找的耗时。作业均匀分布在 100 个用户和两种类型上。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobQueueBenchmark {
+    private static final int USERS = 100;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private JobQueue jobQueue;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        jobQueue = new JobQueue(size);
+        for (int i = 0; i < size; i++) {
+            String type = i % 2 == 0 ? "General" : "Simple";
+            jobQueue.addJob(JobFactory.createJob(BenchmarkSupport.context(String.valueOf(i), "User" + (i % USERS), i % 50, type, 60)));
+        }
+    }
+
+    @Benchmark
+    public Job getJobById() {
+        cursor = (cursor + 7919) % size;
+        return jobQueue.getJob(String.valueOf(cursor));
+    }
+
+    @Benchmark
+    public List<Job> getJobsByUser() {
+        cursor = (cursor + 1) % USERS;
+        return jobQueue.getJobsByUser("User" + cursor);
+    }
+
+    @Benchmark
+    public List<Job> getJobsByType() {
+        cursor++;
+        return jobQueue.getJobsByType((cursor & 1) == 0 ? "General" : "Simple");
+    }
+}
@@ -0,0 +1,117 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.job.JobContext;
+import com.uniplore.journal.JobJournal;
+import com.uniplore.journal.JournalRecovery;
+import com.uniplore.journal.JournalSnapshotter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 预写日志的写入和恢复耗时。
+ * 恢复的日志中每个作业依次写入提交、准入、等待或驱逐、完成等记录，约四分之一的作业在崩溃时仍未结束；
+ * 对比重放全部日志和从快照恢复两种情况。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    @Param({"1000000"})
+    public int records;
+
+    private Path recoveryDirectory;
+    private Path snapshotDirectory;
+    private Path appendDirectory;
+    private JobJournal journal;
+    private JobContext context;
+    private long sequence;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkSupport.quiet();
+        recoveryDirectory = Files.createTempDirectory("journal-recovery");
+        snapshotDirectory = Files.createTempDirectory("journal-snapshot");
+        try (JobJournal writer = JobJournal.open(recoveryDirectory, 64 << 20, 10)) {
+            write(writer);
+        }
+        try (JobJournal writer = JobJournal.open(snapshotDirectory, 64 << 20, 10)) {
+            write(writer);
+            new JournalSnapshotter(writer).snapshot();
+        }
+        appendDirectory = Files.createTempDirectory("journal-append");
+        journal = JobJournal.open(appendDirectory, 64 << 20, 10);
+        context = BenchmarkSupport.context("append", "User1", 5, "General", 60);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        delete(recoveryDirectory);
+        delete(snapshotDirectory);
+        delete(appendDirectory);
+    }
+
+    @Benchmark
+    public JournalRecovery recover() {
+        return JournalRecovery.replay(recoveryDirectory);
+    }
+
+    @Benchmark
+    public JournalRecovery recoverFromSnapshot() {
+        return JournalRecovery.replay(snapshotDirectory);
+    }
+
+    /**
+     * 一次提交加一次准入的写入耗时，组提交下不等待刷盘。
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void append() {
+        context.setId("append-" + sequence++);
+        journal.recordSubmit(context);
+        journal.recordAdmit(context.getId(), 2, 1024, 0);
+    }
+
+    private void write(JobJournal writer) {
+        for (int i = 0; writer.getAppendedRecords() < records; i++) {
+            String jobId = "job-" + i;
+            writer.recordSubmit(BenchmarkSupport.context(jobId, "User" + (i % 100), 1 + i % 50, "General", 60));
+            writer.recordAdmit(jobId, 2, 1024, 0);
+            if (i % 4 == 0) {
+                continue; // 崩溃时仍在运行
+            }
+            if (i % 4 == 1) {
+                writer.recordEvict(jobId, 2, 1024, 30_000);
+                writer.recordAdmit(jobId, 2, 1024, 30_000);
+            }
+            writer.recordComplete(jobId);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
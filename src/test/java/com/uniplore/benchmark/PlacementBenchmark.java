@@ -0,0 +1,114 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.resouce.management.NodePool;
+import com.uniplore.resouce.management.NodeUsage;
+import com.uniplore.resouce.management.PlacementStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 10000 个规格不同的节点上放置并释放一个作业的耗时，节点池预先填充到约 70% 的CPU使用率。
+ * linearScanBestFit 是逐个节点比较的最佳适配，作为索引查找的对照。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+    private static final int[] NODE_CPU = {8, 16, 32, 64, 96};
+    private static final int[] MEMORY_PER_CPU = {2048, 4096, 8192};
+    private static final int REQUESTS = 1024;
+
+    @Param({"10000"})
+    public int nodes;
+
+    @Param({"BEST_FIT", "WORST_FIT", "DOT_PRODUCT"})
+    public PlacementStrategy strategy;
+
+    private NodePool pool;
+    private int[] freeCpu;
+    private int[] freeMemory;
+    private final int[] requestCpu = new int[REQUESTS];
+    private final int[] requestMemory = new int[REQUESTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        Random random = new Random(42);
+        List<NodeUsage> capacities = new ArrayList<>(nodes);
+        long totalCpu = 0;
+        for (int i = 0; i < nodes; i++) {
+            int cpu = NODE_CPU[random.nextInt(NODE_CPU.length)];
+            int memory = cpu * MEMORY_PER_CPU[random.nextInt(MEMORY_PER_CPU.length)];
+            capacities.add(new NodeUsage("node-" + i, cpu, memory, cpu, memory));
+            totalCpu += cpu;
+        }
+        pool = new NodePool(capacities, strategy);
+        for (int i = 0; i < REQUESTS; i++) {
+            requestCpu[i] = 1 + random.nextInt(8);
+            requestMemory[i] = requestCpu[i] * MEMORY_PER_CPU[random.nextInt(MEMORY_PER_CPU.length)];
+        }
+
+        long used = 0;
+        for (int i = 0; used < totalCpu * 7 / 10 && i < nodes * 100; i++) {
+            int cpu = requestCpu[i % REQUESTS];
+            if (pool.tryAllocate("fill-" + i, cpu, requestMemory[i % REQUESTS])) {
+                used += cpu;
+            }
+        }
+
+        List<NodeUsage> usages = pool.getNodes();
+        freeCpu = new int[usages.size()];
+        freeMemory = new int[usages.size()];
+        for (int i = 0; i < usages.size(); i++) {
+            freeCpu[i] = usages.get(i).getFreeCpu();
+            freeMemory[i] = usages.get(i).getFreeMemory();
+        }
+    }
+
+    @Benchmark
+    public boolean placeAndRelease() {
+        int i = next++ & (REQUESTS - 1);
+        if (pool.tryAllocate("job", requestCpu[i], requestMemory[i])) {
+            pool.release("job", requestCpu[i], requestMemory[i]);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public int linearScanBestFit() {
+        int i = next++ & (REQUESTS - 1);
+        int cpu = requestCpu[i];
+        int memory = requestMemory[i];
+        int best = -1;
+        long bestLeftover = Long.MAX_VALUE;
+        for (int n = 0; n < freeCpu.length; n++) {
+            if (freeCpu[n] >= cpu && freeMemory[n] >= memory) {
+                long leftover = (long) (freeCpu[n] - cpu) * 8192 + (freeMemory[n] - memory);
+                if (leftover < bestLeftover) {
+                    best = n;
+                    bestLeftover = leftover;
+                }
+            }
+        }
+        return best;
+    }
+}
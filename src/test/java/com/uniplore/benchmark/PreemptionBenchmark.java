@@ -0,0 +1,63 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.resouce.management.ResourceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 混合优先级负载下的抢占开销。
+ * 资源被不同优先级的长作业占满，每次提交一个随机优先级的作业：优先级更高时驱逐一个作业，否则进入等待队列；
+ * 随后移除该作业，被驱逐的作业在处理等待队列时重新运行，负载保持稳定。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreemptionBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int runningJobs;
+
+    private JobManagerServiceImpl jobManager;
+    private SplittableRandom random;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        SchedulerConfig config = BenchmarkSupport.configFor(runningJobs, runningJobs + 1);
+        jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        random = new SplittableRandom(42);
+        for (int i = 0; i < runningJobs; i++) {
+            jobManager.createJob(BenchmarkSupport.context("running-" + i, "User" + (i % 100), 10 + random.nextInt(50), "General", 3600));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jobManager.close();
+    }
+
+    @Benchmark
+    public boolean preemptAndRelease() {
+        String jobId = "incoming-" + sequence++;
+        jobManager.createJob(BenchmarkSupport.context(jobId, "User1", 1 + random.nextInt(60), "General", 3600));
+        return jobManager.removeJob(jobId);
+    }
+}
@@ -0,0 +1,127 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.resouce.management.AggregateResourceLedger;
+import com.uniplore.resouce.management.AtomicResourceLedger;
+import com.uniplore.resouce.management.ResourceSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源账本在 1 到 64 个线程竞争下的吞吐量：无锁账本与原先基于 synchronized 监视器的实现对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceLedgerBenchmark {
+    @Param({"monitor", "atomic"})
+    private String ledgerType;
+
+    private AggregateResourceLedger ledger;
+
+    @Setup
+    public void setUp() {
+        ledger = "monitor".equals(ledgerType) ? new MonitorResourceLedger(20, 20480) : new AtomicResourceLedger(20, 20480);
+    }
+
+    private ResourceSnapshot allocateAndRelease() {
+        if (ledger.tryAllocate(2, 1024)) {
+            ledger.release(2, 1024);
+        }
+        return ledger.snapshot();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResourceSnapshot threads1() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ResourceSnapshot threads4() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public ResourceSnapshot threads16() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public ResourceSnapshot threads64() {
+        return allocateAndRelease();
+    }
+
+    /**
+     * 原先 ResourceManager 的监视器实现（去掉控制台输出），作为对照组。
+     */
+    private static final class MonitorResourceLedger implements AggregateResourceLedger {
+        private int totalCpu;
+        private int totalMemory;
+        private int availableCpu;
+        private int availableMemory;
+
+        private MonitorResourceLedger(int totalCpu, int totalMemory) {
+            this.totalCpu = totalCpu;
+            this.totalMemory = totalMemory;
+            this.availableCpu = totalCpu;
+            this.availableMemory = totalMemory;
+        }
+
+        @Override
+        public synchronized boolean tryAllocate(int cpu, int memory) {
+            if (availableCpu >= cpu && availableMemory >= memory) {
+                availableCpu -= cpu;
+                availableMemory -= memory;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public synchronized void release(int cpu, int memory) {
+            availableCpu += cpu;
+            availableMemory += memory;
+        }
+
+        @Override
+        public synchronized ResourceSnapshot snapshot() {
+            return new ResourceSnapshot(availableCpu, availableMemory);
+        }
+
+        @Override
+        public synchronized void resize(int totalCpu, int totalMemory) {
+            availableCpu += totalCpu - this.totalCpu;
+            availableMemory += totalMemory - this.totalMemory;
+            this.totalCpu = totalCpu;
+            this.totalMemory = totalMemory;
+        }
+
+        @Override
+        public synchronized int getTotalCpu() {
+            return totalCpu;
+        }
+
+        @Override
+        public synchronized int getTotalMemory() {
+            return totalMemory;
+        }
+    }
+}
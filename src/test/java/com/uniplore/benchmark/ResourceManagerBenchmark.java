@@ -0,0 +1,68 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.resouce.management.ResourceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResourceManager.allocateResources / releaseResources 在 1 到 64 个线程竞争下的吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceManagerBenchmark {
+    private ResourceManager resourceManager;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        resourceManager = new ResourceManager(new SchedulerConfig(20, 20480, 100, 10, 5));
+    }
+
+    private boolean allocateAndRelease() {
+        if (resourceManager.allocateResources("benchmark", 2, 1024)) {
+            resourceManager.releaseResources("benchmark", 2, 1024);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads1() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threads4() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean threads16() {
+        return allocateAndRelease();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean threads64() {
+        return allocateAndRelease();
+    }
+}
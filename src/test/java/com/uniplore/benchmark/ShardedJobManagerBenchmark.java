@@ -0,0 +1,69 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.service.impl.ShardKey;
+import com.uniplore.job.service.impl.ShardedJobManagerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个线程同时提交和移除作业时的吞吐量，对比不同的分片数量；线程数用 -t 调整。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ShardedJobManagerBenchmark {
+    @Param({"1", "4", "16"})
+    public int shards;
+
+    private ShardedJobManagerService service;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Submitter {
+        private String prefix;
+        private long sequence;
+    }
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        SchedulerConfig config = BenchmarkSupport.configFor(1000, 1000)
+                .with(SchedulerConfig.SHARD_COUNT, shards)
+                .with(SchedulerConfig.SHARD_KEY, ShardKey.ID.configName());
+        service = new ShardedJobManagerService(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public boolean createAndRemoveJob(Submitter submitter) {
+        if (submitter.prefix == null) {
+            submitter.prefix = "thread-" + threads.incrementAndGet() + "-";
+        }
+        String jobId = submitter.prefix + submitter.sequence++;
+        service.createJob(BenchmarkSupport.context(jobId, "User1", 1, "General", 3600));
+        return service.removeJob(jobId);
+    }
+}
@@ -0,0 +1,96 @@
+package com.uniplore.benchmark;
+
+import com.uniplore.config.SchedulerConfig;
+import com.uniplore.job.JobContext;
+import com.uniplore.job.service.impl.JobManagerServiceImpl;
+import com.uniplore.queue.QueuePolicy;
+import com.uniplore.resouce.management.ResourceManager;
+import com.uniplore.scheduler.SchedulingMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * processWaitingQueue 在深等待队列下的耗时。
+ * 所有资源都被一个长时间运行的作业占用，等待队列中的作业均无法启动，这是调度器满载时最常见的状态。
+ * 等待作业分属 100 个用户，fair-share 策略下每次选择都要经过用户树；
+ * capacity 策略下 100 个用户分属 10 个团队，组成两级队列树。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaitingQueueBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int depth;
+
+    @Param({"HEAD_OF_LINE", "EASY_BACKFILL"})
+    public SchedulingMode mode;
+
+    @Param({"PRIORITY", "FAIR_SHARE", "CAPACITY"})
+    public QueuePolicy policy;
+
+    private JobManagerServiceImpl jobManager;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        SchedulerConfig config = new SchedulerConfig(2, 1024, 100, 10, depth + 1)
+                .with(SchedulerConfig.QUEUE_POLICY, policy.configName())
+                .with(SchedulerConfig.CAPACITY_QUEUES, capacityQueues());
+        jobManager = new JobManagerServiceImpl(config, new ResourceManager(config));
+        jobManager.setSchedulingMode(mode);
+        jobManager.createJob(BenchmarkSupport.context("running", "User0", 0, "General", 3600));
+
+        List<JobContext> waiting = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            waiting.add(BenchmarkSupport.context("waiting-" + i, "User" + (i % 100), 1 + i % 50, "General", 60));
+        }
+        jobManager.createJobs(waiting);
+    }
+
+    // 10 个团队各 10% 的保证份额，团队内每个用户 10%，空闲时可以借用全部资源
+    private static String capacityQueues() {
+        StringBuilder queues = new StringBuilder();
+        for (int team = 0; team < 10; team++) {
+            queues.append(queues.length() == 0 ? "" : ",").append("team").append(team).append(":10:100");
+            for (int user = team * 10; user < team * 10 + 10; user++) {
+                queues.append(",team").append(team).append(".User").append(user).append(":10:100");
+            }
+        }
+        return queues.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jobManager.close();
+    }
+
+    @Benchmark
+    public void processWaitingQueue() {
+        jobManager.processWaitingQueue();
+    }
+
+    @Benchmark
+    public boolean enqueueAndCancel() {
+        String jobId = "extra-" + sequence++;
+        jobManager.createJobs(List.of(BenchmarkSupport.context(jobId, "User1", 25, "General", 60)));
+        return jobManager.removeJob(jobId);
+    }
+}